@@ -0,0 +1,160 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.jmh.datasource;
+
+import co.rsk.util.MaxSizeHashMap;
+import co.rsk.util.StripedLruMap;
+import org.ethereum.db.ByteArrayWrapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compares the committed cache lookup of {@link org.ethereum.datasource.DataSourceWithCache}: the former one,
+ * a synchronized LRU map read under a shared global lock, and the current striped LRU map read without it.
+ *
+ * The number of reader threads is set with -t, see {@link co.rsk.jmh.runners.BenchmarkCommittedCacheRunner}
+ * to run it from 1 to 64 threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class BenchmarkCommittedCache {
+
+    @Benchmark
+    public byte[] get(CachePlan plan) {
+        ByteArrayWrapper key = plan.keys[ThreadLocalRandom.current().nextInt(plan.keys.length)];
+        return plan.cache.get(key);
+    }
+
+    public enum CacheType {
+        SYNCHRONIZED,
+        STRIPED
+    }
+
+    @State(Scope.Benchmark)
+    public static class CachePlan {
+
+        @Param({"SYNCHRONIZED", "STRIPED"})
+        public CacheType cacheType;
+
+        @Param({"100000"})
+        public int cacheSize;
+
+        // percentage of lookups on keys that are not cached, which are then added to it
+        @Param({"10"})
+        public int missPercentage;
+
+        private Cache cache;
+        private ByteArrayWrapper[] keys;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            cache = cacheType == CacheType.SYNCHRONIZED ? new SynchronizedCache(cacheSize) : new StripedCache(cacheSize);
+
+            Random random = new Random(cacheSize);
+            keys = new ByteArrayWrapper[cacheSize + cacheSize * missPercentage / 100];
+
+            for (int i = 0; i < keys.length; i++) {
+                byte[] key = new byte[32];
+                random.nextBytes(key);
+                keys[i] = new ByteArrayWrapper(key);
+
+                if (i < cacheSize) {
+                    cache.put(keys[i], key);
+                }
+            }
+        }
+    }
+
+    private interface Cache {
+        byte[] get(ByteArrayWrapper key);
+
+        void put(ByteArrayWrapper key, byte[] value);
+    }
+
+    /**
+     * The committed cache lookup as it was done before the striped cache.
+     */
+    private static class SynchronizedCache implements Cache {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<ByteArrayWrapper, byte[]> map;
+
+        SynchronizedCache(int cacheSize) {
+            this.map = Collections.synchronizedMap(new MaxSizeHashMap<>(cacheSize, true));
+        }
+
+        @Override
+        public byte[] get(ByteArrayWrapper key) {
+            lock.readLock().lock();
+
+            try {
+                if (map.containsKey(key)) {
+                    return map.get(key);
+                }
+
+                byte[] value = key.getData();
+                map.put(key, value);
+                return value;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void put(ByteArrayWrapper key, byte[] value) {
+            map.put(key, value);
+        }
+    }
+
+    private static class StripedCache implements Cache {
+        private static final byte[] MISSING_VALUE = new byte[0];
+
+        private final StripedLruMap<ByteArrayWrapper, byte[]> map;
+
+        StripedCache(int cacheSize) {
+            this.map = new StripedLruMap<>(cacheSize);
+        }
+
+        @Override
+        public byte[] get(ByteArrayWrapper key) {
+            byte[] value = map.getOrDefault(key, MISSING_VALUE);
+
+            if (value != MISSING_VALUE) {
+                return value;
+            }
+
+            value = key.getData();
+            map.put(key, value);
+            return value;
+        }
+
+        @Override
+        public void put(ByteArrayWrapper key, byte[] value) {
+            map.put(key, value);
+        }
+    }
+}
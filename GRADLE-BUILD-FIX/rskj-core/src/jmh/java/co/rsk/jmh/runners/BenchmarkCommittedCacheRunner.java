@@ -0,0 +1,56 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.jmh.runners;
+
+import co.rsk.jmh.datasource.BenchmarkCommittedCache;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class BenchmarkCommittedCacheRunner {
+
+    private static final int[] READER_THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    public static void main(String[] args) throws Exception {
+        Path resultDir = Paths.get(System.getProperty("user.dir"), "build", "reports", "jmh");
+
+        File jmhReportsFolder = resultDir.toFile();
+        if (!jmhReportsFolder.exists() && !jmhReportsFolder.mkdirs()) {
+            throw new IllegalStateException("Cannot create JMH reports folder");
+        }
+
+        for (int threads : READER_THREADS) {
+            Options opt = new OptionsBuilder()
+                    .include(BenchmarkCommittedCache.class.getName())
+                    .threads(threads)
+                    .result(resultDir + "/result_committed_cache_" + threads + "_threads.csv")
+                    .resultFormat(ResultFormatType.CSV)
+                    .shouldFailOnError(true)
+                    .build();
+
+            new Runner(opt).run();
+        }
+    }
+
+}
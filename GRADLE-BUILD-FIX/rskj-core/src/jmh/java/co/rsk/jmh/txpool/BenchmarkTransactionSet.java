@@ -0,0 +1,120 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.jmh.txpool;
+
+import co.rsk.core.RskAddress;
+import org.ethereum.config.Constants;
+import org.ethereum.core.ReceivedTxSignatureCache;
+import org.ethereum.core.SignatureCache;
+import org.ethereum.core.Transaction;
+import org.ethereum.core.TransactionSet;
+import org.ethereum.crypto.ECKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the admission of transactions into the {@link TransactionSet} of the transaction pool once it is full,
+ * evicting the cheapest transaction to make room for each new one, as {@link co.rsk.core.bc.TransactionPoolImpl} does.
+ *
+ * Run it with -PjmhArgs="co.rsk.jmh.txpool.BenchmarkTransactionSet", the score is the number of admitted transactions per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class BenchmarkTransactionSet {
+
+    @Benchmark
+    public TransactionSet addTransaction(TransactionSetPlan plan) {
+        Transaction transaction = plan.nextTransaction();
+        TransactionSet transactionSet = plan.transactionSet;
+
+        if (transactionSet.size() >= plan.maxPoolSize) {
+            transactionSet.getCheapestTransaction().ifPresent(tx -> transactionSet.removeTransactionByHash(tx.getHash()));
+        }
+
+        transactionSet.addTransaction(transaction);
+
+        return transactionSet;
+    }
+
+    @State(Scope.Thread)
+    public static class TransactionSetPlan {
+
+        @Param({"4000", "16000"})
+        public int maxPoolSize;
+
+        @Param({"500"})
+        public int senders;
+
+        private final SignatureCache signatureCache = new ReceivedTxSignatureCache();
+
+        private Transaction[] transactions;
+        private int next;
+        private TransactionSet transactionSet;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(maxPoolSize);
+            ECKey[] keys = new ECKey[senders];
+
+            for (int k = 0; k < senders; k++) {
+                keys[k] = new ECKey();
+            }
+
+            RskAddress receiver = new RskAddress(new ECKey().getAddress());
+            transactions = new Transaction[maxPoolSize * 4];
+
+            for (int k = 0; k < transactions.length; k++) {
+                Transaction tx = Transaction.builder()
+                        .nonce(BigInteger.valueOf(k / senders))
+                        .gasPrice(BigInteger.valueOf(1 + random.nextInt(1000)))
+                        .gasLimit(BigInteger.valueOf(21000))
+                        .destination(receiver)
+                        .value(BigInteger.ONE)
+                        .chainId(Constants.REGTEST_CHAIN_ID)
+                        .build();
+                tx.sign(keys[k % senders].getPrivKeyBytes());
+
+                // the pool gets the transactions with their sender already recovered
+                tx.getSender();
+                transactions[k] = tx;
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public void setUpIteration() {
+            next = 0;
+            transactionSet = new TransactionSet(signatureCache);
+        }
+
+        Transaction nextTransaction() {
+            if (next == transactions.length) {
+                next = 0;
+                transactionSet = new TransactionSet(signatureCache);
+            }
+
+            return transactions[next++];
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.jmh.vm;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.MutableDataWord;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the arithmetic opcodes done with {@link BigInteger}, as they were done before, with the 64 bits limbs
+ * arithmetic, both through the {@link DataWord} methods and reusing {@link MutableDataWord} instances as the VM does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class BenchmarkDataWordArithmetic {
+
+    private static final BigInteger TWO_256 = BigInteger.ONE.shiftLeft(256);
+    private static final BigInteger MAX_VALUE = TWO_256.subtract(BigInteger.ONE);
+    private static final int OPERANDS = 1024;
+
+    @Benchmark
+    public DataWord operation(OperationPlan plan) {
+        int index = plan.next();
+        DataWord a = plan.a[index];
+        DataWord b = plan.b[index];
+        DataWord c = plan.c[index];
+
+        switch (plan.implementation) {
+            case BIG_INTEGER:
+                return bigInteger(plan.operation, a, b, c);
+            case DATA_WORD:
+                return dataWord(plan.operation, a, b, c);
+            default:
+                return scratch(plan, a, b, c);
+        }
+    }
+
+    public enum Operation {
+        SUB, MUL, DIV, SDIV, MOD, SMOD, EXP, ADDMOD, MULMOD
+    }
+
+    public enum Implementation {
+        BIG_INTEGER,
+        DATA_WORD,
+        SCRATCH
+    }
+
+    @State(Scope.Thread)
+    public static class OperationPlan {
+
+        @Param({"SUB", "MUL", "DIV", "SDIV", "MOD", "SMOD", "EXP", "ADDMOD", "MULMOD"})
+        public Operation operation;
+
+        @Param({"BIG_INTEGER", "DATA_WORD", "SCRATCH"})
+        public Implementation implementation;
+
+        // bits of the second operand, small values take the shortest paths (e.g. small exponents and divisors)
+        @Param({"64", "256"})
+        public int operandBits;
+
+        private final MutableDataWord word1 = new MutableDataWord();
+        private final MutableDataWord word2 = new MutableDataWord();
+        private final MutableDataWord word3 = new MutableDataWord();
+
+        private DataWord[] a;
+        private DataWord[] b;
+        private DataWord[] c;
+        private int index;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(operandBits);
+            a = new DataWord[OPERANDS];
+            b = new DataWord[OPERANDS];
+            c = new DataWord[OPERANDS];
+
+            for (int i = 0; i < OPERANDS; i++) {
+                a[i] = randomWord(random, 256);
+                b[i] = randomWord(random, operandBits);
+                c[i] = randomWord(random, 256);
+            }
+        }
+
+        int next() {
+            index = (index + 1) & (OPERANDS - 1);
+            return index;
+        }
+
+        private static DataWord randomWord(Random random, int bits) {
+            byte[] bytes = new byte[DataWord.BYTES];
+            random.nextBytes(bytes);
+
+            for (int i = 0; i < DataWord.BYTES - bits / 8; i++) {
+                bytes[i] = 0;
+            }
+
+            return DataWord.valueOf(bytes);
+        }
+    }
+
+    private static DataWord dataWord(Operation operation, DataWord a, DataWord b, DataWord c) {
+        switch (operation) {
+            case SUB: return a.sub(b);
+            case MUL: return a.mul(b);
+            case DIV: return a.div(b);
+            case SDIV: return a.sDiv(b);
+            case MOD: return a.mod(b);
+            case SMOD: return a.sMod(b);
+            case EXP: return a.exp(b);
+            case ADDMOD: return a.addmod(b, c);
+            default: return a.mulmod(b, c);
+        }
+    }
+
+    private static DataWord scratch(OperationPlan plan, DataWord a, DataWord b, DataWord c) {
+        MutableDataWord word1 = plan.word1.set(a);
+        MutableDataWord word2 = plan.word2.set(b);
+
+        switch (plan.operation) {
+            case SUB: return word1.sub(word2).toDataWord();
+            case MUL: return word1.mul(word2).toDataWord();
+            case DIV: return word1.div(word2).toDataWord();
+            case SDIV: return word1.sDiv(word2).toDataWord();
+            case MOD: return word1.mod(word2).toDataWord();
+            case SMOD: return word1.sMod(word2).toDataWord();
+            case EXP: return word1.exp(word2).toDataWord();
+            case ADDMOD: return word1.addmod(word2, plan.word3.set(c)).toDataWord();
+            default: return word1.mulmod(word2, plan.word3.set(c)).toDataWord();
+        }
+    }
+
+    /**
+     * The arithmetic as it was done before the 64 bits limbs one.
+     */
+    private static DataWord bigInteger(Operation operation, DataWord a, DataWord b, DataWord c) {
+        BigInteger result;
+
+        switch (operation) {
+            case SUB:
+                result = a.value().subtract(b.value());
+                break;
+            case MUL:
+                result = a.value().multiply(b.value());
+                break;
+            case DIV:
+                result = b.isZero() ? BigInteger.ZERO : a.value().divide(b.value());
+                break;
+            case SDIV:
+                result = b.isZero() ? BigInteger.ZERO : a.sValue().divide(b.sValue());
+                break;
+            case MOD:
+                result = b.isZero() ? BigInteger.ZERO : a.value().mod(b.value());
+                break;
+            case SMOD:
+                if (b.isZero()) {
+                    result = BigInteger.ZERO;
+                } else {
+                    result = a.sValue().abs().mod(b.sValue().abs());
+                    result = a.sValue().signum() == -1 ? result.negate() : result;
+                }
+                break;
+            case EXP:
+                result = a.value().modPow(b.value(), TWO_256);
+                break;
+            case ADDMOD:
+                result = c.isZero() ? BigInteger.ZERO : a.value().add(b.value()).mod(c.value());
+                break;
+            default:
+                result = c.isZero() ? BigInteger.ZERO : a.value().multiply(b.value()).mod(c.value());
+                break;
+        }
+
+        byte[] bytes = result.and(MAX_VALUE).toByteArray();
+        byte[] data = new byte[DataWord.BYTES];
+        int length = Math.min(bytes.length, DataWord.BYTES);
+        System.arraycopy(bytes, bytes.length - length, data, DataWord.BYTES - length, length);
+        return DataWord.valueOf(data);
+    }
+}
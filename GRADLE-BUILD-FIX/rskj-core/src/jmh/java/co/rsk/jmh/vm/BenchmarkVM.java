@@ -0,0 +1,237 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.jmh.vm;
+
+import co.rsk.cli.CliArgs;
+import co.rsk.config.ConfigLoader;
+import co.rsk.config.RskSystemProperties;
+import co.rsk.db.MutableTrieImpl;
+import co.rsk.trie.Trie;
+import org.ethereum.config.blockchain.upgrades.ActivationConfig;
+import org.ethereum.core.BlockFactory;
+import org.ethereum.core.BlockTxSignatureCache;
+import org.ethereum.core.ReceivedTxSignatureCache;
+import org.ethereum.core.Repository;
+import org.ethereum.db.MutableRepository;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.OpCode;
+import org.ethereum.vm.PrecompiledContracts;
+import org.ethereum.vm.VM;
+import org.ethereum.vm.program.Program;
+import org.ethereum.vm.program.invoke.ProgramInvoke;
+import org.ethereum.vm.program.invoke.ProgramInvokeImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs compute heavy contracts in the VM: loops over the arithmetic opcodes, without storage or calls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class BenchmarkVM {
+
+    private static final long GAS = 1_000_000_000L;
+
+    @Benchmark
+    public Program run(ContractPlan plan) {
+        Program program = new Program(
+                plan.config.getVmConfig(),
+                plan.precompiledContracts,
+                plan.blockFactory,
+                plan.activations,
+                plan.code,
+                plan.newInvoke(),
+                null,
+                new HashSet<>(),
+                plan.signatureCache);
+
+        new VM(plan.config.getVmConfig(), plan.precompiledContracts).steps(program, Long.MAX_VALUE);
+
+        return program;
+    }
+
+    public enum Contract {
+        // acc = acc * k1 + k2
+        MUL_ADD,
+        // acc = ((acc * k1 + k2) / d) % m
+        DIV_MOD,
+        // acc = acc * k % m
+        MULMOD,
+        // acc = (acc | 1) ^ e
+        EXP,
+        // acc = acc + 1, going through DUP, SWAP and POP
+        STACK
+    }
+
+    @State(Scope.Thread)
+    public static class ContractPlan {
+
+        @Param({"MUL_ADD", "DIV_MOD", "MULMOD", "EXP", "STACK"})
+        public Contract contract;
+
+        @Param({"1000"})
+        public int iterations;
+
+        private RskSystemProperties config;
+        private ActivationConfig.ForBlock activations;
+        private BlockFactory blockFactory;
+        private BlockTxSignatureCache signatureCache;
+        private PrecompiledContracts precompiledContracts;
+        private byte[] code;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            config = new RskSystemProperties(new ConfigLoader(CliArgs.empty()));
+            activations = config.getActivationConfig().forBlock(Long.MAX_VALUE);
+            blockFactory = new BlockFactory(config.getActivationConfig());
+            signatureCache = new BlockTxSignatureCache(new ReceivedTxSignatureCache());
+            precompiledContracts = new PrecompiledContracts(config, null, signatureCache);
+            code = loop(iterations, body(contract));
+        }
+
+        ProgramInvoke newInvoke() {
+            Repository repository = new MutableRepository(new MutableTrieImpl(null, new Trie()));
+
+            return new ProgramInvokeImpl(DataWord.ZERO, DataWord.ZERO, DataWord.ZERO, DataWord.ZERO,
+                    DataWord.ZERO, GAS, DataWord.ZERO, new byte[0],
+                    DataWord.ZERO, DataWord.ZERO, DataWord.ZERO, DataWord.ZERO, DataWord.ZERO, DataWord.ZERO,
+                    DataWord.valueOf(GAS), DataWord.ZERO, repository, 0, null, false, false);
+        }
+
+        private static byte[] body(Contract contract) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+            switch (contract) {
+                case MUL_ADD:
+                    push32(body, 0x1f);
+                    op(body, OpCode.MUL);
+                    push32(body, 0x2e);
+                    op(body, OpCode.ADD);
+                    break;
+                case DIV_MOD:
+                    push32(body, 0x1f);
+                    op(body, OpCode.MUL);
+                    push32(body, 0x2e);
+                    op(body, OpCode.ADD);
+                    push32(body, 0x3d);
+                    body.write(OpCode.PUSH1.val());
+                    body.write(0x80);
+                    op(body, OpCode.SHR);
+                    op(body, OpCode.SWAP1);
+                    op(body, OpCode.DIV);
+                    push32(body, 0x4c);
+                    op(body, OpCode.SWAP1);
+                    op(body, OpCode.MOD);
+                    break;
+                case MULMOD:
+                    push32(body, 0x5b);
+                    push32(body, 0x6a);
+                    op(body, OpCode.DUP3);
+                    op(body, OpCode.MULMOD);
+                    op(body, OpCode.SWAP1);
+                    op(body, OpCode.POP);
+                    break;
+                case STACK:
+                    op(body, OpCode.DUP1);
+                    op(body, OpCode.DUP1);
+                    op(body, OpCode.DUP1);
+                    op(body, OpCode.SWAP3);
+                    op(body, OpCode.SWAP1);
+                    op(body, OpCode.POP);
+                    op(body, OpCode.POP);
+                    op(body, OpCode.POP);
+                    body.write(OpCode.PUSH1.val());
+                    body.write(1);
+                    op(body, OpCode.ADD);
+                    break;
+                default:
+                    body.write(OpCode.PUSH1.val());
+                    body.write(1);
+                    op(body, OpCode.OR);
+                    push32(body, 0x79);
+                    op(body, OpCode.SWAP1);
+                    op(body, OpCode.EXP);
+                    break;
+            }
+
+            return body.toByteArray();
+        }
+
+        /**
+         * Repeats the body, which takes the accumulator from the top of the stack and leaves the new one there.
+         */
+        private static byte[] loop(int iterations, byte[] body) {
+            ByteArrayOutputStream code = new ByteArrayOutputStream();
+
+            // counter and accumulator
+            code.write(OpCode.PUSH4.val());
+            writeInt(code, iterations);
+            push32(code, 0x88);
+
+            int loopStart = code.size();
+            op(code, OpCode.JUMPDEST);
+            code.write(body, 0, body.length);
+
+            // decrement the counter, keeping the accumulator on top, and jump back while it isn't zero
+            op(code, OpCode.SWAP1);
+            code.write(OpCode.PUSH1.val());
+            code.write(1);
+            op(code, OpCode.SWAP1);
+            op(code, OpCode.SUB);
+            op(code, OpCode.DUP1);
+            op(code, OpCode.SWAP2);
+            op(code, OpCode.SWAP1);
+            code.write(OpCode.PUSH2.val());
+            code.write(loopStart >>> 8);
+            code.write(loopStart);
+            op(code, OpCode.JUMPI);
+            op(code, OpCode.STOP);
+
+            return code.toByteArray();
+        }
+
+        private static void op(ByteArrayOutputStream code, OpCode opCode) {
+            code.write(opCode.val());
+        }
+
+        /**
+         * Pushes a 32 bytes constant derived from the seed, with no zero bytes.
+         */
+        private static void push32(ByteArrayOutputStream code, int seed) {
+            code.write(OpCode.PUSH32.val());
+
+            for (int i = 0; i < DataWord.BYTES; i++) {
+                code.write((seed * (i + 1) * 37) % 255 + 1);
+            }
+        }
+
+        private static void writeInt(ByteArrayOutputStream code, int value) {
+            code.write(value >>> 24);
+            code.write(value >>> 16);
+            code.write(value >>> 8);
+            code.write(value);
+        }
+    }
+}
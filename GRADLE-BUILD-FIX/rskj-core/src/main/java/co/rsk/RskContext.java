@@ -35,6 +35,8 @@ import co.rsk.db.importer.provider.index.BootstrapIndexCandidateSelector;
 import co.rsk.db.importer.provider.index.BootstrapIndexRetriever;
 import co.rsk.logfilter.BlocksBloomService;
 import co.rsk.logfilter.BlocksBloomStore;
+import co.rsk.logfilter.LogIndexService;
+import co.rsk.logfilter.LogIndexStore;
 import co.rsk.metrics.BlockHeaderElement;
 import co.rsk.metrics.HashRateCalculator;
 import co.rsk.metrics.HashRateCalculatorMining;
@@ -50,7 +52,9 @@ import co.rsk.net.eth.MessageFilter;
 import co.rsk.net.eth.MessageRecorder;
 import co.rsk.net.eth.RskWireProtocol;
 import co.rsk.net.eth.WriterMessageRecorder;
+import co.rsk.net.handler.TxPreValidator;
 import co.rsk.net.handler.quota.TxQuotaChecker;
+import co.rsk.net.sync.BlockImportPipeline;
 import co.rsk.net.sync.PeersInformation;
 import co.rsk.net.sync.SyncConfiguration;
 import co.rsk.pcc.altBN128.impls.AbstractAltBN128;
@@ -76,6 +80,8 @@ import co.rsk.rpc.modules.rsk.RskModule;
 import co.rsk.rpc.modules.rsk.RskModuleImpl;
 import co.rsk.rpc.modules.trace.TraceModule;
 import co.rsk.rpc.modules.trace.TraceModuleImpl;
+import co.rsk.rpc.modules.trace.TraceService;
+import co.rsk.rpc.modules.trace.TraceStore;
 import co.rsk.rpc.modules.txpool.TxPoolModule;
 import co.rsk.rpc.modules.txpool.TxPoolModuleImpl;
 import co.rsk.rpc.netty.*;
@@ -84,6 +90,7 @@ import co.rsk.scoring.PeerScoringManager;
 import co.rsk.scoring.PeerScoringReporterService;
 import co.rsk.scoring.PunishmentParameters;
 import co.rsk.trie.MultiTrieStore;
+import co.rsk.trie.OffHeapNodeCache;
 import co.rsk.trie.TrieStore;
 import co.rsk.trie.TrieStoreImpl;
 import co.rsk.util.RskCustomCache;
@@ -168,6 +175,7 @@ public class RskContext implements NodeContext, NodeBootstrapper {
     private org.ethereum.db.BlockStore blockStore;
     private NetBlockStore netBlockStore;
     private TrieStore trieStore;
+    private FlatStateStore flatStateStore;
     private StateRootsStore stateRootsStore;
     private GenesisLoader genesisLoader;
     private Genesis genesis;
@@ -194,6 +202,9 @@ public class RskContext implements NodeContext, NodeBootstrapper {
     private PeerScoringManager peerScoringManager;
     private NodeBlockProcessor nodeBlockProcessor;
     private SyncProcessor syncProcessor;
+    private SnapshotProcessor snapshotProcessor;
+    private BlockImportPipeline blockImportPipeline;
+    private EncodedBlockCache encodedBlockCache;
     private BlockSyncService blockSyncService;
     private SyncPool syncPool;
     private Web3 web3;
@@ -211,6 +222,8 @@ public class RskContext implements NodeContext, NodeBootstrapper {
     private MinerClient minerClient;
     private SyncConfiguration syncConfiguration;
     private TransactionGateway transactionGateway;
+    private TransactionAnnouncements transactionAnnouncements;
+    private TxPreValidator txPreValidator;
     private BuildInfo buildInfo;
     private MinerClock minerClock;
     private MiningConfig miningConfig;
@@ -239,6 +252,9 @@ public class RskContext implements NodeContext, NodeBootstrapper {
     private MinerServer minerServer;
     private BlocksBloomStore blocksBloomStore;
     private KeyValueDataSource blocksBloomDataSource;
+    private LogIndexStore logIndexStore;
+    private TraceStore traceStore;
+    private BlockRangeScanner blockRangeScanner;
     private BlockExecutor blockExecutor;
     private BtcBlockStoreWithCache.Factory btcBlockStoreFactory;
     private PrecompiledContracts precompiledContracts;
@@ -249,6 +265,7 @@ public class RskContext implements NodeContext, NodeBootstrapper {
     private BootstrapImporter bootstrapImporter;
     private ReceivedTxSignatureCache receivedTxSignatureCache;
     private BlockTxSignatureCache blockTxSignatureCache;
+    private TxSenderRecoverer txSenderRecoverer;
     private PeerScoringReporterService peerScoringReporterService;
     private TxQuotaChecker txQuotaChecker;
     private GasPriceTracker gasPriceTracker;
@@ -422,6 +439,16 @@ public class RskContext implements NodeContext, NodeBootstrapper {
         return blockTxSignatureCache;
     }
 
+    public synchronized TxSenderRecoverer getTxSenderRecoverer() {
+        checkIfNotClosed();
+
+        if (txSenderRecoverer == null) {
+            txSenderRecoverer = new TxSenderRecoverer(getRskSystemProperties().txSenderRecoveryThreads());
+        }
+
+        return txSenderRecoverer;
+    }
+
     public synchronized RepositoryLocator getRepositoryLocator() {
         checkIfNotClosed();
 
@@ -462,6 +489,20 @@ public class RskContext implements NodeContext, NodeBootstrapper {
         return trieStore;
     }
 
+    /**
+     * @return the flat copy of the best block state, or null if disabled
+     */
+    @Nullable
+    private synchronized FlatStateStore getFlatStateStore() {
+        checkIfNotClosed();
+
+        if (flatStateStore == null && getRskSystemProperties().isFlatStateEnabled()) {
+            flatStateStore = buildFlatStateStore();
+        }
+
+        return flatStateStore;
+    }
+
     public synchronized StateRootsStore getStateRootsStore() {
         checkIfNotClosed();
 
@@ -476,10 +517,12 @@ public class RskContext implements NodeContext, NodeBootstrapper {
         checkIfNotClosed();
 
         if (blockExecutor == null) {
+            RskSystemProperties rskSystemProperties = getRskSystemProperties();
             blockExecutor = new BlockExecutor(
-                    getRskSystemProperties().getActivationConfig(),
+                    rskSystemProperties.getActivationConfig(),
                     getRepositoryLocator(),
-                    getTransactionExecutorFactory()
+                    getTransactionExecutorFactory(),
+                    rskSystemProperties.isParallelBlockExecutionEnabled() ? rskSystemProperties.parallelBlockExecutionThreads() : 1
             );
         }
 
@@ -609,7 +652,9 @@ public class RskContext implements NodeContext, NodeBootstrapper {
                         getBlockSyncService(),
                         getSyncConfiguration(),
                         getBlockHeaderValidator(),
-                        getBlockRelayValidator()
+                        getBlockRelayValidator(),
+                        null,
+                        getEncodedBlockCache()
                 );
             } else {
                 nodeBlockProcessor = new NodeBlockProcessor(
@@ -617,7 +662,8 @@ public class RskContext implements NodeContext, NodeBootstrapper {
                         getBlockchain(),
                         getBlockNodeInformation(),
                         getBlockSyncService(),
-                        getSyncConfiguration()
+                        getSyncConfiguration(),
+                        getEncodedBlockCache()
                 );
             }
         }
@@ -831,7 +877,9 @@ public class RskContext implements NodeContext, NodeBootstrapper {
                     getReceiptStore(),
                     getBlockExecutor(),
                     getExecutionBlockRetriever(),
-                    getBlockTxSignatureCache()
+                    getBlockTxSignatureCache(),
+                    getBlockRangeScanner(),
+                    getRskSystemProperties().traceStoreServiceEnabled() ? getTraceStore() : null
             );
         }
 
@@ -971,6 +1019,36 @@ public class RskContext implements NodeContext, NodeBootstrapper {
         return blocksBloomStore;
     }
 
+    public synchronized BlockRangeScanner getBlockRangeScanner() {
+        checkIfNotClosed();
+
+        if (blockRangeScanner == null) {
+            blockRangeScanner = new BlockRangeScanner(getRskSystemProperties().rpcRangeScanThreads());
+        }
+
+        return blockRangeScanner;
+    }
+
+    public synchronized LogIndexStore getLogIndexStore() {
+        checkIfNotClosed();
+
+        if (logIndexStore == null) {
+            logIndexStore = buildLogIndexStore();
+        }
+
+        return logIndexStore;
+    }
+
+    public synchronized TraceStore getTraceStore() {
+        checkIfNotClosed();
+
+        if (traceStore == null) {
+            traceStore = buildTraceStore();
+        }
+
+        return traceStore;
+    }
+
     public synchronized List<InternalService> buildInternalServices() {
         checkIfNotClosed();
 
@@ -987,6 +1065,14 @@ public class RskContext implements NodeContext, NodeBootstrapper {
             internalServices.add(new BlocksBloomService(getCompositeEthereumListener(), getBlocksBloomStore(), getBlockStore()));
         }
 
+        if (getRskSystemProperties().logIndexServiceEnabled()) {
+            internalServices.add(new LogIndexService(getCompositeEthereumListener(), getLogIndexStore(), getBlockStore(), getReceiptStore()));
+        }
+
+        if (getRskSystemProperties().traceStoreServiceEnabled()) {
+            internalServices.add(new TraceService(getCompositeEthereumListener(), getTraceStore(), getBlockExecutor(), getBlockStore()));
+        }
+
         if (rpcHttpEnabled || rpcWebSocketEnabled) {
             internalServices.add(getWeb3());
         }
@@ -1043,6 +1129,11 @@ public class RskContext implements NodeContext, NodeBootstrapper {
 
         internalServices.add(getBlockChainFlusher());
 
+        FlatStateStore flatState = getFlatStateStore();
+        if (flatState != null) {
+            internalServices.add(new FlatStateUpdater(getCompositeEthereumListener(), getStateRootHandler(), flatState));
+        }
+
         internalServices.add(getExecutionBlockRetriever());
 
         return Collections.unmodifiableList(internalServices);
@@ -1129,8 +1220,8 @@ public class RskContext implements NodeContext, NodeBootstrapper {
         if (blockParentDependantValidationRule == null) {
             Constants commonConstants = getRskSystemProperties().getNetworkConstants();
             blockParentDependantValidationRule = new BlockParentCompositeRule(
-                    new BlockTxsFieldsValidationRule(getBlockTxSignatureCache()),
-                    new BlockTxsValidationRule(getRepositoryLocator(), getBlockTxSignatureCache()),
+                    new BlockTxsFieldsValidationRule(getBlockTxSignatureCache(), getTxSenderRecoverer()),
+                    new BlockTxsValidationRule(getRepositoryLocator(), getBlockTxSignatureCache(), getTxSenderRecoverer()),
                     new PrevMinGasPriceRule(),
                     new BlockParentNumberRule(),
                     new BlockDifficultyRule(getDifficultyCalculator()),
@@ -1217,6 +1308,15 @@ public class RskContext implements NodeContext, NodeBootstrapper {
             logger.trace("nodeRunner stopped.");
         }
 
+        // the threads of the components that work on batches of transactions
+        if (txSenderRecoverer != null) {
+            txSenderRecoverer.dispose();
+        }
+
+        if (txPreValidator != null) {
+            txPreValidator.dispose();
+        }
+
         // then close data stores
         if (trieStore != null) {
             logger.trace("disposing trieStore.");
@@ -1248,6 +1348,24 @@ public class RskContext implements NodeContext, NodeBootstrapper {
             logger.trace("blocksBloomStore closed.");
         }
 
+        if (logIndexStore != null) {
+            logger.trace("closing logIndexStore.");
+            logIndexStore.close();
+            logger.trace("logIndexStore closed.");
+        }
+
+        if (traceStore != null) {
+            logger.trace("closing traceStore.");
+            traceStore.close();
+            logger.trace("traceStore closed.");
+        }
+
+        if (flatStateStore != null) {
+            logger.trace("closing flatStateStore.");
+            flatStateStore.close();
+            logger.trace("flatStateStore closed.");
+        }
+
         if (wallet != null) {
             logger.trace("closing wallet.");
             wallet.close();
@@ -1290,6 +1408,26 @@ public class RskContext implements NodeContext, NodeBootstrapper {
         return ds;
     }
 
+    protected synchronized LogIndexStore buildLogIndexStore() {
+        checkIfNotClosed();
+
+        Path logIndexStorePath = Paths.get(getRskSystemProperties().databaseDir(), "logIndex");
+        DbKind currentDbKind = getDbKind(getRskSystemProperties().databaseDir());
+        KeyValueDataSource ds = KeyValueDataSourceUtils.makeDataSource(logIndexStorePath, currentDbKind);
+
+        return new LogIndexStore(getRskSystemProperties().logIndexNumberOfBlocks(), getRskSystemProperties().logIndexNumberOfConfirmations(), ds);
+    }
+
+    protected synchronized TraceStore buildTraceStore() {
+        checkIfNotClosed();
+
+        Path traceStorePath = Paths.get(getRskSystemProperties().databaseDir(), "traces");
+        DbKind currentDbKind = getDbKind(getRskSystemProperties().databaseDir());
+        KeyValueDataSource ds = KeyValueDataSourceUtils.makeDataSource(traceStorePath, currentDbKind);
+
+        return new TraceStore(getRskSystemProperties().traceStoreNumberOfBlocks(), ds);
+    }
+
     protected synchronized NodeRunner buildNodeRunner() {
         checkIfNotClosed();
 
@@ -1336,6 +1474,8 @@ public class RskContext implements NodeContext, NodeBootstrapper {
                 getConfigCapabilities(),
                 getBuildInfo(),
                 getBlocksBloomStore(),
+                getRskSystemProperties().logIndexServiceEnabled() ? getLogIndexStore() : null,
+                getBlockRangeScanner(),
                 getWeb3InformationRetriever(),
                 getSyncProcessor(),
                 getBlockTxSignatureCache());
@@ -1412,13 +1552,41 @@ public class RskContext implements NodeContext, NodeBootstrapper {
             ds = new DataSourceWithCache(ds, statesCacheSize, cacheSnapshotHandler);
         }
 
-        return new TrieStoreImpl(ds);
+        return new TrieStoreImpl(ds, buildStatesOffHeapCache(), rskSystemProperties.getStatesDecodedNodesCacheSize());
+    }
+
+    /**
+     * @return a new off-heap cache of trie nodes for a single trie store, or null if disabled. With the garbage
+     * collector enabled every epoch has its own store and cache, so the configured size is split between them
+     */
+    @Nullable
+    private OffHeapNodeCache buildStatesOffHeapCache() {
+        RskSystemProperties rskSystemProperties = getRskSystemProperties();
+        long statesOffHeapCacheSize = rskSystemProperties.getStatesOffHeapCacheSize();
+
+        GarbageCollectorConfig gcConfig = rskSystemProperties.garbageCollectorConfig();
+        if (gcConfig.enabled()) {
+            statesOffHeapCacheSize /= gcConfig.numberOfEpochs();
+        }
+
+        return statesOffHeapCacheSize > 0 ? new OffHeapNodeCache(statesOffHeapCacheSize) : null;
     }
 
     protected synchronized RepositoryLocator buildRepositoryLocator() {
         checkIfNotClosed();
 
-        return new RepositoryLocator(getTrieStore(), getStateRootHandler());
+        return new RepositoryLocator(getTrieStore(), getStateRootHandler(), getFlatStateStore());
+    }
+
+    protected synchronized FlatStateStore buildFlatStateStore() {
+        checkIfNotClosed();
+
+        RskSystemProperties rskSystemProperties = getRskSystemProperties();
+        Path flatStateDbPath = Paths.get(rskSystemProperties.databaseDir(), "flatState");
+        DbKind currentDbKind = getDbKind(rskSystemProperties.databaseDir());
+        KeyValueDataSource flatStateDB = KeyValueDataSourceUtils.makeDataSource(flatStateDbPath, currentDbKind);
+
+        return new FlatStateStore(flatStateDB, getTrieStore());
     }
 
     protected synchronized org.ethereum.db.BlockStore buildBlockStore() {
@@ -1462,7 +1630,10 @@ public class RskContext implements NodeContext, NodeBootstrapper {
                 rskSystemProperties.getChunkSize(),
                 rskSystemProperties.getMaxRequestedBodies(),
                 rskSystemProperties.getLongSyncLimit(),
-                rskSystemProperties.getTopBest());
+                rskSystemProperties.getTopBest(),
+                rskSystemProperties.isSnapshotSyncEnabled(),
+                rskSystemProperties.getSnapshotPivotDistance(),
+                rskSystemProperties.getSnapshotPivotPeers());
     }
 
     protected synchronized StateRootHandler buildStateRootHandler() {
@@ -1474,6 +1645,11 @@ public class RskContext implements NodeContext, NodeBootstrapper {
     protected synchronized CompositeEthereumListener buildCompositeEthereumListener() {
         checkIfNotClosed();
 
+        RskSystemProperties rskSystemProperties = getRskSystemProperties();
+        if (rskSystemProperties.asyncListenersEnabled()) {
+            return new CompositeEthereumListener(rskSystemProperties.asyncListenersQueueSize());
+        }
+
         return new CompositeEthereumListener();
     }
 
@@ -1944,12 +2120,55 @@ public class RskContext implements NodeContext, NodeBootstrapper {
                     getDifficultyCalculator(),
                     getPeersInformation(),
                     getGenesis(),
-                    getCompositeEthereumListener());
+                    getCompositeEthereumListener(),
+                    getTrieStore(),
+                    getBlockImportPipeline());
         }
 
         return syncProcessor;
     }
 
+    @Nullable
+    private BlockImportPipeline getBlockImportPipeline() {
+        RskSystemProperties rskSystemProperties = getRskSystemProperties();
+        if (blockImportPipeline == null && rskSystemProperties.isSyncPipelineEnabled()) {
+            blockImportPipeline = new BlockImportPipeline(
+                    getBlockFactory(),
+                    new SyncBlockValidatorRule(
+                            new BlockUnclesHashValidationRule(),
+                            new BlockRootValidationRule(rskSystemProperties.getActivationConfig())
+                    ),
+                    getBlockSyncService(),
+                    getBlockTxSignatureCache(),
+                    rskSystemProperties.syncPipelineThreads(),
+                    rskSystemProperties.getSyncPipelineQueueSize());
+        }
+
+        return blockImportPipeline;
+    }
+
+    @Nullable
+    private EncodedBlockCache getEncodedBlockCache() {
+        RskSystemProperties rskSystemProperties = getRskSystemProperties();
+        if (encodedBlockCache == null && rskSystemProperties.isEncodedBlockCacheEnabled()) {
+            encodedBlockCache = new EncodedBlockCache(rskSystemProperties.getEncodedBlockCacheSize());
+        }
+
+        return encodedBlockCache;
+    }
+
+    private SnapshotProcessor getSnapshotProcessor() {
+        if (snapshotProcessor == null) {
+            snapshotProcessor = new SnapshotProcessor(
+                    getBlockchain(),
+                    getBlockStore(),
+                    getTrieStore(),
+                    getRskSystemProperties().getSnapshotPivotDistance());
+        }
+
+        return snapshotProcessor;
+    }
+
     private PeersInformation getPeersInformation() {
         if (peersInformation == null) {
             SyncConfiguration syncConfiguration = getSyncConfiguration();
@@ -2089,13 +2308,45 @@ public class RskContext implements NodeContext, NodeBootstrapper {
         if (transactionGateway == null) {
             transactionGateway = new TransactionGateway(
                     getChannelManager(),
-                    getTransactionPool()
+                    getTransactionPool(),
+                    getTxSenderRecoverer(),
+                    getReceivedTxSignatureCache(),
+                    getTransactionAnnouncements(),
+                    getTxPreValidator()
             );
         }
 
         return transactionGateway;
     }
 
+    @Nullable
+    private TransactionAnnouncements getTransactionAnnouncements() {
+        RskSystemProperties rskSystemProperties = getRskSystemProperties();
+
+        if (transactionAnnouncements == null && rskSystemProperties.isTransactionAnnouncementsEnabled()) {
+            transactionAnnouncements = new TransactionAnnouncements(getTransactionPool(), rskSystemProperties.getKnownTransactionsPerPeer());
+        }
+
+        return transactionAnnouncements;
+    }
+
+    @Nullable
+    private TxPreValidator getTxPreValidator() {
+        RskSystemProperties rskSystemProperties = getRskSystemProperties();
+
+        if (txPreValidator == null && rskSystemProperties.isTransactionPreValidationEnabled()) {
+            txPreValidator = new TxPreValidator(
+                    rskSystemProperties.getNetworkConstants(),
+                    rskSystemProperties.getActivationConfig(),
+                    getReceivedTxSignatureCache(),
+                    getBlockchain(),
+                    rskSystemProperties.transactionPreValidationThreads()
+            );
+        }
+
+        return txPreValidator;
+    }
+
     private NodeMessageHandler getNodeMessageHandler() {
         if (nodeMessageHandler == null) {
             nodeMessageHandler = new NodeMessageHandler(
@@ -2105,6 +2356,7 @@ public class RskContext implements NodeContext, NodeBootstrapper {
                     getChannelManager(),
                     getTransactionGateway(),
                     getPeerScoringManager(),
+                    getSnapshotProcessor(),
                     getStatusResolver());
         }
 
@@ -2113,7 +2365,7 @@ public class RskContext implements NodeContext, NodeBootstrapper {
 
     private StatusResolver getStatusResolver() {
         if (statusResolver == null) {
-            statusResolver = new StatusResolver(getBlockStore(), getGenesis());
+            statusResolver = new StatusResolver(getBlockStore(), getGenesis(), getRskSystemProperties().isTransactionAnnouncementsEnabled());
         }
         return statusResolver;
     }
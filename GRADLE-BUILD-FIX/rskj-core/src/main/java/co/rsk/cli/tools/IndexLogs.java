@@ -0,0 +1,88 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package co.rsk.cli.tools;
+
+import co.rsk.cli.PicoCliToolRskContextAware;
+import co.rsk.logfilter.LogIndexProcessor;
+import co.rsk.logfilter.LogIndexStore;
+import org.ethereum.db.BlockStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * The entry point for indexing the logs of blocks by address and topic
+ * This is an experimental/unsupported tool
+ *
+ * The range must be adjacent to or overlap the blocks already in the index,
+ * indexing blocks again keeps the index as it is
+ */
+@CommandLine.Command(name = "index-logs", mixinStandardHelpOptions = true, version = "index-logs 1.0",
+        description = "Indexes logs for a specific block range")
+public class IndexLogs extends PicoCliToolRskContextAware {
+    @CommandLine.Option(names = {"-fb", "--fromBlock"}, description = "From block number", required = true)
+    private String fromBlockNumber;
+
+    @CommandLine.Option(names = {"-tb", "--toBlock"}, description = "To block number", required = true)
+    private String toBlockNumber;
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexLogs.class);
+
+    private static final int BLOCKS_PER_STEP = 1000;
+
+    public static void main(String[] args) {
+        create(MethodHandles.lookup().lookupClass()).execute(args);
+    }
+
+    @Override
+    public Integer call() {
+        BlockStore blockStore = ctx.getBlockStore();
+        LogIndexStore logIndexStore = ctx.getLogIndexStore();
+        LogIndexProcessor logIndexProcessor = new LogIndexProcessor(logIndexStore, blockStore, ctx.getReceiptStore());
+
+        execute(IndexBlooms.makeBlockRange(this.fromBlockNumber, this.toBlockNumber, blockStore), logIndexProcessor);
+
+        return 0;
+    }
+
+    /**
+     * Indexes the logs of the blocks in the {@link blockRange} range.
+     */
+    static void execute(IndexBlooms.Range blockRange, LogIndexProcessor logIndexProcessor) {
+        long curProgress = 0L;
+
+        logIndexProcessor.rewindIfReorganized();
+
+        for (long fromBlock = blockRange.fromBlockNumber; fromBlock <= blockRange.toBlockNumber; fromBlock += BLOCKS_PER_STEP) {
+            long toBlock = Math.min(blockRange.toBlockNumber, fromBlock + BLOCKS_PER_STEP - 1);
+
+            if (logIndexProcessor.indexBlocks(fromBlock, toBlock) < toBlock - fromBlock + 1) {
+                logger.warn("Logs of some blocks are not available, blocks after {} were not indexed", fromBlock);
+                return;
+            }
+
+            long progress = 100 * (toBlock - blockRange.fromBlockNumber + 1) / (blockRange.toBlockNumber - blockRange.fromBlockNumber + 1);
+            if (progress > curProgress) {
+                curProgress = progress;
+                logger.info("Processed {}% of blocks", progress);
+            }
+        }
+    }
+}
@@ -175,6 +175,10 @@ public class RskSystemProperties extends SystemProperties {
         return getDouble("miner.minFeesNotifyInDollars", 0);
     }
 
+    public boolean isFlatStateEnabled() {
+        return getBoolean("database.flatState.enabled", false);
+    }
+
     public boolean bloomServiceEnabled() {
         return getBoolean("blooms.service", false);
     }
@@ -187,6 +191,34 @@ public class RskSystemProperties extends SystemProperties {
         return getInt("blooms.confirmations", 400);
     }
 
+    public boolean logIndexServiceEnabled() {
+        return getBoolean("logIndex.service", false);
+    }
+
+    public int logIndexNumberOfBlocks() {
+        return getInt("logIndex.blocks", 2048);
+    }
+
+    public int logIndexNumberOfConfirmations() {
+        return getInt("logIndex.confirmations", 10);
+    }
+
+    public boolean traceStoreServiceEnabled() {
+        return getBoolean("traceStore.service", false);
+    }
+
+    public int traceStoreNumberOfBlocks() {
+        return getInt("traceStore.blocks", 100000);
+    }
+
+    public boolean asyncListenersEnabled() {
+        return getBoolean("listeners.async", false);
+    }
+
+    public int asyncListenersQueueSize() {
+        return getInt("listeners.queueSize", 1000);
+    }
+
     public boolean waitForSync() {
         return getBoolean("sync.waitForSync", false);
     }
@@ -236,6 +268,20 @@ public class RskSystemProperties extends SystemProperties {
                 configFromFiles.getInt("blockchain.flushNumberOfBlocks") : 20;
     }
 
+    public boolean isParallelBlockExecutionEnabled() {
+        return getBoolean("blockchain.parallelExecution.enabled", false);
+    }
+
+    public int parallelBlockExecutionThreads() {
+        int threads = getInt("blockchain.parallelExecution.threads", 0);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public int txSenderRecoveryThreads() {
+        int threads = getInt("blockchain.senderRecovery.threads", 0);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
     public int soLingerTime() {
         return configFromFiles.getInt("rpc.providers.web.http.linger_time");
 
@@ -407,6 +453,39 @@ public class RskSystemProperties extends SystemProperties {
         return configFromFiles.getInt("sync.longSyncLimit");
     }
 
+    public boolean isSnapshotSyncEnabled() {
+        return getBoolean("sync.snapshot.enabled", false);
+    }
+
+    public int getSnapshotPivotDistance() {
+        return getInt("sync.snapshot.pivotDistance", 5000);
+    }
+
+    public int getSnapshotPivotPeers() {
+        return getInt("sync.snapshot.pivotPeers", 3);
+    }
+
+    public boolean isSyncPipelineEnabled() {
+        return getBoolean("sync.pipeline.enabled", false);
+    }
+
+    public int syncPipelineThreads() {
+        int threads = getInt("sync.pipeline.threads", 0);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public int getSyncPipelineQueueSize() {
+        return getInt("sync.pipeline.queueSize", 192);
+    }
+
+    public boolean isEncodedBlockCacheEnabled() {
+        return getBoolean("sync.encodedBlockCache.enabled", false);
+    }
+
+    public int getEncodedBlockCacheSize() {
+        return getInt("sync.encodedBlockCache.maxBlocks", 4000);
+    }
+
     // its fixed, cannot be set by config file
     public int getChunkSize() {
         return CHUNK_SIZE;
@@ -432,6 +511,27 @@ public class RskSystemProperties extends SystemProperties {
         return configFromFiles.getInt("transaction.accountSlots");
     }
 
+    public int getMaxTransactionPoolSize() {
+        return getInt("transaction.maxPoolSize", 0);
+    }
+
+    public boolean isTransactionAnnouncementsEnabled() {
+        return getBoolean("transaction.announcements.enabled", false);
+    }
+
+    public int getKnownTransactionsPerPeer() {
+        return getInt("transaction.announcements.knownTxsPerPeer", 10000);
+    }
+
+    public boolean isTransactionPreValidationEnabled() {
+        return getBoolean("transaction.preValidation.enabled", false);
+    }
+
+    public int transactionPreValidationThreads() {
+        int threads = getInt("transaction.preValidation.threads", 0);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
     public boolean isAccountTxRateLimitEnabled() {
         return configFromFiles.getBoolean("transaction.accountTxRateLimit.enabled");
     }
@@ -444,6 +544,17 @@ public class RskSystemProperties extends SystemProperties {
         return configFromFiles.getInt("cache.states.max-elements");
     }
 
+    /**
+     * @return the size in bytes of the off-heap cache of trie nodes, zero if disabled
+     */
+    public long getStatesOffHeapCacheSize() {
+        return configFromFiles.getBytes("cache.states.off-heap-size");
+    }
+
+    public int getStatesDecodedNodesCacheSize() {
+        return configFromFiles.getInt("cache.states.decoded-nodes-max-elements");
+    }
+
     public int getBloomsCacheSize() {
         return configFromFiles.getInt("cache.blooms.max-elements");
     }
@@ -488,6 +599,14 @@ public class RskSystemProperties extends SystemProperties {
         return configFromFiles.getInt("peer.messageQueue.maxSizePerPeer");
     }
 
+    public boolean isMessageLanesEnabled() {
+        return getBoolean("peer.messageQueue.lanes.enabled", false);
+    }
+
+    public int getMessageServingLanes() {
+        return getInt("peer.messageQueue.lanes.servingThreads", 2);
+    }
+
     public boolean rpcZeroSignatureIfRemasc() {
         return configFromFiles.getBoolean("rpc.zeroSignatureIfRemasc");
     }
@@ -500,6 +619,11 @@ public class RskSystemProperties extends SystemProperties {
         return configFromFiles.getLong(RPC_ETH_GET_LOGS_MAX_LOGS_TO_RETURN);
     }
 
+    public int rpcRangeScanThreads() {
+        int threads = getInt("rpc.rangeScan.threads", 0);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
     public double getTopBest() {
         if (!configFromFiles.hasPath(PROPERTY_SYNC_TOP_BEST)) {
             return 0.0D;
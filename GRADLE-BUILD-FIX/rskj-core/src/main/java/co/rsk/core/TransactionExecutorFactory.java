@@ -20,6 +20,7 @@ package co.rsk.core;
 
 import co.rsk.config.RskSystemProperties;
 import co.rsk.config.VmConfig;
+import co.rsk.vm.JumpdestCache;
 import org.ethereum.core.*;
 import org.ethereum.db.BlockStore;
 import org.ethereum.db.ReceiptStore;
@@ -39,6 +40,8 @@ public class TransactionExecutorFactory {
     private final ProgramInvokeFactory programInvokeFactory;
     private final PrecompiledContracts precompiledContracts;
     private BlockTxSignatureCache blockTxSignatureCache;
+    // shared by all the executors, so contracts called again and again are only analyzed once
+    private final JumpdestCache jumpdestCache;
 
     public TransactionExecutorFactory(
             RskSystemProperties config,
@@ -48,6 +51,19 @@ public class TransactionExecutorFactory {
             ProgramInvokeFactory programInvokeFactory,
             PrecompiledContracts precompiledContracts,
             BlockTxSignatureCache blockTxSignatureCache) {
+        this(config, blockStore, receiptStore, blockFactory, programInvokeFactory, precompiledContracts,
+                blockTxSignatureCache, new JumpdestCache());
+    }
+
+    public TransactionExecutorFactory(
+            RskSystemProperties config,
+            BlockStore blockStore,
+            ReceiptStore receiptStore,
+            BlockFactory blockFactory,
+            ProgramInvokeFactory programInvokeFactory,
+            PrecompiledContracts precompiledContracts,
+            BlockTxSignatureCache blockTxSignatureCache,
+            JumpdestCache jumpdestCache) {
         this.config = config;
         this.blockStore = blockStore;
         this.receiptStore = receiptStore;
@@ -55,6 +71,19 @@ public class TransactionExecutorFactory {
         this.programInvokeFactory = programInvokeFactory;
         this.precompiledContracts = precompiledContracts;
         this.blockTxSignatureCache = blockTxSignatureCache;
+        this.jumpdestCache = jumpdestCache;
+    }
+
+    public PrecompiledContracts getPrecompiledContracts() {
+        return precompiledContracts;
+    }
+
+    /**
+     * @return a factory of executors like the ones of this factory, but calling the given precompiled contracts
+     */
+    public TransactionExecutorFactory withPrecompiledContracts(PrecompiledContracts precompiledContracts) {
+        return new TransactionExecutorFactory(config, blockStore, receiptStore, blockFactory, programInvokeFactory,
+                precompiledContracts, blockTxSignatureCache, jumpdestCache);
     }
 
     public TransactionExecutor newInstance(
@@ -109,7 +138,8 @@ public class TransactionExecutorFactory {
                 config.isRemascEnabled(),
                 precompiledContracts,
                 deletedAccounts,
-                blockTxSignatureCache
+                blockTxSignatureCache,
+                jumpdestCache
         );
     }
 }
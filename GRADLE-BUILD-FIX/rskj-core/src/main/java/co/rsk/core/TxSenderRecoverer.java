@@ -0,0 +1,121 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core;
+
+import org.ethereum.core.SignatureCache;
+import org.ethereum.core.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Recovers the senders of a batch of transactions in parallel, before they are validated or executed one by one.
+ *
+ * The senders are kept in the transactions, so later calls to {@link Transaction#getSender(SignatureCache)} on the
+ * same transactions don't recover them again. Whether the given {@link SignatureCache} keeps them too depends on the
+ * cache: a {@link org.ethereum.core.BlockTxSignatureCache} does, a {@link org.ethereum.core.ReceivedTxSignatureCache}
+ * only when {@link SignatureCache#storeSender(Transaction)} is called. This is only a warm up: a transaction whose
+ * sender can't be recovered is left as it is, for the validation to reject it as before.
+ */
+public class TxSenderRecoverer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TxSenderRecoverer.class);
+
+    // a recovery takes some tens of microseconds, fewer transactions than this aren't worth a task
+    private static final int MIN_TRANSACTIONS_PER_TASK = 4;
+
+    private final int threads;
+    @Nullable
+    private final ExecutorService executor;
+
+    /**
+     * @param threads number of threads used to recover senders, a value lower than 2 disables the recovery
+     */
+    public TxSenderRecoverer(int threads) {
+        this.threads = threads;
+        this.executor = threads > 1 ? Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "TxSenderRecoverer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public void recoverSenders(List<Transaction> transactions, SignatureCache signatureCache) {
+        if (executor == null || executor.isShutdown() || transactions.size() < 2 * MIN_TRANSACTIONS_PER_TASK) {
+            return;
+        }
+
+        int tasks = Math.min(threads, transactions.size() / MIN_TRANSACTIONS_PER_TASK);
+        int transactionsPerTask = (transactions.size() + tasks - 1) / tasks;
+        List<Future<?>> futures = new ArrayList<>(tasks);
+
+        for (int from = 0; from < transactions.size(); from += transactionsPerTask) {
+            List<Transaction> slice = transactions.subList(from, Math.min(from + transactionsPerTask, transactions.size()));
+
+            try {
+                futures.add(executor.submit(() -> slice.forEach(tx -> recoverSender(tx, signatureCache))));
+            } catch (RejectedExecutionException e) {
+                // disposed meanwhile, the senders left are recovered when they are needed
+                break;
+            }
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                logger.debug("Senders couldn't be recovered in advance", e);
+            }
+        }
+    }
+
+    /**
+     * Stops the recovery threads once the tasks already queued are done, the senders aren't recovered in advance
+     * from then on
+     */
+    public void dispose() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static void recoverSender(Transaction transaction, SignatureCache signatureCache) {
+        // the validation doesn't look for the sender of unsigned transactions either
+        if (transaction.getSignature() == null) {
+            return;
+        }
+
+        try {
+            transaction.getSender(signatureCache);
+        } catch (RuntimeException e) {
+            logger.trace("Sender of transaction {} couldn't be recovered", transaction.getHash(), e);
+        }
+    }
+}
@@ -76,7 +76,7 @@ public class BlockChainFlusher implements InternalService, Flusher {
 
     @Override
     public void start() {
-        emitter.addListener(listener);
+        emitter.addSynchronousListener(listener);
     }
 
     @Override
@@ -22,15 +22,24 @@ import co.rsk.core.Coin;
 import co.rsk.core.RskAddress;
 import co.rsk.core.TransactionExecutorFactory;
 import co.rsk.crypto.Keccak256;
+import co.rsk.db.KeyRecordingMutableTrie;
+import co.rsk.db.MutableTrieCache;
+import co.rsk.db.MutableTrieImpl;
 import co.rsk.db.RepositoryLocator;
 import co.rsk.metrics.profilers.Metric;
 import co.rsk.metrics.profilers.Profiler;
 import co.rsk.metrics.profilers.ProfilerFactory;
+import co.rsk.trie.MutableTrie;
+import co.rsk.trie.Trie;
 import com.google.common.annotations.VisibleForTesting;
 import org.ethereum.config.blockchain.upgrades.ActivationConfig;
 import org.ethereum.config.blockchain.upgrades.ConsensusRule;
 import org.ethereum.core.*;
+import org.ethereum.db.ByteArrayWrapper;
+import org.ethereum.db.MutableRepository;
+import org.ethereum.db.TrieKeyMapper;
 import org.ethereum.vm.DataWord;
+import org.ethereum.vm.GasCost;
 import org.ethereum.vm.PrecompiledContracts;
 import org.ethereum.vm.program.ProgramResult;
 import org.ethereum.vm.trace.ProgramTraceProcessor;
@@ -39,6 +48,10 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.ethereum.config.blockchain.upgrades.ConsensusRule.RSKIP126;
 import static org.ethereum.config.blockchain.upgrades.ConsensusRule.RSKIP85;
@@ -50,6 +63,11 @@ import static org.ethereum.config.blockchain.upgrades.ConsensusRule.RSKIP85;
  * - execute and complete the block final state
  *
  * Note that this class IS NOT guaranteed to be thread safe because its dependencies might hold state.
+ *
+ * When built with more than one execution thread, the transactions of a block are first executed speculatively
+ * in parallel on the initial block state, and then applied in order: a transaction whose speculative execution
+ * read any value written by a previous transaction of the block is executed again on the actual state.
+ * The results are the same as executing all the transactions sequentially.
  */
 public class BlockExecutor {
     private static final Logger logger = LoggerFactory.getLogger("blockexecutor");
@@ -58,6 +76,10 @@ public class BlockExecutor {
     private final RepositoryLocator repositoryLocator;
     private final TransactionExecutorFactory transactionExecutorFactory;
     private final ActivationConfig activationConfig;
+    private final TrieKeyMapper trieKeyMapper = new TrieKeyMapper();
+
+    @Nullable
+    private final ExecutorService speculativeExecutor;
 
     private final Map<Keccak256, ProgramResult> transactionResults = new HashMap<>();
     private boolean registerProgramResults;
@@ -66,9 +88,26 @@ public class BlockExecutor {
             ActivationConfig activationConfig,
             RepositoryLocator repositoryLocator,
             TransactionExecutorFactory transactionExecutorFactory) {
+        this(activationConfig, repositoryLocator, transactionExecutorFactory, 1);
+    }
+
+    /**
+     * @param executionThreads number of threads used to execute transactions speculatively,
+     *                         a value lower than 2 means sequential execution.
+     */
+    public BlockExecutor(
+            ActivationConfig activationConfig,
+            RepositoryLocator repositoryLocator,
+            TransactionExecutorFactory transactionExecutorFactory,
+            int executionThreads) {
         this.repositoryLocator = repositoryLocator;
         this.transactionExecutorFactory = transactionExecutorFactory;
         this.activationConfig = activationConfig;
+        this.speculativeExecutor = executionThreads > 1 ? Executors.newFixedThreadPool(executionThreads, runnable -> {
+            Thread thread = new Thread(runnable, "BlockExecutorWorker");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
     }
 
     /**
@@ -266,6 +305,13 @@ public class BlockExecutor {
         // the state prior execution again.
         Metric metric = profiler.start(Profiler.PROFILING_TYPE.BLOCK_EXECUTE);
 
+        if (speculativeExecutor != null && !vmTrace && block.getTransactionsList().size() > 1) {
+            BlockResult result = executeInParallel(block, parent, discardInvalidTxs, acceptInvalidTransactions, saveState);
+            profiler.stop(metric);
+            logger.trace("End executeInternal.");
+            return result;
+        }
+
         Repository track = repositoryLocator.startTrackingAt(parent);
 
         maintainPrecompiledContractStorageRoots(track, activationConfig.forBlock(block.getNumber()));
@@ -376,6 +422,234 @@ public class BlockExecutor {
         return result;
     }
 
+    private BlockResult executeInParallel(
+            Block block,
+            BlockHeader parent,
+            boolean discardInvalidTxs,
+            boolean acceptInvalidTransactions,
+            boolean saveState) {
+        MutableTrie blockTrie = repositoryLocator.startTrackingTrieAt(parent);
+        Repository track = new MutableRepository(blockTrie);
+
+        maintainPrecompiledContractStorageRoots(track, activationConfig.forBlock(block.getNumber()));
+
+        // speculative executions start from the state after the precompiled contracts maintenance
+        track.commit();
+        Trie initialTrie = blockTrie.getTrie();
+
+        List<Transaction> transactions = block.getTransactionsList();
+        List<Future<SpeculativeExecution>> speculativeExecutions = new ArrayList<>(transactions.size());
+        for (int txindex = 0; txindex < transactions.size(); txindex++) {
+            speculativeExecutions.add(submitSpeculativeExecution(transactions.get(txindex), txindex, block, initialTrie));
+        }
+
+        try {
+            return applyTransactionsInOrder(block, blockTrie, track, speculativeExecutions, discardInvalidTxs, acceptInvalidTransactions, saveState);
+        } finally {
+            speculativeExecutions.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private Future<SpeculativeExecution> submitSpeculativeExecution(Transaction tx, int txindex, Block block, Trie initialTrie) {
+        return speculativeExecutor.submit(() -> {
+            // the bridge and REMASC use caches shared by all the executions which aren't thread safe, so the
+            // transactions calling them, directly or from a contract, are only executed in block order
+            RskAddress receiver = tx.getReceiveAddress();
+            if (PrecompiledContracts.REMASC_ADDR.equals(receiver) || PrecompiledContracts.BRIDGE_ADDR.equals(receiver)) {
+                return null;
+            }
+
+            Set<RskAddress> feeReceivers = new HashSet<>(Arrays.asList(PrecompiledContracts.REMASC_ADDR, block.getCoinbase()));
+            feeReceivers.remove(tx.getSender());
+
+            KeyRecordingMutableTrie recorder = new KeyRecordingMutableTrie(new MutableTrieImpl(null, initialTrie));
+            FeeDeferringRepository txTrack = new FeeDeferringRepository(new MutableTrieCache(recorder), feeReceivers);
+
+            try {
+                // the gas used by previous transactions is unknown at this point, it's checked when applying the result
+                SpeculativePrecompiledContracts precompiledContracts = new SpeculativePrecompiledContracts(
+                        transactionExecutorFactory.getPrecompiledContracts());
+                TransactionExecutor txExecutor = transactionExecutorFactory
+                        .withPrecompiledContracts(precompiledContracts)
+                        .newInstance(tx, txindex, block.getCoinbase(), txTrack, block, 0, false, 0, Collections.emptySet());
+                boolean transactionExecuted = txExecutor.executeTransaction();
+                if (precompiledContracts.isSequentialContractReached()) {
+                    return null;
+                }
+
+                txTrack.commit();
+                return new SpeculativeExecution(txExecutor, transactionExecuted, recorder, txTrack);
+            } catch (RuntimeException e) {
+                // the transaction will be executed again on the actual state
+                logger.trace("Speculative execution of tx [{}] failed", tx.getHash(), e);
+                return null;
+            }
+        });
+    }
+
+    private BlockResult applyTransactionsInOrder(
+            Block block,
+            MutableTrie blockTrie,
+            Repository track,
+            List<Future<SpeculativeExecution>> speculativeExecutions,
+            boolean discardInvalidTxs,
+            boolean acceptInvalidTransactions,
+            boolean saveState) {
+        long totalGasUsed = 0;
+        Coin totalPaidFees = Coin.ZERO;
+        List<TransactionReceipt> receipts = new ArrayList<>();
+        List<Transaction> executedTransactions = new ArrayList<>();
+        Set<DataWord> deletedAccounts = new HashSet<>();
+        TransactionConflictDetector conflictDetector = new TransactionConflictDetector();
+        int reexecutedTransactions = 0;
+
+        List<Transaction> transactions = block.getTransactionsList();
+        for (int txindex = 0; txindex < transactions.size(); txindex++) {
+            Transaction tx = transactions.get(txindex);
+            SpeculativeExecution speculativeExecution = getSpeculativeExecution(speculativeExecutions.get(txindex));
+
+            TransactionExecutor txExecutor;
+            boolean transactionExecuted;
+            if (canApply(speculativeExecution, tx, block, totalGasUsed, deletedAccounts, conflictDetector)) {
+                speculativeExecution.recorder.applyWritesTo(blockTrie);
+                speculativeExecution.txTrack.applyDeferredBalancesTo(track);
+                conflictDetector.addWrites(speculativeExecution.recorder);
+                for (RskAddress address : speculativeExecution.txTrack.getDeferredAddresses()) {
+                    conflictDetector.addWrite(new ByteArrayWrapper(trieKeyMapper.getAccountKey(address)));
+                }
+
+                txExecutor = speculativeExecution.txExecutor;
+                transactionExecuted = speculativeExecution.transactionExecuted;
+            } else {
+                reexecutedTransactions++;
+                KeyRecordingMutableTrie recorder = new KeyRecordingMutableTrie(blockTrie);
+                Repository txTrack = new MutableRepository(new MutableTrieCache(recorder));
+
+                txExecutor = transactionExecutorFactory.newInstance(
+                        tx, txindex, block.getCoinbase(), txTrack, block, totalGasUsed, false, 0, deletedAccounts);
+                transactionExecuted = txExecutor.executeTransaction();
+                txTrack.commit();
+                conflictDetector.addWrites(recorder);
+            }
+
+            if (!acceptInvalidTransactions && !transactionExecuted) {
+                if (discardInvalidTxs) {
+                    logger.warn("block: [{}] discarded tx: [{}]", block.getNumber(), tx.getHash());
+                    continue;
+                } else {
+                    logger.warn("block: [{}] execution interrupted because of invalid tx: [{}]",
+                                block.getNumber(), tx.getHash());
+                    return BlockResult.INTERRUPTED_EXECUTION_BLOCK_RESULT;
+                }
+            }
+
+            executedTransactions.add(tx);
+
+            if (this.registerProgramResults) {
+                this.transactionResults.put(tx.getHash(), txExecutor.getResult());
+            }
+
+            long gasUsed = txExecutor.getGasUsed();
+            totalGasUsed += gasUsed;
+            Coin paidFees = txExecutor.getPaidFees();
+            if (paidFees != null) {
+                totalPaidFees = totalPaidFees.add(paidFees);
+            }
+
+            deletedAccounts.addAll(txExecutor.getResult().getDeleteAccounts());
+
+            TransactionReceipt receipt = new TransactionReceipt();
+            receipt.setGasUsed(gasUsed);
+            receipt.setCumulativeGas(totalGasUsed);
+
+            receipt.setTxStatus(txExecutor.getReceipt().isSuccessful());
+            receipt.setTransaction(tx);
+            receipt.setLogInfoList(txExecutor.getVMLogs());
+            receipt.setStatus(txExecutor.getReceipt().getStatus());
+
+            logger.trace("block: [{}] executed tx: [{}]", block.getNumber(), tx.getHash());
+
+            receipts.add(receipt);
+        }
+
+        logger.trace("block: [{}] {} of {} txs re-executed after speculative execution",
+                block.getNumber(), reexecutedTransactions, transactions.size());
+
+        if (saveState) {
+            track.save();
+        } else {
+            track.commit();
+        }
+
+        return new BlockResult(
+                block,
+                executedTransactions,
+                receipts,
+                totalGasUsed,
+                totalPaidFees,
+                track.getTrie()
+        );
+    }
+
+    /**
+     * A speculative execution can be used instead of executing the transaction again when it would have seen the
+     * same state and passed the same validations as a sequential execution.
+     */
+    private boolean canApply(
+            @Nullable SpeculativeExecution speculativeExecution,
+            Transaction tx,
+            Block block,
+            long totalGasUsed,
+            Set<DataWord> deletedAccounts,
+            TransactionConflictDetector conflictDetector) {
+        if (speculativeExecution == null) {
+            return false;
+        }
+
+        // suicided accounts in the block change how calls are executed
+        if (!deletedAccounts.isEmpty() || !speculativeExecution.recorder.getDeletedAccounts().isEmpty()) {
+            return false;
+        }
+
+        long cumulativeGas = GasCost.add(GasCost.toGas(tx.getGasLimit()), totalGasUsed);
+        if (cumulativeGas > GasCost.toGas(block.getGasLimit()) || cumulativeGas == GasCost.MAX_GAS) {
+            return false;
+        }
+
+        return !conflictDetector.conflictsWith(speculativeExecution.recorder);
+    }
+
+    @Nullable
+    private static SpeculativeExecution getSpeculativeExecution(Future<SpeculativeExecution> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            logger.trace("Speculative execution failed", e);
+            return null;
+        }
+    }
+
+    private static class SpeculativeExecution {
+        private final TransactionExecutor txExecutor;
+        private final boolean transactionExecuted;
+        private final KeyRecordingMutableTrie recorder;
+        private final FeeDeferringRepository txTrack;
+
+        SpeculativeExecution(
+                TransactionExecutor txExecutor,
+                boolean transactionExecuted,
+                KeyRecordingMutableTrie recorder,
+                FeeDeferringRepository txTrack) {
+            this.txExecutor = txExecutor;
+            this.transactionExecuted = transactionExecuted;
+            this.recorder = recorder;
+            this.txTrack = txTrack;
+        }
+    }
+
     /**
      * Precompiled contracts storage is setup like any other contract for consistency. Here, we apply this logic on the
      * exact activation block.
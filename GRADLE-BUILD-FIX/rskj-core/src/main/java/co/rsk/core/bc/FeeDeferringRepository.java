@@ -0,0 +1,73 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core.bc;
+
+import co.rsk.core.Coin;
+import co.rsk.core.RskAddress;
+import co.rsk.trie.MutableTrie;
+import org.ethereum.core.Repository;
+import org.ethereum.db.MutableRepository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Repository given to a transaction executed speculatively. Balance additions made directly on it
+ * (and not on a child track) for the fee receivers are recorded instead of applied.
+ *
+ * The {@link org.ethereum.core.TransactionExecutor} pays the fees directly on the track it receives, while
+ * contract code always runs on a child track. Deferring the fee payment avoids that every transaction reads
+ * and writes the fee receiver account, which would make all of them conflict with each other.
+ */
+class FeeDeferringRepository extends MutableRepository {
+
+    private final Set<RskAddress> feeReceivers;
+    private final Map<RskAddress, Coin> deferredBalances = new LinkedHashMap<>();
+
+    FeeDeferringRepository(MutableTrie mutableTrie, Set<RskAddress> feeReceivers) {
+        super(mutableTrie);
+        this.feeReceivers = feeReceivers;
+    }
+
+    /**
+     * For a fee receiver the balance is not known until the deferred additions are applied,
+     * in that case the added value is returned.
+     */
+    @Override
+    public synchronized Coin addBalance(RskAddress addr, Coin value) {
+        if (!feeReceivers.contains(addr)) {
+            return super.addBalance(addr, value);
+        }
+
+        deferredBalances.merge(addr, value, Coin::add);
+        return value;
+    }
+
+    Set<RskAddress> getDeferredAddresses() {
+        return deferredBalances.keySet();
+    }
+
+    /**
+     * Applies the deferred balance additions, in the same order they were made.
+     */
+    void applyDeferredBalancesTo(Repository repository) {
+        deferredBalances.forEach(repository::addBalance);
+    }
+}
@@ -53,7 +53,7 @@ public class GarbageCollector implements InternalService {
 
     @Override
     public void start() {
-        emitter.addListener(garbageCollectorInvoker);
+        emitter.addSynchronousListener(garbageCollectorInvoker);
     }
 
     @Override
@@ -68,7 +68,12 @@ public class PendingState implements AccountInformationProvider {
 
     @Override
     public Iterator<DataWord> getStorageKeys(RskAddress addr) {
-        return postExecutionReturn(executedRepository -> executedRepository.getStorageKeys(addr));
+        // the keys are copied while holding the lock, added transactions change the pending repository
+        return postExecutionReturn(executedRepository -> {
+            List<DataWord> keys = new ArrayList<>();
+            executedRepository.getStorageKeys(addr).forEachRemaining(keys::add);
+            return keys.iterator();
+        });
     }
 
     @Override
@@ -91,7 +96,7 @@ public class PendingState implements AccountInformationProvider {
     }
 
     @Override
-    public BigInteger getNonce(RskAddress addr) {
+    public synchronized BigInteger getNonce(RskAddress addr) {
         BigInteger nextNonce = pendingRepository.getNonce(addr);
         Optional<BigInteger> maxNonce = this.pendingTransactions.getTransactionsWithSender(addr).stream()
                 .map(Transaction::getNonceAsInteger)
@@ -160,7 +165,19 @@ public class PendingState implements AccountInformationProvider {
         return sortedTxs;
     }
 
-    private <T> T postExecutionReturn(PostExecutionAction<T> action) {
+    /**
+     * addTransaction adds a transaction accepted by the pool after this state was created.
+     * If the pending transactions were already executed, only the new one is executed on top of them.
+     */
+    public synchronized void addTransaction(Transaction tx) {
+        pendingTransactions.addTransaction(tx);
+
+        if (executed) {
+            executeTransaction(pendingRepository, tx);
+        }
+    }
+
+    private synchronized <T> T postExecutionReturn(PostExecutionAction<T> action) {
         if (!executed) {
             executeTransactions(pendingRepository, pendingTransactions.getTransactions());
             executed = true;
@@ -0,0 +1,69 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core.bc;
+
+import org.ethereum.config.blockchain.upgrades.ActivationConfig;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.PrecompiledContracts;
+import org.ethereum.vm.exception.VMException;
+
+/**
+ * Precompiled contracts given to a transaction executed speculatively, which never run the bridge nor REMASC.
+ *
+ * Those contracts use caches shared by all the executions which aren't thread safe, like the BTC blocks cache of
+ * {@link co.rsk.peg.RepositoryBtcBlockStoreWithCache.Factory}. A call to them fails instead, and it is recorded so
+ * the speculative result is discarded and the transaction is executed again in block order.
+ */
+class SpeculativePrecompiledContracts extends PrecompiledContracts {
+
+    private static final PrecompiledContract NOT_SPECULATED = new PrecompiledContract() {
+        @Override
+        public long getGasForData(byte[] data) {
+            return 0;
+        }
+
+        @Override
+        public byte[] execute(byte[] data) throws VMException {
+            throw new VMException("Contract can't be executed speculatively");
+        }
+    };
+
+    private volatile boolean sequentialContractReached;
+
+    SpeculativePrecompiledContracts(PrecompiledContracts precompiledContracts) {
+        super(precompiledContracts);
+    }
+
+    @Override
+    public PrecompiledContract getContractForAddress(ActivationConfig.ForBlock activations, DataWord address) {
+        if (BRIDGE_ADDR_DW.equals(address) || REMASC_ADDR_DW.equals(address)) {
+            sequentialContractReached = true;
+            return NOT_SPECULATED;
+        }
+
+        return super.getContractForAddress(activations, address);
+    }
+
+    /**
+     * @return whether the transaction reached the bridge or REMASC, so the speculative result has to be discarded
+     */
+    boolean isSequentialContractReached() {
+        return sequentialContractReached;
+    }
+}
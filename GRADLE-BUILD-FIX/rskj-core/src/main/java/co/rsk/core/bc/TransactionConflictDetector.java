@@ -0,0 +1,82 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core.bc;
+
+import co.rsk.db.KeyRecordingMutableTrie;
+import org.ethereum.db.ByteArrayWrapper;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Accumulates the keys written by the transactions already applied to a block state, and tells whether
+ * a transaction executed speculatively on the initial block state read anything that was changed since.
+ */
+class TransactionConflictDetector {
+
+    private final Set<ByteArrayWrapper> writtenKeys = new HashSet<>();
+    private final Set<ByteArrayWrapper> writtenAccounts = new HashSet<>();
+    private final Set<ByteArrayWrapper> deletedAccounts = new HashSet<>();
+
+    /**
+     * Registers the changes made by a transaction applied to the block state.
+     */
+    void addWrites(KeyRecordingMutableTrie recorder) {
+        recorder.getWrittenKeys().forEach(this::addWrite);
+
+        deletedAccounts.addAll(recorder.getDeletedAccounts());
+        writtenAccounts.addAll(recorder.getDeletedAccounts());
+    }
+
+    /**
+     * Registers a single key written to the block state.
+     */
+    void addWrite(ByteArrayWrapper key) {
+        writtenKeys.add(key);
+        writtenAccounts.add(KeyRecordingMutableTrie.getAccountWrapper(key));
+    }
+
+    /**
+     * @return true if the speculative execution recorded by the given trie read a value that was changed
+     * by any of the transactions registered so far.
+     */
+    boolean conflictsWith(KeyRecordingMutableTrie recorder) {
+        if (writtenAccounts.isEmpty()) {
+            return false;
+        }
+
+        if (recorder.isFullTrieRead()) {
+            return true;
+        }
+
+        for (ByteArrayWrapper key : recorder.getReadKeys()) {
+            if (writtenKeys.contains(key) || deletedAccounts.contains(KeyRecordingMutableTrie.getAccountWrapper(key))) {
+                return true;
+            }
+        }
+
+        for (ByteArrayWrapper account : recorder.getIteratedAccounts()) {
+            if (writtenAccounts.contains(account)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -19,6 +19,7 @@ package co.rsk.core.bc;
 
 import co.rsk.config.RskSystemProperties;
 import co.rsk.core.Coin;
+import co.rsk.core.RskAddress;
 import co.rsk.core.TransactionExecutorFactory;
 import co.rsk.crypto.Keccak256;
 import co.rsk.db.RepositoryLocator;
@@ -38,6 +39,7 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -50,6 +52,7 @@ import static org.ethereum.util.BIUtil.toBI;
  */
 public class TransactionPoolImpl implements TransactionPool {
     private static final Logger logger = LoggerFactory.getLogger("txpool");
+    private static final String POOL_IS_FULL = "transaction pool is full";
 
     private final TransactionSet pendingTransactions;
     private final TransactionSet queuedTransactions;
@@ -66,6 +69,7 @@ public class TransactionPoolImpl implements TransactionPool {
     private final SignatureCache signatureCache;
     private final int outdatedThreshold;
     private final int outdatedTimeout;
+    private final int maxPoolSize;
 
     private ScheduledExecutorService cleanerTimer;
     private ScheduledFuture<?> cleanerFuture;
@@ -74,6 +78,16 @@ public class TransactionPoolImpl implements TransactionPool {
 
     private Block bestBlock;
 
+    // the state after the pending transactions, kept up to date as transactions are added
+    // and built again when the best block changes or pending transactions are removed
+    private PendingState pendingState;
+
+    // the pending and queued transactions as of the last change, so they can be read without taking the pool lock,
+    // and the second they were taken at, since transactions become obsolete by the second
+    private volatile List<Transaction> pendingTransactionsSnapshot;
+    private volatile List<Transaction> queuedTransactionsSnapshot;
+    private volatile long snapshotsTimeSeconds = -1;
+
     private final TxPendingValidator validator;
 
     private final TxQuotaChecker quotaChecker;
@@ -91,11 +105,13 @@ public class TransactionPoolImpl implements TransactionPool {
         this.signatureCache = signatureCache;
         this.outdatedThreshold = outdatedThreshold;
         this.outdatedTimeout = outdatedTimeout;
+        this.maxPoolSize = config.getMaxTransactionPoolSize();
         this.quotaChecker = txQuotaChecker;
         this.gasPriceTracker = gasPriceTracker;
 
-        pendingTransactions = new TransactionSet(this.signatureCache);
-        queuedTransactions = new TransactionSet(this.signatureCache);
+        // the transactions by hash can be looked up without taking the pool lock
+        pendingTransactions = new TransactionSet(new ConcurrentHashMap<>(), new HashMap<>(), this.signatureCache);
+        queuedTransactions = new TransactionSet(new ConcurrentHashMap<>(), new HashMap<>(), this.signatureCache);
 
         this.validator = new TxPendingValidator(config.getNetworkConstants(), config.getActivationConfig(), config.getNumOfAccountSlots(), signatureCache);
 
@@ -160,7 +176,14 @@ public class TransactionPoolImpl implements TransactionPool {
 
     private PendingState getPendingState(RepositorySnapshot currentRepository) {
         removeObsoleteTransactions(this.outdatedThreshold, this.outdatedTimeout);
-        return new PendingState(currentRepository, new TransactionSet(pendingTransactions, signatureCache), (repository, tx) -> transactionExecutorFactory.newInstance(tx, 0, bestBlock.getCoinbase(), repository, createFakePendingBlock(bestBlock), 0), signatureCache);
+
+        if (pendingState == null) {
+            Block best = bestBlock;
+            Block pendingBlock = createFakePendingBlock(best);
+            pendingState = new PendingState(currentRepository, new TransactionSet(pendingTransactions, signatureCache), (repository, tx) -> transactionExecutorFactory.newInstance(tx, 0, best.getCoinbase(), repository, pendingBlock, 0), signatureCache);
+        }
+
+        return pendingState;
     }
 
     private RepositorySnapshot getCurrentRepository() {
@@ -250,15 +273,15 @@ public class TransactionPoolImpl implements TransactionPool {
             return TransactionPoolAddResult.withError("gas price not enough to bump transaction");
         }
 
-        transactionBlocks.put(hash, getCurrentBestBlockNumber());
-
-        final long timestampSeconds = this.getCurrentTimeInSeconds();
-        transactionTimes.put(hash, timestampSeconds);
-
         BigInteger currentNonce = getPendingState(currentRepository).getNonce(tx.getSender(signatureCache));
         BigInteger txNonce = tx.getNonceAsInteger();
         if (txNonce.compareTo(currentNonce) > 0) {
+            if (!makeRoomFor(tx)) {
+                return TransactionPoolAddResult.withError(POOL_IS_FULL);
+            }
+
             this.addQueuedTransaction(tx);
+            recordAddition(hash);
             signatureCache.storeSender(tx);
             return TransactionPoolAddResult.okQueuedTransaction(tx);
         }
@@ -275,8 +298,21 @@ public class TransactionPoolImpl implements TransactionPool {
             return TransactionPoolAddResult.withError("insufficient funds to pay for pending and new transactions");
         }
 
+        if (!replacedTx.isPresent() && !makeRoomFor(tx)) {
+            return TransactionPoolAddResult.withError(POOL_IS_FULL);
+        }
+
         pendingTransactions.addTransaction(tx);
+        recordAddition(hash);
         signatureCache.storeSender(tx);
+        transactionsChanged();
+
+        if (replacedTx.isPresent()) {
+            // the replaced transaction may have been executed already
+            pendingState = null;
+        } else if (pendingState != null) {
+            pendingState.addTransaction(tx);
+        }
 
         return TransactionPoolAddResult.okPendingTransaction(tx);
     }
@@ -306,6 +342,37 @@ public class TransactionPoolImpl implements TransactionPool {
         return oldGasPrice.compareTo(newTx.getGasPrice()) < 0 && gasPriceBumped.compareTo(newTx.getGasPrice()) <= 0;
     }
 
+    /**
+     * When the pool is full, evicts its cheapest transaction to make room for a better paid one.
+     * Only the last transaction of a sender can be evicted, so no transaction is left behind a nonce gap,
+     * and never one of the sender of the new transaction, which could be its predecessor.
+     *
+     * @return false if the pool is full and the transaction doesn't pay more than any transaction that can be evicted
+     */
+    private boolean makeRoomFor(Transaction tx) {
+        if (maxPoolSize <= 0 || pendingTransactions.size() + queuedTransactions.size() < maxPoolSize) {
+            return true;
+        }
+
+        RskAddress sender = tx.getSender(signatureCache);
+        Optional<Transaction> cheapestPending = pendingTransactions.getCheapestLastTransaction(sender);
+        Optional<Transaction> cheapestQueued = queuedTransactions.getCheapestLastTransaction(sender);
+
+        Optional<Transaction> cheapest = cheapestPending;
+        if (!cheapest.isPresent() || (cheapestQueued.isPresent() && cheapestQueued.get().getGasPrice().compareTo(cheapest.get().getGasPrice()) <= 0)) {
+            cheapest = cheapestQueued;
+        }
+
+        if (!cheapest.isPresent() || cheapest.get().getGasPrice().compareTo(tx.getGasPrice()) >= 0) {
+            return false;
+        }
+
+        logger.trace("Evict transaction {} to make room for transaction {}", cheapest.get().getHash(), tx.getHash());
+        removeTransactionList(Collections.singletonList(cheapest.get().getHash()));
+
+        return true;
+    }
+
     @Override
     public synchronized void processBest(Block newBlock) {
         logger.trace("Processing best block {} {}", newBlock.getNumber(), newBlock.getPrintableHash());
@@ -315,6 +382,7 @@ public class TransactionPoolImpl implements TransactionPool {
         //we need to update the bestBlock before calling retractBlock
         //or else the transactions would be validated against outdated account state.
         this.bestBlock = newBlock;
+        this.pendingState = null;
 
         if (fork != null) {
             for (Block blk : fork.getOldBlocks()) {
@@ -400,10 +468,9 @@ public class TransactionPoolImpl implements TransactionPool {
     }
 
     private void removeTransactionList(List<Keccak256> toremove) {
-        for (Keccak256 key : toremove) {
-            pendingTransactions.removeTransactionByHash(key);
-            queuedTransactions.removeTransactionByHash(key);
+        removeFromPool(toremove);
 
+        for (Keccak256 key : toremove) {
             transactionBlocks.remove(key);
             transactionTimes.remove(key);
         }
@@ -411,31 +478,113 @@ public class TransactionPoolImpl implements TransactionPool {
 
     @Override
     public synchronized void removeTransactions(List<Transaction> txs) {
+        List<Keccak256> hashes = new ArrayList<>(txs.size());
+
         for (Transaction tx : txs) {
             Keccak256 khash = tx.getHash();
-            pendingTransactions.removeTransactionByHash(khash);
-            queuedTransactions.removeTransactionByHash(khash);
+            hashes.add(khash);
 
             logger.trace("Clear transaction, hash: [{}]", khash);
         }
+
+        removeFromPool(hashes);
+    }
+
+    /**
+     * Removes the transactions from the pending and queued sets. The pending state is only built again
+     * when one of them was pending, as removing a queued or unknown transaction doesn't change it.
+     */
+    private void removeFromPool(List<Keccak256> hashes) {
+        boolean pendingRemoved = false;
+        boolean queuedRemoved = false;
+
+        for (Keccak256 hash : hashes) {
+            if (pendingTransactions.getTransactionByHash(hash) != null) {
+                pendingTransactions.removeTransactionByHash(hash);
+                pendingRemoved = true;
+            }
+
+            if (queuedTransactions.getTransactionByHash(hash) != null) {
+                queuedTransactions.removeTransactionByHash(hash);
+                queuedRemoved = true;
+            }
+        }
+
+        if (pendingRemoved) {
+            pendingState = null;
+        }
+
+        if (pendingRemoved || queuedRemoved) {
+            transactionsChanged();
+        }
     }
 
     @Override
-    public synchronized List<Transaction> getPendingTransactions() {
-        removeObsoleteTransactions(this.outdatedThreshold, this.outdatedTimeout);
-        return Collections.unmodifiableList(pendingTransactions.getTransactions());
+    public List<Transaction> getPendingTransactions() {
+        List<Transaction> snapshot = pendingTransactionsSnapshot;
+
+        if (snapshot != null && snapshotsTimeSeconds == getCurrentTimeInSeconds()) {
+            return snapshot;
+        }
+
+        synchronized (this) {
+            takeSnapshots();
+            return pendingTransactionsSnapshot;
+        }
     }
 
     @Override
-    public synchronized List<Transaction> getQueuedTransactions() {
+    public List<Transaction> getQueuedTransactions() {
+        List<Transaction> snapshot = queuedTransactionsSnapshot;
+
+        if (snapshot == null || snapshotsTimeSeconds != getCurrentTimeInSeconds()) {
+            synchronized (this) {
+                takeSnapshots();
+                snapshot = queuedTransactionsSnapshot;
+            }
+        }
+
+        return new ArrayList<>(snapshot);
+    }
+
+    @Override
+    public Transaction getTransactionByHash(Keccak256 hash) {
+        Transaction transaction = pendingTransactions.getTransactionByHash(hash);
+
+        if (transaction != null) {
+            return transaction;
+        }
+
+        return queuedTransactions.getTransactionByHash(hash);
+    }
+
+    private void takeSnapshots() {
+        final long timestampSeconds = this.getCurrentTimeInSeconds();
+
         removeObsoleteTransactions(this.outdatedThreshold, this.outdatedTimeout);
-        List<Transaction> ret = new ArrayList<>();
-        ret.addAll(queuedTransactions.getTransactions());
-        return ret;
+
+        if (pendingTransactionsSnapshot == null || queuedTransactionsSnapshot == null) {
+            pendingTransactionsSnapshot = pendingTransactions.getTransactions();
+            queuedTransactionsSnapshot = queuedTransactions.getTransactions();
+        }
+
+        snapshotsTimeSeconds = timestampSeconds;
+    }
+
+    private void transactionsChanged() {
+        pendingTransactionsSnapshot = null;
+        queuedTransactionsSnapshot = null;
     }
 
     private void addQueuedTransaction(Transaction tx) {
         this.queuedTransactions.addTransaction(tx);
+        transactionsChanged();
+    }
+
+    // only transactions actually in the pool are recorded, so a rejected one is never taken for an expired one
+    private void recordAddition(Keccak256 hash) {
+        transactionBlocks.put(hash, getCurrentBestBlockNumber());
+        transactionTimes.put(hash, this.getCurrentTimeInSeconds());
     }
 
     private long getCurrentTimeInSeconds() {
@@ -0,0 +1,131 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.db;
+
+import co.rsk.core.RskAddress;
+import co.rsk.core.types.ints.Uint24;
+import co.rsk.crypto.Keccak256;
+import co.rsk.trie.MutableTrie;
+import co.rsk.trie.Trie;
+import org.ethereum.db.ByteArrayWrapper;
+import org.ethereum.vm.DataWord;
+
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A {@link MutableTrie} over the state at a given root that reads values from a {@link FlatStateStore}
+ * while it is at the same root, and from the trie otherwise.
+ *
+ * Once the trie is modified its state is no longer the one in the flat store, so from then on every
+ * operation goes to the trie.
+ */
+public class FlatStateMutableTrie implements MutableTrie {
+
+    private final FlatStateStore flatStateStore;
+    private final Keccak256 stateRoot;
+    private final MutableTrie trie;
+
+    private boolean modified;
+
+    public FlatStateMutableTrie(FlatStateStore flatStateStore, Keccak256 stateRoot, MutableTrie trie) {
+        this.flatStateStore = flatStateStore;
+        this.stateRoot = stateRoot;
+        this.trie = trie;
+    }
+
+    @Override
+    public Keccak256 getHash() {
+        return trie.getHash();
+    }
+
+    @Override
+    public byte[] get(byte[] key) {
+        if (modified) {
+            return trie.get(key);
+        }
+
+        return flatStateStore.get(stateRoot, key, () -> trie.get(key));
+    }
+
+    @Override
+    public void put(byte[] key, byte[] value) {
+        modified = true;
+        trie.put(key, value);
+    }
+
+    @Override
+    public void put(String key, byte[] value) {
+        modified = true;
+        trie.put(key, value);
+    }
+
+    @Override
+    public void put(ByteArrayWrapper key, byte[] value) {
+        modified = true;
+        trie.put(key, value);
+    }
+
+    @Override
+    public void deleteRecursive(byte[] key) {
+        modified = true;
+        trie.deleteRecursive(key);
+    }
+
+    @Override
+    public void save() {
+        trie.save();
+    }
+
+    @Override
+    public void commit() {
+        trie.commit();
+    }
+
+    @Override
+    public void rollback() {
+        trie.rollback();
+    }
+
+    @Override
+    public Set<ByteArrayWrapper> collectKeys(int size) {
+        return trie.collectKeys(size);
+    }
+
+    @Override
+    public Trie getTrie() {
+        return trie.getTrie();
+    }
+
+    @Override
+    public Uint24 getValueLength(byte[] key) {
+        return trie.getValueLength(key);
+    }
+
+    @Override
+    public Optional<Keccak256> getValueHash(byte[] key) {
+        return trie.getValueHash(key);
+    }
+
+    @Override
+    public Iterator<DataWord> getStorageKeys(RskAddress addr) {
+        return trie.getStorageKeys(addr);
+    }
+}
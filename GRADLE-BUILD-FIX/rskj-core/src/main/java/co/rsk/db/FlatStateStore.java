@@ -0,0 +1,224 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.db;
+
+import co.rsk.crypto.Keccak256;
+import co.rsk.trie.Trie;
+import co.rsk.trie.TrieDiff;
+import co.rsk.trie.TrieStore;
+import org.ethereum.datasource.DataSourceKeyIterator;
+import org.ethereum.datasource.KeyValueDataSource;
+import org.ethereum.db.ByteArrayWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * A flat key/value copy of the state at a single trie root, usually the one of the best block.
+ *
+ * Reads take a single lookup in the data source instead of walking the trie from its root. The store is moved
+ * from one root to another applying the differences between both tries, so it goes back to a previous state
+ * on a reorganization the same way it goes forward on a new block, whatever the depth of the reorganization.
+ * If the current root is unknown or can't be retrieved anymore, the whole state is copied again.
+ */
+public class FlatStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlatStateStore.class);
+
+    // all the state keys start with the domain prefix (0x00), so this key can't clash with them
+    private static final byte[] ROOT_KEY = "flatStateRoot".getBytes(StandardCharsets.UTF_8);
+    private static final Keccak256 EMPTY_TRIE_HASH = new Trie().getHash();
+    private static final int GENERATION_BATCH_SIZE = 10_000;
+
+    private final KeyValueDataSource dataSource;
+    private final TrieStore trieStore;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // the root of the state in the data source, or null while it isn't complete
+    @Nullable
+    private volatile Keccak256 root;
+
+    public FlatStateStore(KeyValueDataSource dataSource, TrieStore trieStore) {
+        this.dataSource = dataSource;
+        this.trieStore = trieStore;
+
+        byte[] storedRoot = dataSource.get(ROOT_KEY);
+        this.root = storedRoot == null ? null : new Keccak256(storedRoot);
+    }
+
+    /**
+     * @return the value of the key in the state with the given root, read from this store if it is at that root,
+     * or from {@code fallback} otherwise
+     */
+    @Nullable
+    public byte[] get(Keccak256 stateRoot, byte[] key, Supplier<byte[]> fallback) {
+        if (stateRoot.equals(root)) {
+            lock.readLock().lock();
+
+            try {
+                // the root may have changed while waiting for the lock
+                if (stateRoot.equals(root)) {
+                    return dataSource.get(key);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        return fallback.get();
+    }
+
+    @Nullable
+    public Keccak256 getRoot() {
+        return root;
+    }
+
+    /**
+     * Moves this store to the state with the given root. This is expected to be called from a single thread.
+     *
+     * @return false if the state couldn't be found in the trie store
+     */
+    public boolean update(Keccak256 newRoot) {
+        if (newRoot.equals(root)) {
+            return true;
+        }
+
+        Optional<Trie> newTrie = retrieve(newRoot);
+
+        if (!newTrie.isPresent()) {
+            logger.warn("Flat state can't be moved to {}, the trie was not found", newRoot);
+            return false;
+        }
+
+        Keccak256 currentRoot = root;
+        Optional<Trie> currentTrie = currentRoot == null ? Optional.empty() : retrieve(currentRoot);
+
+        if (!currentTrie.isPresent()) {
+            generate(newRoot, newTrie.get());
+            return true;
+        }
+
+        Map<ByteArrayWrapper, byte[]> rows = new HashMap<>();
+        Set<ByteArrayWrapper> keysToRemove = new HashSet<>();
+        TrieDiff.diff(currentTrie.get(), newTrie.get(), (key, value) -> {
+            if (value == null) {
+                keysToRemove.add(new ByteArrayWrapper(key));
+            } else {
+                rows.put(new ByteArrayWrapper(key), value);
+            }
+        });
+
+        rows.put(new ByteArrayWrapper(ROOT_KEY), newRoot.getBytes());
+
+        lock.writeLock().lock();
+
+        try {
+            dataSource.updateBatch(rows, keysToRemove);
+            root = newRoot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        logger.trace("Flat state moved from {} to {}: {} updated, {} removed",
+                currentRoot, newRoot, rows.size() - 1, keysToRemove.size());
+
+        return true;
+    }
+
+    public void flush() {
+        dataSource.flush();
+    }
+
+    public void close() {
+        dataSource.close();
+    }
+
+    private void generate(Keccak256 newRoot, Trie newTrie) {
+        logger.info("Generating flat state at {}", newRoot);
+
+        lock.writeLock().lock();
+
+        try {
+            root = null;
+            dataSource.delete(ROOT_KEY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        clear();
+
+        Map<ByteArrayWrapper, byte[]> rows = new HashMap<>();
+        long[] count = new long[1];
+        TrieDiff.collect(newTrie, (key, value) -> {
+            rows.put(new ByteArrayWrapper(key), value);
+            count[0]++;
+
+            if (rows.size() >= GENERATION_BATCH_SIZE) {
+                dataSource.updateBatch(rows, new HashSet<>());
+                rows.clear();
+            }
+        });
+
+        rows.put(new ByteArrayWrapper(ROOT_KEY), newRoot.getBytes());
+
+        lock.writeLock().lock();
+
+        try {
+            dataSource.updateBatch(rows, new HashSet<>());
+            root = newRoot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        logger.info("Flat state generated at {} with {} keys", newRoot, count[0]);
+    }
+
+    private void clear() {
+        Set<ByteArrayWrapper> keysToRemove = new HashSet<>();
+
+        // keys are removed in batches, each one collected by a new iterator so none is modified while in use
+        do {
+            keysToRemove.clear();
+
+            try (DataSourceKeyIterator iterator = dataSource.keyIterator()) {
+                while (iterator.hasNext() && keysToRemove.size() < GENERATION_BATCH_SIZE) {
+                    keysToRemove.add(new ByteArrayWrapper(iterator.next()));
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Flat state couldn't be cleared", e);
+            }
+
+            dataSource.updateBatch(new HashMap<>(), keysToRemove);
+        } while (!keysToRemove.isEmpty());
+    }
+
+    private Optional<Trie> retrieve(Keccak256 stateRoot) {
+        if (EMPTY_TRIE_HASH.equals(stateRoot)) {
+            return Optional.of(new Trie(trieStore));
+        }
+
+        return trieStore.retrieve(stateRoot.getBytes());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.db;
+
+import co.rsk.config.InternalService;
+import co.rsk.crypto.Keccak256;
+import org.ethereum.core.Block;
+import org.ethereum.core.TransactionReceipt;
+import org.ethereum.listener.CompositeEthereumListener;
+import org.ethereum.listener.EthereumListenerAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps a {@link FlatStateStore} at the state of the best block.
+ *
+ * The store is updated in a background thread, so block processing doesn't wait for it. If several best blocks
+ * arrive while an update is running, only the last one is applied next.
+ */
+public class FlatStateUpdater implements InternalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlatStateUpdater.class);
+
+    private final CompositeEthereumListener emitter;
+    private final StateRootHandler stateRootHandler;
+    private final FlatStateStore flatStateStore;
+
+    private final OnBestBlockListener listener = new OnBestBlockListener();
+    private final AtomicReference<Keccak256> pendingRoot = new AtomicReference<>();
+
+    private ExecutorService executor;
+
+    public FlatStateUpdater(
+            CompositeEthereumListener emitter,
+            StateRootHandler stateRootHandler,
+            FlatStateStore flatStateStore) {
+        this.emitter = emitter;
+        this.stateRootHandler = stateRootHandler;
+        this.flatStateStore = flatStateStore;
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "FlatStateUpdater"));
+        emitter.addSynchronousListener(listener);
+    }
+
+    @Override
+    public void stop() {
+        emitter.removeListener(listener);
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Flat state update didn't finish in time");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        flatStateStore.flush();
+    }
+
+    private void update() {
+        Keccak256 root = pendingRoot.getAndSet(null);
+
+        if (root == null) {
+            return;
+        }
+
+        try {
+            flatStateStore.update(root);
+        } catch (RuntimeException e) {
+            // reads fall back to the trie until the next update
+            logger.error("Flat state couldn't be updated to {}", root, e);
+        }
+    }
+
+    private class OnBestBlockListener extends EthereumListenerAdapter {
+        @Override
+        public void onBestBlock(Block block, List<TransactionReceipt> receipts) {
+            Keccak256 root = stateRootHandler.translate(block.getHeader());
+
+            // an update is already scheduled if there was a pending root, it will take the new one
+            if (pendingRoot.getAndSet(root) == null) {
+                executor.execute(FlatStateUpdater.this::update);
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.db;
+
+import co.rsk.core.RskAddress;
+import co.rsk.core.types.ints.Uint24;
+import co.rsk.crypto.Keccak256;
+import co.rsk.trie.MutableTrie;
+import co.rsk.trie.Trie;
+import org.ethereum.db.ByteArrayWrapper;
+import org.ethereum.db.TrieKeyMapper;
+import org.ethereum.vm.DataWord;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A {@link MutableTrie} that forwards every operation to a parent trie while recording
+ * which keys were read from it and which keys were written to it.
+ *
+ * It is meant to sit below a {@link MutableTrieCache}, so only the reads that miss the cache
+ * (that is, reads of state that was not produced by the same execution) are recorded.
+ */
+public class KeyRecordingMutableTrie implements MutableTrie {
+
+    private static final int ACCOUNT_KEY_LENGTH =
+            TrieKeyMapper.domainPrefix().length + TrieKeyMapper.ACCOUNT_KEY_SIZE + TrieKeyMapper.SECURE_KEY_SIZE;
+
+    private final TrieKeyMapper trieKeyMapper = new TrieKeyMapper();
+
+    private final MutableTrie trie;
+
+    private final Set<ByteArrayWrapper> readKeys = new HashSet<>();
+    // accounts whose whole storage was read through getStorageKeys
+    private final Set<ByteArrayWrapper> iteratedAccounts = new HashSet<>();
+    // null value means the key has been removed
+    private final Map<ByteArrayWrapper, byte[]> writtenValues = new LinkedHashMap<>();
+    private final Set<ByteArrayWrapper> deletedAccounts = new LinkedHashSet<>();
+    // set when the whole trie was exposed (e.g. through getTrie), so any previous change is relevant
+    private boolean fullTrieRead;
+
+    public KeyRecordingMutableTrie(MutableTrie parentTrie) {
+        this.trie = parentTrie;
+    }
+
+    @Override
+    public Keccak256 getHash() {
+        fullTrieRead = true;
+        return trie.getHash();
+    }
+
+    @Override
+    public byte[] get(byte[] key) {
+        readKeys.add(new ByteArrayWrapper(key));
+        return trie.get(key);
+    }
+
+    @Override
+    public void put(byte[] key, byte[] value) {
+        put(new ByteArrayWrapper(key), value);
+    }
+
+    @Override
+    public void put(String key, byte[] value) {
+        put(key.getBytes(StandardCharsets.UTF_8), value);
+    }
+
+    @Override
+    public void put(ByteArrayWrapper key, byte[] value) {
+        writtenValues.put(key, value);
+        trie.put(key, value);
+    }
+
+    @Override
+    public void deleteRecursive(byte[] key) {
+        ByteArrayWrapper accountWrapper = new ByteArrayWrapper(key);
+        // previous writes on the account are superseded by the delete, this keeps
+        // writtenValues replayable after deletedAccounts
+        writtenValues.keySet().removeIf(k -> getAccountWrapper(k).equals(accountWrapper));
+        deletedAccounts.add(accountWrapper);
+        trie.deleteRecursive(key);
+    }
+
+    @Override
+    public void save() {
+        trie.save();
+    }
+
+    @Override
+    public void commit() {
+        trie.commit();
+    }
+
+    @Override
+    public void rollback() {
+        trie.rollback();
+    }
+
+    @Override
+    public Set<ByteArrayWrapper> collectKeys(int size) {
+        fullTrieRead = true;
+        return trie.collectKeys(size);
+    }
+
+    @Override
+    public Trie getTrie() {
+        fullTrieRead = true;
+        return trie.getTrie();
+    }
+
+    @Override
+    public Uint24 getValueLength(byte[] key) {
+        readKeys.add(new ByteArrayWrapper(key));
+        return trie.getValueLength(key);
+    }
+
+    @Override
+    public Optional<Keccak256> getValueHash(byte[] key) {
+        readKeys.add(new ByteArrayWrapper(key));
+        return trie.getValueHash(key);
+    }
+
+    @Override
+    public Iterator<DataWord> getStorageKeys(RskAddress addr) {
+        iteratedAccounts.add(new ByteArrayWrapper(trieKeyMapper.getAccountKey(addr)));
+        return trie.getStorageKeys(addr);
+    }
+
+    /**
+     * Replays the recorded writes on another trie: recursive deletes first, then puts.
+     *
+     * @param target the trie to write to
+     */
+    public void applyWritesTo(MutableTrie target) {
+        deletedAccounts.forEach(account -> target.deleteRecursive(account.getData()));
+        writtenValues.forEach(target::put);
+    }
+
+    public Set<ByteArrayWrapper> getReadKeys() {
+        return Collections.unmodifiableSet(readKeys);
+    }
+
+    public Set<ByteArrayWrapper> getIteratedAccounts() {
+        return Collections.unmodifiableSet(iteratedAccounts);
+    }
+
+    public Set<ByteArrayWrapper> getWrittenKeys() {
+        return Collections.unmodifiableSet(writtenValues.keySet());
+    }
+
+    public Set<ByteArrayWrapper> getDeletedAccounts() {
+        return Collections.unmodifiableSet(deletedAccounts);
+    }
+
+    public boolean isFullTrieRead() {
+        return fullTrieRead;
+    }
+
+    /**
+     * @return a wrapper with the account key prefix of the given key, the same grouping used by {@link MutableTrieCache}
+     */
+    public static ByteArrayWrapper getAccountWrapper(ByteArrayWrapper key) {
+        byte[] data = key.getData();
+        return data.length == ACCOUNT_KEY_LENGTH ? key : new ByteArrayWrapper(Arrays.copyOf(data, ACCOUNT_KEY_LENGTH));
+    }
+}
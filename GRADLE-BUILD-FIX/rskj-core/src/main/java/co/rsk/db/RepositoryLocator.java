@@ -28,6 +28,7 @@ import org.ethereum.crypto.Keccak256Helper;
 import org.ethereum.db.MutableRepository;
 import org.ethereum.util.RLP;
 
+import javax.annotation.Nullable;
 import java.util.Optional;
 
 import static org.ethereum.util.ByteUtil.EMPTY_BYTE_ARRAY;
@@ -38,10 +39,20 @@ public class RepositoryLocator {
 
     private final TrieStore trieStore;
     private final StateRootHandler stateRootHandler;
+    @Nullable
+    private final FlatStateStore flatStateStore;
 
     public RepositoryLocator(TrieStore store, StateRootHandler stateRootHandler) {
+        this(store, stateRootHandler, null);
+    }
+
+    /**
+     * @param flatStateStore if not null, the state reads are served from it while it is at the same state
+     */
+    public RepositoryLocator(TrieStore store, StateRootHandler stateRootHandler, @Nullable FlatStateStore flatStateStore) {
         this.trieStore = store;
         this.stateRootHandler = stateRootHandler;
+        this.flatStateStore = flatStateStore;
     }
 
     /**
@@ -71,9 +82,18 @@ public class RepositoryLocator {
      * @throws IllegalArgumentException if the state is not found.
      */
     public Repository startTrackingAt(BlockHeader header) {
+        return new MutableRepository(startTrackingTrieAt(header));
+    }
+
+    /**
+     * Retrieves a cached mutable trie of the state at a particular header
+     * @param header the header to retrieve the state from
+     * @return a modifiable {@link MutableTrie}, changes are kept in a cache layer until committed
+     * @throws IllegalArgumentException if the state is not found.
+     */
+    public MutableTrie startTrackingTrieAt(BlockHeader header) {
         return mutableTrieSnapshotAt(header)
                 .map(MutableTrieCache::new)
-                .map(MutableRepository::new)
                 .orElseThrow(() -> trieNotFoundException(header));
     }
 
@@ -92,6 +112,14 @@ public class RepositoryLocator {
 
         Optional<Trie> trie = trieStore.retrieve(stateRoot.getBytes());
 
-        return trie.map(t -> new MutableTrieImpl(trieStore, t));
+        return trie.map(t -> withFlatState(stateRoot, new MutableTrieImpl(trieStore, t)));
+    }
+
+    private MutableTrie withFlatState(Keccak256 stateRoot, MutableTrie mutableTrie) {
+        if (flatStateStore == null) {
+            return mutableTrie;
+        }
+
+        return new FlatStateMutableTrie(flatStateStore, stateRoot, mutableTrie);
     }
 }
@@ -0,0 +1,84 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Encodes the posting lists of the log index
+ *
+ * A posting list is a sorted list of block numbers without repetitions. Each number
+ * is saved as the difference with the previous one (the first one with a base number),
+ * as an unsigned variable length integer of seven bits per byte
+ *
+ * A block with logs of a busy address usually takes one byte
+ */
+public class LogIndexEncoder {
+    private LogIndexEncoder() {
+
+    }
+
+    public static byte[] encode(long[] blockNumbers, long base) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(blockNumbers.length + 8);
+        long previous = base;
+
+        for (long blockNumber : blockNumbers) {
+            if (blockNumber < previous) {
+                throw new IllegalArgumentException("Block numbers must be sorted and not lower than the base");
+            }
+
+            long delta = blockNumber - previous;
+
+            while ((delta & ~0x7FL) != 0) {
+                out.write((int) ((delta & 0x7F) | 0x80));
+                delta >>>= 7;
+            }
+
+            out.write((int) delta);
+            previous = blockNumber;
+        }
+
+        return out.toByteArray();
+    }
+
+    public static long[] decode(byte[] data, long base) {
+        long[] blockNumbers = new long[data.length];
+        int count = 0;
+        long previous = base;
+        long delta = 0;
+        int shift = 0;
+
+        for (byte b : data) {
+            delta |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) != 0) {
+                shift += 7;
+                continue;
+            }
+
+            previous += delta;
+            blockNumbers[count++] = previous;
+            delta = 0;
+            shift = 0;
+        }
+
+        return count == blockNumbers.length ? blockNumbers : Arrays.copyOf(blockNumbers, count);
+    }
+}
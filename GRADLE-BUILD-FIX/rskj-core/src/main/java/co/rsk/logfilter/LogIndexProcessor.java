@@ -0,0 +1,185 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import org.ethereum.core.Block;
+import org.ethereum.core.Transaction;
+import org.ethereum.core.TransactionReceipt;
+import org.ethereum.db.BlockStore;
+import org.ethereum.db.ReceiptStore;
+import org.ethereum.db.TransactionInfo;
+import org.ethereum.vm.LogInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Process the logs of the blocks into the log index
+ *
+ * It indexes the blocks of the main chain with enough confirmations, following the
+ * last indexed block
+ *
+ * Before indexing, it checks that the last indexed block is still in the main chain.
+ * If it is not, the indexed range is rewound to the last common block, and the blocks
+ * of the new main chain are indexed from there
+ */
+public class LogIndexProcessor {
+    private static final Logger logger = LoggerFactory.getLogger("logindex");
+
+    private static final int MAX_BLOCKS_PER_BATCH = 1000;
+
+    private final LogIndexStore logIndexStore;
+    private final BlockStore blockStore;
+    private final ReceiptStore receiptStore;
+
+    public LogIndexProcessor(LogIndexStore logIndexStore, BlockStore blockStore, ReceiptStore receiptStore) {
+        this.logIndexStore = logIndexStore;
+        this.blockStore = blockStore;
+        this.receiptStore = receiptStore;
+    }
+
+    /**
+     * Receives the new height to process.
+     * Indexes the blocks up to that height minus the number of needed confirmations
+     *
+     * When the index is empty, it starts at that block
+     *
+     * @param newBlockNumber    the new height to process
+     */
+    public void processNewBlockNumber(long newBlockNumber) {
+        processNewBlockNumber(newBlockNumber, Long.MAX_VALUE);
+    }
+
+    /**
+     * Receives the new height to process, indexing at most the given number of blocks
+     *
+     * @param newBlockNumber    the new height to process
+     * @param maxBlocks         the maximum number of blocks to index
+     * @return false if blocks are left to index because of the limit
+     */
+    public synchronized boolean processNewBlockNumber(long newBlockNumber, long maxBlocks) {
+        if (newBlockNumber < this.logIndexStore.getNoConfirmations()) {
+            return true;
+        }
+
+        long blockNumber = newBlockNumber - this.logIndexStore.getNoConfirmations();
+
+        rewindIfReorganized();
+
+        long fromBlock = this.logIndexStore.isEmpty() ? blockNumber : this.logIndexStore.getLastIndexedNumber() + 1;
+        long toBlock = blockNumber - fromBlock < maxBlocks ? blockNumber : fromBlock + maxBlocks - 1;
+
+        long indexed = indexBlocks(fromBlock, toBlock);
+
+        // when a block couldn't be indexed, the rest has to wait for the next height
+        return toBlock == blockNumber || indexed < toBlock - fromBlock + 1;
+    }
+
+    /**
+     * Indexes the logs of the main chain blocks in a range
+     *
+     * The range must be adjacent to or overlap the already indexed blocks
+     *
+     * @param fromBlock first block number to index
+     * @param toBlock   last block number to index
+     * @return the number of indexed blocks
+     */
+    public synchronized long indexBlocks(long fromBlock, long toBlock) {
+        long blockNumber = fromBlock;
+
+        while (blockNumber <= toBlock) {
+            LogIndexStore.Batch batch = this.logIndexStore.newBatch();
+            long lastInBatch = Math.min(toBlock, blockNumber + MAX_BLOCKS_PER_BATCH - 1);
+
+            for (; blockNumber <= lastInBatch; blockNumber++) {
+                Block block = this.blockStore.getChainBlockByNumber(blockNumber);
+                List<LogInfo> logs = block == null ? null : logsOf(block);
+
+                // an incomplete block would be a block whose logs are never found
+                if (logs == null) {
+                    logger.warn("logs of block {} are not available, indexing stopped", blockNumber);
+                    this.logIndexStore.addBatch(batch);
+                    return blockNumber - fromBlock;
+                }
+
+                batch.addBlock(blockNumber, block.getHash(), logs);
+            }
+
+            this.logIndexStore.addBatch(batch);
+        }
+
+        return Math.max(0, toBlock - fromBlock + 1);
+    }
+
+    /**
+     * Rewinds the indexed range to the last indexed block that is still in the main chain
+     */
+    public synchronized void rewindIfReorganized() {
+        if (this.logIndexStore.isEmpty()) {
+            return;
+        }
+
+        long lastNumber = this.logIndexStore.getLastIndexedNumber();
+        Block lastIndexed = this.blockStore.getBlockByHash(this.logIndexStore.getLastIndexedHash().getBytes());
+        Block block = lastIndexed;
+
+        while (block != null && block.getNumber() >= this.logIndexStore.getFirstIndexedNumber()) {
+            if (isInMainChain(block)) {
+                if (block.getNumber() != lastNumber) {
+                    logger.info("reorganization detected, log index rewound from block {} to block {}", lastNumber, block.getNumber());
+                    this.logIndexStore.rewind(block.getNumber(), block.getHash());
+                }
+
+                return;
+            }
+
+            block = this.blockStore.getBlockByHash(block.getParentHash().getBytes());
+        }
+
+        logger.warn("no indexed block is in the main chain, log index cleared");
+        this.logIndexStore.clear();
+    }
+
+    private boolean isInMainChain(Block block) {
+        Block mainChainBlock = this.blockStore.getChainBlockByNumber(block.getNumber());
+
+        return mainChainBlock != null && mainChainBlock.getHash().equals(block.getHash());
+    }
+
+    private List<LogInfo> logsOf(Block block) {
+        List<LogInfo> logs = new ArrayList<>();
+        byte[] blockHash = block.getHash().getBytes();
+
+        for (Transaction tx : block.getTransactionsList()) {
+            Optional<TransactionInfo> txInfo = this.receiptStore.get(tx.getHash().getBytes(), blockHash);
+
+            if (!txInfo.isPresent()) {
+                return null;
+            }
+
+            TransactionReceipt receipt = txInfo.get().getReceipt();
+            logs.addAll(receipt.getLogInfoList());
+        }
+
+        return logs;
+    }
+}
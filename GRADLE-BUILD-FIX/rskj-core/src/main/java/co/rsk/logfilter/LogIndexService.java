@@ -0,0 +1,134 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import co.rsk.config.InternalService;
+import org.ethereum.core.Block;
+import org.ethereum.core.TransactionReceipt;
+import org.ethereum.db.BlockStore;
+import org.ethereum.db.ReceiptStore;
+import org.ethereum.listener.CompositeEthereumListener;
+import org.ethereum.listener.EthereumListenerAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A wrapper to use a LogIndexProcessor as an internal service
+ *
+ * The block heights to be processed are obtained from block events
+ *
+ * The block events are received on the block import thread, which only indexes a few blocks. When the index is
+ * further behind, as after it was disabled for a while, the rest is indexed on the service's own thread, and the
+ * block events that arrive meanwhile only move its target forward.
+ */
+public class LogIndexService implements InternalService {
+    private static final Logger logger = LoggerFactory.getLogger("logindex");
+
+    private static final long MAX_SYNCHRONOUS_BLOCKS = 10;
+    private static final long CATCH_UP_BLOCKS_PER_STEP = 1000;
+    private static final long NO_CATCH_UP = -1;
+
+    private final CompositeEthereumListener emitter;
+    private final LogIndexProcessor logIndexProcessor;
+
+    private final LogIndexService.OnBlockListener listener = new LogIndexService.OnBlockListener();
+    // the height the running catch up goes to, or NO_CATCH_UP
+    private final AtomicLong catchUpBlockNumber = new AtomicLong(NO_CATCH_UP);
+
+    private ExecutorService executor;
+
+    public LogIndexService(CompositeEthereumListener emitter, LogIndexStore logIndexStore, BlockStore blockStore, ReceiptStore receiptStore) {
+        this.emitter = emitter;
+        this.logIndexProcessor = new LogIndexProcessor(logIndexStore, blockStore, receiptStore);
+    }
+
+    @Override
+    public void start() {
+        logger.info("log index service started");
+
+        executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "LogIndexCatchUp"));
+        emitter.addSynchronousListener(listener);
+    }
+
+    @Override
+    public void stop() {
+        logger.info("log index service stopped");
+
+        emitter.removeListener(listener);
+        executor.shutdownNow();
+
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("log index catch up didn't finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void processNewBlock(long blockNumber) {
+        long target = catchUpBlockNumber.get();
+
+        // a catch up is running, it will take the new height
+        if (target != NO_CATCH_UP && catchUpBlockNumber.compareAndSet(target, blockNumber)) {
+            return;
+        }
+
+        if (this.logIndexProcessor.processNewBlockNumber(blockNumber, MAX_SYNCHRONOUS_BLOCKS)) {
+            return;
+        }
+
+        logger.info("log index is behind, catching up to block {} in the background", blockNumber);
+        catchUpBlockNumber.set(blockNumber);
+        executor.execute(this::catchUp);
+    }
+
+    private void catchUp() {
+        long blockNumber = catchUpBlockNumber.get();
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // the target is left when the catch up reached it and no new height arrived meanwhile
+                if (this.logIndexProcessor.processNewBlockNumber(blockNumber, CATCH_UP_BLOCKS_PER_STEP)
+                        && catchUpBlockNumber.compareAndSet(blockNumber, NO_CATCH_UP)) {
+                    return;
+                }
+
+                blockNumber = catchUpBlockNumber.get();
+            }
+        } catch (RuntimeException e) {
+            logger.error("log index catch up to block {} failed", blockNumber, e);
+        }
+
+        catchUpBlockNumber.set(NO_CATCH_UP);
+    }
+
+    private class OnBlockListener extends EthereumListenerAdapter {
+        @Override
+        public void onBlock(Block block, List<TransactionReceipt> receipts) {
+            processNewBlock(block.getNumber());
+        }
+    }
+}
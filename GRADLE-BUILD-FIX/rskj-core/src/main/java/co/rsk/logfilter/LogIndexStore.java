@@ -0,0 +1,430 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import co.rsk.core.RskAddress;
+import co.rsk.crypto.Keccak256;
+import org.ethereum.datasource.KeyValueDataSource;
+import org.ethereum.db.ByteArrayWrapper;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Log index store
+ *
+ * It maps each address that emitted a log, and each topic of a log, to the sorted
+ * list of the numbers of the blocks that contain such logs
+ *
+ * The lists are split in records of a fixed range of blocks. The key of a record is
+ * the address or topic followed by the first block number in the range, so a query
+ * reads only the records of the blocks it asks for
+ *
+ * The indexed blocks are a contiguous range of the blockchain. When that range is
+ * rewound because of a reorganization the records are left as they are: a block
+ * number that no longer has the address or topic is a false positive, and the
+ * logs of the candidate blocks are always matched again by the caller
+ */
+public class LogIndexStore {
+    private static final Logger logger = LoggerFactory.getLogger("logindex");
+
+    private static final byte ADDRESS_PREFIX = 'a';
+    private static final byte TOPIC_PREFIX = 't';
+    private static final byte[] INDEXED_RANGE_KEY = "indexedRange".getBytes(StandardCharsets.UTF_8);
+
+    private static final long[] EMPTY = new long[0];
+
+    private final int noBlocks;
+    private final int noConfirmations;
+
+    private final KeyValueDataSource dataSource;
+
+    private volatile IndexedRange indexedRange;
+
+    public LogIndexStore(int noBlocks, int noConfirmations, @Nonnull KeyValueDataSource dataSource) {
+        this.noBlocks = noBlocks;
+        this.noConfirmations = noConfirmations;
+        this.dataSource = Objects.requireNonNull(dataSource);
+        this.indexedRange = IndexedRange.decode(dataSource.get(INDEXED_RANGE_KEY));
+    }
+
+    public boolean isEmpty() {
+        return this.indexedRange == null;
+    }
+
+    /**
+     * Returns if the logs of the block with the provided number are in the index
+     *
+     * @param blockNumber block number to query
+     * @return true if the block number is in the indexed range, false if not
+     */
+    public boolean isIndexed(long blockNumber) {
+        IndexedRange range = this.indexedRange;
+
+        return range != null && range.first <= blockNumber && blockNumber <= range.last;
+    }
+
+    /**
+     * @return the first indexed block number, -1 if the index is empty
+     */
+    public long getFirstIndexedNumber() {
+        IndexedRange range = this.indexedRange;
+
+        return range == null ? -1 : range.first;
+    }
+
+    /**
+     * @return the last indexed block number, -1 if the index is empty
+     */
+    public long getLastIndexedNumber() {
+        IndexedRange range = this.indexedRange;
+
+        return range == null ? -1 : range.last;
+    }
+
+    @Nullable
+    public Keccak256 getLastIndexedHash() {
+        IndexedRange range = this.indexedRange;
+
+        return range == null ? null : range.lastHash;
+    }
+
+    /**
+     * Retrieves the numbers of the blocks with logs emitted by an address
+     *
+     * @param address   the address that emitted the logs
+     * @param fromBlock first block number to query
+     * @param toBlock   last block number to query
+     * @return the sorted block numbers in the range
+     */
+    public long[] getAddressBlockNumbers(RskAddress address, long fromBlock, long toBlock) {
+        return getBlockNumbers(ADDRESS_PREFIX, address.getBytes(), fromBlock, toBlock);
+    }
+
+    /**
+     * Retrieves the numbers of the blocks with logs that have a topic, in any position
+     *
+     * @param topic     the topic
+     * @param fromBlock first block number to query
+     * @param toBlock   last block number to query
+     * @return the sorted block numbers in the range
+     */
+    public long[] getTopicBlockNumbers(byte[] topic, long fromBlock, long toBlock) {
+        return getBlockNumbers(TOPIC_PREFIX, topic, fromBlock, toBlock);
+    }
+
+    private long[] getBlockNumbers(byte prefix, byte[] id, long fromBlock, long toBlock) {
+        long[] result = EMPTY;
+
+        for (long base = firstNumberInRange(fromBlock); base <= toBlock; base += this.noBlocks) {
+            byte[] data = this.dataSource.get(recordKey(prefix, id, base));
+
+            if (data == null) {
+                continue;
+            }
+
+            long[] blockNumbers = LogIndexEncoder.decode(data, base);
+            int from = lowerBound(blockNumbers, fromBlock);
+            int to = lowerBound(blockNumbers, toBlock + 1);
+
+            if (from < to) {
+                long[] merged = Arrays.copyOf(result, result.length + to - from);
+                System.arraycopy(blockNumbers, from, merged, result.length, to - from);
+                result = merged;
+            }
+        }
+
+        return result;
+    }
+
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    /**
+     * Saves the logs collected in a batch and extends the indexed range with its blocks
+     *
+     * @param batch the batch to save
+     * @throws IllegalArgumentException if the batch would leave a gap in the indexed range
+     */
+    public synchronized void addBatch(Batch batch) {
+        if (batch.first < 0) {
+            return;
+        }
+
+        IndexedRange range = this.indexedRange;
+
+        if (range != null && (batch.first > range.last + 1 || batch.last < range.first - 1)) {
+            throw new IllegalArgumentException(String.format(
+                    "Blocks %d to %d can't be indexed, the indexed blocks are %d to %d",
+                    batch.first, batch.last, range.first, range.last));
+        }
+
+        Map<ByteArrayWrapper, byte[]> rows = new HashMap<>();
+
+        for (Map.Entry<ByteArrayWrapper, List<Long>> entry : batch.blockNumbers.entrySet()) {
+            byte[] key = entry.getKey().getData();
+            long base = baseFromKey(key);
+            long[] added = entry.getValue().stream().mapToLong(Long::longValue).toArray();
+            byte[] data = this.dataSource.get(key);
+            long[] blockNumbers = data == null ? added : union(LogIndexEncoder.decode(data, base), added);
+
+            rows.put(entry.getKey(), LogIndexEncoder.encode(blockNumbers, base));
+        }
+
+        this.dataSource.updateBatch(rows, Collections.emptySet());
+
+        IndexedRange newRange;
+
+        if (range == null) {
+            newRange = new IndexedRange(batch.first, batch.last, batch.lastHash);
+        } else if (batch.last >= range.last) {
+            newRange = new IndexedRange(Math.min(range.first, batch.first), batch.last, batch.lastHash);
+        } else {
+            newRange = new IndexedRange(Math.min(range.first, batch.first), range.last, range.lastHash);
+        }
+
+        // the records go first, so a reader never sees an indexed block without its logs
+        setIndexedRange(newRange);
+
+        logger.trace("indexed logs: blocks {} to {}", batch.first, batch.last);
+    }
+
+    /**
+     * Shrinks the indexed range, so it ends at the provided block
+     *
+     * @param blockNumber the new last indexed block number
+     * @param blockHash   the hash of that block
+     */
+    public synchronized void rewind(long blockNumber, Keccak256 blockHash) {
+        IndexedRange range = this.indexedRange;
+
+        if (range == null || blockNumber >= range.last) {
+            return;
+        }
+
+        if (blockNumber < range.first) {
+            clear();
+            return;
+        }
+
+        setIndexedRange(new IndexedRange(range.first, blockNumber, blockHash));
+    }
+
+    /**
+     * Empties the indexed range, the records are kept and extended when
+     * the blocks are indexed again
+     */
+    public synchronized void clear() {
+        this.indexedRange = null;
+        this.dataSource.delete(INDEXED_RANGE_KEY);
+    }
+
+    private void setIndexedRange(IndexedRange range) {
+        this.dataSource.put(INDEXED_RANGE_KEY, range.encode());
+        this.indexedRange = range;
+    }
+
+    public long firstNumberInRange(long number) {
+        return number - (number % this.noBlocks);
+    }
+
+    public int getNoBlocks() {
+        return this.noBlocks;
+    }
+
+    public int getNoConfirmations() {
+        return this.noConfirmations;
+    }
+
+    public void flush() {
+        this.dataSource.flush();
+    }
+
+    public void close() {
+        this.dataSource.close();
+    }
+
+    /**
+     * Merges two sorted lists of block numbers
+     *
+     * @return the sorted block numbers in any of the lists, without repetitions
+     */
+    public static long[] union(long[] left, long[] right) {
+        long[] result = new long[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+
+        while (i < left.length || j < right.length) {
+            long next;
+
+            if (j == right.length || (i < left.length && left[i] < right[j])) {
+                next = left[i++];
+            } else if (i == left.length || right[j] < left[i]) {
+                next = right[j++];
+            } else {
+                next = left[i++];
+                j++;
+            }
+
+            result[k++] = next;
+        }
+
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Intersects two sorted lists of block numbers
+     *
+     * @return the sorted block numbers in both lists
+     */
+    public static long[] intersection(long[] left, long[] right) {
+        long[] result = new long[Math.min(left.length, right.length)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (right[j] < left[i]) {
+                j++;
+            } else {
+                result[k++] = left[i++];
+                j++;
+            }
+        }
+
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    private static int lowerBound(long[] blockNumbers, long blockNumber) {
+        int index = Arrays.binarySearch(blockNumbers, blockNumber);
+
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static byte[] recordKey(byte prefix, byte[] id, long base) {
+        return ByteBuffer.allocate(1 + id.length + Long.BYTES).put(prefix).put(id).putLong(base).array();
+    }
+
+    private static long baseFromKey(byte[] key) {
+        return ByteBuffer.wrap(key, key.length - Long.BYTES, Long.BYTES).getLong();
+    }
+
+    /**
+     * Collects the logs of consecutive blocks, to save them at once
+     */
+    public class Batch {
+        private final Map<ByteArrayWrapper, List<Long>> blockNumbers = new HashMap<>();
+
+        private long first = -1;
+        private long last = -1;
+        private Keccak256 lastHash;
+
+        private Batch() {
+        }
+
+        /**
+         * Adds the logs of a block, blocks must be added in order and without gaps
+         *
+         * @param blockNumber the number of the block
+         * @param blockHash   the hash of the block
+         * @param logs        all the logs of the block
+         */
+        public void addBlock(long blockNumber, Keccak256 blockHash, Collection<LogInfo> logs) {
+            if (this.last >= 0 && blockNumber != this.last + 1) {
+                throw new IllegalArgumentException("Blocks must be added in order, expected " + (this.last + 1) + " but got " + blockNumber);
+            }
+
+            long base = firstNumberInRange(blockNumber);
+
+            for (LogInfo logInfo : logs) {
+                add(recordKey(ADDRESS_PREFIX, logInfo.getAddress(), base), blockNumber);
+
+                for (DataWord topic : logInfo.getTopics()) {
+                    add(recordKey(TOPIC_PREFIX, topic.getData(), base), blockNumber);
+                }
+            }
+
+            if (this.first < 0) {
+                this.first = blockNumber;
+            }
+
+            this.last = blockNumber;
+            this.lastHash = blockHash;
+        }
+
+        public boolean isEmpty() {
+            return this.first < 0;
+        }
+
+        private void add(byte[] key, long blockNumber) {
+            List<Long> numbers = this.blockNumbers.computeIfAbsent(new ByteArrayWrapper(key), k -> new ArrayList<>());
+
+            // many logs of a block can have the same address or topic
+            if (numbers.isEmpty() || numbers.get(numbers.size() - 1) != blockNumber) {
+                numbers.add(blockNumber);
+            }
+        }
+    }
+
+    private static class IndexedRange {
+        private final long first;
+        private final long last;
+        private final Keccak256 lastHash;
+
+        IndexedRange(long first, long last, Keccak256 lastHash) {
+            this.first = first;
+            this.last = last;
+            this.lastHash = lastHash;
+        }
+
+        byte[] encode() {
+            return ByteBuffer.allocate(2 * Long.BYTES + Keccak256.HASH_LEN)
+                    .putLong(first)
+                    .putLong(last)
+                    .put(lastHash.getBytes())
+                    .array();
+        }
+
+        @Nullable
+        static IndexedRange decode(@Nullable byte[] data) {
+            if (data == null) {
+                return null;
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            long first = buffer.getLong();
+            long last = buffer.getLong();
+            byte[] hash = new byte[Keccak256.HASH_LEN];
+            buffer.get(hash);
+
+            return new IndexedRange(first, last, new Keccak256(hash));
+        }
+    }
+}
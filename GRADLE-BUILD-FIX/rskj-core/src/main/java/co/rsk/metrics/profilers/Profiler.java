@@ -36,7 +36,9 @@ public interface Profiler {
         BUILD_TRIE_FROM_MSG,
         TRIE_TO_MESSAGE, //Currently inactive, to measure, add the hooks in Trie::toMessage() and Trie::toMessageOrchid()
         TRIE_CONVERTER_GET_ACCOUNT_ROOT,
-        BLOCKCHAIN_FLUSH
+        BLOCKCHAIN_FLUSH,
+        TRIE_NODE_CACHE_HIT, //Retrieval of a trie node found in the decoded nodes cache
+        TRIE_NODE_CACHE_MISS //Retrieval of a trie node not found in the decoded nodes cache, it includes BUILD_TRIE_FROM_MSG
     }
 
 
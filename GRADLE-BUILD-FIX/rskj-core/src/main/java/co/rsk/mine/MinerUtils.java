@@ -166,6 +166,8 @@ public class MinerUtils {
 
         List<Transaction> txs = transactionPool.getPendingTransactions();
 
+        // the pool price index orders every transaction by price alone, a block needs each sender's
+        // transactions in nonce order, so they are still merged by price here
         return PendingState.sortByPriceTakingIntoAccountSenderAndNonce(txs, signatureCache);
     }
 
@@ -67,7 +67,14 @@ public class AsyncNodeBlockProcessor extends NodeBlockProcessor implements Inter
                                    @Nonnull BlockSyncService blockSyncService, @Nonnull SyncConfiguration syncConfiguration,
                                    @Nonnull BlockValidator blockHeaderValidator, @Nonnull BlockValidator blockValidator,
                                    @Nullable Listener listener) {
-        super(store, blockchain, nodeInformation, blockSyncService, syncConfiguration);
+        this(store, blockchain, nodeInformation, blockSyncService, syncConfiguration, blockHeaderValidator, blockValidator, listener, null);
+    }
+
+    public AsyncNodeBlockProcessor(@Nonnull NetBlockStore store, @Nonnull Blockchain blockchain, @Nonnull BlockNodeInformation nodeInformation,
+                                   @Nonnull BlockSyncService blockSyncService, @Nonnull SyncConfiguration syncConfiguration,
+                                   @Nonnull BlockValidator blockHeaderValidator, @Nonnull BlockValidator blockValidator,
+                                   @Nullable Listener listener, @Nullable EncodedBlockCache encodedBlockCache) {
+        super(store, blockchain, nodeInformation, blockSyncService, syncConfiguration, encodedBlockCache);
         this.blockHeaderValidator = blockHeaderValidator;
         this.blockValidator = blockValidator;
         this.listener = listener;
@@ -20,19 +20,21 @@
 package co.rsk.net;
 
 import co.rsk.crypto.Keccak256;
-import co.rsk.util.MaxSizeHashMap;
+import co.rsk.util.StripedLruMap;
 import org.ethereum.core.Block;
 
 import java.util.Map;
 
 /**
  * Created by ajlopez on 17/06/2017.
+ * <p>
+ * BlockCache is thread safe, so the block store can look blocks up from several threads at once.
  */
 public class BlockCache {
     private final Map<Keccak256, Block> blockMap;
 
     public BlockCache(int cacheSize) {
-        this.blockMap = new MaxSizeHashMap<>(cacheSize, true);
+        this.blockMap = new StripedLruMap<>(cacheSize);
     }
 
     public void removeBlock(Block block) {
@@ -118,7 +118,8 @@ public class BlockSyncService {
         return BlockUtils.sortBlocksByNumber(this.getParentsNotInBlockchain(block));
     }
 
-    public BlockProcessResult processBlock(@Nonnull Block block, Peer sender, boolean ignoreMissingHashes) {
+    // the blocks of the long sync can be imported on their own thread, see BlockImportPipeline
+    public synchronized BlockProcessResult processBlock(@Nonnull Block block, Peer sender, boolean ignoreMissingHashes) {
         final Instant start = Instant.now();
         
         // Validate block header first to see if its PoW is valid at all
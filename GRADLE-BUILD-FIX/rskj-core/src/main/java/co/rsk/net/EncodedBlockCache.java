@@ -0,0 +1,124 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package co.rsk.net;
+
+import co.rsk.crypto.Keccak256;
+import co.rsk.util.MaxSizeHashMap;
+import org.ethereum.core.Block;
+import org.ethereum.core.BlockHeader;
+import org.ethereum.core.Transaction;
+import org.ethereum.util.RLP;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EncodedBlockCache keeps the RLP encoding of the headers and bodies of the blocks served to
+ * the syncing peers, so a block asked by several peers is loaded and encoded only once.
+ * <p>
+ * The cache holds a limited amount of blocks, evicted in least-recently-accessed order.
+ * Blocks are keyed by hash, so forks don't invalidate the entries.
+ */
+public class EncodedBlockCache {
+    private final Map<Keccak256, EncodedBlock> blocks;
+
+    public EncodedBlockCache(int maxBlocks) {
+        this.blocks = new MaxSizeHashMap<>(maxBlocks, true);
+    }
+
+    @CheckForNull
+    public synchronized EncodedBlock get(@Nonnull Keccak256 hash) {
+        return blocks.get(hash);
+    }
+
+    /**
+     * put encodes the given block and keeps it in the cache.
+     *
+     * @param block the block to encode.
+     * @return the encoded block.
+     */
+    public EncodedBlock put(@Nonnull Block block) {
+        EncodedBlock encodedBlock = new EncodedBlock(block);
+
+        synchronized (this) {
+            blocks.put(block.getHash(), encodedBlock);
+        }
+
+        return encodedBlock;
+    }
+
+    public synchronized int size() {
+        return blocks.size();
+    }
+
+    /**
+     * EncodedBlock holds the encoded header and the encoded lists of transactions and uncles of a block.
+     * Block and body encodings are composed from them without encoding every element again.
+     */
+    public static class EncodedBlock {
+        private final Keccak256 parentHash;
+        private final byte[] header;
+        private final byte[] transactions;
+        private final byte[] uncles;
+
+        private EncodedBlock(Block block) {
+            this.parentHash = block.getParentHash();
+            this.header = block.getHeader().getFullEncoded();
+            this.transactions = encodeTransactions(block.getTransactionsList());
+            this.uncles = encodeUncles(block.getUncleList());
+        }
+
+        public Keccak256 getParentHash() {
+            return parentHash;
+        }
+
+        public byte[] getEncodedHeader() {
+            return header;
+        }
+
+        public byte[] getEncodedBody() {
+            return RLP.encodeList(transactions, uncles);
+        }
+
+        public byte[] getEncodedBlock() {
+            return RLP.encodeList(header, transactions, uncles);
+        }
+
+        private static byte[] encodeTransactions(List<Transaction> transactions) {
+            byte[][] encoded = new byte[transactions.size()][];
+
+            for (int k = 0; k < encoded.length; k++) {
+                encoded[k] = transactions.get(k).getEncoded();
+            }
+
+            return RLP.encodeList(encoded);
+        }
+
+        private static byte[] encodeUncles(List<BlockHeader> uncles) {
+            byte[][] encoded = new byte[uncles.size()][];
+
+            for (int k = 0; k < encoded.length; k++) {
+                encoded[k] = uncles.get(k).getFullEncoded();
+            }
+
+            return RLP.encodeList(encoded);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net;
+
+/**
+ * The queue depth and the latencies of a lane of the {@link NodeMessageHandler}
+ */
+public class MessageLaneStats {
+    private final String name;
+    private final int queued;
+    private final long processed;
+    private final long averageWaitMillis;
+    private final long averageProcessingMillis;
+
+    public MessageLaneStats(String name, int queued, long processed, long averageWaitMillis, long averageProcessingMillis) {
+        this.name = name;
+        this.queued = queued;
+        this.processed = processed;
+        this.averageWaitMillis = averageWaitMillis;
+        this.averageProcessingMillis = averageProcessingMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public long getAverageProcessingMillis() {
+        return averageProcessingMillis;
+    }
+}
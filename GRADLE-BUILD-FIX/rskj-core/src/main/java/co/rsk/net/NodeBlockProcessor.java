@@ -33,6 +33,7 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * NodeBlockProcessor processes blocks to add into a blockchain.
@@ -47,11 +48,14 @@ public class NodeBlockProcessor implements BlockProcessor {
     private final BlockNodeInformation nodeInformation;
     private final SyncConfiguration syncConfiguration;
     // keeps on a map the hashes that belongs to the skeleton
-    private final Map <Long, byte[]> skeletonCache = new HashMap<>();
+    // skeleton requests from different peers are served concurrently on the serving lanes
+    private final Map <Long, byte[]> skeletonCache = new ConcurrentHashMap<>();
 
     protected final NetBlockStore store;
     // keep tabs on which nodes know which blocks.
     protected final BlockSyncService blockSyncService;
+    // keeps the encoding of the blocks served to the peers, null when disabled
+    private final EncodedBlockCache encodedBlockCache;
 
     /**
      * Creates a new NodeBlockProcessor using the given BlockStore and Blockchain.
@@ -67,11 +71,27 @@ public class NodeBlockProcessor implements BlockProcessor {
             @Nonnull final BlockNodeInformation nodeInformation,
             @Nonnull final BlockSyncService blockSyncService,
             @Nonnull final SyncConfiguration syncConfiguration) {
+        this(store, blockchain, nodeInformation, blockSyncService, syncConfiguration, null);
+    }
+
+    /**
+     * Creates a new NodeBlockProcessor that serves the block requests from an encoded block cache.
+     *
+     * @param encodedBlockCache the cache of encoded blocks, null to encode the served blocks on every request.
+     */
+    public NodeBlockProcessor(
+            @Nonnull final NetBlockStore store,
+            @Nonnull final Blockchain blockchain,
+            @Nonnull final BlockNodeInformation nodeInformation,
+            @Nonnull final BlockSyncService blockSyncService,
+            @Nonnull final SyncConfiguration syncConfiguration,
+            @Nullable final EncodedBlockCache encodedBlockCache) {
         this.store = store;
         this.blockchain = blockchain;
         this.nodeInformation = nodeInformation;
         this.blockSyncService = blockSyncService;
         this.syncConfiguration = syncConfiguration;
+        this.encodedBlockCache = encodedBlockCache;
     }
 
     /**
@@ -159,6 +179,18 @@ public class NodeBlockProcessor implements BlockProcessor {
     @Override
     public void processBlockRequest(@Nonnull final Peer sender, long requestId, @Nonnull final byte[] hash) {
         logger.trace("Processing get block by hash {} {} from {}", requestId, ByteUtil.toHexString(hash), sender.getPeerNodeID());
+
+        if (encodedBlockCache != null) {
+            EncodedBlockCache.EncodedBlock encodedBlock = getEncodedBlock(hash);
+
+            if (encodedBlock != null) {
+                nodeInformation.addBlockToNode(new Keccak256(hash), sender.getPeerNodeID());
+                sender.sendMessage(new BlockResponseMessage(requestId, encodedBlock.getEncodedBlock()));
+            }
+
+            return;
+        }
+
         final Block block = blockSyncService.getBlockFromStoreOrBlockchain(hash);
 
         if (block == null) {
@@ -186,6 +218,11 @@ public class NodeBlockProcessor implements BlockProcessor {
             return;
         }
 
+        if (encodedBlockCache != null) {
+            processEncodedBlockHeadersRequest(sender, requestId, hash, count);
+            return;
+        }
+
         Block block = blockSyncService.getBlockFromStoreOrBlockchain(hash);
 
         if (block == null) {
@@ -210,6 +247,29 @@ public class NodeBlockProcessor implements BlockProcessor {
         sender.sendMessage(response);
     }
 
+    private void processEncodedBlockHeadersRequest(@Nonnull final Peer sender, long requestId, @Nonnull final byte[] hash, int count) {
+        EncodedBlockCache.EncodedBlock encodedBlock = getEncodedBlock(hash);
+
+        if (encodedBlock == null) {
+            return;
+        }
+
+        List<byte[]> headers = new ArrayList<>();
+        headers.add(encodedBlock.getEncodedHeader());
+
+        for (int k = 1; k < count; k++) {
+            encodedBlock = getEncodedBlock(encodedBlock.getParentHash().getBytes());
+
+            if (encodedBlock == null) {
+                break;
+            }
+
+            headers.add(encodedBlock.getEncodedHeader());
+        }
+
+        sender.sendMessage(new BlockHeadersResponseMessage(requestId, headers.toArray(new byte[headers.size()][])));
+    }
+
     /**
      * processBodyRequest sends the requested block body to a peer if it is available.
      *
@@ -220,6 +280,17 @@ public class NodeBlockProcessor implements BlockProcessor {
     @Override
     public void processBodyRequest(@Nonnull final Peer sender, long requestId, @Nonnull final byte[] hash) {
         logger.trace("Processing body request {} {} from {}", requestId, ByteUtil.toHexString(hash), sender.getPeerNodeID());
+
+        if (encodedBlockCache != null) {
+            EncodedBlockCache.EncodedBlock encodedBlock = getEncodedBlock(hash);
+
+            if (encodedBlock != null) {
+                sender.sendMessage(new BodyResponseMessage(requestId, encodedBlock.getEncodedBody()));
+            }
+
+            return;
+        }
+
         final Block block = blockSyncService.getBlockFromStoreOrBlockchain(hash);
 
         if (block == null) {
@@ -325,6 +396,30 @@ public class NodeBlockProcessor implements BlockProcessor {
         return hash;
     }
 
+    /**
+     * getEncodedBlock retrieves the encoded block with the given hash from the cache,
+     * or else loads it from the store or the blockchain and keeps its encoding in the cache.
+     *
+     * @param hash the block's hash.
+     * @return the encoded block if available, null otherwise.
+     */
+    @CheckForNull
+    private EncodedBlockCache.EncodedBlock getEncodedBlock(@Nonnull final byte[] hash) {
+        EncodedBlockCache.EncodedBlock encodedBlock = encodedBlockCache.get(new Keccak256(hash));
+
+        if (encodedBlock != null) {
+            return encodedBlock;
+        }
+
+        Block block = blockSyncService.getBlockFromStoreOrBlockchain(hash);
+
+        if (block == null) {
+            return null;
+        }
+
+        return encodedBlockCache.put(block);
+    }
+
     @Override
     public BlockNodeInformation getNodeInformation() {
         return nodeInformation;
@@ -42,13 +42,17 @@ import org.slf4j.MDC;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class NodeMessageHandler implements MessageHandler, InternalService, Runnable {
@@ -61,12 +65,33 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
     private static final int QUEUED_TIME_TO_WARN_PERIOD = 10; // seconds
     private static final int PROCESSING_TIME_TO_WARN_LIMIT = 2; // seconds
 
+    // requests that only read the blockchain, they are served apart from the blocks and sync messages when lanes are enabled
+    private static final Set<MessageType> SERVING_MESSAGE_TYPES = Collections.unmodifiableSet(EnumSet.of(
+            MessageType.GET_BLOCK_MESSAGE,
+            MessageType.BLOCK_REQUEST_MESSAGE,
+            MessageType.BLOCK_HEADERS_REQUEST_MESSAGE,
+            MessageType.BODY_REQUEST_MESSAGE,
+            MessageType.SKELETON_REQUEST_MESSAGE,
+            MessageType.BLOCK_HASH_REQUEST_MESSAGE,
+            MessageType.SNAPSHOT_STATUS_REQUEST_MESSAGE,
+            MessageType.STATE_NODES_REQUEST_MESSAGE
+    ));
+
+    // messages processed in the transactions lane when lanes are enabled
+    private static final Set<MessageType> TRANSACTION_MESSAGE_TYPES = Collections.unmodifiableSet(EnumSet.of(
+            MessageType.TRANSACTIONS,
+            MessageType.TRANSACTION_HASHES_MESSAGE,
+            MessageType.TRANSACTIONS_REQUEST_MESSAGE
+    ));
+
     private final RskSystemProperties config;
     private final BlockProcessor blockProcessor;
     private final SyncProcessor syncProcessor;
     private final ChannelManager channelManager;
     private final TransactionGateway transactionGateway;
     private final PeerScoringManager peerScoringManager;
+    @Nullable
+    private final SnapshotProcessor snapshotProcessor;
 
     private final StatusResolver statusResolver;
     private final Map<Keccak256, Set<NodeID>> receivedPeerMessagesMap;
@@ -77,6 +102,13 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
 
     private final PriorityBlockingQueue<MessageTask> queue;
 
+    // the lane of the blocks and sync messages, processed in order by the message handler thread
+    private final MessageLane mainLane;
+    // lanes of the serving requests, a peer's requests always go to the same lane
+    private final List<MessageLane> servingLanes;
+    @Nullable
+    private final MessageLane transactionsLane;
+
     private final MessageCounter messageCounter = new MessageCounter();
     private final int messageQueueMaxSize;
 
@@ -98,6 +130,20 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
                               @Nullable TransactionGateway transactionGateway,
                               @Nullable PeerScoringManager peerScoringManager,
                               StatusResolver statusResolver) {
+        this(config, blockProcessor, syncProcessor, channelManager, transactionGateway, peerScoringManager, null, statusResolver);
+    }
+
+    /**
+     * Creates a new node message handler that also serves the state to the peers doing a snapshot sync.
+     */
+    public NodeMessageHandler(RskSystemProperties config,
+                              BlockProcessor blockProcessor,
+                              SyncProcessor syncProcessor,
+                              @Nullable ChannelManager channelManager,
+                              @Nullable TransactionGateway transactionGateway,
+                              @Nullable PeerScoringManager peerScoringManager,
+                              @Nullable SnapshotProcessor snapshotProcessor,
+                              StatusResolver statusResolver) {
         this.config = config;
         this.channelManager = channelManager;
         this.blockProcessor = blockProcessor;
@@ -105,6 +151,7 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
         this.transactionGateway = transactionGateway;
         this.statusResolver = statusResolver;
         this.peerScoringManager = peerScoringManager;
+        this.snapshotProcessor = snapshotProcessor;
         this.receivedPeerMessagesMap = new MaxSizeHashMap<>(MAX_NUMBER_OF_MESSAGES_CACHED, true);
         this.queue = new PriorityBlockingQueue<>(11, new MessageTask.TaskComparator());
         this.bannedMiners = Collections.unmodifiableSet(
@@ -112,6 +159,15 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
         );
         this.messageQueueMaxSize = config.getMessageQueueMaxSize();
         this.thread = new Thread(this, "message handler");
+        this.mainLane = new MessageLane("main", queue);
+        this.servingLanes = new ArrayList<>();
+        this.transactionsLane = config.isMessageLanesEnabled() ? new MessageLane("transactions") : null;
+
+        if (transactionsLane != null) {
+            for (int k = 0; k < config.getMessageServingLanes(); k++) {
+                servingLanes.add(new MessageLane("serving " + k));
+            }
+        }
     }
 
     @VisibleForTesting
@@ -130,6 +186,7 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
         this.transactionGateway = transactionGateway;
         this.statusResolver = statusResolver;
         this.peerScoringManager = peerScoringManager;
+        this.snapshotProcessor = null;
         this.receivedPeerMessagesMap = new MaxSizeHashMap<>(maxNumberOfMessagesCached, true);
         this.queue = new PriorityBlockingQueue<>(11, new MessageTask.TaskComparator());
         this.bannedMiners = Collections.unmodifiableSet(
@@ -137,6 +194,15 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
         );
         this.messageQueueMaxSize = config.getMessageQueueMaxSize();
         this.thread = new Thread(this, "message handler");
+        this.mainLane = new MessageLane("main", queue);
+        this.servingLanes = new ArrayList<>();
+        this.transactionsLane = config.isMessageLanesEnabled() ? new MessageLane("transactions") : null;
+
+        if (transactionsLane != null) {
+            for (int k = 0; k < config.getMessageServingLanes(); k++) {
+                servingLanes.add(new MessageLane("serving " + k));
+            }
+        }
     }
 
     /**
@@ -145,13 +211,13 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
      * @param sender  the message sender.
      * @param message the message to be processed.
      */
-    public synchronized void processMessage(final Peer sender, @Nonnull final Message message) {
+    public void processMessage(final Peer sender, @Nonnull final Message message) {
         messageCounter.decrement(sender);
 
         MessageType messageType = message.getMessageType();
         logger.trace("Process message type: {}", messageType);
 
-        MessageVisitor mv = new MessageVisitor(config, blockProcessor, syncProcessor, transactionGateway, peerScoringManager, channelManager, sender);
+        MessageVisitor mv = new MessageVisitor(config, blockProcessor, syncProcessor, transactionGateway, peerScoringManager, channelManager, snapshotProcessor, sender);
         message.accept(mv);
     }
 
@@ -258,13 +324,31 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
         // also, while queue implementation stays unbounded, offer() will never return false
         messageCounter.increment(sender);
         MessageTask messageTask = new MessageTask(sender, message, score, nodeMsgTraceInfo);
-        boolean messageAdded = this.queue.offer(messageTask);
+        boolean messageAdded = getLane(sender, message).queue.offer(messageTask);
         if (!messageAdded) {
             messageCounter.decrement(sender);
             logger.warn("Unexpected path. Is message queue bounded now?");
         }
     }
 
+    private MessageLane getLane(Peer sender, Message message) {
+        if (transactionsLane == null) {
+            return mainLane;
+        }
+
+        MessageType messageType = message.getMessageType();
+
+        if (TRANSACTION_MESSAGE_TYPES.contains(messageType)) {
+            return transactionsLane;
+        }
+
+        if (!servingLanes.isEmpty() && SERVING_MESSAGE_TYPES.contains(messageType)) {
+            return servingLanes.get(Math.floorMod(sender.getPeerNodeID().hashCode(), servingLanes.size()));
+        }
+
+        return mainLane;
+    }
+
     @Override
     public synchronized void start() {
         if (!state.isCreated()) {
@@ -275,6 +359,7 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
         state = ExecState.RUNNING;
 
         thread.start();
+        getWorkerLanes().forEach(MessageLane::start);
     }
 
     @Override
@@ -287,11 +372,38 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
         state = ExecState.FINISHED;
 
         thread.interrupt();
+        getWorkerLanes().forEach(MessageLane::stop);
     }
 
     @Override
     public long getMessageQueueSize() {
-        return this.queue.size();
+        long size = this.queue.size();
+
+        for (MessageLane lane : getWorkerLanes()) {
+            size += lane.queue.size();
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns the queue depth and the latencies of each lane, the main one first.
+     */
+    public List<MessageLaneStats> getLaneStats() {
+        List<MessageLaneStats> stats = new ArrayList<>();
+        stats.add(mainLane.getStats());
+        getWorkerLanes().forEach(lane -> stats.add(lane.getStats()));
+        return stats;
+    }
+
+    private List<MessageLane> getWorkerLanes() {
+        List<MessageLane> lanes = new ArrayList<>(servingLanes);
+
+        if (transactionsLane != null) {
+            lanes.add(transactionsLane);
+        }
+
+        return lanes;
     }
 
     @VisibleForTesting
@@ -311,11 +423,7 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
                 loggerMessageProcess.debug("Queued Messages: {}", this.queue.size());
 
                 if (task != null) {
-                    addTracingKeys(task.getNodeMsgTraceInfo());
-                    long startNanos = System.nanoTime();
-                    logStart(task);
-                    this.processMessage(task.getSender(), task.getMessage());
-                    logEnd(task, startNanos);
+                    processTask(mainLane, task);
                 } else {
                     logger.trace("No task");
                 }
@@ -337,6 +445,15 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
         logger.trace("Message handler was finished. Exiting");
     }
 
+    private void processTask(MessageLane lane, MessageTask task) {
+        addTracingKeys(task.getNodeMsgTraceInfo());
+        long startNanos = System.nanoTime();
+        logStart(task);
+        this.processMessage(task.getSender(), task.getMessage());
+        logEnd(task, startNanos);
+        lane.record(startNanos - task.createdNanos, System.nanoTime() - startNanos);
+    }
+
     private void addTracingKeys(NodeMsgTraceInfo nodeMsgTraceInfo) {
         if (nodeMsgTraceInfo != null) {
             MDC.put(TraceUtils.MSG_ID, nodeMsgTraceInfo.getMessageId());
@@ -398,6 +515,7 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
             logger.trace("Sending status best block to all {} {}", status.getBestBlockNumber(), status.getBestBlockHash());
             channelManager.broadcastStatus(status);
             lastStatusSent = now;
+            logLaneStats();
         }
 
         Duration timeIdleWarn = Duration.ofMillis(now - lastIdleWarn);
@@ -409,6 +527,18 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
         }
     }
 
+    private void logLaneStats() {
+        if (transactionsLane == null || !logger.isDebugEnabled()) {
+            return;
+        }
+
+        for (MessageLaneStats stats : getLaneStats()) {
+            logger.debug("Lane {}: {} messages queued, {} processed, average wait {} ms, average processing {} ms",
+                    stats.getName(), stats.getQueued(), stats.getProcessed(),
+                    stats.getAverageWaitMillis(), stats.getAverageProcessingMillis());
+        }
+    }
+
     @SuppressWarnings("SameParameterValue")
     private void reportEventToPeerScoring(Peer sender, EventType event, String message) {
         if (sender == null) {
@@ -418,12 +548,91 @@ public class NodeMessageHandler implements MessageHandler, InternalService, Runn
         this.peerScoringManager.recordEvent(sender.getPeerNodeID(), sender.getAddress(), event, message, this.getClass());
     }
 
+    /**
+     * A queue of messages with the threads that process them, and the count of the time they waited and took
+     */
+    private final class MessageLane implements Runnable {
+        private final String name;
+        private final PriorityBlockingQueue<MessageTask> queue;
+        @Nullable
+        private final Thread thread;
+
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final AtomicLong processingNanos = new AtomicLong();
+
+        // the main lane, whose thread is the message handler one
+        private MessageLane(String name, PriorityBlockingQueue<MessageTask> queue) {
+            this.name = name;
+            this.queue = queue;
+            this.thread = null;
+        }
+
+        private MessageLane(String name) {
+            this.name = name;
+            this.queue = new PriorityBlockingQueue<>(11, new MessageTask.TaskComparator());
+            this.thread = new Thread(this, "message handler " + name);
+        }
+
+        private void start() {
+            if (thread != null) {
+                thread.start();
+            }
+        }
+
+        private void stop() {
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+
+        private void record(long taskWaitNanos, long taskProcessingNanos) {
+            processed.incrementAndGet();
+            waitNanos.addAndGet(taskWaitNanos);
+            processingNanos.addAndGet(taskProcessingNanos);
+        }
+
+        private MessageLaneStats getStats() {
+            long count = processed.get();
+            long averageWaitMillis = count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitNanos.get() / count);
+            long averageProcessingMillis = count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(processingNanos.get() / count);
+            return new MessageLaneStats(name, queue.size(), count, averageWaitMillis, averageProcessingMillis);
+        }
+
+        @Override
+        public void run() {
+            while (state.isRunning()) {
+                MessageTask task = null;
+                try {
+                    task = queue.poll(1, TimeUnit.SECONDS);
+
+                    if (task != null) {
+                        processTask(this, task);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    logger.error("Got unexpected error while processing task on lane {}: {}", name, task, e);
+                } catch (IllegalAccessError e) { // Usually this is been thrown by DB instances when closed
+                    logger.warn("Message handler lane {} got `{}`. Exiting", name, e.getClass().getSimpleName(), e);
+                    return;
+                } finally {
+                    removeTracingKeys();
+                }
+            }
+
+            logger.trace("Message handler lane {} was finished. Exiting", name);
+        }
+    }
+
     @VisibleForTesting
     static class MessageTask {
         private final Peer sender;
         private final Message message;
         private final double score;
         private final NodeMsgTraceInfo nodeMsgTraceInfo;
+        private final long createdNanos = System.nanoTime();
 
         public MessageTask(Peer sender, Message message, double score, NodeMsgTraceInfo nodeMsgTraceInfo) {
             this.sender = sender;
@@ -0,0 +1,137 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net;
+
+import co.rsk.core.BlockDifficulty;
+import co.rsk.crypto.Keccak256;
+import co.rsk.net.messages.SnapshotStatusResponseMessage;
+import co.rsk.net.messages.StateNodesResponseMessage;
+import co.rsk.trie.TrieStore;
+import com.google.common.annotations.VisibleForTesting;
+import org.ethereum.core.Block;
+import org.ethereum.core.Blockchain;
+import org.ethereum.db.BlockStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SnapshotProcessor serves the state of a recent block to the peers doing a snapshot sync.
+ * <p>
+ * The peers ask for the block at a given height, which is offered only if it's at least a fixed distance below the
+ * best one, so it isn't reorganized while the peers download its state. Asking several nodes for the same height lets
+ * the peers check that they agree on the block before downloading its state.
+ * The state is served node by node: the trie nodes and the long values are both stored by their hash, so the peers
+ * can ask for them by hash and check what they receive.
+ */
+public class SnapshotProcessor {
+    private static final Logger logger = LoggerFactory.getLogger("snapshotprocessor");
+
+    @VisibleForTesting
+    static final int MAX_NODES_PER_RESPONSE = 1024;
+
+    @VisibleForTesting
+    static final int MAX_RESPONSE_SIZE = 1024 * 1024;
+
+    private final Blockchain blockchain;
+    private final BlockStore blockStore;
+    private final TrieStore trieStore;
+    private final int pivotDistance;
+
+    /**
+     * @param pivotDistance distance to the best block of the block whose state is offered
+     */
+    public SnapshotProcessor(Blockchain blockchain, BlockStore blockStore, TrieStore trieStore, int pivotDistance) {
+        this.blockchain = blockchain;
+        this.blockStore = blockStore;
+        this.trieStore = trieStore;
+        this.pivotDistance = pivotDistance;
+    }
+
+    /**
+     * processSnapshotStatusRequest sends the block of the best chain at the requested height and its total difficulty,
+     * or no block if the height is too close to the best block or the state of the block isn't available.
+     *
+     * @param sender the sender of the SnapshotStatusRequest message.
+     * @param requestId the id of the request
+     * @param blockNumber the height of the requested block
+     */
+    public void processSnapshotStatusRequest(@Nonnull final Peer sender, long requestId, long blockNumber) {
+        logger.trace("Processing snapshot status request {} for block {} from {}", requestId, blockNumber, sender.getPeerNodeID());
+        Block pivot = getPivotBlock(blockNumber);
+
+        if (pivot == null) {
+            sender.sendMessage(new SnapshotStatusResponseMessage(requestId, null, null));
+            return;
+        }
+
+        BlockDifficulty totalDifficulty = blockStore.getTotalDifficultyForHash(pivot.getHash().getBytes());
+        sender.sendMessage(new SnapshotStatusResponseMessage(requestId, pivot, totalDifficulty));
+    }
+
+    /**
+     * processStateNodesRequest sends the requested trie nodes and long values that are available, up to a maximum
+     * number of them and a maximum response size.
+     *
+     * @param sender the sender of the StateNodesRequest message.
+     * @param requestId the id of the request
+     * @param hashes the hashes of the requested nodes and values
+     */
+    public void processStateNodesRequest(@Nonnull final Peer sender, long requestId, @Nonnull final List<Keccak256> hashes) {
+        logger.trace("Processing state nodes request {} of {} nodes from {}", requestId, hashes.size(), sender.getPeerNodeID());
+        List<byte[]> nodes = new ArrayList<>();
+        int responseSize = 0;
+
+        for (Keccak256 hash : hashes.subList(0, Math.min(hashes.size(), MAX_NODES_PER_RESPONSE))) {
+            byte[] node = trieStore.retrieveValue(hash.getBytes());
+
+            if (node == null) {
+                continue;
+            }
+
+            if (!nodes.isEmpty() && responseSize + node.length > MAX_RESPONSE_SIZE) {
+                break;
+            }
+
+            nodes.add(node);
+            responseSize += node.length;
+        }
+
+        sender.sendMessage(new StateNodesResponseMessage(requestId, nodes));
+    }
+
+    @Nullable
+    private Block getPivotBlock(long pivotNumber) {
+        if (pivotNumber <= 0 || pivotNumber > blockchain.getBestBlock().getNumber() - pivotDistance) {
+            return null;
+        }
+
+        Block pivot = blockStore.getChainBlockByNumber(pivotNumber);
+
+        if (pivot == null || trieStore.retrieveValue(pivot.getStateRoot()) == null) {
+            return null;
+        }
+
+        return pivot;
+    }
+}
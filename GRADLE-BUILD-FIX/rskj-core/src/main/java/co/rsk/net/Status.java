@@ -30,16 +30,26 @@ public class Status {
     private final byte[] bestBlockHash;
     private final byte[] bestBlockParentHash;
     private final BlockDifficulty totalDifficulty;
+    private final boolean acceptsTransactionAnnouncements;
 
     public Status(long bestBlockNumber, byte[] bestBlockHash) {
         this(bestBlockNumber, bestBlockHash, null, null);
     }
 
     public Status(long bestBlockNumber, byte[] bestBlockHash, byte[] bestBlockParentHash, BlockDifficulty totalDifficulty) {
+        this(bestBlockNumber, bestBlockHash, bestBlockParentHash, totalDifficulty, false);
+    }
+
+    /**
+     * @param acceptsTransactionAnnouncements whether the node can be sent the hashes of new transactions instead of
+     *                                        the transactions, to request the ones it is missing
+     */
+    public Status(long bestBlockNumber, byte[] bestBlockHash, byte[] bestBlockParentHash, BlockDifficulty totalDifficulty, boolean acceptsTransactionAnnouncements) {
         this.bestBlockNumber = bestBlockNumber;
         this.bestBlockHash = bestBlockHash;
         this.bestBlockParentHash = bestBlockParentHash;
         this.totalDifficulty = totalDifficulty;
+        this.acceptsTransactionAnnouncements = acceptsTransactionAnnouncements;
     }
 
     public long getBestBlockNumber() {
@@ -54,4 +64,6 @@ public class Status {
     public byte[] getBestBlockParentHash() { return this.bestBlockParentHash; }
 
     public BlockDifficulty getTotalDifficulty() { return this.totalDifficulty; }
+
+    public boolean acceptsTransactionAnnouncements() { return this.acceptsTransactionAnnouncements; }
 }
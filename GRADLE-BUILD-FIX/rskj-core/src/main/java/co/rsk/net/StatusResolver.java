@@ -27,11 +27,20 @@ public class StatusResolver {
 
     private final BlockStore blockStore;
     private final Genesis genesis;
+    private final boolean acceptsTransactionAnnouncements;
 
     public StatusResolver(BlockStore blockStore, Genesis genesis) {
+        this(blockStore, genesis, false);
+    }
+
+    /**
+     * @param acceptsTransactionAnnouncements whether to tell the peers they can announce new transactions by hash
+     */
+    public StatusResolver(BlockStore blockStore, Genesis genesis, boolean acceptsTransactionAnnouncements) {
 
         this.blockStore = blockStore;
         this.genesis = genesis;
+        this.acceptsTransactionAnnouncements = acceptsTransactionAnnouncements;
     }
 
 
@@ -45,7 +54,8 @@ public class StatusResolver {
                     genesis.getNumber(),
                     genesis.getHash().getBytes(),
                     genesis.getParentHash().getBytes(),
-                    genesis.getCumulativeDifficulty());
+                    genesis.getCumulativeDifficulty(),
+                    acceptsTransactionAnnouncements);
         } else {
             Block block = blockStore.getBestBlock();
             BlockDifficulty totalDifficulty = blockStore.getTotalDifficultyForHash(block.getHash().getBytes());
@@ -53,7 +63,8 @@ public class StatusResolver {
             status = new Status(block.getNumber(),
                     block.getHash().getBytes(),
                     block.getParentHash().getBytes(),
-                    totalDifficulty);
+                    totalDifficulty,
+                    acceptsTransactionAnnouncements);
         }
         return status;
     }
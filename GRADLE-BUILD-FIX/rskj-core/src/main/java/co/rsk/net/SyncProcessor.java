@@ -20,9 +20,11 @@ package co.rsk.net;
 import co.rsk.core.DifficultyCalculator;
 import co.rsk.core.bc.BlockChainStatus;
 import co.rsk.core.bc.ConsensusValidationMainchainView;
+import co.rsk.crypto.Keccak256;
 import co.rsk.net.messages.*;
 import co.rsk.net.sync.*;
 import co.rsk.scoring.EventType;
+import co.rsk.trie.TrieStore;
 import co.rsk.validators.BlockHeaderValidationRule;
 import co.rsk.validators.SyncBlockValidatorRule;
 import com.google.common.annotations.VisibleForTesting;
@@ -47,6 +49,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class SyncProcessor implements SyncEventsHandler {
     private static final int MAX_PENDING_MESSAGES = 100_000;
+    private static final int MAX_SNAPSHOT_SYNC_ATTEMPTS = 3;
 
     private static final int ROUNDTRIP_TIME_TO_WARN_PERIOD = 10; // seconds
     private static final int ROUNDTRIP_TIME_TO_WARN_LIMIT = 4; // seconds
@@ -64,6 +67,10 @@ public class SyncProcessor implements SyncEventsHandler {
     private final DifficultyRule difficultyRule;
     private final Genesis genesis;
     private final EthereumListener ethereumListener;
+    @Nullable
+    private final TrieStore trieStore;
+    @Nullable
+    private final BlockImportPipeline importPipeline;
 
     private final PeersInformation peersInformation;
     private final Map<Long, MessageInfo> pendingMessages;
@@ -76,6 +83,7 @@ public class SyncProcessor implements SyncEventsHandler {
 
     private SyncState syncState;
     private long lastRequestId;
+    private int snapshotSyncAttempts;
 
     public SyncProcessor(Blockchain blockchain,
                          BlockStore blockStore,
@@ -89,6 +97,30 @@ public class SyncProcessor implements SyncEventsHandler {
                          PeersInformation peersInformation,
                          Genesis genesis,
                          EthereumListener ethereumListener) {
+        this(blockchain, blockStore, consensusValidationMainchainView, blockSyncService, syncConfiguration, blockFactory,
+                blockHeaderValidationRule, syncBlockValidatorRule, difficultyCalculator, peersInformation, genesis,
+                ethereumListener, null, null);
+    }
+
+    /**
+     * @param trieStore the store the state is downloaded into when snapshot sync is enabled, or null to disable it
+     * @param importPipeline imports the blocks downloaded by the long sync in stages, or null to import them
+     *                       on the message handler thread
+     */
+    public SyncProcessor(Blockchain blockchain,
+                         BlockStore blockStore,
+                         ConsensusValidationMainchainView consensusValidationMainchainView,
+                         BlockSyncService blockSyncService,
+                         SyncConfiguration syncConfiguration,
+                         BlockFactory blockFactory,
+                         BlockHeaderValidationRule blockHeaderValidationRule,
+                         SyncBlockValidatorRule syncBlockValidatorRule,
+                         DifficultyCalculator difficultyCalculator,
+                         PeersInformation peersInformation,
+                         Genesis genesis,
+                         EthereumListener ethereumListener,
+                         @Nullable TrieStore trieStore,
+                         @Nullable BlockImportPipeline importPipeline) {
         this.blockchain = blockchain;
         this.blockStore = blockStore;
         this.consensusValidationMainchainView = consensusValidationMainchainView;
@@ -100,6 +132,8 @@ public class SyncProcessor implements SyncEventsHandler {
         this.difficultyRule = new DifficultyRule(difficultyCalculator);
         this.genesis = genesis;
         this.ethereumListener = ethereumListener;
+        this.trieStore = trieStore;
+        this.importPipeline = importPipeline;
         this.pendingMessages = new LinkedHashMap<Long, MessageInfo>() {
             @Override
             protected boolean removeEldestEntry(Map.Entry<Long, MessageInfo> eldest) {
@@ -178,6 +212,34 @@ public class SyncProcessor implements SyncEventsHandler {
         }
     }
 
+    public void processSnapshotStatusResponse(Peer peer, SnapshotStatusResponseMessage message) {
+        logger.debug("Process snapshot status response from node {}", peer.getPeerNodeID());
+        peersInformation.getOrRegisterPeer(peer);
+
+        long messageId = message.getId();
+        MessageType messageType = message.getMessageType();
+        if (isPending(messageId, messageType)) {
+            removePendingMessage(messageId, messageType);
+            syncState.newSnapshotStatus(peer, message.getBlock(), message.getTotalDifficulty());
+        } else {
+            notifyUnexpectedMessageToPeerScoring(peer, "snapshot status");
+        }
+    }
+
+    public void processStateNodesResponse(Peer peer, StateNodesResponseMessage message) {
+        logger.debug("Process state nodes response from node {}", peer.getPeerNodeID());
+        peersInformation.getOrRegisterPeer(peer);
+
+        long messageId = message.getId();
+        MessageType messageType = message.getMessageType();
+        if (isPending(messageId, messageType)) {
+            removePendingMessage(messageId, messageType);
+            syncState.newStateNodes(message.getNodes());
+        } else {
+            notifyUnexpectedMessageToPeerScoring(peer, "state nodes");
+        }
+    }
+
     public void processNewBlockHash(Peer peer, NewBlockHashMessage message) {
         NodeID nodeID = peer.getPeerNodeID();
         logger.debug("Process new block hash from node {} hash {}", nodeID, HashUtil.toPrintableHash(message.getBlockHash()));
@@ -237,6 +299,18 @@ public class SyncProcessor implements SyncEventsHandler {
         return message.getId();
     }
 
+    @Override
+    public void sendSnapshotStatusRequest(Peer peer, long blockNumber) {
+        logger.debug("Send snapshot status request of block {} to node {}", blockNumber, peer.getPeerNodeID());
+        sendMessage(peer, new SnapshotStatusRequestMessage(++lastRequestId, blockNumber));
+    }
+
+    @Override
+    public void sendStateNodesRequest(Peer peer, List<Keccak256> hashes) {
+        logger.debug("Send request of {} state nodes to node {}", hashes.size(), peer.getPeerNodeID());
+        sendMessage(peer, new StateNodesRequestMessage(++lastRequestId, hashes));
+    }
+
     public Set<NodeID> getKnownPeersNodeIDs() {
         return this.peersInformation.knownNodeIds();
     }
@@ -248,6 +322,31 @@ public class SyncProcessor implements SyncEventsHandler {
     @Override
     public void startSyncing(Peer peer) {
         NodeID nodeID = peer.getPeerNodeID();
+
+        List<Peer> pivotPeers = getSnapshotPivotPeers(peer);
+
+        if (!pivotPeers.isEmpty()) {
+            snapshotSyncAttempts++;
+            // every peer asked for the pivot block has it far enough below its best block
+            long pivotNumber = pivotPeers.stream()
+                    .mapToLong(this::getPeerBestBlockNumber)
+                    .min()
+                    .getAsLong() - syncConfiguration.getSnapshotPivotDistance();
+            logger.info("Start snapshot syncing with node {} at block {}", nodeID, pivotNumber);
+            setSyncState(new SnapshotSyncState(
+                    syncConfiguration,
+                    this,
+                    blockchain,
+                    blockStore,
+                    trieStore,
+                    blockHeaderValidationRule,
+                    blockValidationRule,
+                    peer,
+                    pivotPeers,
+                    pivotNumber));
+            return;
+        }
+
         logger.info("Start syncing with node {}", nodeID);
         byte[] bestBlockHash = peersInformation.getPeer(peer).getStatus().getBestBlockHash();
         setSyncState(new CheckingBestHeaderSyncState(
@@ -275,7 +374,8 @@ public class SyncProcessor implements SyncEventsHandler {
                 blockSyncService,
                 blockValidationRule,
                 pendingHeaders,
-                skeletons));
+                skeletons,
+                importPipeline));
     }
 
     @Override
@@ -391,6 +491,48 @@ public class SyncProcessor implements SyncEventsHandler {
         stopSyncing();
     }
 
+    /**
+     * A node without blocks gets the state of a peer far enough ahead, a few attempts at most, as the peers
+     * might not serve it. Other peers far enough ahead have to offer the same block, so this returns the selected
+     * peer and the other peers to ask for it, or no peers when there aren't enough of them.
+     */
+    private List<Peer> getSnapshotPivotPeers(Peer peer) {
+        if (trieStore == null || !syncConfiguration.isSnapshotSyncEnabled() || snapshotSyncAttempts >= MAX_SNAPSHOT_SYNC_ATTEMPTS) {
+            return Collections.emptyList();
+        }
+
+        long pivotDistance = syncConfiguration.getSnapshotPivotDistance();
+
+        if (!blockchain.getBestBlock().isGenesis() || getPeerBestBlockNumber(peer) <= pivotDistance) {
+            return Collections.emptyList();
+        }
+
+        int pivotPeersCount = Math.max(1, syncConfiguration.getSnapshotPivotPeers());
+        List<Peer> pivotPeers = new ArrayList<>();
+        pivotPeers.add(peer);
+
+        for (Peer candidate : peersInformation.getBestPeerCandidates()) {
+            if (pivotPeers.size() >= pivotPeersCount) {
+                break;
+            }
+
+            if (!candidate.equals(peer) && getPeerBestBlockNumber(candidate) > pivotDistance) {
+                pivotPeers.add(candidate);
+            }
+        }
+
+        if (pivotPeers.size() < pivotPeersCount) {
+            logger.debug("Not enough peers to agree on a snapshot block, {} found", pivotPeers.size());
+            return Collections.emptyList();
+        }
+
+        return pivotPeers;
+    }
+
+    private long getPeerBestBlockNumber(Peer peer) {
+        return peersInformation.getPeer(peer).getStatus().getBestBlockNumber();
+    }
+
     private void sendMessage(Peer peer, MessageWithId message) {
         MessageType messageType = message.getResponseMessageType();
         long messageId = message.getId();
@@ -0,0 +1,190 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net;
+
+import co.rsk.crypto.Keccak256;
+import co.rsk.net.messages.TransactionHashesMessage;
+import co.rsk.net.messages.TransactionsMessage;
+import co.rsk.net.messages.TransactionsRequestMessage;
+import co.rsk.util.MaxSizeHashMap;
+import org.ethereum.core.Transaction;
+import org.ethereum.core.TransactionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Relays the new transactions to the peers that don't know them yet. The peers accepting it are announced the
+ * hashes of the transactions, and request the ones they are missing. The other peers are sent the transactions.
+ * <p>
+ * A peer knows a transaction when it sent or announced it to this node, or it was sent or announced to the peer.
+ */
+public class TransactionAnnouncements {
+    private static final Logger logger = LoggerFactory.getLogger("net");
+
+    // a transaction requested to a peer isn't requested to the other peers announcing it for a while
+    private static final long REQUEST_TIMEOUT_MILLIS = 5000;
+    private static final int MAX_REQUESTED_TRANSACTIONS = 20000;
+
+    private final TransactionPool transactionPool;
+    private final int knownTransactionsPerPeer;
+
+    private final Map<NodeID, PeerTransactions> peers = new ConcurrentHashMap<>();
+    private final Map<Keccak256, Long> requestedTransactions = new MaxSizeHashMap<>(MAX_REQUESTED_TRANSACTIONS, false);
+
+    /**
+     * @param knownTransactionsPerPeer the number of transaction hashes remembered for each peer
+     */
+    public TransactionAnnouncements(TransactionPool transactionPool, int knownTransactionsPerPeer) {
+        this.transactionPool = Objects.requireNonNull(transactionPool);
+        this.knownTransactionsPerPeer = knownTransactionsPerPeer;
+    }
+
+    public void processStatus(Peer peer, Status status) {
+        getPeerTransactions(peer.getPeerNodeID()).acceptsAnnouncements = status.acceptsTransactionAnnouncements();
+    }
+
+    /**
+     * Remembers the nodes that sent the transactions know them
+     */
+    public void transactionsReceived(List<Transaction> txs, Set<NodeID> nodeIDs) {
+        for (NodeID nodeID : nodeIDs) {
+            PeerTransactions peerTransactions = getPeerTransactions(nodeID);
+            txs.forEach(tx -> peerTransactions.markKnown(tx.getHash()));
+        }
+    }
+
+    /**
+     * Announces or sends the transactions to the active peers, except the skipped ones, that don't know them yet
+     *
+     * @return the nodes the transactions were relayed to
+     */
+    public Set<NodeID> relay(List<Transaction> txs, Set<NodeID> skip, Collection<Peer> activePeers) {
+        Set<NodeID> activeNodeIDs = activePeers.stream().map(Peer::getPeerNodeID).collect(Collectors.toSet());
+        // forget the disconnected peers
+        peers.keySet().retainAll(activeNodeIDs);
+
+        Set<NodeID> nodeIDsRelayedTo = new HashSet<>();
+
+        for (Peer peer : activePeers) {
+            NodeID nodeID = peer.getPeerNodeID();
+
+            if (skip.contains(nodeID)) {
+                continue;
+            }
+
+            PeerTransactions peerTransactions = getPeerTransactions(nodeID);
+            List<Transaction> unknownTxs = txs.stream()
+                    .filter(tx -> peerTransactions.markKnown(tx.getHash()))
+                    .collect(Collectors.toList());
+
+            if (unknownTxs.isEmpty()) {
+                continue;
+            }
+
+            if (peerTransactions.acceptsAnnouncements) {
+                List<Keccak256> hashes = unknownTxs.stream().map(Transaction::getHash).collect(Collectors.toList());
+                peer.sendMessage(new TransactionHashesMessage(hashes));
+            } else {
+                peer.sendMessage(new TransactionsMessage(unknownTxs));
+            }
+
+            nodeIDsRelayedTo.add(nodeID);
+        }
+
+        return nodeIDsRelayedTo;
+    }
+
+    /**
+     * Requests to the peer the announced transactions that are neither in the pool nor recently requested
+     */
+    public void processTransactionHashes(Peer sender, List<Keccak256> hashes) {
+        PeerTransactions peerTransactions = getPeerTransactions(sender.getPeerNodeID());
+        List<Keccak256> missingHashes = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        synchronized (requestedTransactions) {
+            for (Keccak256 hash : hashes) {
+                peerTransactions.markKnown(hash);
+
+                if (transactionPool.getTransactionByHash(hash) != null) {
+                    continue;
+                }
+
+                Long requestTime = requestedTransactions.get(hash);
+
+                if (requestTime != null && now - requestTime < REQUEST_TIMEOUT_MILLIS) {
+                    continue;
+                }
+
+                requestedTransactions.put(hash, now);
+                missingHashes.add(hash);
+            }
+        }
+
+        if (!missingHashes.isEmpty()) {
+            logger.trace("Requesting {} of {} announced transactions to {}", missingHashes.size(), hashes.size(), sender.getPeerNodeID());
+            sender.sendMessage(new TransactionsRequestMessage(missingHashes));
+        }
+    }
+
+    /**
+     * Sends to the peer the requested transactions that are in the pool
+     */
+    public void processTransactionsRequest(Peer sender, List<Keccak256> hashes) {
+        PeerTransactions peerTransactions = getPeerTransactions(sender.getPeerNodeID());
+        List<Transaction> txs = new ArrayList<>();
+
+        for (Keccak256 hash : hashes) {
+            Transaction tx = transactionPool.getTransactionByHash(hash);
+
+            if (tx != null) {
+                peerTransactions.markKnown(hash);
+                txs.add(tx);
+            }
+        }
+
+        if (!txs.isEmpty()) {
+            sender.sendMessage(new TransactionsMessage(txs));
+        }
+    }
+
+    private PeerTransactions getPeerTransactions(NodeID nodeID) {
+        return peers.computeIfAbsent(nodeID, id -> new PeerTransactions(knownTransactionsPerPeer));
+    }
+
+    private static class PeerTransactions {
+        private final Set<Keccak256> knownTransactions;
+        private volatile boolean acceptsAnnouncements;
+
+        PeerTransactions(int knownTransactionsPerPeer) {
+            this.knownTransactions = Collections.synchronizedSet(Collections.newSetFromMap(new MaxSizeHashMap<>(knownTransactionsPerPeer, false)));
+        }
+
+        /**
+         * @return whether the transaction wasn't known by the peer
+         */
+        boolean markKnown(Keccak256 hash) {
+            return knownTransactions.add(hash);
+        }
+    }
+}
@@ -18,12 +18,17 @@
 
 package co.rsk.net;
 
+import co.rsk.core.TxSenderRecoverer;
+import co.rsk.crypto.Keccak256;
+import co.rsk.net.handler.TxPreValidator;
+import org.ethereum.core.SignatureCache;
 import org.ethereum.core.Transaction;
 import org.ethereum.core.TransactionPool;
 import org.ethereum.core.TransactionPoolAddResult;
 import org.ethereum.net.server.ChannelManager;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
 
 /**
@@ -33,21 +38,85 @@ import java.util.*;
 public class TransactionGateway {
     private final ChannelManager channelManager;
     private final TransactionPool transactionPool;
+    @Nullable
+    private final TxSenderRecoverer txSenderRecoverer;
+    @Nullable
+    private final SignatureCache signatureCache;
+    @Nullable
+    private final TransactionAnnouncements transactionAnnouncements;
+    @Nullable
+    private final TxPreValidator txPreValidator;
 
     public TransactionGateway(
             ChannelManager channelManager,
             TransactionPool transactionPool) {
+        this(channelManager, transactionPool, null, null);
+    }
+
+    /**
+     * @param txSenderRecoverer recovers the senders of the transactions received from other nodes in parallel,
+     *                          before they are added to the pool one by one
+     * @param signatureCache    where the recovered senders are kept
+     */
+    public TransactionGateway(
+            ChannelManager channelManager,
+            TransactionPool transactionPool,
+            @Nullable TxSenderRecoverer txSenderRecoverer,
+            @Nullable SignatureCache signatureCache) {
+        this(channelManager, transactionPool, txSenderRecoverer, signatureCache, null);
+    }
+
+    /**
+     * @param transactionAnnouncements relays the transactions only to the peers that don't know them, announcing
+     *                                 their hashes to the peers accepting it, or null to send them to every peer
+     */
+    public TransactionGateway(
+            ChannelManager channelManager,
+            TransactionPool transactionPool,
+            @Nullable TxSenderRecoverer txSenderRecoverer,
+            @Nullable SignatureCache signatureCache,
+            @Nullable TransactionAnnouncements transactionAnnouncements) {
+        this(channelManager, transactionPool, txSenderRecoverer, signatureCache, transactionAnnouncements, null);
+    }
+
+    /**
+     * @param txPreValidator drops the transactions received from other nodes that fail the checks not depending on
+     *                       the pool, recovering their senders on the way, before the pool lock is taken. When given,
+     *                       it is used instead of the txSenderRecoverer
+     */
+    public TransactionGateway(
+            ChannelManager channelManager,
+            TransactionPool transactionPool,
+            @Nullable TxSenderRecoverer txSenderRecoverer,
+            @Nullable SignatureCache signatureCache,
+            @Nullable TransactionAnnouncements transactionAnnouncements,
+            @Nullable TxPreValidator txPreValidator) {
         this.channelManager = Objects.requireNonNull(channelManager);
         this.transactionPool = Objects.requireNonNull(transactionPool);
+        this.txSenderRecoverer = txSenderRecoverer;
+        this.signatureCache = signatureCache;
+        this.transactionAnnouncements = transactionAnnouncements;
+        this.txPreValidator = txPreValidator;
     }
 
     /**
      * Receives transactions from other node
      */
     public void receiveTransactionsFrom(@Nonnull List<Transaction> txs, @Nonnull Set<NodeID> nodeIDS) {
-        List<Transaction> result  = transactionPool.addTransactions(txs);
+        if (transactionAnnouncements != null) {
+            transactionAnnouncements.transactionsReceived(txs, nodeIDS);
+        }
+
+        List<Transaction> validTxs = txs;
+        if (txPreValidator != null) {
+            validTxs = txPreValidator.filterValid(txs);
+        } else if (txSenderRecoverer != null && signatureCache != null) {
+            txSenderRecoverer.recoverSenders(txs, signatureCache);
+        }
+
+        List<Transaction> result  = transactionPool.addTransactions(validTxs);
         if(!result.isEmpty()) {
-            channelManager.broadcastTransactions(result, nodeIDS);
+            broadcastTransactions(result, nodeIDS);
         }
     }
 
@@ -57,8 +126,43 @@ public class TransactionGateway {
     public TransactionPoolAddResult receiveTransaction(Transaction transaction) {
         TransactionPoolAddResult result  = transactionPool.addTransaction(transaction);
         if(result.pendingTransactionsWereAdded()) {
-            channelManager.broadcastTransactions(result.getPendingTransactionsAdded(), Collections.emptySet());
+            broadcastTransactions(result.getPendingTransactionsAdded(), Collections.emptySet());
         }
         return result;
     }
+
+    /**
+     * Receives the status of other node, telling whether it accepts transaction announcements
+     */
+    public void receiveStatusFrom(Peer peer, Status status) {
+        if (transactionAnnouncements != null) {
+            transactionAnnouncements.processStatus(peer, status);
+        }
+    }
+
+    /**
+     * Receives the hashes of new transactions announced by other node, requesting it the missing ones
+     */
+    public void receiveTransactionHashesFrom(Peer peer, List<Keccak256> hashes) {
+        if (transactionAnnouncements != null) {
+            transactionAnnouncements.processTransactionHashes(peer, hashes);
+        }
+    }
+
+    /**
+     * Receives a request of transactions from other node, sending it the ones in the pool
+     */
+    public void receiveTransactionsRequestFrom(Peer peer, List<Keccak256> hashes) {
+        if (transactionAnnouncements != null) {
+            transactionAnnouncements.processTransactionsRequest(peer, hashes);
+        }
+    }
+
+    private void broadcastTransactions(List<Transaction> txs, Set<NodeID> skip) {
+        if (transactionAnnouncements != null) {
+            transactionAnnouncements.relay(txs, skip, channelManager.getActivePeers());
+        } else {
+            channelManager.broadcastTransactions(txs, skip);
+        }
+    }
 }
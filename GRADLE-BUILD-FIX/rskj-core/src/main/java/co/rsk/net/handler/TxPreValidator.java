@@ -0,0 +1,246 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.handler;
+
+import co.rsk.core.Coin;
+import co.rsk.net.TransactionValidationResult;
+import co.rsk.net.handler.txvalidator.*;
+import org.bouncycastle.util.BigIntegers;
+import org.ethereum.config.Constants;
+import org.ethereum.config.blockchain.upgrades.ActivationConfig;
+import org.ethereum.core.Block;
+import org.ethereum.core.Blockchain;
+import org.ethereum.core.SignatureCache;
+import org.ethereum.core.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the checks that don't depend on the pool or the account states on a batch of transactions received from other
+ * nodes, in parallel and before the pool lock is taken, so the invalid ones are dropped without making other
+ * transactions wait for them.
+ * <p>
+ * The checks are done against the best block, and they are done again by the {@link TxPendingValidator} when the
+ * transactions are added to the pool, in case it has changed since. By then the senders have already been recovered,
+ * which is what most of the time goes in.
+ */
+public class TxPreValidator {
+    private static final Logger logger = LoggerFactory.getLogger("txprevalidator");
+
+    // a sender recovery takes some tens of microseconds, fewer transactions than this aren't worth a task
+    private static final int MIN_TRANSACTIONS_PER_TASK = 4;
+
+    private final List<TxValidatorStep> validatorSteps = new ArrayList<>();
+    private final Map<String, StepStats> stepStats = new LinkedHashMap<>();
+
+    private final Blockchain blockchain;
+
+    private final int threads;
+    @Nullable
+    private final ExecutorService executor;
+
+    /**
+     * @param threads number of threads used to validate a batch, a value lower than 2 validates it on the caller's
+     *                thread
+     */
+    public TxPreValidator(Constants constants, ActivationConfig activationConfig, SignatureCache signatureCache, Blockchain blockchain, int threads) {
+        this.blockchain = blockchain;
+        this.threads = threads;
+        this.executor = threads > 1 ? Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "TxPreValidator");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+
+        validatorSteps.add(new TxNotNullValidator());
+        validatorSteps.add(new TxValidatorNotRemascTxValidator());
+        validatorSteps.add(new TxValidatorSizeValidator(TxPendingValidator.TX_MAX_SIZE));
+        validatorSteps.add(new TxValidatorSignatureValidator(constants.getChainId(), signatureCache));
+        validatorSteps.add(new TxValidatorGasLimitValidator());
+        validatorSteps.add(new TxValidatorMinimuGasPriceValidator());
+        validatorSteps.add(new TxValidatorIntrinsicGasLimitValidator(constants, activationConfig, signatureCache));
+        validatorSteps.add(new TxValidatorMaximumGasPriceValidator(activationConfig));
+
+        for (TxValidatorStep step : validatorSteps) {
+            stepStats.put(step.getClass().getSimpleName(), new StepStats());
+        }
+    }
+
+    /**
+     * @return the transactions that passed the checks, in the same order as given
+     */
+    public List<Transaction> filterValid(List<Transaction> transactions) {
+        Block bestBlock = blockchain.getBestBlock();
+        if (bestBlock == null || transactions.isEmpty()) {
+            return transactions;
+        }
+
+        BlockContext blockContext = new BlockContext(bestBlock);
+        boolean[] rejected = new boolean[transactions.size()];
+
+        if (executor == null || executor.isShutdown() || transactions.size() < 2 * MIN_TRANSACTIONS_PER_TASK) {
+            validate(transactions, 0, transactions.size(), blockContext, rejected);
+        } else {
+            validateInParallel(transactions, blockContext, rejected);
+        }
+
+        List<Transaction> result = new ArrayList<>(transactions.size());
+        for (int i = 0; i < rejected.length; i++) {
+            if (!rejected[i]) {
+                result.add(transactions.get(i));
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("{} of {} transactions rejected before being added to the pool, totals by step: {}",
+                    transactions.size() - result.size(), transactions.size(), stepStats);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of transactions checked and rejected by each step, and the time spent on them, since start
+     */
+    public Map<String, StepStats> getStepStats() {
+        return Collections.unmodifiableMap(stepStats);
+    }
+
+    /**
+     * Stops the validation threads once the tasks already queued are done, the batches are validated on the
+     * caller's thread from then on
+     */
+    public void dispose() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private void validateInParallel(List<Transaction> transactions, BlockContext blockContext, boolean[] rejected) {
+        int tasks = Math.min(threads, transactions.size() / MIN_TRANSACTIONS_PER_TASK);
+        int transactionsPerTask = (transactions.size() + tasks - 1) / tasks;
+        List<Future<?>> futures = new ArrayList<>(tasks);
+
+        for (int from = 0; from < transactions.size(); from += transactionsPerTask) {
+            int sliceFrom = from;
+            int sliceTo = Math.min(from + transactionsPerTask, transactions.size());
+
+            try {
+                futures.add(executor.submit(() -> validate(transactions, sliceFrom, sliceTo, blockContext, rejected)));
+            } catch (RejectedExecutionException e) {
+                // disposed meanwhile, the transactions left unchecked are still validated by the pool
+                break;
+            }
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // the transactions left unchecked are still validated by the pool
+                logger.debug("Transactions couldn't be validated in advance", e);
+            }
+        }
+    }
+
+    private void validate(List<Transaction> transactions, int from, int to, BlockContext blockContext, boolean[] rejected) {
+        for (int i = from; i < to; i++) {
+            rejected[i] = !isValid(transactions.get(i), blockContext);
+        }
+    }
+
+    private boolean isValid(Transaction tx, BlockContext blockContext) {
+        for (TxValidatorStep step : validatorSteps) {
+            StepStats stats = stepStats.get(step.getClass().getSimpleName());
+            long start = System.nanoTime();
+            TransactionValidationResult validationResult;
+
+            try {
+                // whether the transaction is free only matters to the steps that look at the account state
+                validationResult = step.validate(tx, null, blockContext.gasLimit, blockContext.minimumGasPrice, blockContext.number, false);
+            } catch (RuntimeException e) {
+                // left for the pool to decide, as it did before these checks were done in advance
+                logger.trace("[tx={}] couldn't be validated in advance", tx.getHash(), e);
+                return true;
+            } finally {
+                stats.transactions.increment();
+                stats.nanos.add(System.nanoTime() - start);
+            }
+
+            if (!validationResult.transactionIsValid()) {
+                stats.rejections.increment();
+                logger.trace("[tx={}] validation failed with error: {}", tx.getHash(), validationResult.getErrorMessage());
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Counters of a validation step, updated by several threads at once
+     */
+    public static class StepStats {
+        private final LongAdder transactions = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        public long getTransactions() {
+            return transactions.sum();
+        }
+
+        public long getRejections() {
+            return rejections.sum();
+        }
+
+        public long getNanos() {
+            return nanos.sum();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{transactions=%d, rejections=%d, nanos=%d}", getTransactions(), getRejections(), getNanos());
+        }
+    }
+
+    private static class BlockContext {
+        private final BigInteger gasLimit;
+        private final Coin minimumGasPrice;
+        private final long number;
+
+        private BlockContext(Block block) {
+            this.gasLimit = BigIntegers.fromUnsignedByteArray(block.getGasLimit());
+            this.minimumGasPrice = block.getMinimumGasPrice();
+            this.number = block.getNumber();
+        }
+    }
+}
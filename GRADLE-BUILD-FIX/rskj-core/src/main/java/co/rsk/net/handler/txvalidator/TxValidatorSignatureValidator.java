@@ -0,0 +1,59 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.handler.txvalidator;
+
+import co.rsk.core.Coin;
+import co.rsk.net.TransactionValidationResult;
+import org.ethereum.core.AccountState;
+import org.ethereum.core.SignatureCache;
+import org.ethereum.core.Transaction;
+
+import javax.annotation.Nullable;
+import java.math.BigInteger;
+
+/**
+ * Validates that the transaction is signed for this chain, that its fields have valid sizes and that its sender can
+ * be recovered. The recovered sender is kept in the transaction, so it isn't recovered again later
+ */
+public class TxValidatorSignatureValidator implements TxValidatorStep {
+
+    private final byte chainId;
+    private final SignatureCache signatureCache;
+
+    public TxValidatorSignatureValidator(byte chainId, SignatureCache signatureCache) {
+        this.chainId = chainId;
+        this.signatureCache = signatureCache;
+    }
+
+    @Override
+    public TransactionValidationResult validate(Transaction tx, @Nullable AccountState state, BigInteger gasLimit, Coin minimumGasPrice, long bestBlockNumber, boolean isFreeTx) {
+        if (!tx.acceptTransactionSignature(chainId)) {
+            return TransactionValidationResult.withError("transaction signature is invalid or for another chain");
+        }
+
+        try {
+            tx.verify(signatureCache);
+        } catch (RuntimeException e) {
+            return TransactionValidationResult.withError("transaction is not valid: " + e.getMessage());
+        }
+
+        return TransactionValidationResult.ok();
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.handler.txvalidator;
+
+import co.rsk.core.Coin;
+import co.rsk.net.TransactionValidationResult;
+import org.ethereum.core.AccountState;
+import org.ethereum.core.Transaction;
+
+import javax.annotation.Nullable;
+import java.math.BigInteger;
+
+/**
+ * Validates that the encoded transaction isn't bigger than the allowed maximum
+ */
+public class TxValidatorSizeValidator implements TxValidatorStep {
+
+    private final long maxSize;
+
+    public TxValidatorSizeValidator(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public TransactionValidationResult validate(Transaction tx, @Nullable AccountState state, BigInteger gasLimit, Coin minimumGasPrice, long bestBlockNumber, boolean isFreeTx) {
+        if (tx.getSize() <= maxSize) {
+            return TransactionValidationResult.ok();
+        }
+
+        return TransactionValidationResult.withError(String.format("transaction's size is higher than defined maximum: %s > %s", tx.getSize(), maxSize));
+    }
+
+}
@@ -19,11 +19,25 @@ public class BlockHeadersResponseMessage extends MessageWithId {
      */
     private List<BlockHeader> blockHeaders;
 
+    /**
+     * Already encoded block headers, when the response is sent from an encoded block cache
+     */
+    private byte[][] encodedHeaders;
+
     public BlockHeadersResponseMessage(long id, List<BlockHeader> headers) {
         this.id = id;
         this.blockHeaders = headers;
     }
 
+    /**
+     * Creates a response with already encoded headers, to be sent as is.
+     * The headers are not decoded, so getBlockHeaders returns null.
+     */
+    public BlockHeadersResponseMessage(long id, byte[][] encodedHeaders) {
+        this.id = id;
+        this.encodedHeaders = encodedHeaders;
+    }
+
     @Override
     public long getId() { return this.id; }
 
@@ -31,6 +45,10 @@ public class BlockHeadersResponseMessage extends MessageWithId {
 
     @Override
     protected byte[] getEncodedMessageWithoutId() {
+        if (this.encodedHeaders != null) {
+            return RLP.encodeList(RLP.encodeList(this.encodedHeaders));
+        }
+
         byte[][] rlpHeaders = this.blockHeaders.stream()
                 .map(BlockHeader::getFullEncoded)
                 .toArray(byte[][]::new);
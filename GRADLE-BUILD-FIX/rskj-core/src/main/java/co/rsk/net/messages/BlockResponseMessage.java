@@ -27,12 +27,22 @@ import org.ethereum.util.RLP;
 public class BlockResponseMessage extends MessageWithId {
     private long id;
     private Block block;
+    private byte[] encodedBlock;
 
     public BlockResponseMessage(long id, Block block) {
         this.id = id;
         this.block = block;
     }
 
+    /**
+     * Creates a response with an already encoded block, to be sent as is.
+     * The block is not decoded, so getBlock returns null.
+     */
+    public BlockResponseMessage(long id, byte[] encodedBlock) {
+        this.id = id;
+        this.encodedBlock = encodedBlock;
+    }
+
     public long getId() {
         return this.id;
     }
@@ -48,7 +58,7 @@ public class BlockResponseMessage extends MessageWithId {
 
     @Override
     public byte[] getEncodedMessageWithoutId() {
-        byte[] rlpBlock = RLP.encode(this.block.getEncoded());
+        byte[] rlpBlock = RLP.encode(this.encodedBlock != null ? this.encodedBlock : this.block.getEncoded());
 
         return RLP.encodeList(rlpBlock);
     }
@@ -13,6 +13,7 @@ public class BodyResponseMessage extends MessageWithId {
     private long id;
     private List<Transaction> transactions;
     private List<BlockHeader> uncles;
+    private byte[] encodedBody;
 
     public BodyResponseMessage(long id, List<Transaction> transactions, List<BlockHeader> uncles) {
         this.id = id;
@@ -20,6 +21,15 @@ public class BodyResponseMessage extends MessageWithId {
         this.uncles = uncles;
     }
 
+    /**
+     * Creates a response with an already encoded body, the list of transactions and the list of uncles,
+     * to be sent as is. The body is not decoded, so getTransactions and getUncles return null.
+     */
+    public BodyResponseMessage(long id, byte[] encodedBody) {
+        this.id = id;
+        this.encodedBody = encodedBody;
+    }
+
     @Override
     public long getId() { return this.id; }
 
@@ -29,6 +39,10 @@ public class BodyResponseMessage extends MessageWithId {
 
     @Override
     protected byte[] getEncodedMessageWithoutId() {
+        if (this.encodedBody != null) {
+            return this.encodedBody;
+        }
+
         byte[][] rlpTransactions = new byte[this.transactions.size()][];
         byte[][] rlpUncles = new byte[this.uncles.size()][];
 
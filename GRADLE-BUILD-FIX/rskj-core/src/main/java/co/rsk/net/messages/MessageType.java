@@ -19,6 +19,7 @@
 package co.rsk.net.messages;
 
 import co.rsk.core.BlockDifficulty;
+import co.rsk.crypto.Keccak256;
 import co.rsk.net.Status;
 import co.rsk.remasc.RemascTransaction;
 import org.ethereum.core.*;
@@ -51,8 +52,9 @@ public enum MessageType {
             byte[] parentHash = list.get(2).getRLPData();
             byte[] rlpTotalDifficulty = list.get(3).getRLPData();
             BlockDifficulty totalDifficulty = rlpTotalDifficulty == null ? BlockDifficulty.ZERO : RLP.parseBlockDifficulty(rlpTotalDifficulty);
+            boolean acceptsTransactionAnnouncements = list.size() > 4 && list.get(4).getRLPData() != null;
 
-            return new StatusMessage(new Status(number, hash, parentHash, totalDifficulty));
+            return new StatusMessage(new Status(number, hash, parentHash, totalDifficulty, acceptsTransactionAnnouncements));
         }
     },
     BLOCK_MESSAGE(2) {
@@ -252,8 +254,90 @@ public enum MessageType {
             byte[] hash = list.get(0).getRLPData();
             return new NewBlockHashMessage(hash);
         }
+    },
+    SNAPSHOT_STATUS_REQUEST_MESSAGE(20) {
+        @Override
+        public Message createMessage(BlockFactory blockFactory, RLPList list) {
+            RLPList message = (RLPList)RLP.decode2(list.get(1).getRLPData()).get(0);
+            byte[] rlpId = list.get(0).getRLPData();
+            long id = rlpId == null ? 0 : BigIntegers.fromUnsignedByteArray(rlpId).longValue();
+            byte[] rlpBlockNumber = message.get(0).getRLPData();
+            long blockNumber = rlpBlockNumber == null ? 0 : BigIntegers.fromUnsignedByteArray(rlpBlockNumber).longValue();
+
+            return new SnapshotStatusRequestMessage(id, blockNumber);
+        }
+    },
+    SNAPSHOT_STATUS_RESPONSE_MESSAGE(21) {
+        @Override
+        public Message createMessage(BlockFactory blockFactory, RLPList list) {
+            RLPList message = (RLPList)RLP.decode2(list.get(1).getRLPData()).get(0);
+            byte[] rlpId = list.get(0).getRLPData();
+            long id = rlpId == null ? 0 : BigIntegers.fromUnsignedByteArray(rlpId).longValue();
+
+            if (message.size() == 0) {
+                return new SnapshotStatusResponseMessage(id, null, null);
+            }
+
+            Block block = blockFactory.decodeBlock(message.get(0).getRLPData());
+            BlockDifficulty totalDifficulty = RLP.parseBlockDifficulty(message.get(1).getRLPData());
+
+            return new SnapshotStatusResponseMessage(id, block, totalDifficulty);
+        }
+    },
+    STATE_NODES_REQUEST_MESSAGE(22) {
+        @Override
+        public Message createMessage(BlockFactory blockFactory, RLPList list) {
+            RLPList message = (RLPList)RLP.decode2(list.get(1).getRLPData()).get(0);
+            byte[] rlpId = list.get(0).getRLPData();
+            long id = rlpId == null ? 0 : BigIntegers.fromUnsignedByteArray(rlpId).longValue();
+            RLPList rlpHashes = (RLPList)RLP.decode2(message.get(0).getRLPData()).get(0);
+
+            List<Keccak256> hashes = new ArrayList<>();
+
+            for (int k = 0; k < rlpHashes.size(); k++) {
+                hashes.add(new Keccak256(rlpHashes.get(k).getRLPData()));
+            }
+
+            return new StateNodesRequestMessage(id, hashes);
+        }
+    },
+    STATE_NODES_RESPONSE_MESSAGE(23) {
+        @Override
+        public Message createMessage(BlockFactory blockFactory, RLPList list) {
+            RLPList message = (RLPList)RLP.decode2(list.get(1).getRLPData()).get(0);
+            byte[] rlpId = list.get(0).getRLPData();
+            long id = rlpId == null ? 0 : BigIntegers.fromUnsignedByteArray(rlpId).longValue();
+            RLPList rlpNodes = (RLPList)RLP.decode2(message.get(0).getRLPData()).get(0);
+
+            List<byte[]> nodes = new ArrayList<>();
+
+            for (int k = 0; k < rlpNodes.size(); k++) {
+                byte[] node = rlpNodes.get(k).getRLPData();
+
+                if (node != null) {
+                    nodes.add(node);
+                }
+            }
+
+            return new StateNodesResponseMessage(id, nodes);
+        }
+    },
+    TRANSACTION_HASHES_MESSAGE(24) {
+        @Override
+        public Message createMessage(BlockFactory blockFactory, RLPList list) {
+            return new TransactionHashesMessage(parseTransactionHashes(list));
+        }
+    },
+    TRANSACTIONS_REQUEST_MESSAGE(25) {
+        @Override
+        public Message createMessage(BlockFactory blockFactory, RLPList list) {
+            return new TransactionsRequestMessage(parseTransactionHashes(list));
+        }
     };
 
+    // the most transaction hashes taken from a single message
+    private static final int MAX_TRANSACTION_HASHES = 4096;
+
     private int type;
 
     MessageType(int type) {
@@ -275,6 +359,20 @@ public enum MessageType {
         throw new IllegalArgumentException(String.format("Invalid Message Type: %d", type));
     }
 
+    private static List<Keccak256> parseTransactionHashes(RLPList list) {
+        List<Keccak256> hashes = new ArrayList<>();
+
+        for (int k = 0; k < list.size() && k < MAX_TRANSACTION_HASHES; k++) {
+            byte[] hash = list.get(k).getRLPData();
+
+            if (hash != null && hash.length == Keccak256.HASH_LEN) {
+                hashes.add(new Keccak256(hash));
+            }
+        }
+
+        return hashes;
+    }
+
     private static boolean validTransactionLength(byte[] data) {
         return data.length <= 1 << 19;  /* 512KB */
     }
@@ -31,6 +31,7 @@ import org.ethereum.net.server.ChannelManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -51,6 +52,8 @@ public class MessageVisitor {
     private final PeerScoringManager peerScoringManager;
     private final RskSystemProperties config;
     private final ChannelManager channelManager;
+    @Nullable
+    private final SnapshotProcessor snapshotProcessor;
 
     public MessageVisitor(RskSystemProperties config,
                           BlockProcessor blockProcessor,
@@ -59,12 +62,27 @@ public class MessageVisitor {
                           PeerScoringManager peerScoringManager,
                           ChannelManager channelManager,
                           Peer sender) {
+        this(config, blockProcessor, syncProcessor, transactionGateway, peerScoringManager, channelManager, null, sender);
+    }
+
+    /**
+     * @param snapshotProcessor serves the state to the peers doing a snapshot sync, or null to not serve it
+     */
+    public MessageVisitor(RskSystemProperties config,
+                          BlockProcessor blockProcessor,
+                          SyncProcessor syncProcessor,
+                          TransactionGateway transactionGateway,
+                          PeerScoringManager peerScoringManager,
+                          ChannelManager channelManager,
+                          @Nullable SnapshotProcessor snapshotProcessor,
+                          Peer sender) {
 
         this.blockProcessor = blockProcessor;
         this.syncProcessor = syncProcessor;
         this.transactionGateway = transactionGateway;
         this.peerScoringManager = peerScoringManager;
         this.channelManager = channelManager;
+        this.snapshotProcessor = snapshotProcessor;
         this.config = config;
         this.sender = sender;
     }
@@ -120,6 +138,7 @@ public class MessageVisitor {
         final Status status = message.getStatus();
         logger.trace("Process status {}", status.getBestBlockNumber());
         this.syncProcessor.processStatus(sender, status);
+        this.transactionGateway.receiveStatusFrom(sender, status);
     }
 
     public void apply(GetBlockMessage message) {
@@ -176,6 +195,32 @@ public class MessageVisitor {
         this.syncProcessor.processBodyResponse(sender, message);
     }
 
+    public void apply(SnapshotStatusRequestMessage message) {
+        if (snapshotProcessor == null) {
+            loggerMessageProcess.debug("Message[{}] not processed.", message.getMessageType());
+            return;
+        }
+
+        this.snapshotProcessor.processSnapshotStatusRequest(sender, message.getId(), message.getBlockNumber());
+    }
+
+    public void apply(SnapshotStatusResponseMessage message) {
+        this.syncProcessor.processSnapshotStatusResponse(sender, message);
+    }
+
+    public void apply(StateNodesRequestMessage message) {
+        if (snapshotProcessor == null) {
+            loggerMessageProcess.debug("Message[{}] not processed.", message.getMessageType());
+            return;
+        }
+
+        this.snapshotProcessor.processStateNodesRequest(sender, message.getId(), message.getHashes());
+    }
+
+    public void apply(StateNodesResponseMessage message) {
+        this.syncProcessor.processStateNodesResponse(sender, message);
+    }
+
     public void apply(NewBlockHashesMessage message) {
         if (blockProcessor.hasBetterBlockToSync()) {
             loggerMessageProcess.debug("Message[{}] not processed.", message.getMessageType());
@@ -212,6 +257,19 @@ public class MessageVisitor {
         }
     }
 
+    public void apply(TransactionHashesMessage message) {
+        if (blockProcessor.hasBetterBlockToSync()) {
+            loggerMessageProcess.debug("Message[{}] not processed.", message.getMessageType());
+            return;
+        }
+
+        transactionGateway.receiveTransactionHashesFrom(sender, message.getHashes());
+    }
+
+    public void apply(TransactionsRequestMessage message) {
+        transactionGateway.receiveTransactionsRequestFrom(sender, message.getHashes());
+    }
+
     private void reportEventToPeerScoring(Peer peer, EventType eventType, String message, Object... arguments) {
         if (peer == null) {
             return;
@@ -0,0 +1,67 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.messages;
+
+import org.ethereum.util.RLP;
+
+import java.math.BigInteger;
+
+/**
+ * Asks a peer for the block of its best chain at a given height and whether it offers its state, to start a
+ * snapshot sync
+ */
+public class SnapshotStatusRequestMessage extends MessageWithId {
+    private final long id;
+    private final long blockNumber;
+
+    public SnapshotStatusRequestMessage(long id, long blockNumber) {
+        this.id = id;
+        this.blockNumber = blockNumber;
+    }
+
+    @Override
+    public long getId() {
+        return this.id;
+    }
+
+    public long getBlockNumber() {
+        return this.blockNumber;
+    }
+
+    @Override
+    public MessageType getMessageType() {
+        return MessageType.SNAPSHOT_STATUS_REQUEST_MESSAGE;
+    }
+
+    @Override
+    public MessageType getResponseMessageType() {
+        return MessageType.SNAPSHOT_STATUS_RESPONSE_MESSAGE;
+    }
+
+    @Override
+    protected byte[] getEncodedMessageWithoutId() {
+        byte[] rlpBlockNumber = RLP.encodeBigInteger(BigInteger.valueOf(this.blockNumber));
+        return RLP.encodeList(rlpBlockNumber);
+    }
+
+    @Override
+    public void accept(MessageVisitor v) {
+        v.apply(this);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.messages;
+
+import co.rsk.core.BlockDifficulty;
+import org.ethereum.core.Block;
+import org.ethereum.util.RLP;
+
+import javax.annotation.Nullable;
+
+/**
+ * The block a peer offers its state at, with its total difficulty, or no block when the peer can't offer any
+ */
+public class SnapshotStatusResponseMessage extends MessageWithId {
+    private final long id;
+
+    @Nullable
+    private final Block block;
+
+    @Nullable
+    private final BlockDifficulty totalDifficulty;
+
+    public SnapshotStatusResponseMessage(long id, @Nullable Block block, @Nullable BlockDifficulty totalDifficulty) {
+        this.id = id;
+        this.block = block;
+        this.totalDifficulty = totalDifficulty;
+    }
+
+    @Override
+    public long getId() {
+        return this.id;
+    }
+
+    @Nullable
+    public Block getBlock() {
+        return this.block;
+    }
+
+    @Nullable
+    public BlockDifficulty getTotalDifficulty() {
+        return this.totalDifficulty;
+    }
+
+    @Override
+    public MessageType getMessageType() {
+        return MessageType.SNAPSHOT_STATUS_RESPONSE_MESSAGE;
+    }
+
+    @Override
+    protected byte[] getEncodedMessageWithoutId() {
+        if (this.block == null || this.totalDifficulty == null) {
+            return RLP.encodeList();
+        }
+
+        byte[] rlpBlock = RLP.encode(this.block.getEncoded());
+        byte[] rlpTotalDifficulty = RLP.encodeBlockDifficulty(this.totalDifficulty);
+
+        return RLP.encodeList(rlpBlock, rlpTotalDifficulty);
+    }
+
+    @Override
+    public void accept(MessageVisitor v) {
+        v.apply(this);
+    }
+}
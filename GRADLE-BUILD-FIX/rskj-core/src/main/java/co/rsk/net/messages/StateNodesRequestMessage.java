@@ -0,0 +1,70 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.messages;
+
+import co.rsk.crypto.Keccak256;
+import org.ethereum.util.RLP;
+
+import java.util.List;
+
+/**
+ * Asks a peer for the serialized trie nodes and long values with the given hashes
+ */
+public class StateNodesRequestMessage extends MessageWithId {
+    private final long id;
+    private final List<Keccak256> hashes;
+
+    public StateNodesRequestMessage(long id, List<Keccak256> hashes) {
+        this.id = id;
+        this.hashes = hashes;
+    }
+
+    @Override
+    public long getId() {
+        return this.id;
+    }
+
+    public List<Keccak256> getHashes() {
+        return this.hashes;
+    }
+
+    @Override
+    public MessageType getMessageType() {
+        return MessageType.STATE_NODES_REQUEST_MESSAGE;
+    }
+
+    @Override
+    public MessageType getResponseMessageType() {
+        return MessageType.STATE_NODES_RESPONSE_MESSAGE;
+    }
+
+    @Override
+    protected byte[] getEncodedMessageWithoutId() {
+        byte[][] rlpHashes = this.hashes.stream()
+                .map(hash -> RLP.encodeElement(hash.getBytes()))
+                .toArray(byte[][]::new);
+
+        return RLP.encodeList(RLP.encodeList(rlpHashes));
+    }
+
+    @Override
+    public void accept(MessageVisitor v) {
+        v.apply(this);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.messages;
+
+import org.ethereum.util.RLP;
+
+import java.util.List;
+
+/**
+ * The serialized trie nodes and long values a peer has of the requested ones, each one is keyed by its hash
+ */
+public class StateNodesResponseMessage extends MessageWithId {
+    private final long id;
+    private final List<byte[]> nodes;
+
+    public StateNodesResponseMessage(long id, List<byte[]> nodes) {
+        this.id = id;
+        this.nodes = nodes;
+    }
+
+    @Override
+    public long getId() {
+        return this.id;
+    }
+
+    public List<byte[]> getNodes() {
+        return this.nodes;
+    }
+
+    @Override
+    public MessageType getMessageType() {
+        return MessageType.STATE_NODES_RESPONSE_MESSAGE;
+    }
+
+    @Override
+    protected byte[] getEncodedMessageWithoutId() {
+        byte[][] rlpNodes = this.nodes.stream()
+                .map(RLP::encodeElement)
+                .toArray(byte[][]::new);
+
+        return RLP.encodeList(RLP.encodeList(rlpNodes));
+    }
+
+    @Override
+    public void accept(MessageVisitor v) {
+        v.apply(this);
+    }
+}
@@ -50,6 +50,11 @@ public class StatusMessage extends Message {
         byte[] parentHash = RLP.encodeElement(status.getBestBlockParentHash());
         byte[] totalDifficulty = RLP.encodeBlockDifficulty(status.getTotalDifficulty());
 
+        if (status.acceptsTransactionAnnouncements()) {
+            // nodes not knowing this field just ignore it
+            return RLP.encodeList(number, hash, parentHash, totalDifficulty, RLP.encodeByte((byte) 1));
+        }
+
         return RLP.encodeList(number, hash, parentHash, totalDifficulty);
     }
 
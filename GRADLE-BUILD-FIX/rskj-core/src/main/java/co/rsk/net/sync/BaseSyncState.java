@@ -17,12 +17,15 @@
  */
 package co.rsk.net.sync;
 
+import co.rsk.core.BlockDifficulty;
 import co.rsk.net.Peer;
 import co.rsk.net.messages.BodyResponseMessage;
 import com.google.common.annotations.VisibleForTesting;
+import org.ethereum.core.Block;
 import org.ethereum.core.BlockHeader;
 import org.ethereum.core.BlockIdentifier;
 
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.util.List;
 
@@ -73,6 +76,14 @@ public abstract class BaseSyncState implements SyncState {
     public void newSkeleton(List<BlockIdentifier> skeleton, Peer peer) {
     }
 
+    @Override
+    public void newSnapshotStatus(Peer peer, @Nullable Block block, @Nullable BlockDifficulty totalDifficulty) {
+    }
+
+    @Override
+    public void newStateNodes(List<byte[]> nodes) {
+    }
+
     @Override
     public void onEnter() { }
 
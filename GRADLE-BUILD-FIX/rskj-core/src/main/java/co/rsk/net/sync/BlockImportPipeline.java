@@ -0,0 +1,315 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.sync;
+
+import co.rsk.net.BlockProcessResult;
+import co.rsk.net.BlockSyncService;
+import co.rsk.net.Peer;
+import co.rsk.validators.SyncBlockValidatorRule;
+import com.google.common.annotations.VisibleForTesting;
+import org.ethereum.core.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports the blocks downloaded by the long sync in stages, so downloading, validating and executing them overlap.
+ * <p>
+ * A downloaded body goes through three stages, each with its own threads and a bounded queue in front:
+ * the block is built from the header and the body and validated against the header, then the senders of its
+ * transactions are recovered, and at last it's executed and saved by the {@link BlockSyncService}, on a single thread.
+ * The blocks can reach the last stage out of order, the ones whose parent isn't connected yet are kept by the
+ * {@link BlockSyncService} until it is.
+ * <p>
+ * Submitting a block blocks while the first queue is full, so the download can't get far ahead of the import.
+ * The blocks that fail are handed back as {@link Failure}s, to be taken by the sync state on its own thread.
+ */
+public class BlockImportPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger("syncprocessor");
+
+    private static final int BLOCKS_TO_LOG_STATS = 1000;
+
+    private final BlockFactory blockFactory;
+    private final SyncBlockValidatorRule blockValidationRule;
+    private final BlockSyncService blockSyncService;
+    private final SignatureCache signatureCache;
+
+    private final Stage validation;
+    private final Stage senderRecovery;
+    private final Stage execution;
+
+    private final ConcurrentLinkedQueue<Failure> failures = new ConcurrentLinkedQueue<>();
+    // blocks submitted and not imported or failed yet
+    private final AtomicInteger pendingBlocks = new AtomicInteger();
+
+    /**
+     * @param threads number of threads of the validation and the sender recovery stages
+     * @param queueSize maximum number of blocks waiting in front of each stage
+     */
+    public BlockImportPipeline(BlockFactory blockFactory,
+                               SyncBlockValidatorRule blockValidationRule,
+                               BlockSyncService blockSyncService,
+                               SignatureCache signatureCache,
+                               int threads,
+                               int queueSize) {
+        this.blockFactory = blockFactory;
+        this.blockValidationRule = blockValidationRule;
+        this.blockSyncService = blockSyncService;
+        this.signatureCache = signatureCache;
+
+        this.execution = new Stage("sync import", 1, queueSize, this::execute);
+        this.senderRecovery = new Stage("sync sender recovery", threads, queueSize, this::recoverSenders);
+        this.validation = new Stage("sync validation", threads, queueSize, this::validate);
+    }
+
+    /**
+     * Queues a downloaded block, waiting while the validation stage has no room for it.
+     */
+    public void submit(BlockHeader header, List<Transaction> transactions, List<BlockHeader> uncles, Peer peer) {
+        pendingBlocks.incrementAndGet();
+
+        try {
+            validation.queue.put(new PipelineBlock(header, transactions, uncles, peer));
+        } catch (InterruptedException e) {
+            pendingBlocks.decrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Nullable
+    public Failure pollFailure() {
+        return failures.poll();
+    }
+
+    /**
+     * Returns true when every submitted block was imported or failed, and its failure was taken.
+     */
+    public boolean isIdle() {
+        return pendingBlocks.get() == 0 && failures.isEmpty();
+    }
+
+    @VisibleForTesting
+    Stage getValidation() {
+        return validation;
+    }
+
+    @VisibleForTesting
+    Stage getSenderRecovery() {
+        return senderRecovery;
+    }
+
+    @VisibleForTesting
+    Stage getExecution() {
+        return execution;
+    }
+
+    private void validate(PipelineBlock pipelineBlock) throws InterruptedException {
+        Block block;
+
+        try {
+            block = blockFactory.newBlock(pipelineBlock.header, pipelineBlock.transactions, pipelineBlock.uncles);
+            block.seal();
+        } catch (IllegalArgumentException e) {
+            fail(pipelineBlock, Failure.Kind.INVALID_BODY);
+            return;
+        }
+
+        if (!blockValidationRule.isValid(block)) {
+            fail(pipelineBlock, Failure.Kind.INVALID_BODY);
+            return;
+        }
+
+        pipelineBlock.block = block;
+        senderRecovery.queue.put(pipelineBlock);
+    }
+
+    private void recoverSenders(PipelineBlock pipelineBlock) throws InterruptedException {
+        for (Transaction transaction : pipelineBlock.block.getTransactionsList()) {
+            // the senders are kept in the transactions, the validation and the execution don't recover them again
+            if (transaction.getSignature() == null) {
+                continue;
+            }
+
+            try {
+                transaction.getSender(signatureCache);
+            } catch (RuntimeException e) {
+                logger.trace("Sender of transaction {} couldn't be recovered", transaction.getHash(), e);
+            }
+        }
+
+        execution.queue.put(pipelineBlock);
+    }
+
+    private void execute(PipelineBlock pipelineBlock) {
+        BlockProcessResult result = blockSyncService.processBlock(pipelineBlock.block, pipelineBlock.peer, true);
+
+        if (result.isInvalidBlock()) {
+            fail(pipelineBlock, Failure.Kind.INVALID_BLOCK);
+            return;
+        }
+
+        pendingBlocks.decrementAndGet();
+
+        if (execution.processed.get() % BLOCKS_TO_LOG_STATS == 0) {
+            logStats();
+        }
+    }
+
+    private void fail(PipelineBlock pipelineBlock, Failure.Kind kind) {
+        failures.add(new Failure(pipelineBlock.header, pipelineBlock.peer, kind));
+        pendingBlocks.decrementAndGet();
+    }
+
+    private void logStats() {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+
+        for (Stage stage : new Stage[] { validation, senderRecovery, execution }) {
+            logger.debug("Stage {}: {} blocks processed in {} ms, {} blocks queued",
+                    stage.name, stage.processed.get(), TimeUnit.NANOSECONDS.toMillis(stage.busyNanos.get()), stage.queue.size());
+        }
+    }
+
+    /**
+     * A block that couldn't be imported, because the body doesn't match the header, because the block is invalid
+     * or because of an error of this node
+     */
+    public static class Failure {
+        public enum Kind {
+            INVALID_BODY,
+            INVALID_BLOCK,
+            // not the fault of the peer, the block is downloaded again without reporting it
+            LOCAL_ERROR
+        }
+
+        private final BlockHeader header;
+        private final Peer peer;
+        private final Kind kind;
+
+        private Failure(BlockHeader header, Peer peer, Kind kind) {
+            this.header = header;
+            this.peer = peer;
+            this.kind = kind;
+        }
+
+        public BlockHeader getHeader() {
+            return header;
+        }
+
+        public Peer getPeer() {
+            return peer;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+    }
+
+    private interface StageTask {
+        void run(PipelineBlock pipelineBlock) throws InterruptedException;
+    }
+
+    @VisibleForTesting
+    final class Stage {
+        private final String name;
+        private final BlockingQueue<PipelineBlock> queue;
+        private final StageTask task;
+
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+
+        private Stage(String name, int threads, int queueSize, StageTask task) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+            this.task = task;
+
+            for (int k = 0; k < Math.max(1, threads); k++) {
+                Thread thread = new Thread(this::run, name);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+
+        long getProcessed() {
+            return processed.get();
+        }
+
+        long getBusyNanos() {
+            return busyNanos.get();
+        }
+
+        int getQueued() {
+            return queue.size();
+        }
+
+        private void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                PipelineBlock pipelineBlock;
+
+                try {
+                    pipelineBlock = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                long start = System.nanoTime();
+
+                try {
+                    processed.incrementAndGet();
+                    task.run(pipelineBlock);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    logger.error("Block {} couldn't be imported", pipelineBlock.header.getPrintableHash(), e);
+                    // a bug or a storage error, the block is downloaded again without blaming the peer
+                    fail(pipelineBlock, Failure.Kind.LOCAL_ERROR);
+                } finally {
+                    busyNanos.addAndGet(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    private static class PipelineBlock {
+        private final BlockHeader header;
+        private final List<Transaction> transactions;
+        private final List<BlockHeader> uncles;
+        private final Peer peer;
+        private Block block;
+
+        private PipelineBlock(BlockHeader header, List<Transaction> transactions, List<BlockHeader> uncles, Peer peer) {
+            this.header = header;
+            this.transactions = transactions;
+            this.uncles = uncles;
+            this.peer = peer;
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.ethereum.util.ByteUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -73,6 +74,11 @@ public class DownloadingBodiesSyncState extends BaseSyncState {
     private final Duration limit;
     private final SyncBlockValidatorRule blockValidationRule;
     private final BlockSyncService blockSyncService;
+    // imports the blocks in stages on other threads, when it's null they are imported as they arrive
+    @Nullable
+    private final BlockImportPipeline importPipeline;
+    // the chunk and the segment of the blocks given to the pipeline, to download them again if they fail
+    private final Map<Keccak256, int[]> chunkAndSegmentByImportingBlock;
 
     public DownloadingBodiesSyncState(SyncConfiguration syncConfiguration,
                                       SyncEventsHandler syncEventsHandler,
@@ -83,6 +89,20 @@ public class DownloadingBodiesSyncState extends BaseSyncState {
                                       SyncBlockValidatorRule blockValidationRule,
                                       List<Deque<BlockHeader>> pendingHeaders,
                                       Map<Peer, List<BlockIdentifier>> skeletons) {
+        this(syncConfiguration, syncEventsHandler, peersInformation, blockchain, blockFactory, blockSyncService,
+                blockValidationRule, pendingHeaders, skeletons, null);
+    }
+
+    public DownloadingBodiesSyncState(SyncConfiguration syncConfiguration,
+                                      SyncEventsHandler syncEventsHandler,
+                                      PeersInformation peersInformation,
+                                      Blockchain blockchain,
+                                      BlockFactory blockFactory,
+                                      BlockSyncService blockSyncService,
+                                      SyncBlockValidatorRule blockValidationRule,
+                                      List<Deque<BlockHeader>> pendingHeaders,
+                                      Map<Peer, List<BlockIdentifier>> skeletons,
+                                      @Nullable BlockImportPipeline importPipeline) {
 
         super(syncEventsHandler, syncConfiguration);
         this.peersInformation = peersInformation;
@@ -100,6 +120,8 @@ public class DownloadingBodiesSyncState extends BaseSyncState {
         this.segmentsBeingDownloaded = new HashMap<>();
         this.timeElapsedByPeer = new HashMap<>();
         this.messagesByPeers = new HashMap<>();
+        this.importPipeline = importPipeline;
+        this.chunkAndSegmentByImportingBlock = new HashMap<>();
 
         initializeSegments();
         this.suitablePeers = new ArrayList<>(segmentByNode.keySet());
@@ -116,6 +138,12 @@ public class DownloadingBodiesSyncState extends BaseSyncState {
 
         // we already checked that this message was expected
         BlockHeader header = pendingBodyResponses.remove(requestId).header;
+
+        if (importPipeline != null) {
+            importInPipeline(header, message, peer);
+            return;
+        }
+
         Block block;
         try {
             block = blockFactory.newBlock(header, message.getTransactions(), message.getUncles());
@@ -142,10 +170,79 @@ public class DownloadingBodiesSyncState extends BaseSyncState {
         verifyDownloadIsFinished();
     }
 
+    private void importInPipeline(BlockHeader header, BodyResponseMessage message, Peer peer) {
+        Integer chunkNumber = chunksBeingDownloaded.get(peer);
+        Integer segmentNumber = segmentsBeingDownloaded.get(peer);
+        if (chunkNumber != null && segmentNumber != null) {
+            chunkAndSegmentByImportingBlock.put(header.getHash(), new int[] { chunkNumber, segmentNumber });
+        }
+
+        importPipeline.submit(header, message.getTransactions(), message.getUncles(), peer);
+
+        // the next body is requested while this one is imported
+        tryRequestNextBody(peer);
+
+        handleImportFailures();
+        if (suitablePeers.isEmpty()) {
+            syncEventsHandler.stopSyncing();
+            return;
+        }
+
+        startDownloading(getInactivePeers());
+        verifyDownloadIsFinished();
+    }
+
+    private void handleImportFailures() {
+        for (BlockImportPipeline.Failure failure = importPipeline.pollFailure(); failure != null; failure = importPipeline.pollFailure()) {
+            Peer peer = failure.getPeer();
+            BlockHeader header = failure.getHeader();
+
+            switch (failure.getKind()) {
+                case INVALID_BLOCK:
+                    peersInformation.reportEventToPeerScoring(peer, EventType.INVALID_BLOCK,
+                            "Invalid block received on {}, no {}, hash {}",
+                            this.getClass(), header.getNumber(), header.getPrintableHash());
+                    break;
+                case INVALID_BODY:
+                    peersInformation.reportEventToPeerScoring(peer, EventType.INVALID_MESSAGE,
+                            "Invalid body received on {}, no {}, hash {}",
+                            this.getClass(), header.getNumber(), header.getPrintableHash());
+                    break;
+                default:
+                    // the error was ours, the peer isn't reported
+                    break;
+            }
+
+            // the peer could be downloading another body already, it's downloaded from another peer
+            if (suitablePeers.contains(peer)) {
+                clearPeerInfo(peer);
+                Long messageId = messagesByPeers.remove(peer);
+                if (messageId != null) {
+                    resetChunkAndHeader(peer, pendingBodyResponses.remove(messageId).header);
+                }
+            }
+
+            int[] chunkAndSegment = chunkAndSegmentByImportingBlock.remove(header.getHash());
+            if (chunkAndSegment != null) {
+                resetImportingHeader(header, chunkAndSegment[0], chunkAndSegment[1]);
+            }
+        }
+    }
+
+    private void resetImportingHeader(BlockHeader header, int chunkNumber, int segmentNumber) {
+        pendingHeaders.get(chunkNumber).addLast(header);
+
+        Deque<Integer> chunks = chunksBySegment.get(segmentNumber);
+        if (!chunksBeingDownloaded.containsValue(chunkNumber) && !chunks.contains(chunkNumber)) {
+            chunks.push(chunkNumber);
+        }
+    }
+
     private void verifyDownloadIsFinished() {
         // all headers have been requested and there is not any chunk still in process
         if (chunksBeingDownloaded.isEmpty() &&
-                pendingHeaders.stream().allMatch(Collection::isEmpty)) {
+                pendingHeaders.stream().allMatch(Collection::isEmpty) &&
+                isImportFinished()) {
             // Finished syncing
             logger.info("Completed syncing phase");
             syncEventsHandler.stopSyncing();
@@ -240,6 +337,10 @@ public class DownloadingBodiesSyncState extends BaseSyncState {
         return blockHeader;
     }
 
+    private boolean isImportFinished() {
+        return importPipeline == null || importPipeline.isIdle();
+    }
+
     private boolean isKnownBlock(Keccak256 hash) {
         return blockchain.getBlockByHash(hash.getBytes()) != null;
     }
@@ -294,6 +395,11 @@ public class DownloadingBodiesSyncState extends BaseSyncState {
             .filter(k -> timeElapsedByPeer.get(k).compareTo(limit) >= 0)
             .forEach(this::handleTimeoutMessage);
 
+        if (importPipeline != null) {
+            handleImportFailures();
+            chunkAndSegmentByImportingBlock.keySet().removeIf(this::isKnownBlock);
+        }
+
         if (suitablePeers.isEmpty()){
             syncEventsHandler.stopSyncing();
             return;
@@ -301,7 +407,8 @@ public class DownloadingBodiesSyncState extends BaseSyncState {
 
         startDownloading(getInactivePeers());
 
-        if (chunksBeingDownloaded.isEmpty()){
+        // the blocks given to the pipeline are waited for, they could fail and have to be downloaded again
+        if (chunksBeingDownloaded.isEmpty() && isImportFinished()){
             syncEventsHandler.stopSyncing();
         }
     }
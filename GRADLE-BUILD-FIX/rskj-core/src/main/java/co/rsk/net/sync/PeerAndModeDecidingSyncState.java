@@ -30,6 +30,9 @@ public class PeerAndModeDecidingSyncState extends BaseSyncState {
 
     private static final Logger logger = LoggerFactory.getLogger(PeerAndModeDecidingSyncState.class);
 
+    // blocks before the best one covering the REMASC maturity and synthetic span
+    private static final long MIN_HISTORY_BLOCKS = 4096;
+
     private final PeersInformation peersInformation;
     private final BlockStore blockStore;
 
@@ -93,6 +96,11 @@ public class PeerAndModeDecidingSyncState extends BaseSyncState {
             return false;
         }
 
+        if (isMissingHistory()) {
+            logger.debug("Forward syncing postponed, blocks before the best one are missing");
+            return false;
+        }
+
         // start "long" / "forward" sync
         syncEventsHandler.onLongSyncUpdate(true, peerBestBlockNumOpt.get());
         syncEventsHandler.startSyncing(bestPeerOpt.get());
@@ -127,6 +135,12 @@ public class PeerAndModeDecidingSyncState extends BaseSyncState {
                 .flatMap(pi -> Optional.ofNullable(pi.getStatus()).map(Status::getBestBlockNumber));
     }
 
+    // a node synced from a snapshot needs the blocks before it to process the next ones
+    private boolean isMissingHistory() {
+        return syncConfiguration.isSnapshotSyncEnabled()
+                && !checkGenesisConnected() && blockStore.getBestBlock().getNumber() - blockStore.getMinNumber() < MIN_HISTORY_BLOCKS;
+    }
+
     private boolean checkGenesisConnected() {
         return blockStore.getMinNumber() == 0;
     }
@@ -0,0 +1,210 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.sync;
+
+import co.rsk.core.BlockDifficulty;
+import co.rsk.crypto.Keccak256;
+import co.rsk.net.Peer;
+import co.rsk.scoring.EventType;
+import co.rsk.trie.TrieStore;
+import co.rsk.validators.BlockHeaderValidationRule;
+import co.rsk.validators.SyncBlockValidatorRule;
+import org.ethereum.core.Block;
+import org.ethereum.core.Blockchain;
+import org.ethereum.db.BlockStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Downloads the state at a recent block of the selected peer, instead of executing all the blocks before it.
+ * <p>
+ * Several peers are asked for the block at the same height of their best chain, and all of them have to offer the
+ * same block with the same total difficulty, so a single peer can't make us download the state of a block of its own.
+ * The trie of the block's state is then downloaded from its root, from the selected peer. The block is saved as the
+ * best one in place of the genesis, so backward syncing downloads the blocks before it and checks that they end at
+ * our genesis with the total difficulty the peers gave.
+ */
+public class SnapshotSyncState extends BaseSelectedPeerSyncState {
+
+    private static final Logger logger = LoggerFactory.getLogger("syncprocessor");
+
+    private static final int MAX_NODES_PER_REQUEST = 384;
+
+    private final Blockchain blockchain;
+    private final BlockStore blockStore;
+    private final TrieStore trieStore;
+    private final BlockHeaderValidationRule blockHeaderValidationRule;
+    private final SyncBlockValidatorRule blockValidationRule;
+
+    private final List<Peer> pivotPeers;
+    private final long pivotNumber;
+    // the pivot peers that offered the block, all of them offered the same
+    private final Set<Peer> agreeingPeers = new HashSet<>();
+
+    private Block pivot;
+    private BlockDifficulty totalDifficulty;
+    private StateNodesDownload download;
+
+    public SnapshotSyncState(SyncConfiguration syncConfiguration,
+                             SyncEventsHandler syncEventsHandler,
+                             Blockchain blockchain,
+                             BlockStore blockStore,
+                             TrieStore trieStore,
+                             BlockHeaderValidationRule blockHeaderValidationRule,
+                             SyncBlockValidatorRule blockValidationRule,
+                             Peer peer,
+                             List<Peer> pivotPeers,
+                             long pivotNumber) {
+        super(syncEventsHandler, syncConfiguration, peer);
+        this.blockchain = blockchain;
+        this.blockStore = blockStore;
+        this.trieStore = trieStore;
+        this.blockHeaderValidationRule = blockHeaderValidationRule;
+        this.blockValidationRule = blockValidationRule;
+        this.pivotPeers = new ArrayList<>(pivotPeers);
+        this.pivotNumber = pivotNumber;
+    }
+
+    @Override
+    public void onEnter() {
+        for (Peer peer : pivotPeers) {
+            syncEventsHandler.sendSnapshotStatusRequest(peer, pivotNumber);
+        }
+    }
+
+    @Override
+    public void newSnapshotStatus(Peer peer, @Nullable Block block, @Nullable BlockDifficulty totalDifficulty) {
+        if (download != null || !pivotPeers.contains(peer) || agreeingPeers.contains(peer)) {
+            return;
+        }
+
+        if (block == null || totalDifficulty == null) {
+            syncEventsHandler.onSyncIssue(peer, "No snapshot offered on {}", this.getClass());
+            return;
+        }
+
+        if (block.getNumber() != pivotNumber) {
+            syncEventsHandler.onErrorSyncing(peer, EventType.INVALID_MESSAGE,
+                    "Unexpected snapshot block number received on {}", this.getClass());
+            return;
+        }
+
+        if (!blockHeaderValidationRule.isValid(block.getHeader()) || !blockValidationRule.isValid(block)) {
+            syncEventsHandler.onErrorSyncing(peer, EventType.INVALID_BLOCK,
+                    "Invalid snapshot block received on {}", this.getClass());
+            return;
+        }
+
+        if (pivot == null) {
+            this.pivot = block;
+            this.totalDifficulty = totalDifficulty;
+        } else if (!pivot.getHash().equals(block.getHash()) || !this.totalDifficulty.equals(totalDifficulty)) {
+            // the peers that disagree can't be told apart from the ones that lie, none of them is punished
+            syncEventsHandler.onSyncIssue(peer, "Peers offered different snapshot blocks on {}", this.getClass());
+            return;
+        }
+
+        agreeingPeers.add(peer);
+        resetTimeElapsed();
+
+        if (agreeingPeers.size() < pivotPeers.size()) {
+            return;
+        }
+
+        logger.info("Downloading the state at block {} {}, offered by {} peers", pivot.getNumber(), pivot.getPrintableHash(), agreeingPeers.size());
+        this.download = new StateNodesDownload(trieStore, new Keccak256(pivot.getStateRoot()));
+
+        requestNodes();
+    }
+
+    @Override
+    public void newStateNodes(List<byte[]> nodes) {
+        if (download == null) {
+            return;
+        }
+
+        if (nodes.isEmpty()) {
+            syncEventsHandler.onSyncIssue(selectedPeer, "No state nodes received on {}", this.getClass());
+            return;
+        }
+
+        boolean validNodes = download.addNodes(nodes);
+        trieStore.flush();
+
+        if (!validNodes) {
+            syncEventsHandler.onErrorSyncing(selectedPeer, EventType.INVALID_MESSAGE,
+                    "Invalid state nodes received on {}", this.getClass());
+            return;
+        }
+
+        resetTimeElapsed();
+        requestNodes();
+    }
+
+    @Override
+    protected void onMessageTimeOut() {
+        if (download != null) {
+            super.onMessageTimeOut();
+            return;
+        }
+
+        Peer silentPeer = pivotPeers.stream()
+                .filter(peer -> !agreeingPeers.contains(peer))
+                .findFirst()
+                .orElse(selectedPeer);
+        syncEventsHandler.onErrorSyncing(silentPeer, EventType.TIMEOUT_MESSAGE,
+                "Timeout waiting snapshot status on {}", this.getClass());
+    }
+
+    private void requestNodes() {
+        List<Keccak256> hashes = download.nextRequest(MAX_NODES_PER_REQUEST);
+
+        if (!hashes.isEmpty()) {
+            syncEventsHandler.sendStateNodesRequest(selectedPeer, hashes);
+            return;
+        }
+
+        if (download.isComplete()) {
+            saveSnapshotBlock();
+        }
+    }
+
+    private void saveSnapshotBlock() {
+        logger.info("State at block {} downloaded, {} nodes saved", pivot.getNumber(), download.getSavedNodes());
+
+        Block genesis = blockStore.getChainBlockByNumber(0);
+        blockStore.saveBlock(pivot, totalDifficulty, true);
+
+        // without the genesis the blocks before the snapshot one are synced backwards, up to the genesis again
+        if (genesis != null) {
+            blockStore.removeBlock(genesis);
+        }
+
+        blockStore.flush();
+        blockchain.setStatus(pivot, totalDifficulty);
+
+        syncEventsHandler.stopSyncing();
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.sync;
+
+import co.rsk.crypto.Keccak256;
+import co.rsk.trie.NodeReference;
+import co.rsk.trie.Trie;
+import co.rsk.trie.TrieStore;
+import co.rsk.trie.TrieStoreImpl;
+import org.ethereum.crypto.Keccak256Helper;
+import org.ethereum.datasource.HashMapDB;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Downloads the trie with a given root, checking every node against the hash its parent references.
+ * <p>
+ * A node is saved once the long values it references are there, so every saved node is usable. The nodes already
+ * in the store aren't downloaded again but walked to find their missing descendants, which reuses what an
+ * interrupted download saved and the subtrees shared with other states.
+ * <p>
+ * The hashes to download are kept in a stack, so the trie is walked depth first and the number of hashes kept
+ * depends on its depth instead of its width.
+ */
+class StateNodesDownload {
+
+    private static final Logger logger = LoggerFactory.getLogger("syncprocessor");
+
+    private final TrieStore trieStore;
+
+    private final Deque<Keccak256> pending = new ArrayDeque<>();
+    // the pending and in transit hashes that are of long values instead of nodes
+    private final Set<Keccak256> pendingValues = new HashSet<>();
+    private final Set<Keccak256> inTransit = new HashSet<>();
+    private final Map<Keccak256, List<WaitingNode>> nodesByMissingValue = new HashMap<>();
+
+    // the long values of the nodes not saved yet, the nodes are decoded with them so saving a node saves its values
+    private final HashMapDB values = new HashMapDB();
+    private final TrieStore valuesStore = new TrieStoreImpl(values);
+    private final Map<Keccak256, Integer> valueReferences = new HashMap<>();
+
+    private long savedNodes;
+
+    StateNodesDownload(TrieStore trieStore, Keccak256 root) {
+        this.trieStore = trieStore;
+        this.pending.push(root);
+    }
+
+    /**
+     * Returns the next hashes to request, walking the nodes already in the store to find them.
+     * It returns no hashes when the ones left are already in transit.
+     */
+    List<Keccak256> nextRequest(int maxNodes) {
+        List<Keccak256> request = new ArrayList<>();
+
+        while (request.size() < maxNodes && !pending.isEmpty()) {
+            Keccak256 hash = pending.pop();
+
+            if (inTransit.contains(hash)) {
+                continue;
+            }
+
+            if (!pendingValues.contains(hash)) {
+                Optional<Trie> node = trieStore.retrieve(hash.getBytes());
+
+                if (node.isPresent()) {
+                    pushChildren(node.get());
+                    continue;
+                }
+            }
+
+            inTransit.add(hash);
+            request.add(hash);
+        }
+
+        return request;
+    }
+
+    /**
+     * Adds the nodes and values received for the hashes in transit, the hashes that weren't received are requested
+     * again later.
+     *
+     * @return false if some of them wasn't requested or isn't a valid node, what was added before it is kept
+     */
+    boolean addNodes(List<byte[]> nodes) {
+        for (byte[] data : nodes) {
+            Keccak256 hash = new Keccak256(Keccak256Helper.keccak256(data));
+
+            if (!inTransit.remove(hash)) {
+                return false;
+            }
+
+            if (pendingValues.remove(hash)) {
+                addValue(hash, data);
+            } else if (!addNode(hash, data)) {
+                return false;
+            }
+        }
+
+        inTransit.forEach(pending::push);
+        inTransit.clear();
+
+        return true;
+    }
+
+    boolean isComplete() {
+        return pending.isEmpty() && inTransit.isEmpty() && nodesByMissingValue.isEmpty();
+    }
+
+    long getSavedNodes() {
+        return savedNodes;
+    }
+
+    private boolean addNode(Keccak256 hash, byte[] data) {
+        Trie node;
+
+        try {
+            node = Trie.fromMessage(data, valuesStore);
+        } catch (RuntimeException e) {
+            logger.debug("Invalid state node {}", hash, e);
+            return false;
+        }
+
+        // the node is saved by the hash of its serialization, it has to be the hash its parent references
+        if (!node.getHash().equals(hash)) {
+            return false;
+        }
+
+        WaitingNode waitingNode = new WaitingNode(node);
+        collectReferences(node, waitingNode);
+
+        if (waitingNode.missingValues == 0) {
+            save(waitingNode);
+        }
+
+        return true;
+    }
+
+    private void collectReferences(Trie node, WaitingNode waitingNode) {
+        if (node.hasLongValue()) {
+            collectValue(node.getValueHash(), waitingNode);
+        }
+
+        collectChild(node.getLeft(), waitingNode);
+        collectChild(node.getRight(), waitingNode);
+    }
+
+    private void collectChild(NodeReference reference, WaitingNode waitingNode) {
+        if (reference.wasLoaded()) {
+            // an embedded node, it comes within its parent
+            reference.getNode().ifPresent(child -> collectReferences(child, waitingNode));
+            return;
+        }
+
+        reference.getHash().ifPresent(pending::push);
+    }
+
+    private void collectValue(Keccak256 valueHash, WaitingNode waitingNode) {
+        byte[] key = valueHash.getBytes();
+        waitingNode.valueHashes.add(valueHash);
+        valueReferences.merge(valueHash, 1, Integer::sum);
+
+        if (values.get(key) != null) {
+            return;
+        }
+
+        byte[] value = trieStore.retrieveValue(key);
+
+        if (value != null) {
+            values.put(key, value);
+            return;
+        }
+
+        waitingNode.missingValues++;
+        nodesByMissingValue.computeIfAbsent(valueHash, k -> new ArrayList<>()).add(waitingNode);
+
+        if (pendingValues.add(valueHash)) {
+            pending.push(valueHash);
+        }
+    }
+
+    private void addValue(Keccak256 valueHash, byte[] value) {
+        List<WaitingNode> waitingNodes = nodesByMissingValue.remove(valueHash);
+
+        if (waitingNodes == null) {
+            return;
+        }
+
+        values.put(valueHash.getBytes(), value);
+
+        for (WaitingNode waitingNode : waitingNodes) {
+            waitingNode.missingValues--;
+
+            if (waitingNode.missingValues == 0) {
+                save(waitingNode);
+            }
+        }
+    }
+
+    private void save(WaitingNode waitingNode) {
+        trieStore.save(waitingNode.node);
+        savedNodes++;
+
+        for (Keccak256 valueHash : waitingNode.valueHashes) {
+            int references = valueReferences.get(valueHash) - 1;
+
+            if (references > 0) {
+                valueReferences.put(valueHash, references);
+            } else {
+                valueReferences.remove(valueHash);
+                values.delete(valueHash.getBytes());
+            }
+        }
+    }
+
+    private void pushChildren(Trie node) {
+        pushChild(node.getLeft());
+        pushChild(node.getRight());
+    }
+
+    private void pushChild(NodeReference reference) {
+        // embedded nodes are saved within their parent
+        if (!reference.wasLoaded()) {
+            reference.getHash().ifPresent(pending::push);
+        }
+    }
+
+    private static class WaitingNode {
+        private final Trie node;
+        private final List<Keccak256> valueHashes = new ArrayList<>();
+        private int missingValues;
+
+        private WaitingNode(Trie node) {
+            this.node = node;
+        }
+    }
+}
@@ -39,6 +39,9 @@ public final class SyncConfiguration {
     private final int longSyncLimit;
     private final int maxRequestedBodies;
     private final double topBest;
+    private final boolean snapshotSyncEnabled;
+    private final int snapshotPivotDistance;
+    private final int snapshotPivotPeers;
 
     /**
      * @param expectedPeers The expected number of peers we would want to start finding a connection point.
@@ -61,6 +64,28 @@ public final class SyncConfiguration {
             int maxRequestedBodies,
             int longSyncLimit,
             double topBest) {
+        this(expectedPeers, timeoutWaitingPeers, timeoutWaitingRequest, expirationTimePeerStatus, maxSkeletonChunks,
+                chunkSize, maxRequestedBodies, longSyncLimit, topBest, false, 0, 0);
+    }
+
+    /**
+     * @param snapshotSyncEnabled Whether a node without blocks downloads the state at a recent block of a peer instead of executing the blocks before it.
+     * @param snapshotPivotDistance Distance to the best block of the block whose state is offered to the peers doing a snapshot sync.
+     * @param snapshotPivotPeers Number of peers that have to offer the same block to start a snapshot sync.
+     */
+    public SyncConfiguration(
+            int expectedPeers,
+            int timeoutWaitingPeers,
+            int timeoutWaitingRequest,
+            int expirationTimePeerStatus,
+            int maxSkeletonChunks,
+            int chunkSize,
+            int maxRequestedBodies,
+            int longSyncLimit,
+            double topBest,
+            boolean snapshotSyncEnabled,
+            int snapshotPivotDistance,
+            int snapshotPivotPeers) {
         this.expectedPeers = expectedPeers;
         this.timeoutWaitingPeers = Duration.ofSeconds(timeoutWaitingPeers);
         this.timeoutWaitingRequest = Duration.ofSeconds(timeoutWaitingRequest);
@@ -70,6 +95,9 @@ public final class SyncConfiguration {
         this.maxRequestedBodies = maxRequestedBodies;
         this.longSyncLimit = longSyncLimit;
         this.topBest = topBest;
+        this.snapshotSyncEnabled = snapshotSyncEnabled;
+        this.snapshotPivotDistance = snapshotPivotDistance;
+        this.snapshotPivotPeers = snapshotPivotPeers;
     }
 
     public final int getExpectedPeers() {
@@ -107,4 +135,16 @@ public final class SyncConfiguration {
     public double getTopBest() {
        return topBest;
     }
+
+    public boolean isSnapshotSyncEnabled() {
+        return snapshotSyncEnabled;
+    }
+
+    public int getSnapshotPivotDistance() {
+        return snapshotPivotDistance;
+    }
+
+    public int getSnapshotPivotPeers() {
+        return snapshotPivotPeers;
+    }
 }
@@ -17,6 +17,7 @@
  */
 package co.rsk.net.sync;
 
+import co.rsk.crypto.Keccak256;
 import co.rsk.net.Peer;
 import co.rsk.scoring.EventType;
 import org.ethereum.core.Block;
@@ -37,6 +38,10 @@ public interface SyncEventsHandler {
 
     long sendBodyRequest(Peer peer, BlockHeader header);
 
+    void sendSnapshotStatusRequest(Peer peer, long blockNumber);
+
+    void sendStateNodesRequest(Peer peer, List<Keccak256> hashes);
+
     void startDownloadingBodies(List<Deque<BlockHeader>> pendingHeaders, Map<Peer, List<BlockIdentifier>> skeletons, Peer peer);
 
     void startDownloadingHeaders(Map<Peer, List<BlockIdentifier>> skeletons, long connectionPoint, Peer peer);
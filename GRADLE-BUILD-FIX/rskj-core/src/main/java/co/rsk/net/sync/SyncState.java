@@ -17,11 +17,14 @@
  */
 package co.rsk.net.sync;
 
+import co.rsk.core.BlockDifficulty;
 import co.rsk.net.Peer;
 import co.rsk.net.messages.BodyResponseMessage;
+import org.ethereum.core.Block;
 import org.ethereum.core.BlockHeader;
 import org.ethereum.core.BlockIdentifier;
 
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.util.List;
 
@@ -40,6 +43,10 @@ public interface SyncState {
 
     void newSkeleton(List<BlockIdentifier> skeletonChunk, Peer peer);
 
+    void newSnapshotStatus(Peer peer, @Nullable Block block, @Nullable BlockDifficulty totalDifficulty);
+
+    void newStateNodes(List<byte[]> nodes);
+
     void onEnter();
 
     void tick(Duration duration);
@@ -333,7 +333,8 @@ public class RepositoryBtcBlockStoreWithCache implements BtcBlockStoreWithCache
     public static class Factory implements BtcBlockStoreWithCache.Factory {
 
         private final int maxSizeBlockCache;
-        //This is ok as we don't have parallel execution, in the feature we should move to a concurrentHashMap
+        //This is ok as the bridge is never executed in parallel, the parallel block execution runs it in block order.
+        //In the future we should move to a concurrentHashMap
         private final Map<Sha256Hash, StoredBlock> cacheBlocks;
         private final RskAddress contractAddress;
         private final NetworkParameters btcNetworkParams;
@@ -0,0 +1,144 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.rpc;
+
+import co.rsk.rpc.netty.ExecTimeoutContext;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+
+/**
+ * Scans a range of blocks in chunks, which are processed concurrently on a bounded pool of threads
+ * and handed back in order to the calling thread.
+ *
+ * No more chunks than threads are in flight, so a caller that stops early doesn't wait for the rest of
+ * the range. The timeout of the calling thread is checked while it waits; the chunks in flight are
+ * cancelled when it expires, or when a chunk fails.
+ */
+public class BlockRangeScanner {
+
+    private static final long WAIT_INTERVAL_MILLIS = 50;
+
+    private final int threads;
+    @Nullable
+    private final ExecutorService executor;
+
+    /**
+     * @param threads number of threads used to process chunks, a value lower than 2 processes them on the calling thread
+     */
+    public BlockRangeScanner(int threads) {
+        this.threads = threads;
+        this.executor = threads > 1 ? Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "BlockRangeScanner");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    /**
+     * Processes the chunks of a block range, the first chunk starts at the first block and the
+     * next ones at multiples of the chunk size
+     *
+     * @param fromBlock first block number of the range
+     * @param toBlock   last block number of the range
+     * @param chunkSize maximum number of blocks of a chunk
+     * @param task      processes the blocks of a chunk, it should stop when its thread is interrupted
+     * @param consumer  receives the results of the chunks in order, it returns false to stop the scan
+     */
+    public <T> void scan(long fromBlock, long toBlock, long chunkSize, ChunkTask<T> task, Predicate<T> consumer) {
+        if (executor == null) {
+            for (long from = fromBlock; from <= toBlock; from = lastInChunk(from, toBlock, chunkSize) + 1) {
+                ExecTimeoutContext.checkIfExpired();
+
+                if (!consumer.test(task.process(from, lastInChunk(from, toBlock, chunkSize)))) {
+                    return;
+                }
+            }
+
+            return;
+        }
+
+        Deque<Future<T>> inFlight = new ArrayDeque<>(threads);
+        long next = fromBlock;
+
+        try {
+            while (next <= toBlock || !inFlight.isEmpty()) {
+                while (next <= toBlock && inFlight.size() < threads) {
+                    long from = next;
+                    long to = lastInChunk(from, toBlock, chunkSize);
+
+                    inFlight.addLast(executor.submit(() -> task.process(from, to)));
+                    next = to + 1;
+                }
+
+                if (!consumer.test(await(inFlight.removeFirst()))) {
+                    return;
+                }
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static long lastInChunk(long from, long toBlock, long chunkSize) {
+        return Math.min(toBlock, from - (from % chunkSize) + chunkSize - 1);
+    }
+
+    private static <T> T await(Future<T> future) {
+        while (true) {
+            ExecTimeoutContext.checkIfExpired();
+
+            try {
+                return future.get(WAIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // not done yet, check the timeout again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while scanning blocks", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    public interface ChunkTask<T> {
+        /**
+         * @param fromBlock first block number of the chunk
+         * @param toBlock   last block number of the chunk
+         */
+        T process(long fromBlock, long toBlock);
+    }
+}
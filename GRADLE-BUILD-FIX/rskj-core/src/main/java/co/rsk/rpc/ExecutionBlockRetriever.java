@@ -139,7 +139,7 @@ public class ExecutionBlockRetriever implements InternalService {
 
     @Override
     public void start() {
-        emitter.addListener(listener);
+        emitter.addSynchronousListener(listener);
     }
 
     @Override
@@ -21,6 +21,7 @@ import co.rsk.config.RskSystemProperties;
 import co.rsk.core.NetworkStateExporter;
 import co.rsk.core.RskAddress;
 import co.rsk.logfilter.BlocksBloomStore;
+import co.rsk.logfilter.LogIndexStore;
 import co.rsk.metrics.HashRateCalculator;
 import co.rsk.mine.MinerClient;
 import co.rsk.mine.MinerServer;
@@ -52,6 +53,7 @@ import org.ethereum.util.BuildInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -98,10 +100,45 @@ public class Web3RskImpl extends Web3Impl {
             Web3InformationRetriever retriever,
             SyncProcessor syncProcessor,
             SignatureCache signatureCache) {
+        this(eth, blockchain, properties, minerClient, minerServer, personalModule, ethModule, evmModule, txPoolModule,
+                mnrModule, debugModule, traceModule, rskModule, channelManager, peerScoringManager, networkStateExporter,
+                blockStore, receiptStore, peerServer, nodeBlockProcessor, hashRateCalculator, configCapabilities,
+                buildInfo, blocksBloomStore, null, null, retriever, syncProcessor, signatureCache);
+    }
+
+    public Web3RskImpl(
+            Ethereum eth,
+            Blockchain blockchain,
+            RskSystemProperties properties,
+            MinerClient minerClient,
+            MinerServer minerServer,
+            PersonalModule personalModule,
+            EthModule ethModule,
+            EvmModule evmModule,
+            TxPoolModule txPoolModule,
+            MnrModule mnrModule,
+            DebugModule debugModule,
+            TraceModule traceModule, RskModule rskModule,
+            ChannelManager channelManager,
+            PeerScoringManager peerScoringManager,
+            NetworkStateExporter networkStateExporter,
+            BlockStore blockStore,
+            ReceiptStore receiptStore,
+            PeerServer peerServer,
+            BlockProcessor nodeBlockProcessor,
+            HashRateCalculator hashRateCalculator,
+            ConfigCapabilities configCapabilities,
+            BuildInfo buildInfo,
+            BlocksBloomStore blocksBloomStore,
+            @Nullable LogIndexStore logIndexStore,
+            @Nullable BlockRangeScanner blockRangeScanner,
+            Web3InformationRetriever retriever,
+            SyncProcessor syncProcessor,
+            SignatureCache signatureCache) {
             super(eth, blockchain, blockStore, receiptStore, properties, minerClient, minerServer,
                     personalModule, ethModule, evmModule, txPoolModule, mnrModule, debugModule, traceModule, rskModule,
                     channelManager, peerScoringManager, peerServer, nodeBlockProcessor,
-                    hashRateCalculator, configCapabilities, buildInfo, blocksBloomStore, retriever, syncProcessor, signatureCache);
+                    hashRateCalculator, configCapabilities, buildInfo, blocksBloomStore, logIndexStore, blockRangeScanner, retriever, syncProcessor, signatureCache);
 
         this.networkStateExporter = networkStateExporter;
         this.blockStore = blockStore;
@@ -0,0 +1,228 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.rpc.modules.trace;
+
+import co.rsk.crypto.Keccak256;
+import co.rsk.util.HexUtils;
+import org.bouncycastle.util.BigIntegers;
+import org.bouncycastle.util.encoders.Hex;
+import org.ethereum.util.RLP;
+import org.ethereum.util.RLPElement;
+import org.ethereum.util.RLPList;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Encodes the traces of a transaction, as saved by the trace store
+ *
+ * The record has the hash, the number and the position in the block, then the traces. Most
+ * of the trace fields are hexadecimal strings, they are saved as the bytes they represent
+ * (with a leading tag byte), so a trace takes a fraction of the size of its JSON text
+ */
+public class TraceEncoder {
+    private static final Pattern LOWER_HEX_PATTERN = Pattern.compile("0x[0-9a-f]*");
+
+    private static final byte TEXT_TAG = 0;
+    private static final byte HEX_TAG = 1;
+    private static final byte ODD_HEX_TAG = 2;
+
+    private TraceEncoder() {
+
+    }
+
+    public static byte[] encode(byte[] blockHash, long blockNumber, int transactionPosition, List<TransactionTrace> traces) {
+        byte[][] rlpTraces = new byte[traces.size()][];
+
+        for (int k = 0; k < rlpTraces.length; k++) {
+            rlpTraces[k] = encodeTrace(traces.get(k));
+        }
+
+        return RLP.encodeList(
+                RLP.encodeElement(blockHash),
+                RLP.encodeBigInteger(BigInteger.valueOf(blockNumber)),
+                RLP.encodeInt(transactionPosition),
+                RLP.encodeList(rlpTraces)
+        );
+    }
+
+    public static byte[] decodeBlockHash(byte[] data) {
+        return RLP.decodeList(data).get(0).getRLPData();
+    }
+
+    public static List<TransactionTrace> decode(byte[] data, Keccak256 transactionHash) {
+        RLPList list = RLP.decodeList(data);
+
+        String blockHash = HexUtils.toUnformattedJsonHex(list.get(0).getRLPData());
+        long blockNumber = decodeLong(list.get(1).getRLPData());
+        int transactionPosition = decodeInt(list.get(2).getRLPData());
+        RLPList rlpTraces = (RLPList) list.get(3);
+
+        List<TransactionTrace> traces = new ArrayList<>(rlpTraces.size());
+
+        for (int k = 0; k < rlpTraces.size(); k++) {
+            traces.add(decodeTrace((RLPList) rlpTraces.get(k), blockHash, blockNumber, transactionHash.toJsonString(), transactionPosition));
+        }
+
+        return traces;
+    }
+
+    private static byte[] encodeTrace(TransactionTrace trace) {
+        TraceAction action = trace.getAction();
+        TraceResult result = trace.getResult();
+
+        byte[] rlpResult = result == null ? RLP.encodedEmptyList() : RLP.encodeList(
+                encodeString(result.getGasUsed()),
+                encodeString(result.getOutput()),
+                encodeString(result.getCode()),
+                encodeString(result.getAddress())
+        );
+
+        int[] address = trace.getTraceAddress().toAddress();
+        byte[][] rlpAddress = new byte[address.length][];
+
+        for (int k = 0; k < address.length; k++) {
+            rlpAddress[k] = RLP.encodeInt(address[k]);
+        }
+
+        return RLP.encodeList(
+                encodeString(trace.getType()),
+                encodeString(action.getCallType()),
+                encodeString(action.getFrom()),
+                encodeString(action.getTo()),
+                encodeString(action.getGas()),
+                encodeString(action.getInput()),
+                encodeString(action.getInit()),
+                encodeString(action.getCreationMethod()),
+                encodeString(action.getValue()),
+                encodeString(action.getAddress()),
+                encodeString(action.getRefundAddress()),
+                encodeString(action.getBalance()),
+                rlpResult,
+                encodeString(trace.getError()),
+                RLP.encodeInt(trace.getSubtraces()),
+                RLP.encodeList(rlpAddress)
+        );
+    }
+
+    private static TransactionTrace decodeTrace(RLPList list, String blockHash, long blockNumber, String transactionHash, int transactionPosition) {
+        String callType = decodeString(list.get(1));
+
+        TraceAction action = new TraceAction(
+                callType == null ? CallType.NONE : CallType.valueOf(callType.toUpperCase(Locale.ROOT)),
+                decodeString(list.get(2)),
+                decodeString(list.get(3)),
+                decodeString(list.get(4)),
+                decodeString(list.get(5)),
+                decodeString(list.get(6)),
+                decodeString(list.get(7)),
+                decodeString(list.get(8)),
+                decodeString(list.get(9)),
+                decodeString(list.get(10)),
+                decodeString(list.get(11))
+        );
+
+        RLPList rlpResult = (RLPList) list.get(12);
+        TraceResult result = rlpResult.size() == 0 ? null : new TraceResult(
+                decodeString(rlpResult.get(0)),
+                decodeString(rlpResult.get(1)),
+                decodeString(rlpResult.get(2)),
+                decodeString(rlpResult.get(3))
+        );
+
+        RLPList rlpAddress = (RLPList) list.get(15);
+        TraceAddress traceAddress = new TraceAddress();
+
+        for (int k = 0; k < rlpAddress.size(); k++) {
+            traceAddress = new TraceAddress(traceAddress, decodeInt(rlpAddress.get(k).getRLPData()));
+        }
+
+        return new TransactionTrace(
+                action,
+                blockHash,
+                blockNumber,
+                transactionHash,
+                transactionPosition,
+                decodeString(list.get(0)),
+                decodeInt(list.get(14).getRLPData()),
+                traceAddress,
+                result,
+                decodeString(list.get(13))
+        );
+    }
+
+    /**
+     * A null string is an empty element, the others start with a tag byte, so the empty string is not empty
+     */
+    private static byte[] encodeString(String value) {
+        if (value == null) {
+            return RLP.encodeElement(null);
+        }
+
+        byte[] data;
+        byte tag;
+
+        if (LOWER_HEX_PATTERN.matcher(value).matches()) {
+            String digits = value.substring(2);
+            tag = digits.length() % 2 == 0 ? HEX_TAG : ODD_HEX_TAG;
+            data = Hex.decode(tag == HEX_TAG ? digits : "0" + digits);
+        } else {
+            tag = TEXT_TAG;
+            data = value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        byte[] tagged = new byte[data.length + 1];
+        tagged[0] = tag;
+        System.arraycopy(data, 0, tagged, 1, data.length);
+
+        return RLP.encodeElement(tagged);
+    }
+
+    private static String decodeString(RLPElement element) {
+        byte[] tagged = element.getRLPData();
+
+        if (tagged == null) {
+            return null;
+        }
+
+        byte[] data = new byte[tagged.length - 1];
+        System.arraycopy(tagged, 1, data, 0, data.length);
+
+        switch (tagged[0]) {
+            case HEX_TAG:
+                return "0x" + Hex.toHexString(data);
+            case ODD_HEX_TAG:
+                return "0x" + Hex.toHexString(data).substring(1);
+            default:
+                return new String(data, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static long decodeLong(byte[] data) {
+        return data == null ? 0 : BigIntegers.fromUnsignedByteArray(data).longValueExact();
+    }
+
+    private static int decodeInt(byte[] data) {
+        return data == null ? 0 : BigIntegers.fromUnsignedByteArray(data).intValueExact();
+    }
+}
@@ -20,6 +20,8 @@ package co.rsk.rpc.modules.trace;
 import co.rsk.config.VmConfig;
 import co.rsk.core.RskAddress;
 import co.rsk.core.bc.BlockExecutor;
+import co.rsk.crypto.Keccak256;
+import co.rsk.rpc.BlockRangeScanner;
 import co.rsk.rpc.ExecutionBlockRetriever;
 import co.rsk.util.HexUtils;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -39,6 +41,7 @@ import org.ethereum.vm.trace.SummarizedProgramTrace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -56,6 +59,9 @@ public class TraceModuleImpl implements TraceModule {
 
     private static final ObjectMapper OBJECT_MAPPER = Serializers.createMapper(true);
 
+    // a block has to be executed again to trace it, so chunks are small to stop soon after count traces
+    private static final int BLOCKS_PER_CHUNK = 8;
+
     private final Blockchain blockchain;
     private final BlockStore blockStore;
     private final ReceiptStore receiptStore;
@@ -65,6 +71,12 @@ public class TraceModuleImpl implements TraceModule {
 
     private final SignatureCache signatureCache;
 
+    @Nullable
+    private final BlockRangeScanner blockRangeScanner;
+
+    @Nullable
+    private final TraceStore traceStore;
+
     public TraceModuleImpl(
             Blockchain blockchain,
             BlockStore blockStore,
@@ -72,12 +84,37 @@ public class TraceModuleImpl implements TraceModule {
             BlockExecutor blockExecutor,
             ExecutionBlockRetriever executionBlockRetriever,
             SignatureCache signatureCache) {
+        this(blockchain, blockStore, receiptStore, blockExecutor, executionBlockRetriever, signatureCache, null);
+    }
+
+    public TraceModuleImpl(
+            Blockchain blockchain,
+            BlockStore blockStore,
+            ReceiptStore receiptStore,
+            BlockExecutor blockExecutor,
+            ExecutionBlockRetriever executionBlockRetriever,
+            SignatureCache signatureCache,
+            @Nullable BlockRangeScanner blockRangeScanner) {
+        this(blockchain, blockStore, receiptStore, blockExecutor, executionBlockRetriever, signatureCache, blockRangeScanner, null);
+    }
+
+    public TraceModuleImpl(
+            Blockchain blockchain,
+            BlockStore blockStore,
+            ReceiptStore receiptStore,
+            BlockExecutor blockExecutor,
+            ExecutionBlockRetriever executionBlockRetriever,
+            SignatureCache signatureCache,
+            @Nullable BlockRangeScanner blockRangeScanner,
+            @Nullable TraceStore traceStore) {
         this.blockchain = blockchain;
         this.blockStore = blockStore;
         this.receiptStore = receiptStore;
         this.blockExecutor = blockExecutor;
         this.executionBlockRetriever = executionBlockRetriever;
         this.signatureCache = signatureCache;
+        this.blockRangeScanner = blockRangeScanner;
+        this.traceStore = traceStore;
     }
 
     @Override
@@ -92,6 +129,14 @@ public class TraceModuleImpl implements TraceModule {
             return null;
         }
 
+        if (this.traceStore != null) {
+            List<TransactionTrace> storedTraces = this.traceStore.getTransactionTraces(new Keccak256(hash), txInfo.getBlockHash());
+
+            if (storedTraces != null) {
+                return OBJECT_MAPPER.valueToTree(storedTraces);
+            }
+        }
+
         Block block = this.blockchain.getBlockByHash(txInfo.getBlockHash());
         Block parent = this.blockchain.getBlockByHash(block.getParentHash().getBytes());
         Transaction tx = block.getTransactionsList().get(txInfo.getIndex());
@@ -129,24 +174,21 @@ public class TraceModuleImpl implements TraceModule {
 
     @Override
     public JsonNode traceFilter(TraceFilterRequest traceFilterRequest) {
-        List<List<TransactionTrace>> blockTracesGroup = new ArrayList<>();
-
         Block fromBlock = getBlockByTagOrNumber(traceFilterRequest.getFromBlock(), traceFilterRequest.getFromBlockNumber());
-        Block block = getBlockByTagOrNumber(traceFilterRequest.getToBlock(), traceFilterRequest.getToBlockNumber());
+        Block toBlock = getBlockByTagOrNumber(traceFilterRequest.getToBlock(), traceFilterRequest.getToBlockNumber());
 
-        block = block == null ? blockchain.getBestBlock() : block;
+        toBlock = toBlock == null ? blockchain.getBestBlock() : toBlock;
 
-        while (fromBlock != null && block != null && block.getNumber() >= fromBlock.getNumber()) {
-            List<TransactionTrace> builtTraces = buildBlockTraces(block, traceFilterRequest);
+        List<TransactionTrace> rangeTraces;
 
-            blockTracesGroup.add(builtTraces);
-
-            block = this.blockchain.getBlockByHash(block.getParentHash().getBytes());
+        if (blockRangeScanner != null && blockRangeScanner.isParallel() && fromBlock != null && toBlock != null
+                && toBlock.getNumber() - fromBlock.getNumber() >= BLOCKS_PER_CHUNK) {
+            rangeTraces = buildRangeTracesInParallel(fromBlock, toBlock, traceFilterRequest);
+        } else {
+            rangeTraces = buildRangeTraces(fromBlock, toBlock, traceFilterRequest);
         }
 
-        Collections.reverse(blockTracesGroup);
-
-        Stream<TransactionTrace> txTraceStream = blockTracesGroup.stream().flatMap(Collection::stream);
+        Stream<TransactionTrace> txTraceStream = rangeTraces.stream();
 
         if (traceFilterRequest.getAfter() != null) {
             txTraceStream = txTraceStream.skip(traceFilterRequest.getAfter());
@@ -161,6 +203,57 @@ public class TraceModuleImpl implements TraceModule {
         return OBJECT_MAPPER.valueToTree(traces);
     }
 
+    private List<TransactionTrace> buildRangeTraces(Block fromBlock, Block toBlock, TraceFilterRequest traceFilterRequest) {
+        List<List<TransactionTrace>> blockTracesGroup = new ArrayList<>();
+
+        Block block = toBlock;
+
+        while (fromBlock != null && block != null && block.getNumber() >= fromBlock.getNumber()) {
+            List<TransactionTrace> builtTraces = buildBlockTraces(block, traceFilterRequest);
+
+            blockTracesGroup.add(builtTraces);
+
+            block = this.blockchain.getBlockByHash(block.getParentHash().getBytes());
+        }
+
+        Collections.reverse(blockTracesGroup);
+
+        return blockTracesGroup.stream().flatMap(Collection::stream).collect(Collectors.toList());
+    }
+
+    /**
+     * Traces the range in chunks on the threads of the scanner, in order from the first block. The scan stops
+     * as soon as there are enough traces to skip the first after traces and return count of them
+     */
+    private List<TransactionTrace> buildRangeTracesInParallel(Block fromBlock, Block toBlock, TraceFilterRequest traceFilterRequest) {
+        List<TransactionTrace> rangeTraces = new ArrayList<>();
+
+        long neededTraces = Long.MAX_VALUE;
+        if (traceFilterRequest.getCount() != null) {
+            neededTraces = (traceFilterRequest.getAfter() != null ? traceFilterRequest.getAfter() : 0L) + traceFilterRequest.getCount();
+        }
+        final long maxTraces = neededTraces;
+
+        blockRangeScanner.scan(fromBlock.getNumber(), toBlock.getNumber(), BLOCKS_PER_CHUNK,
+                (from, to) -> {
+                    List<TransactionTrace> chunkTraces = new ArrayList<>();
+
+                    for (long blockNumber = from; blockNumber <= to && !Thread.currentThread().isInterrupted(); blockNumber++) {
+                        // the last block could be the pending one, the others are in the blockchain
+                        Block block = blockNumber == toBlock.getNumber() ? toBlock : this.blockchain.getBlockByNumber(blockNumber);
+                        chunkTraces.addAll(buildBlockTraces(block, traceFilterRequest));
+                    }
+
+                    return chunkTraces;
+                },
+                chunkTraces -> {
+                    rangeTraces.addAll(chunkTraces);
+                    return rangeTraces.size() < maxTraces;
+                });
+
+        return rangeTraces;
+    }
+
     @Override
     public JsonNode traceGet(String transactionHash, List<String> positions) {
         TraceGetRequest request = new TraceGetRequest(transactionHash, positions);
@@ -223,10 +316,6 @@ public class TraceModuleImpl implements TraceModule {
         if (block != null && block.getNumber() != 0) {
             List<Transaction> txList = block.getTransactionsList();
 
-            ProgramTraceProcessor programTraceProcessor = new ProgramTraceProcessor();
-            Block parent = this.blockchain.getBlockByHash(block.getParentHash().getBytes());
-            this.blockExecutor.traceBlock(programTraceProcessor, VmConfig.LIGHT_TRACE, block, parent.getHeader(), false, false);
-
             if (traceFilterRequest != null) {
                 Stream<Transaction> txStream = block.getTransactionsList().stream();
 
@@ -243,6 +332,20 @@ public class TraceModuleImpl implements TraceModule {
                 txList = txStream.collect(Collectors.toList());
             }
 
+            if (txList.isEmpty()) {
+                return blockTraces;
+            }
+
+            List<TransactionTrace> storedTraces = getStoredTraces(block, txList);
+
+            if (storedTraces != null) {
+                return storedTraces;
+            }
+
+            ProgramTraceProcessor programTraceProcessor = new ProgramTraceProcessor();
+            Block parent = this.blockchain.getBlockByHash(block.getParentHash().getBytes());
+            this.blockExecutor.traceBlock(programTraceProcessor, VmConfig.LIGHT_TRACE, block, parent.getHeader(), false, false);
+
             for (Transaction tx : txList) {
                 TransactionInfo txInfo = receiptStore.getInMainChain(tx.getHash().getBytes(), this.blockStore).orElse(null);
                 if (txInfo == null) { // for a pending block we have no receipt, so empty one is being provided
@@ -266,6 +369,31 @@ public class TraceModuleImpl implements TraceModule {
         return blockTraces;
     }
 
+    /**
+     * Retrieves the saved traces of the transactions of a block, null if any of them is not in the trace store
+     */
+    @Nullable
+    private List<TransactionTrace> getStoredTraces(Block block, List<Transaction> txList) {
+        if (this.traceStore == null) {
+            return null;
+        }
+
+        List<TransactionTrace> traces = new ArrayList<>();
+        byte[] blockHash = block.getHash().getBytes();
+
+        for (Transaction tx : txList) {
+            List<TransactionTrace> txTraces = this.traceStore.getTransactionTraces(tx.getHash(), blockHash);
+
+            if (txTraces == null) {
+                return null;
+            }
+
+            traces.addAll(txTraces);
+        }
+
+        return traces;
+    }
+
     private Block getBlockByTagOrNumber(String strBlock, BigInteger biBlock) {
         if (strBlock.equalsIgnoreCase(LATEST_BLOCK)) {
             return this.blockchain.getBestBlock();
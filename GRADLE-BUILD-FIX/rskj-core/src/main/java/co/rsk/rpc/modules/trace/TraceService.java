@@ -0,0 +1,154 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.rpc.modules.trace;
+
+import co.rsk.config.InternalService;
+import co.rsk.config.VmConfig;
+import co.rsk.core.bc.BlockExecutor;
+import co.rsk.crypto.Keccak256;
+import org.ethereum.core.Block;
+import org.ethereum.core.Transaction;
+import org.ethereum.core.TransactionReceipt;
+import org.ethereum.db.BlockStore;
+import org.ethereum.db.TransactionInfo;
+import org.ethereum.listener.CompositeEthereumListener;
+import org.ethereum.listener.EthereumListenerAdapter;
+import org.ethereum.vm.trace.ProgramTraceProcessor;
+import org.ethereum.vm.trace.SummarizedProgramTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An internal service that traces each new best block and saves its traces in the trace store
+ *
+ * The blocks are traced on a thread of their own, so the import of blocks doesn't wait for it.
+ * If the tracing falls behind, as during a long synchronization, the blocks that don't fit in
+ * the queue are not traced, and the trace methods execute them again when asked for them
+ */
+public class TraceService implements InternalService {
+    private static final Logger logger = LoggerFactory.getLogger("traces");
+
+    private static final int MAX_QUEUED_BLOCKS = 1000;
+
+    private final CompositeEthereumListener emitter;
+    private final TraceStore traceStore;
+    private final BlockExecutor blockExecutor;
+    private final BlockStore blockStore;
+
+    private final TraceService.OnBestBlockListener listener = new TraceService.OnBestBlockListener();
+
+    private ThreadPoolExecutor executor;
+
+    public TraceService(CompositeEthereumListener emitter, TraceStore traceStore, BlockExecutor blockExecutor, BlockStore blockStore) {
+        this.emitter = emitter;
+        this.traceStore = traceStore;
+        this.blockExecutor = blockExecutor;
+        this.blockStore = blockStore;
+    }
+
+    @Override
+    public void start() {
+        logger.info("trace service started");
+
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_BLOCKS),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "TraceService");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> logger.debug("trace queue is full, a block was not traced"));
+
+        emitter.addSynchronousListener(listener);
+    }
+
+    @Override
+    public void stop() {
+        logger.info("trace service stopped");
+
+        emitter.removeListener(listener);
+
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Traces the transactions of a block and saves their traces. Nothing is saved
+     * if a transaction can't be traced
+     *
+     * @param block    the block to trace
+     * @param receipts the receipts of the transactions of the block
+     */
+    public void processBlock(Block block, List<TransactionReceipt> receipts) {
+        List<Transaction> transactions = block.getTransactionsList();
+
+        if (block.getNumber() == 0 || receipts.size() != transactions.size()) {
+            return;
+        }
+
+        Block parent = this.blockStore.getBlockByHash(block.getParentHash().getBytes());
+
+        if (parent == null) {
+            return;
+        }
+
+        ProgramTraceProcessor programTraceProcessor = new ProgramTraceProcessor();
+        this.blockExecutor.traceBlock(programTraceProcessor, VmConfig.LIGHT_TRACE, block, parent.getHeader(), false, false);
+
+        Map<Keccak256, List<TransactionTrace>> transactionTraces = new LinkedHashMap<>();
+
+        for (int k = 0; k < transactions.size(); k++) {
+            Transaction tx = transactions.get(k);
+            SummarizedProgramTrace programTrace = (SummarizedProgramTrace) programTraceProcessor.getProgramTrace(tx.getHash());
+
+            if (programTrace == null) {
+                logger.debug("transaction {} of block {} was not traced", tx.getHash(), block.getNumber());
+                return;
+            }
+
+            TransactionInfo txInfo = new TransactionInfo(receipts.get(k), block.getHash().getBytes(), k);
+            txInfo.setTransaction(tx);
+
+            transactionTraces.put(tx.getHash(), TraceTransformer.toTraces(programTrace, txInfo, block.getNumber()));
+        }
+
+        this.traceStore.saveBlockTraces(block.getNumber(), block.getHash(), transactionTraces);
+    }
+
+    private class OnBestBlockListener extends EthereumListenerAdapter {
+        @Override
+        public void onBestBlock(Block block, List<TransactionReceipt> receipts) {
+            executor.execute(() -> {
+                try {
+                    processBlock(block, receipts);
+                } catch (RuntimeException e) {
+                    logger.warn("block {} could not be traced", block.getNumber(), e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.rpc.modules.trace;
+
+import co.rsk.crypto.Keccak256;
+import org.ethereum.datasource.KeyValueDataSource;
+import org.ethereum.db.ByteArrayWrapper;
+import org.ethereum.util.RLP;
+import org.ethereum.util.RLPList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Trace store
+ *
+ * It keeps the traces of the transactions of the traced blocks, keyed by transaction hash,
+ * so the trace methods don't have to execute the blocks again. Each record has the hash
+ * of its block, a trace is only returned for the block it was produced in
+ *
+ * There is also a record for each block number, with the hash of the traced block and its
+ * transactions. It is used to remove the traces of a block replaced by a reorganization,
+ * and to remove the traces of the blocks that are more than a number of blocks deep
+ */
+public class TraceStore {
+    private static final Logger logger = LoggerFactory.getLogger("traces");
+
+    private static final byte TRANSACTION_PREFIX = 't';
+    private static final byte BLOCK_PREFIX = 'b';
+    private static final byte[] FIRST_KEPT_KEY = "firstKept".getBytes(StandardCharsets.UTF_8);
+
+    private final int noBlocks;
+
+    private final KeyValueDataSource dataSource;
+
+    private long firstKept;
+
+    /**
+     * @param noBlocks   number of blocks whose traces are kept, 0 keeps the traces of all the blocks
+     * @param dataSource the data source of the records
+     */
+    public TraceStore(int noBlocks, @Nonnull KeyValueDataSource dataSource) {
+        this.noBlocks = noBlocks;
+        this.dataSource = Objects.requireNonNull(dataSource);
+
+        byte[] data = dataSource.get(FIRST_KEPT_KEY);
+        this.firstKept = data == null ? -1 : ByteBuffer.wrap(data).getLong();
+    }
+
+    /**
+     * Retrieves the traces of a transaction
+     *
+     * @param transactionHash the hash of the transaction
+     * @param blockHash       the hash of the block that contains the transaction
+     * @return the traces, or null if they were not saved for that block
+     */
+    @Nullable
+    public List<TransactionTrace> getTransactionTraces(Keccak256 transactionHash, byte[] blockHash) {
+        byte[] data = this.dataSource.get(transactionKey(transactionHash.getBytes()));
+
+        if (data == null || !Arrays.equals(TraceEncoder.decodeBlockHash(data), blockHash)) {
+            return null;
+        }
+
+        return TraceEncoder.decode(data, transactionHash);
+    }
+
+    /**
+     * Saves the traces of all the transactions of a block, replacing the traces of
+     * another block with the same number, and removes the traces of the blocks
+     * that are too deep
+     *
+     * @param blockNumber       the number of the block
+     * @param blockHash         the hash of the block
+     * @param transactionTraces the traces of each transaction, in the order of the block
+     */
+    public synchronized void saveBlockTraces(long blockNumber, Keccak256 blockHash, Map<Keccak256, List<TransactionTrace>> transactionTraces) {
+        Map<ByteArrayWrapper, byte[]> rows = new HashMap<>();
+        Set<ByteArrayWrapper> removed = new HashSet<>();
+
+        collectTransactionKeys(blockNumber, removed);
+
+        byte[][] rlpHashes = new byte[transactionTraces.size()][];
+        int position = 0;
+
+        for (Map.Entry<Keccak256, List<TransactionTrace>> entry : transactionTraces.entrySet()) {
+            byte[] hash = entry.getKey().getBytes();
+
+            rows.put(new ByteArrayWrapper(transactionKey(hash)), TraceEncoder.encode(blockHash.getBytes(), blockNumber, position, entry.getValue()));
+            rlpHashes[position] = RLP.encodeElement(hash);
+            position++;
+        }
+
+        rows.put(new ByteArrayWrapper(blockKey(blockNumber)), RLP.encodeList(RLP.encodeElement(blockHash.getBytes()), RLP.encodeList(rlpHashes)));
+
+        long first = this.firstKept < 0 ? blockNumber : this.firstKept;
+        long newFirst = this.noBlocks > 0 ? Math.max(first, blockNumber - this.noBlocks + 1) : first;
+
+        for (long number = first; number < newFirst; number++) {
+            collectTransactionKeys(number, removed);
+            removed.add(new ByteArrayWrapper(blockKey(number)));
+        }
+
+        rows.put(new ByteArrayWrapper(FIRST_KEPT_KEY), ByteBuffer.allocate(Long.BYTES).putLong(newFirst).array());
+
+        // a transaction of a replaced block can be in the new block too
+        removed.removeAll(rows.keySet());
+
+        this.dataSource.updateBatch(rows, removed);
+        this.firstKept = newFirst;
+
+        logger.trace("saved traces: block {} with {} transactions", blockNumber, transactionTraces.size());
+    }
+
+    /**
+     * Collects the keys of the transaction records of the block saved with a number,
+     * those that are still saved for that block
+     */
+    private void collectTransactionKeys(long blockNumber, Set<ByteArrayWrapper> keys) {
+        byte[] data = this.dataSource.get(blockKey(blockNumber));
+
+        if (data == null) {
+            return;
+        }
+
+        RLPList list = RLP.decodeList(data);
+        byte[] blockHash = list.get(0).getRLPData();
+        RLPList hashes = (RLPList) list.get(1);
+
+        for (int k = 0; k < hashes.size(); k++) {
+            byte[] key = transactionKey(hashes.get(k).getRLPData());
+            byte[] transactionData = this.dataSource.get(key);
+
+            if (transactionData != null && Arrays.equals(TraceEncoder.decodeBlockHash(transactionData), blockHash)) {
+                keys.add(new ByteArrayWrapper(key));
+            }
+        }
+    }
+
+    public int getNoBlocks() {
+        return this.noBlocks;
+    }
+
+    public void flush() {
+        this.dataSource.flush();
+    }
+
+    public void close() {
+        this.dataSource.close();
+    }
+
+    private static byte[] transactionKey(byte[] transactionHash) {
+        return ByteBuffer.allocate(1 + transactionHash.length).put(TRANSACTION_PREFIX).put(transactionHash).array();
+    }
+
+    private static byte[] blockKey(long blockNumber) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(BLOCK_PREFIX).putLong(blockNumber).array();
+    }
+}
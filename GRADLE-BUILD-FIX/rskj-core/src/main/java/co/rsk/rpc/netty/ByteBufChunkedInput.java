@@ -0,0 +1,81 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.rpc.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+
+/**
+ * Hands out a buffer in slices of a given size, without copying it, so a {@link io.netty.handler.stream.ChunkedWriteHandler}
+ * writes it only as fast as the channel takes it
+ */
+class ByteBufChunkedInput implements ChunkedInput<ByteBuf> {
+
+    private final ByteBuf content;
+    private final int chunkSize;
+    private final long length;
+
+    private boolean closed;
+
+    ByteBufChunkedInput(ByteBuf content, int chunkSize) {
+        this.content = content;
+        this.chunkSize = chunkSize;
+        this.length = content.readableBytes();
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return !content.isReadable();
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            content.release();
+        }
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) {
+        if (isEndOfInput()) {
+            return null;
+        }
+
+        return content.readRetainedSlice(Math.min(chunkSize, content.readableBytes()));
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public long progress() {
+        return content.readerIndex();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.rpc.netty;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Serializes a JSON tree a chunk at a time, only when the next chunk is asked for, so a
+ * {@link io.netty.handler.stream.ChunkedWriteHandler} writing it never has more than a chunk of
+ * the serialized response in memory and serializes it only as fast as the channel takes it
+ */
+class JsonNodeChunkedInput implements ChunkedInput<ByteBuf> {
+
+    private final JsonParser parser;
+    private final JsonGenerator generator;
+    private final int chunkSize;
+
+    private ByteBuf chunk;
+    private long progress;
+    private boolean closed;
+
+    JsonNodeChunkedInput(ObjectMapper mapper, JsonNode response, int chunkSize) throws IOException {
+        this.parser = response.traverse(mapper);
+        this.generator = mapper.getFactory().createGenerator(new ChunkOutputStream());
+        this.chunkSize = chunkSize;
+        this.parser.nextToken();
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return parser.currentToken() == null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            parser.close();
+            generator.close();
+        }
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws IOException {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) throws IOException {
+        if (isEndOfInput()) {
+            return null;
+        }
+
+        ByteBuf result = allocator.buffer(chunkSize);
+        chunk = result;
+
+        try {
+            while (!isEndOfInput() && result.readableBytes() + generator.getOutputBuffered() < chunkSize) {
+                generator.copyCurrentEvent(parser);
+                parser.nextToken();
+            }
+
+            generator.flush();
+        } catch (IOException | RuntimeException e) {
+            result.release();
+            throw e;
+        } finally {
+            chunk = null;
+        }
+
+        progress += result.readableBytes();
+        return result;
+    }
+
+    @Override
+    public long length() {
+        // unknown until the whole tree is serialized
+        return -1;
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+
+    /**
+     * Writes into the chunk being read, what the generator writes out of a read (e.g. when it's
+     * closed before the end of the input) is discarded
+     */
+    private class ChunkOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+            if (chunk != null) {
+                chunk.writeByte(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (chunk != null) {
+                chunk.writeBytes(b, off, len);
+            }
+        }
+    }
+}
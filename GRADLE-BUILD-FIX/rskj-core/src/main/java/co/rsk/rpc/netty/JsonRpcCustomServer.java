@@ -24,9 +24,14 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.googlecode.jsonrpc4j.ErrorResolver;
 import com.googlecode.jsonrpc4j.JsonResponse;
 import com.googlecode.jsonrpc4j.JsonRpcBasicServer;
+import com.googlecode.jsonrpc4j.JsonRpcInterceptor;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -38,6 +43,7 @@ public class JsonRpcCustomServer extends JsonRpcBasicServer {
     private final List<ModuleDescription> modules;
     private final Set<String> methodNames;
     private final ObjectMapper objectMapper;
+    private List<JsonRpcInterceptor> interceptors = new ArrayList<>();
 
     public JsonRpcCustomServer(final Object handler, final Class<?> remoteInterface, List<ModuleDescription> modules, ObjectMapper objetMapper) {
         super(objetMapper, handler, remoteInterface);
@@ -46,6 +52,48 @@ public class JsonRpcCustomServer extends JsonRpcBasicServer {
         this.objectMapper = objetMapper;
     }
 
+    @Override
+    public void setInterceptorList(List<JsonRpcInterceptor> interceptorList) {
+        super.setInterceptorList(interceptorList);
+        this.interceptors = interceptorList;
+    }
+
+    /**
+     * Handles a request as {@link #handleRequest(InputStream, java.io.OutputStream)} does, but returns the
+     * response tree instead of writing it, so that the caller can serialize it as it's sent
+     */
+    public JsonResponse handleJsonRequest(InputStream input) throws IOException {
+        JsonNode request;
+        try {
+            request = objectMapper.readTree(input);
+        } catch (JsonParseException e) {
+            return buildParseError();
+        }
+
+        if (request == null || request.isMissingNode()) {
+            return buildParseError();
+        }
+
+        for (JsonRpcInterceptor interceptor : interceptors) {
+            interceptor.preHandleJson(request);
+        }
+
+        JsonResponse response;
+        try {
+            response = handleJsonNodeRequest(request);
+        } catch (JsonParseException | JsonMappingException e) {
+            return buildParseError();
+        }
+
+        if (response.getResponse() != null) {
+            for (JsonRpcInterceptor interceptor : interceptors) {
+                interceptor.postHandleJson(response.getResponse());
+            }
+        }
+
+        return response;
+    }
+
     @Override
     protected JsonResponse handleJsonNodeRequest(final JsonNode node) throws JsonParseException, JsonMappingException {
         if (!node.isObject()) {
@@ -106,6 +154,10 @@ public class JsonRpcCustomServer extends JsonRpcBasicServer {
                 .collect(Collectors.toSet());
     }
 
+    private JsonResponse buildParseError() {
+        return buildError(NullNode.getInstance(), ErrorResolver.JsonError.PARSE_ERROR.code, ErrorResolver.JsonError.PARSE_ERROR.message);
+    }
+
     private JsonResponse buildError(Object id, int errorCode, String errorMessage) {
         ObjectNode response = objectMapper.createObjectNode();
         response.put(JSONRPC, VERSION);
@@ -22,7 +22,6 @@ import co.rsk.jsonrpc.JsonRpcError;
 import co.rsk.rpc.JsonRpcMethodFilter;
 import co.rsk.rpc.JsonRpcRequestValidatorInterceptor;
 import co.rsk.rpc.exception.JsonRpcRequestPayloadException;
-import co.rsk.rpc.exception.JsonRpcResponseLimitError;
 import co.rsk.rpc.exception.JsonRpcThrowableError;
 import co.rsk.util.JacksonParserUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -51,7 +50,7 @@ public class JsonRpcWeb3ServerHandler extends SimpleChannelInboundHandler<ByteBu
 
     private final ObjectMapper mapper = new ObjectMapper();
     private final JsonNodeFactory jsonNodeFactory = JsonNodeFactory.instance;
-    private final JsonRpcBasicServer jsonRpcServer;
+    private final JsonRpcCustomServer jsonRpcServer;
     private final long defaultTimeout;
     private final int maxResponseSize;
 
@@ -68,51 +67,43 @@ public class JsonRpcWeb3ServerHandler extends SimpleChannelInboundHandler<ByteBu
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, ByteBufHolder request) throws Exception {
-        ByteBuf responseContent = Unpooled.buffer();
-        int responseCode;
-        try (ByteBufOutputStream os = new ByteBufOutputStream(responseContent);
-             ByteBufInputStream is = new ByteBufInputStream(request.content().retain());
+        Web3Result result;
+        try (ByteBufInputStream is = new ByteBufInputStream(request.content().retain());
              ResponseSizeLimitContext rslCtx = ResponseSizeLimitContext.createResponseSizeContext(maxResponseSize)) {
+            JsonResponse response;
             if (defaultTimeout <= 0) {
-                responseCode = jsonRpcServer.handleRequest(is, os);
+                response = jsonRpcServer.handleJsonRequest(is);
             } else {
                 try (ExecTimeoutContext ignored = ExecTimeoutContext.create(defaultTimeout)) {
-                    responseCode = jsonRpcServer.handleRequest(is, os);
+                    response = jsonRpcServer.handleJsonRequest(is);
                     ExecTimeoutContext.checkIfExpired();
                 }
             }
-            if (maxResponseSize > 0 && maxResponseSize < responseContent.readableBytes()) {
-                throw new JsonRpcResponseLimitError(maxResponseSize);
-            }
+            // the response is serialized as it's written, the size limit was already checked on the tree
+            result = new Web3Result(response.getResponse(), mapper, response.getCode());
         } catch (JsonRpcRequestPayloadException e) {
             String invalidReqMsg = "Invalid request";
             LOGGER.error(invalidReqMsg, e);
-            responseContent = buildErrorContent(ErrorResolver.JsonError.INVALID_REQUEST.code, e.getMessage());
-            responseCode = ErrorResolver.JsonError.INVALID_REQUEST.code;
+            int errorCode = ErrorResolver.JsonError.INVALID_REQUEST.code;
+            result = new Web3Result(buildErrorContent(errorCode, e.getMessage()), errorCode);
         } catch (StackOverflowError e) {
             String stackOverflowErrorMsg = "Invalid request";
             LOGGER.error(stackOverflowErrorMsg, e);
             int errorCode = ErrorResolver.JsonError.INVALID_REQUEST.code;
-            responseContent = buildErrorContent(errorCode, stackOverflowErrorMsg);
-            responseCode = errorCode;
+            result = new Web3Result(buildErrorContent(errorCode, stackOverflowErrorMsg), errorCode);
         } catch (JsonRpcThrowableError e) {
             LOGGER.error(e.getMessage(), e);
             JsonRpcError error = e.getErrorResponse();
             int errorCode = error.getCode();
-            responseContent = buildErrorContent(errorCode, error.getMessage());
-            responseCode = errorCode;
+            result = new Web3Result(buildErrorContent(errorCode, error.getMessage()), errorCode);
         } catch (Exception e) {
             String unexpectedErrorMsg = "Unexpected error";
             LOGGER.error(unexpectedErrorMsg, e);
             int errorCode = ErrorResolver.JsonError.CUSTOM_SERVER_ERROR_LOWER;
-            responseContent = buildErrorContent(errorCode, unexpectedErrorMsg);
-            responseCode = errorCode;
+            result = new Web3Result(buildErrorContent(errorCode, unexpectedErrorMsg), errorCode);
         }
 
-        ctx.fireChannelRead(new Web3Result(
-                responseContent,
-                responseCode
-        ));
+        ctx.fireChannelRead(result);
     }
 
     @Override
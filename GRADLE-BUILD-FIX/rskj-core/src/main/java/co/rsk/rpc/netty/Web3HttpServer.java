@@ -15,6 +15,7 @@ import io.netty.handler.codec.http.cors.CorsConfig;
 import io.netty.handler.codec.http.cors.CorsHandler;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
+import io.netty.handler.stream.ChunkedWriteHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -72,6 +73,7 @@ public class Web3HttpServer implements InternalService {
                     p.addLast(new HttpResponseEncoder());
                     p.addLast(new HttpObjectAggregator(maxAggregatedFrameSize));
                     p.addLast(new HttpContentCompressor());
+                    p.addLast(new ChunkedWriteHandler());
                     if (corsConfiguration.hasHeader()) {
                         p.addLast(new CorsHandler(
                             CorsConfig
@@ -17,20 +17,80 @@
  */
 package co.rsk.rpc.netty;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.stream.ChunkedInput;
+
+import java.io.IOException;
 
 public class Web3Result {
 
     private final ByteBuf content;
+    private final JsonNode response;
+    private final ObjectMapper mapper;
     private final int code;
 
     public Web3Result(ByteBuf content, int code) {
         this.content = content;
+        this.response = null;
+        this.mapper = null;
+        this.code = code;
+    }
+
+    /**
+     * A result whose content is serialized from the response tree only when it's written
+     */
+    public Web3Result(JsonNode response, ObjectMapper mapper, int code) {
+        this.content = null;
+        this.response = response;
+        this.mapper = mapper;
         this.code = code;
     }
 
-    public ByteBuf getContent() {
-        return content;
+    /**
+     * Returns the whole content at once, the caller owns the returned buffer from then on
+     */
+    public ByteBuf getContent() throws Exception {
+        if (content != null) {
+            return content;
+        }
+
+        ChunkedInput<ByteBuf> input = getChunkedContent(Web3ResultHttpResponseHandler.RESPONSE_CHUNK_SIZE);
+        CompositeByteBuf result = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+
+        try {
+            while (!input.isEndOfInput()) {
+                result.addComponent(true, input.readChunk(ByteBufAllocator.DEFAULT));
+            }
+        } catch (Exception e) {
+            result.release();
+            throw e;
+        } finally {
+            input.close();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the content to be read in chunks of about the given size, the caller owns the returned
+     * input from then on and has to close it
+     */
+    public ChunkedInput<ByteBuf> getChunkedContent(int chunkSize) throws IOException {
+        if (content != null) {
+            return new ByteBufChunkedInput(content, chunkSize);
+        }
+
+        if (response == null) {
+            // notifications get no response
+            return new ByteBufChunkedInput(Unpooled.EMPTY_BUFFER, chunkSize);
+        }
+
+        return new JsonNodeChunkedInput(mapper, response, chunkSize);
     }
 
     public int getCode() {
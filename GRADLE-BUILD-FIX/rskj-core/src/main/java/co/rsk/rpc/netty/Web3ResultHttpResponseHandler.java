@@ -19,19 +19,30 @@ package co.rsk.rpc.netty;
 
 import com.googlecode.jsonrpc4j.HttpStatusCodeProvider;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.stream.ChunkedInput;
 
 import static io.netty.handler.codec.http.HttpHeaders.Names.*;
 import static io.netty.handler.codec.http.HttpHeaders.Values.APPLICATION_JSON;
+import static io.netty.handler.codec.http.HttpHeaders.Values.CHUNKED;
 import static io.netty.handler.codec.http.HttpHeaders.Values.CLOSE;
 
 public class Web3ResultHttpResponseHandler extends SimpleChannelInboundHandler<Web3Result> {
 
+    // larger responses are sent in chunks, serialized as fast as the client reads them
+    static final int CHUNKED_RESPONSE_THRESHOLD = 1024 * 1024;
+
+    static final int RESPONSE_CHUNK_SIZE = 64 * 1024;
+
     private final HttpStatusCodeProvider httpStatusCodeProvider;
 
     public Web3ResultHttpResponseHandler(HttpStatusCodeProvider httpStatusCodeProvider) {
@@ -39,12 +50,31 @@ public class Web3ResultHttpResponseHandler extends SimpleChannelInboundHandler<W
     }
 
     @Override
-    protected void channelRead0(ChannelHandlerContext ctx, Web3Result msg) {
-        ByteBuf content = msg.getContent();
+    protected void channelRead0(ChannelHandlerContext ctx, Web3Result msg) throws Exception {
+        HttpResponseStatus status = HttpResponseStatus.valueOf(httpStatusCodeProvider.getHttpStatusCode(msg.getCode()));
+        ChunkedInput<ByteBuf> input = msg.getChunkedContent(RESPONSE_CHUNK_SIZE);
+        CompositeByteBuf content = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+
+        try {
+            while (!input.isEndOfInput() && content.readableBytes() <= CHUNKED_RESPONSE_THRESHOLD) {
+                content.addComponent(true, input.readChunk(ctx.alloc()));
+            }
+        } catch (Exception e) {
+            content.release();
+            input.close();
+            throw e;
+        }
+
+        if (!input.isEndOfInput()) {
+            writeChunkedResponse(ctx, status, content, input);
+            return;
+        }
+
+        input.close();
 
         DefaultFullHttpResponse response = new DefaultFullHttpResponse(
                 HttpVersion.HTTP_1_1,
-                HttpResponseStatus.valueOf(httpStatusCodeProvider.getHttpStatusCode(msg.getCode())),
+                status,
                 content
         );
 
@@ -55,6 +85,22 @@ public class Web3ResultHttpResponseHandler extends SimpleChannelInboundHandler<W
         ctx.write(response).addListener(ChannelFutureListener.CLOSE);
     }
 
+    /**
+     * Sends what was already read and then the rest of the input, which the {@link io.netty.handler.stream.ChunkedWriteHandler}
+     * reads only while the channel is writable
+     */
+    private static void writeChunkedResponse(ChannelHandlerContext ctx, HttpResponseStatus status, ByteBuf head, ChunkedInput<ByteBuf> input) {
+        DefaultHttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
+
+        response.headers().add(CONTENT_TYPE, APPLICATION_JSON);
+        response.headers().add(TRANSFER_ENCODING, CHUNKED);
+        response.headers().add(CONNECTION, CLOSE);
+
+        ctx.write(response);
+        ctx.write(new DefaultHttpContent(head));
+        ctx.write(new HttpChunkedInput(input)).addListener(ChannelFutureListener.CLOSE);
+    }
+
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) {
         ctx.flush();
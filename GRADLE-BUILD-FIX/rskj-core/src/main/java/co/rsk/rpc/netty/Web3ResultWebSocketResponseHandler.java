@@ -24,7 +24,7 @@ import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 public class Web3ResultWebSocketResponseHandler extends SimpleChannelInboundHandler<Web3Result> {
 
     @Override
-    protected void channelRead0(ChannelHandlerContext ctx, Web3Result msg) {
+    protected void channelRead0(ChannelHandlerContext ctx, Web3Result msg) throws Exception {
         ctx.write(new TextWebSocketFrame(msg.getContent()));
     }
 
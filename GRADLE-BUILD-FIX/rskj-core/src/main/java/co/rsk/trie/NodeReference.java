@@ -176,6 +176,22 @@ public class NodeReference {
         return trie.getChildrenSize().value + externalValueLength + trie.getMessageLength();
     }
 
+    /**
+     * @return a reference to the same node that will retrieve it by hash when needed, a reference to a copy of an
+     * embedded node, which isn't kept in the store, or this same reference if it is empty or the hash isn't known
+     */
+    public NodeReference copyUnloaded() {
+        if (lazyNode != null && lazyNode.isEmbeddable()) {
+            return new NodeReference(store, lazyNode.copyWithUnloadedChildren(), lazyHash, nodeStopper);
+        }
+
+        if (lazyHash == null) {
+            return this;
+        }
+
+        return new NodeReference(store, null, lazyHash, nodeStopper);
+    }
+
     public static NodeReference empty() {
         return EMPTY;
     }
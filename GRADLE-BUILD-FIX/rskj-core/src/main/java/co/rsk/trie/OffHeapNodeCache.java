@@ -0,0 +1,435 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.trie;
+
+import co.rsk.crypto.Keccak256;
+
+import javax.annotation.Nullable;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cache of serialized trie nodes (and long values) keyed by their 32 bytes hash, stored outside the java heap.
+ *
+ * The memory is split in segments selected by hash. Each segment is a direct buffer used as a circular log of
+ * records {@code [value length][hash][value]}: new records are appended, and the oldest ones are evicted when
+ * the log wraps around. The records are found through an open addressing (linear probing) index made of two
+ * primitive arrays, so the cached entries don't create any object in the heap.
+ *
+ * Keys are content hashes, so the cached values never change and there's no need to invalidate them.
+ *
+ * Note that direct memory is limited by the {@code -XX:MaxDirectMemorySize} JVM option.
+ */
+public class OffHeapNodeCache {
+
+    private static final int HASH_SIZE = Keccak256.HASH_LEN;
+    private static final int HEADER_SIZE = Integer.BYTES + HASH_SIZE;
+
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+    private static final int MIN_SEGMENT_SIZE = 1 << 20;
+    private static final int MAX_SEGMENTS = 256;
+
+    private final long maxSizeInBytes;
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public OffHeapNodeCache(long maxSizeInBytes) {
+        if (maxSizeInBytes < HEADER_SIZE) {
+            throw new IllegalArgumentException("Off-heap cache size is too small: " + maxSizeInBytes);
+        }
+
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && maxSizeInBytes / (segmentCount * 2L) >= MIN_SEGMENT_SIZE) {
+            segmentCount *= 2;
+        }
+
+        if (maxSizeInBytes / segmentCount > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Off-heap cache size is too big: " + maxSizeInBytes);
+        }
+
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment((int) (maxSizeInBytes / segmentCount), evictions);
+        }
+    }
+
+    /**
+     * @return a copy of the value cached for the hash, or null if it isn't cached
+     */
+    @Nullable
+    public byte[] get(byte[] hash) {
+        if (hash.length != HASH_SIZE) {
+            return null;
+        }
+
+        byte[] value = segmentFor(hash).get(hash);
+
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+
+        return value;
+    }
+
+    /**
+     * Caches the value for the hash, evicting the oldest entries of its segment if needed.
+     * Values that don't fit in a segment are not cached.
+     */
+    public void put(byte[] hash, byte[] value) {
+        if (hash.length != HASH_SIZE) {
+            return;
+        }
+
+        segmentFor(hash).put(hash, value);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long getMaxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    /**
+     * @return the bytes taken by the cached entries, including their headers
+     */
+    public long getSizeInBytes() {
+        long size = 0;
+
+        for (Segment segment : segments) {
+            size += segment.getSizeInBytes();
+        }
+
+        return size;
+    }
+
+    public long getEntryCount() {
+        long count = 0;
+
+        for (Segment segment : segments) {
+            count += segment.getEntryCount();
+        }
+
+        return count;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment segmentFor(byte[] hash) {
+        // the first eight bytes of the hash are the index tag, the next ones select the segment
+        return segments[readInt(hash, Long.BYTES) & segmentMask];
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long result = 0;
+
+        for (int i = 0; i < Long.BYTES; i++) {
+            result = (result << 8) | (bytes[offset + i] & 0xFF);
+        }
+
+        return result;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8 | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static final class Segment {
+        // written where a record doesn't fit before the end of the buffer, so the rest is skipped
+        private static final int PADDING = -1;
+        private static final int MIN_INDEX_CAPACITY = 1024;
+        // estimated average record size, used to size the index initially
+        private static final int ESTIMATED_RECORD_SIZE = 256;
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final ByteBuffer data;
+        private final int capacity;
+        private final LongAdder evictions;
+
+        // positions are absolute, the offset in the buffer is the position modulo capacity
+        private long writePosition;
+        // start of the oldest record that wasn't evicted yet
+        private long evictPosition;
+
+        // index slots, a stored position is the absolute record position + 1, zero meaning an empty slot
+        private long[] tags;
+        private long[] positions;
+        private int entryCount;
+
+        Segment(int capacity, LongAdder evictions) {
+            this.data = ByteBuffer.allocateDirect(capacity);
+            this.capacity = capacity;
+            this.evictions = evictions;
+
+            int indexCapacity = Integer.highestOneBit(Math.max(MIN_INDEX_CAPACITY, capacity / ESTIMATED_RECORD_SIZE));
+            this.tags = new long[indexCapacity];
+            this.positions = new long[indexCapacity];
+        }
+
+        byte[] get(byte[] hash) {
+            lock.readLock().lock();
+
+            try {
+                int slot = findSlot(hash);
+
+                if (slot < 0) {
+                    return null;
+                }
+
+                int offset = offsetOf(positions[slot] - 1);
+                byte[] value = new byte[data.getInt(offset)];
+                ByteBuffer view = data.duplicate();
+                ((Buffer) view).position(offset + HEADER_SIZE);
+                view.get(value);
+
+                return value;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void put(byte[] hash, byte[] value) {
+            int recordSize = HEADER_SIZE + value.length;
+
+            if (recordSize > capacity) {
+                return;
+            }
+
+            lock.writeLock().lock();
+
+            try {
+                if (findSlot(hash) >= 0) {
+                    return;
+                }
+
+                int offset = offsetOf(writePosition);
+
+                if (offset + recordSize > capacity) {
+                    long paddingEnd = writePosition + capacity - offset;
+                    evictUntil(paddingEnd - capacity);
+
+                    if (capacity - offset >= Integer.BYTES) {
+                        data.putInt(offset, PADDING);
+                    }
+
+                    writePosition = paddingEnd;
+                    offset = 0;
+                }
+
+                evictUntil(writePosition + recordSize - capacity);
+
+                data.putInt(offset, value.length);
+                ByteBuffer view = data.duplicate();
+                ((Buffer) view).position(offset + Integer.BYTES);
+                view.put(hash);
+                view.put(value);
+
+                addToIndex(readLong(hash, 0), writePosition);
+                writePosition += recordSize;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void clear() {
+            lock.writeLock().lock();
+
+            try {
+                writePosition = 0;
+                evictPosition = 0;
+                entryCount = 0;
+                Arrays.fill(positions, 0);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        long getSizeInBytes() {
+            lock.readLock().lock();
+
+            try {
+                return writePosition - evictPosition;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int getEntryCount() {
+            lock.readLock().lock();
+
+            try {
+                return entryCount;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Evicts the records that start before the given position, which are about to be overwritten.
+         */
+        private void evictUntil(long position) {
+            while (evictPosition < position) {
+                int offset = offsetOf(evictPosition);
+
+                if (capacity - offset < Integer.BYTES || data.getInt(offset) == PADDING) {
+                    evictPosition += capacity - offset;
+                    continue;
+                }
+
+                int length = data.getInt(offset);
+                removeFromIndex(evictPosition, offset);
+                evictions.increment();
+                evictPosition += HEADER_SIZE + length;
+            }
+        }
+
+        private int findSlot(byte[] hash) {
+            long tag = readLong(hash, 0);
+            int mask = positions.length - 1;
+
+            for (int slot = homeSlot(tag, mask); positions[slot] != 0; slot = (slot + 1) & mask) {
+                if (tags[slot] == tag && hashMatches(offsetOf(positions[slot] - 1), hash)) {
+                    return slot;
+                }
+            }
+
+            return -1;
+        }
+
+        private boolean hashMatches(int offset, byte[] hash) {
+            int hashOffset = offset + Integer.BYTES;
+
+            for (int i = 0; i < HASH_SIZE; i++) {
+                if (data.get(hashOffset + i) != hash[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private void addToIndex(long tag, long position) {
+            if ((entryCount + 1) * 4L > positions.length * 3L) {
+                resizeIndex(positions.length * 2);
+            }
+
+            int mask = positions.length - 1;
+            int slot = homeSlot(tag, mask);
+
+            while (positions[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+
+            tags[slot] = tag;
+            positions[slot] = position + 1;
+            entryCount++;
+        }
+
+        private void removeFromIndex(long position, int offset) {
+            long tag = readTag(offset);
+            int mask = positions.length - 1;
+            int slot = homeSlot(tag, mask);
+
+            while (positions[slot] != position + 1) {
+                if (positions[slot] == 0) {
+                    return;
+                }
+
+                slot = (slot + 1) & mask;
+            }
+
+            // backward shift deletion, keeps the probe sequences without tombstones
+            int empty = slot;
+            positions[empty] = 0;
+            entryCount--;
+
+            for (int next = (empty + 1) & mask; positions[next] != 0; next = (next + 1) & mask) {
+                int home = homeSlot(tags[next], mask);
+                boolean reachable = empty <= next ? (empty < home && home <= next) : (empty < home || home <= next);
+
+                if (!reachable) {
+                    tags[empty] = tags[next];
+                    positions[empty] = positions[next];
+                    positions[next] = 0;
+                    empty = next;
+                }
+            }
+        }
+
+        private void resizeIndex(int newCapacity) {
+            long[] oldTags = tags;
+            long[] oldPositions = positions;
+
+            tags = new long[newCapacity];
+            positions = new long[newCapacity];
+            int mask = newCapacity - 1;
+
+            for (int i = 0; i < oldPositions.length; i++) {
+                if (oldPositions[i] != 0) {
+                    int slot = homeSlot(oldTags[i], mask);
+
+                    while (positions[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+
+                    tags[slot] = oldTags[i];
+                    positions[slot] = oldPositions[i];
+                }
+            }
+        }
+
+        private long readTag(int offset) {
+            return data.getLong(offset + Integer.BYTES);
+        }
+
+        private int offsetOf(long position) {
+            return (int) (position % capacity);
+        }
+
+        private static int homeSlot(long tag, int mask) {
+            return (int) (tag ^ (tag >>> 32)) & mask;
+        }
+    }
+}
@@ -173,6 +173,20 @@ public class Trie {
         return trie;
     }
 
+    /**
+     * Deserializes a node retrieved from the store by its hash. The nodes in the RSKIP 107 format are saved by the
+     * hash of the same message, so it is kept and not computed again from the content
+     */
+    static Trie fromStoredMessage(byte[] message, TrieStore store, byte[] hash) {
+        Trie trie = fromMessage(message, store);
+
+        if (message[0] != ARITY && hash.length == Keccak256.HASH_LEN) {
+            trie.hash = new Keccak256(hash);
+        }
+
+        return trie;
+    }
+
     private static Trie fromMessageOrchid(byte[] message, TrieStore store) {
         int current = 0;
         int arity = message[current];
@@ -1207,4 +1221,16 @@ public class Trie {
         this.saved = true;
         return this;
     }
+
+    /**
+     * Creates a node with the same content that doesn't share the references to the children retrieved by hash,
+     * so the nodes loaded through one of them are not kept reachable from the other.
+     */
+    Trie copyWithUnloadedChildren() {
+        Trie copy = new Trie(store, sharedPath, value, left.copyUnloaded(), right.copyUnloaded(), valueLength, valueHash, childrenSize, nodeStopper);
+        copy.hash = hash;
+        copy.saved = saved;
+
+        return copy;
+    }
 }
@@ -0,0 +1,254 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.trie;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Computes the key/value differences between two tries.
+ *
+ * Both tries are walked together and the subtrees referenced by the same hash are skipped, so the cost is
+ * proportional to the size of the changes and not to the size of the tries. Nodes that weren't loaded are
+ * retrieved without keeping them referenced from the tries, so walking big differences (e.g. from an empty
+ * trie to a full state) doesn't keep the whole state in memory.
+ */
+public class TrieDiff {
+
+    private TrieDiff() {
+    }
+
+    /**
+     * Reports every key whose value differs from {@code from} to {@code to}.
+     *
+     * @param consumer receives the key and its value in {@code to}, or null if the key was removed
+     */
+    public static void diff(Trie from, Trie to, BiConsumer<byte[], byte[]> consumer) {
+        if (Objects.equals(from.getHash(), to.getHash())) {
+            return;
+        }
+
+        new Walker(consumer).diff(Position.root(from), Position.root(to));
+    }
+
+    /**
+     * Reports every key with a value in the trie, the same as a diff from an empty trie.
+     */
+    public static void collect(Trie trie, BiConsumer<byte[], byte[]> consumer) {
+        new Walker(consumer).emitAll(Position.root(trie), true);
+    }
+
+    /**
+     * A position in a trie: a node and how many bits of its shared path were already consumed.
+     */
+    private static final class Position {
+        private final Trie node;
+        private final int consumed;
+
+        private Position(Trie node, int consumed) {
+            this.node = node;
+            this.consumed = consumed;
+        }
+
+        @Nullable
+        static Position root(Trie trie) {
+            return trie.isEmptyTrie() ? null : new Position(trie, 0);
+        }
+
+        int remaining() {
+            return node.getSharedPath().length() - consumed;
+        }
+
+        byte nextBit(int offset) {
+            return node.getSharedPath().get(consumed + offset);
+        }
+
+        Position advance(int bits) {
+            return bits == 0 ? this : new Position(node, consumed + bits);
+        }
+
+        boolean hasValue() {
+            return remaining() == 0 && node.getValueLength().intValue() > 0;
+        }
+
+        @Nullable
+        NodeReference reference(byte bit) {
+            if (remaining() > 0) {
+                return null;
+            }
+
+            NodeReference reference = node.getNodeReference(bit);
+            return reference.isEmpty() ? null : reference;
+        }
+
+        @Nullable
+        Position child(byte bit) {
+            if (remaining() > 0) {
+                return nextBit(0) == bit ? advance(1) : null;
+            }
+
+            NodeReference reference = reference(bit);
+
+            if (reference == null) {
+                return null;
+            }
+
+            // a copy of the reference loads the node without keeping it in the trie being walked
+            NodeReference loader = reference.wasLoaded() ? reference : reference.copyUnloaded();
+            return loader.getNode().map(n -> new Position(n, 0)).orElse(null);
+        }
+    }
+
+    private static final class Walker {
+        private final BiConsumer<byte[], byte[]> consumer;
+        // the path walked so far in expanded form, one bit per byte
+        private byte[] path = new byte[512];
+        private int pathLength;
+
+        Walker(BiConsumer<byte[], byte[]> consumer) {
+            this.consumer = consumer;
+        }
+
+        void diff(@Nullable Position from, @Nullable Position to) {
+            if (from == null && to == null) {
+                return;
+            }
+
+            if (from == null) {
+                emitAll(to, true);
+                return;
+            }
+
+            if (to == null) {
+                emitAll(from, false);
+                return;
+            }
+
+            int mark = pathLength;
+            int common = Math.min(from.remaining(), to.remaining());
+            int matching = 0;
+
+            while (matching < common && from.nextBit(matching) == to.nextBit(matching)) {
+                appendBit(from.nextBit(matching));
+                matching++;
+            }
+
+            if (matching < common) {
+                // the paths diverge, there is nothing in common below this point
+                emitAll(from.advance(matching), false);
+                emitAll(to.advance(matching), true);
+                pathLength = mark;
+                return;
+            }
+
+            from = from.advance(matching);
+            to = to.advance(matching);
+
+            diffValues(from, to);
+
+            for (byte bit = 0; bit <= 1; bit++) {
+                NodeReference fromReference = from.reference(bit);
+                NodeReference toReference = to.reference(bit);
+
+                if (fromReference != null && toReference != null
+                        && fromReference.getHash().equals(toReference.getHash())) {
+                    continue;
+                }
+
+                appendBit(bit);
+                diff(from.child(bit), to.child(bit));
+                pathLength--;
+            }
+
+            pathLength = mark;
+        }
+
+        void emitAll(@Nullable Position position, boolean added) {
+            if (position == null) {
+                return;
+            }
+
+            int mark = pathLength;
+
+            for (int i = 0; i < position.remaining(); i++) {
+                appendBit(position.nextBit(i));
+            }
+
+            Position node = position.advance(position.remaining());
+
+            if (node.hasValue()) {
+                emit(added ? node.node.getValue() : null);
+            }
+
+            for (byte bit = 0; bit <= 1; bit++) {
+                appendBit(bit);
+                emitAll(node.child(bit), added);
+                pathLength--;
+            }
+
+            pathLength = mark;
+        }
+
+        private void diffValues(Position from, Position to) {
+            boolean fromHasValue = from.hasValue();
+            boolean toHasValue = to.hasValue();
+
+            if (!toHasValue) {
+                if (fromHasValue) {
+                    emit(null);
+                }
+
+                return;
+            }
+
+            if (fromHasValue && sameValue(from.node, to.node)) {
+                return;
+            }
+
+            emit(to.node.getValue());
+        }
+
+        private static boolean sameValue(Trie from, Trie to) {
+            if (!from.getValueLength().equals(to.getValueLength())) {
+                return false;
+            }
+
+            if (from.hasLongValue()) {
+                // long values are stored apart, their hashes are known without retrieving them
+                return from.getValueHash().equals(to.getValueHash());
+            }
+
+            return Arrays.equals(from.getValue(), to.getValue());
+        }
+
+        private void emit(@Nullable byte[] value) {
+            consumer.accept(PathEncoder.encode(Arrays.copyOf(path, pathLength)), value);
+        }
+
+        private void appendBit(byte bit) {
+            if (pathLength == path.length) {
+                path = Arrays.copyOf(path, path.length * 2);
+            }
+
+            path[pathLength++] = bit;
+        }
+    }
+}
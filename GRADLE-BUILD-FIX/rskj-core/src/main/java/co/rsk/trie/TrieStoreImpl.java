@@ -18,13 +18,25 @@
 
 package co.rsk.trie;
 
+import co.rsk.metrics.profilers.Metric;
+import co.rsk.metrics.profilers.Profiler;
+import co.rsk.metrics.profilers.ProfilerFactory;
+import co.rsk.util.StripedLruMap;
 import org.ethereum.datasource.DataSourceWithCache;
 import org.ethereum.datasource.KeyValueDataSource;
+import org.ethereum.db.ByteArrayWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * TrieStoreImpl store and retrieve Trie node by hash
@@ -38,17 +50,38 @@ import java.util.Optional;
 public class TrieStoreImpl implements TrieStore {
 
     private static final Logger logger = LoggerFactory.getLogger("triestore");
+    private static final Profiler profiler = ProfilerFactory.getInstance();
 
     private static final ThreadLocal<TraceInfo> traceInfoLocal = ThreadLocal.withInitial(TraceInfo::new);
 
     private final KeyValueDataSource store;
 
+    @Nullable
+    private final OffHeapNodeCache nodeCache;
+
+    // decoded nodes kept as templates, they are never handed out, only copies of them (see Trie#copyWithUnloadedChildren)
+    @Nullable
+    private final StripedLruMap<ByteArrayWrapper, Trie> decodedNodes;
+
     public TrieStoreImpl(KeyValueDataSource store) {
+        this(store, null, 0);
+    }
+
+    /**
+     * @param nodeCache optional off-heap cache of serialized nodes and long values, looked up before the store
+     * @param decodedNodesCacheSize max number of decoded nodes kept to avoid deserializing them again, 0 to disable
+     */
+    public TrieStoreImpl(KeyValueDataSource store, @Nullable OffHeapNodeCache nodeCache, int decodedNodesCacheSize) {
         this.store = store;
+        this.nodeCache = nodeCache;
+        this.decodedNodes = decodedNodesCacheSize > 0 ? new StripedLruMap<>(decodedNodesCacheSize) : null;
     }
 
     /**
-     * Recursively saves all unsaved nodes of this trie to the underlying key-value store
+     * Saves all unsaved nodes of this trie to the underlying key-value store.
+     *
+     * The unsaved nodes (and their long values) are serialized and hashed first, independent subtrees in parallel,
+     * and then written to the store in a single batch.
      */
     @Override
     public void save(Trie trie) {
@@ -62,10 +95,25 @@ public class TrieStoreImpl implements TrieStore {
             logger.trace("Start saving trie root.");
         }
 
-        // save a trie recursively
-        save(trie, true, 0, traceInfo);
+        // collect the unsaved nodes of the trie, forking the top levels
+        SaveBatch batch = new SaveBatch();
+        new CollectUnsavedNodesTask(trie, true, 0, batch).invoke();
+
+        if (!batch.entries.isEmpty()) {
+            logger.trace("Putting in store {} entries.", batch.entries.size());
+            this.store.updateBatch(batch.entries, new HashSet<>());
+            batch.nodesToMark.forEach(Trie::markAsSaved);
+
+            if (nodeCache != null) {
+                batch.entries.forEach((key, value) -> nodeCache.put(key.getData(), value));
+            }
+            logger.trace("End putting in store.");
+        }
 
         if (traceInfo != null) {
+            traceInfo.numOfSavesInSaveTrie += batch.visitedNodes.get();
+            traceInfo.numOfSavesInBlockProcess += batch.visitedNodes.get();
+
             logger.trace("End saving trie root. No. Retrieves: {}. No. Saves: {}. No. No Saves: {}",
                     traceInfo.numOfRetrievesInSaveTrie, traceInfo.numOfSavesInSaveTrie, traceInfo.numOfNoSavesInSaveTrie);
             logger.trace("End process block. No. Retrieves: {}. No. Saves: {}. No. No Saves: {}",
@@ -79,76 +127,53 @@ public class TrieStoreImpl implements TrieStore {
                 ((DataSourceWithCache) store).emitLogs();
             }
 
-            traceInfoLocal.remove();
-        }
-    }
-
-    /**
-     * @param isRootNode it is the root node of the trie
-     */
-    private void save(Trie trie, boolean isRootNode, int level, @Nullable TraceInfo traceInfo) {
-        if (trie.wasSaved()) {
-            return;
-        }
-
-        logger.trace("Start saving trie, level : {}", level);
+            if (nodeCache != null) {
+                logger.trace("Off-heap node cache. Hits: {}. Misses: {}. Evictions: {}. Entries: {}. Size: {} bytes",
+                        nodeCache.getHitCount(), nodeCache.getMissCount(), nodeCache.getEvictionCount(),
+                        nodeCache.getEntryCount(), nodeCache.getSizeInBytes());
+            }
 
-        byte[] trieKeyBytes = trie.getHash().getBytes();
+            if (decodedNodes != null) {
+                logger.trace("Decoded nodes cache. Hits: {}. Misses: {}. Evictions: {}",
+                        decodedNodes.getHitCount(), decodedNodes.getMissCount(), decodedNodes.getEvictionCount());
+            }
 
-        if (traceInfo != null) {
-            traceInfo.numOfSavesInSaveTrie++;
-            traceInfo.numOfSavesInBlockProcess++;
+            traceInfoLocal.remove();
         }
+    }
 
-        NodeReference leftNodeReference = trie.getLeft();
+    @Override
+    public void flush(){
+        this.store.flush();
+    }
 
-        if (leftNodeReference.wasLoaded()) {
-            logger.trace("Start left trie. Level: {}", level);
-            leftNodeReference.getNode().ifPresent(t -> save(t, false, level + 1, traceInfo));
+    @Override
+    public Optional<Trie> retrieve(byte[] hash) {
+        if (decodedNodes == null) {
+            return decode(hash);
         }
 
-        NodeReference rightNodeReference = trie.getRight();
+        ByteArrayWrapper key = new ByteArrayWrapper(hash);
+        Trie cachedNode = decodedNodes.get(key);
 
-        if (rightNodeReference.wasLoaded()) {
-            logger.trace("Start right trie. Level: {}", level);
-            rightNodeReference.getNode().ifPresent(t -> save(t, false, level + 1, traceInfo));
-        }
+        if (cachedNode != null) {
+            Metric metric = profiler.start(Profiler.PROFILING_TYPE.TRIE_NODE_CACHE_HIT);
+            Trie trie = cachedNode.copyWithUnloadedChildren();
+            profiler.stop(metric);
 
-        if (trie.hasLongValue()) {
-            // Note that there is no distinction in keys between node data and value data. This could bring problems in
-            // the future when trying to garbage-collect the data. We could split the key spaces bit a single
-            // overwritten MSB of the hash. Also note that when storing a node that has long value it could be the case
-            // that the save the value here, but the value is already present in the database because other node shares
-            // the value. This is suboptimal, we could check existence here but maybe the database already has
-            // provisions to reduce the load in these cases where a key/value is set equal to the previous value.
-            // In particular our levelDB driver has not method to test for the existence of a key without retrieving the
-            // value also, so manually checking pre-existence here seems it will add overhead on the average case,
-            // instead of reducing it.
-            logger.trace("Putting in store, hasLongValue. Level: {}", level);
-            this.store.put(trie.getValueHash().getBytes(), trie.getValue());
-            logger.trace("End Putting in store, hasLongValue. Level: {}", level);
+            return Optional.of(trie);
         }
 
-        if (trie.isEmbeddable() && !isRootNode) {
-            logger.trace("End Saving. Level: {}", level);
-            return;
-        }
+        Metric metric = profiler.start(Profiler.PROFILING_TYPE.TRIE_NODE_CACHE_MISS);
+        Optional<Trie> trie = decode(hash);
+        trie.ifPresent(node -> decodedNodes.put(key, node.copyWithUnloadedChildren()));
+        profiler.stop(metric);
 
-        logger.trace("Putting in store trie root.");
-        this.store.put(trieKeyBytes, trie.toMessage());
-        trie.markAsSaved();
-        logger.trace("End putting in store trie root.");
-        logger.trace("End Saving trie, level: {}.", level);
+        return trie;
     }
 
-    @Override
-    public void flush(){
-        this.store.flush();
-    }
-
-    @Override
-    public Optional<Trie> retrieve(byte[] hash) {
-        byte[] message = this.store.get(hash);
+    private Optional<Trie> decode(byte[] hash) {
+        byte[] message = get(hash);
 
         if (message == null) {
             return Optional.empty();
@@ -160,7 +185,7 @@ public class TrieStoreImpl implements TrieStore {
             traceInfo.numOfRetrievesInBlockProcess++;
         }
 
-        Trie trie = Trie.fromMessage(message, this).markAsSaved();
+        Trie trie = Trie.fromStoredMessage(message, this, hash).markAsSaved();
         return Optional.of(trie);
     }
 
@@ -172,14 +197,127 @@ public class TrieStoreImpl implements TrieStore {
             traceInfo.numOfRetrievesInBlockProcess++;
         }
 
-        return this.store.get(hash);
+        return get(hash);
     }
 
     @Override
     public void dispose() {
+        // the caches only ever hold nodes of this store, a disposed store doesn't serve them anymore
+        if (nodeCache != null) {
+            nodeCache.clear();
+        }
+
+        if (decodedNodes != null) {
+            decodedNodes.clear();
+        }
+
         store.close();
     }
 
+    private byte[] get(byte[] hash) {
+        if (nodeCache == null) {
+            return this.store.get(hash);
+        }
+
+        byte[] value = nodeCache.get(hash);
+
+        if (value == null) {
+            value = this.store.get(hash);
+
+            if (value != null) {
+                nodeCache.put(hash, value);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Entries to write to the store and nodes to mark as saved once they're written.
+     */
+    private static final class SaveBatch {
+        // a plain map is given to the store, as some implementations check it for null keys and values
+        private final Map<ByteArrayWrapper, byte[]> entries = new HashMap<>();
+        private final Queue<Trie> nodesToMark = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger visitedNodes = new AtomicInteger();
+
+        private void put(byte[] key, byte[] value) {
+            ByteArrayWrapper wrappedKey = new ByteArrayWrapper(key);
+            synchronized (entries) {
+                entries.put(wrappedKey, value);
+            }
+        }
+    }
+
+    /**
+     * Walks the unsaved nodes of a trie in post order, so the children hashes are known when a node is serialized.
+     * Subtrees in the first {@link #MAX_PARALLEL_LEVEL} levels are walked in parallel on the common fork-join pool.
+     */
+    private static final class CollectUnsavedNodesTask extends RecursiveAction {
+        private static final int MAX_PARALLEL_LEVEL = 6;
+
+        private final Trie trie;
+        private final boolean isRootNode;
+        private final int level;
+        private final SaveBatch batch;
+
+        CollectUnsavedNodesTask(Trie trie, boolean isRootNode, int level, SaveBatch batch) {
+            this.trie = trie;
+            this.isRootNode = isRootNode;
+            this.level = level;
+            this.batch = batch;
+        }
+
+        @Override
+        protected void compute() {
+            if (trie.wasSaved()) {
+                return;
+            }
+
+            batch.visitedNodes.incrementAndGet();
+
+            Trie left = loadedNode(trie.getLeft());
+            Trie right = loadedNode(trie.getRight());
+
+            if (left != null && right != null && level < MAX_PARALLEL_LEVEL) {
+                invokeAll(
+                        new CollectUnsavedNodesTask(left, false, level + 1, batch),
+                        new CollectUnsavedNodesTask(right, false, level + 1, batch)
+                );
+            } else {
+                if (left != null) {
+                    new CollectUnsavedNodesTask(left, false, level + 1, batch).compute();
+                }
+
+                if (right != null) {
+                    new CollectUnsavedNodesTask(right, false, level + 1, batch).compute();
+                }
+            }
+
+            if (trie.hasLongValue()) {
+                // Note that there is no distinction in keys between node data and value data. This could bring problems in
+                // the future when trying to garbage-collect the data. We could split the key spaces bit a single
+                // overwritten MSB of the hash. Also note that when storing a node that has long value it could be the case
+                // that the save the value here, but the value is already present in the database because other node shares
+                // the value. This is suboptimal, we could check existence here but maybe the database already has
+                // provisions to reduce the load in these cases where a key/value is set equal to the previous value.
+                batch.put(trie.getValueHash().getBytes(), trie.getValue());
+            }
+
+            if (trie.isEmbeddable() && !isRootNode) {
+                return;
+            }
+
+            batch.put(trie.getHash().getBytes(), trie.toMessage());
+            batch.nodesToMark.add(trie);
+        }
+
+        @Nullable
+        private static Trie loadedNode(NodeReference reference) {
+            return reference.wasLoaded() ? reference.getNode().orElse(null) : null;
+        }
+    }
+
     /**
      * This holds tracing information during execution of the {@link #save(Trie)} method.
      * Should not be used when logger tracing is disabled ({@link Logger#isTraceEnabled()} is {@code false}).
@@ -0,0 +1,231 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.util;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread safe map with a maximum size and least recently used eviction.
+ *
+ * Entries are spread by key hash among segments, each of them an access ordered {@link LinkedHashMap} guarded
+ * by its own lock, so threads working on different segments don't contend with each other. The eviction order
+ * is kept per segment, which approximates a global LRU as long as the keys are evenly distributed.
+ *
+ * Null values are allowed, as in {@link MaxSizeHashMap}. Iterating over the map works on a copy of its entries.
+ */
+public class StripedLruMap<K, V> extends AbstractMap<K, V> {
+
+    // below this many entries per segment, the per segment LRU becomes a poor approximation of a global one
+    private static final int MIN_SEGMENT_SIZE = 256;
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 64;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StripedLruMap(int maxSize) {
+        this(maxSize, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    @SuppressWarnings("unchecked")
+    public StripedLruMap(int maxSize, int concurrencyLevel) {
+        if (maxSize < 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Invalid max size or concurrency level");
+        }
+
+        int segmentCount = Integer.highestOneBit(Math.max(1, Math.min(concurrencyLevel, maxSize / MIN_SEGMENT_SIZE)));
+        int segmentMaxSize = (maxSize + segmentCount - 1) / segmentCount;
+
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentMaxSize, evictions);
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            V value = segment.get(key);
+
+            if (value != null || segment.containsKey(key)) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+
+            return value;
+        }
+    }
+
+    /**
+     * Looks the key up in a single step, unlike {@link #containsKey(Object)} followed by {@link #get(Object)},
+     * which could be interleaved with the eviction of the entry.
+     *
+     * @return the value mapped to the key, which may be null, or {@code defaultValue} if there is no mapping
+     */
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            V value = segment.get(key);
+
+            if (value != null || segment.containsKey(key)) {
+                hits.increment();
+                return value;
+            }
+
+            misses.increment();
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            return segment.containsKey(key);
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            return segment.put(key, value);
+        }
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            return segment.putIfAbsent(key, value);
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        Segment<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the entries, each segment in least recently used order
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Map<K, V> copy = new LinkedHashMap<>();
+
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                copy.putAll(segment);
+            }
+        }
+
+        return Collections.unmodifiableMap(copy).entrySet();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the ratio of lookups that found an entry, or 0 if there weren't any
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        // spread the higher bits, as in HashMap
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 2553712207349427931L;
+
+        private final int maxSize;
+        private final transient LongAdder evictions;
+
+        Segment(int maxSize, LongAdder evictions) {
+            super(maxSize, 0.75f, true);
+            this.maxSize = maxSize;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+
+            return false;
+        }
+    }
+}
@@ -18,12 +18,14 @@
 
 package co.rsk.validators;
 
+import co.rsk.core.TxSenderRecoverer;
 import org.ethereum.core.Block;
 import org.ethereum.core.SignatureCache;
 import org.ethereum.core.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.List;
 
 /**
@@ -33,9 +35,19 @@ public class BlockTxsFieldsValidationRule implements BlockParentDependantValidat
     private static final Logger logger = LoggerFactory.getLogger("blockvalidator");
 
     private final SignatureCache signatureCache;
+    @Nullable
+    private final TxSenderRecoverer txSenderRecoverer;
     
     public BlockTxsFieldsValidationRule(SignatureCache signatureCache) {
+        this(signatureCache, null);
+    }
+
+    /**
+     * @param txSenderRecoverer recovers the senders of the block in parallel before they are verified one by one
+     */
+    public BlockTxsFieldsValidationRule(SignatureCache signatureCache, @Nullable TxSenderRecoverer txSenderRecoverer) {
         this.signatureCache = signatureCache;
+        this.txSenderRecoverer = txSenderRecoverer;
     }
 
     @Override
@@ -46,6 +58,11 @@ public class BlockTxsFieldsValidationRule implements BlockParentDependantValidat
         }
 
         List<Transaction> txs = block.getTransactionsList();
+
+        if (txSenderRecoverer != null && signatureCache != null) {
+            txSenderRecoverer.recoverSenders(txs, signatureCache);
+        }
+
         for (Transaction tx : txs) {
             try {
                 tx.verify(signatureCache);
@@ -19,6 +19,7 @@
 package co.rsk.validators;
 
 import co.rsk.core.RskAddress;
+import co.rsk.core.TxSenderRecoverer;
 import co.rsk.db.RepositoryLocator;
 import co.rsk.db.RepositorySnapshot;
 import co.rsk.panic.PanicProcessor;
@@ -28,6 +29,7 @@ import org.ethereum.core.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.List;
@@ -49,10 +51,24 @@ public class BlockTxsValidationRule implements BlockParentDependantValidationRul
 
     private final RepositoryLocator repositoryLocator;
     private final SignatureCache signatureCache;
+    @Nullable
+    private final TxSenderRecoverer txSenderRecoverer;
 
     public BlockTxsValidationRule(RepositoryLocator repositoryLocator, SignatureCache signatureCache) {
+        this(repositoryLocator, signatureCache, null);
+    }
+
+    /**
+     * @param txSenderRecoverer recovers the senders of the block in parallel before the transactions are
+     *                          checked one by one. Senders recovered by a previous rule are found in the cache.
+     */
+    public BlockTxsValidationRule(
+            RepositoryLocator repositoryLocator,
+            SignatureCache signatureCache,
+            @Nullable TxSenderRecoverer txSenderRecoverer) {
         this.repositoryLocator = repositoryLocator;
         this.signatureCache = signatureCache;
+        this.txSenderRecoverer = txSenderRecoverer;
     }
 
     @Override
@@ -68,6 +84,10 @@ public class BlockTxsValidationRule implements BlockParentDependantValidationRul
             return true;
         }
 
+        if (txSenderRecoverer != null && signatureCache != null) {
+            txSenderRecoverer.recoverSenders(txs, signatureCache);
+        }
+
         RepositorySnapshot parentRepo = repositoryLocator.snapshotAt(parent.getHeader());
 
         Map<RskAddress, BigInteger> curNonce = new HashMap<>();
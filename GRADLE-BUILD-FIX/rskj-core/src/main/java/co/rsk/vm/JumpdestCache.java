@@ -0,0 +1,77 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.vm;
+
+import co.rsk.crypto.Keccak256;
+import co.rsk.util.StripedLruMap;
+import org.ethereum.db.MutableRepository;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps the valid jump destinations of contract code, keyed by the hash of the code, so the code of a contract
+ * that is called many times is analyzed only once.
+ *
+ * The cached sets are shared between programs, so they must not be modified once computed.
+ */
+public class JumpdestCache {
+
+    // a set takes one bit per byte of code, so even at the maximum code size this is a few megabytes
+    private static final int DEFAULT_MAX_SIZE = 2048;
+
+    private final StripedLruMap<Keccak256, BitSet> jumpdests;
+
+    public JumpdestCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public JumpdestCache(int maxSize) {
+        this.jumpdests = new StripedLruMap<>(maxSize);
+    }
+
+    /**
+     * @param codeHash the hash of the code, as stored in the trie
+     * @param analysis computes the jump destinations of the code when they aren't cached
+     */
+    public BitSet get(Keccak256 codeHash, Supplier<BitSet> analysis) {
+        // these are what the repository returns for accounts without code, never the hash of some code
+        if (Keccak256.ZERO_HASH.equals(codeHash) || MutableRepository.KECCAK_256_OF_EMPTY_ARRAY.equals(codeHash)) {
+            return analysis.get();
+        }
+
+        BitSet cached = jumpdests.get(codeHash);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        BitSet computed = analysis.get();
+        jumpdests.put(codeHash, computed);
+
+        return computed;
+    }
+
+    public int size() {
+        return jumpdests.size();
+    }
+
+    public double getHitRate() {
+        return jumpdests.getHitRate();
+    }
+}
@@ -29,12 +29,12 @@ public class BlockTxSignatureCache extends SignatureCache {
     private final SignatureCache internalCache;
 
     public BlockTxSignatureCache(SignatureCache internalCache) {
-        super(MAX_CACHE_SIZE, false);
+        super(MAX_CACHE_SIZE);
         this.internalCache = internalCache;
     }
 
     @Override
-    public synchronized RskAddress getSender(Transaction transaction) {
+    public RskAddress getSender(Transaction transaction) {
 
         if (transaction instanceof RemascTransaction) {
             return RemascTransaction.REMASC_ADDRESS;
@@ -55,7 +55,7 @@ public class BlockTxSignatureCache extends SignatureCache {
     }
 
     @Override
-    public synchronized void storeSender(Transaction transaction) {
+    public void storeSender(Transaction transaction) {
 
         if (maySkipSenderStore(transaction)) {
             return;
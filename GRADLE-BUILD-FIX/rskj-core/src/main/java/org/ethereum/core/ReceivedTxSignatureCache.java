@@ -27,11 +27,11 @@ public class ReceivedTxSignatureCache extends SignatureCache {
     private static final int MAX_CACHE_SIZE = 6000; //Txs in three blocks
 
     public ReceivedTxSignatureCache() {
-        super(MAX_CACHE_SIZE, true);
+        super(MAX_CACHE_SIZE);
     }
 
     @Override
-    public synchronized RskAddress getSender(Transaction transaction) {
+    public RskAddress getSender(Transaction transaction) {
 
         if (transaction instanceof RemascTransaction) {
             return RemascTransaction.REMASC_ADDRESS;
@@ -47,7 +47,7 @@ public class ReceivedTxSignatureCache extends SignatureCache {
     }
 
     @Override
-    public synchronized void storeSender(Transaction transaction) {
+    public void storeSender(Transaction transaction) {
 
         if (maySkipSenderStore(transaction)) {
             return;
@@ -22,16 +22,22 @@ package org.ethereum.core;
 import co.rsk.core.RskAddress;
 import co.rsk.crypto.Keccak256;
 import co.rsk.remasc.RemascTransaction;
-import co.rsk.util.MaxSizeHashMap;
+import co.rsk.util.StripedLruMap;
 
 import java.util.Map;
 
+/**
+ * Keeps the senders of transactions, so their signatures are verified once.
+ *
+ * The cache can be used from several threads at the same time, and no lock is held while a sender is recovered.
+ * Two threads may then recover the same sender, which is harmless as both get the same address.
+ */
 public abstract class SignatureCache {
 
     protected final Map<Keccak256, RskAddress> addressesCache;
 
-    protected SignatureCache(int maxCacheSize, boolean accessOrder) {
-        addressesCache = new MaxSizeHashMap<>(maxCacheSize, accessOrder);
+    protected SignatureCache(int maxCacheSize) {
+        addressesCache = new StripedLruMap<>(maxCacheSize);
     }
 
     protected boolean maySkipSenderStore(Transaction transaction) {
@@ -21,11 +21,13 @@ package org.ethereum.core;
 import co.rsk.config.VmConfig;
 import co.rsk.core.Coin;
 import co.rsk.core.RskAddress;
+import co.rsk.crypto.Keccak256;
 import co.rsk.metrics.profilers.Metric;
 import co.rsk.metrics.profilers.Profiler;
 import co.rsk.metrics.profilers.ProfilerFactory;
 import co.rsk.panic.PanicProcessor;
 import co.rsk.rpc.modules.trace.ProgramSubtrace;
+import co.rsk.vm.JumpdestCache;
 import org.ethereum.config.Constants;
 import org.ethereum.config.blockchain.upgrades.ActivationConfig;
 import org.ethereum.config.blockchain.upgrades.ConsensusRule;
@@ -44,6 +46,7 @@ import org.ethereum.vm.trace.SummarizedProgramTrace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.math.BigInteger;
 import java.util.*;
 
@@ -97,6 +100,8 @@ public class TransactionExecutor {
     private List<LogInfo> logs = null;
     private final Set<DataWord> deletedAccounts;
     private final SignatureCache signatureCache;
+    @Nullable
+    private final JumpdestCache jumpdestCache;
 
     private boolean localCall = false;
 
@@ -106,6 +111,17 @@ public class TransactionExecutor {
             ProgramInvokeFactory programInvokeFactory, Block executionBlock, long gasUsedInTheBlock, VmConfig vmConfig,
             boolean remascEnabled, PrecompiledContracts precompiledContracts, Set<DataWord> deletedAccounts,
             SignatureCache signatureCache) {
+        this(constants, activationConfig, tx, txindex, coinbase, track, blockStore, receiptStore, blockFactory,
+                programInvokeFactory, executionBlock, gasUsedInTheBlock, vmConfig, remascEnabled, precompiledContracts,
+                deletedAccounts, signatureCache, null);
+    }
+
+    public TransactionExecutor(
+            Constants constants, ActivationConfig activationConfig, Transaction tx, int txindex, RskAddress coinbase,
+            Repository track, BlockStore blockStore, ReceiptStore receiptStore, BlockFactory blockFactory,
+            ProgramInvokeFactory programInvokeFactory, Block executionBlock, long gasUsedInTheBlock, VmConfig vmConfig,
+            boolean remascEnabled, PrecompiledContracts precompiledContracts, Set<DataWord> deletedAccounts,
+            SignatureCache signatureCache, @Nullable JumpdestCache jumpdestCache) {
         this.constants = constants;
         this.signatureCache = signatureCache;
         this.activations = activationConfig.forBlock(executionBlock.getNumber());
@@ -124,6 +140,7 @@ public class TransactionExecutor {
         this.precompiledContracts = precompiledContracts;
         this.enableRemasc = remascEnabled;
         this.deletedAccounts = new HashSet<>(deletedAccounts);
+        this.jumpdestCache = jumpdestCache;
     }
 
     /**
@@ -364,8 +381,10 @@ public class TransactionExecutor {
                 ProgramInvoke programInvoke =  programInvokeFactory
                         .createProgramInvoke(tx, txindex, executionBlock, cacheTrack, blockStore, signatureCache);
 
+                Keccak256 codeHash = jumpdestCache == null ? null : track.getCodeHashStandard(targetAddress);
+
                 this.vm = new VM(vmConfig, precompiledContracts);
-                this.program = new Program(vmConfig, precompiledContracts, blockFactory, activations, code, programInvoke, tx, deletedAccounts, signatureCache);
+                this.program = new Program(vmConfig, precompiledContracts, blockFactory, activations, code, programInvoke, tx, deletedAccounts, signatureCache, jumpdestCache, codeHash);
             }
         }
 
@@ -388,7 +407,7 @@ public class TransactionExecutor {
             ProgramInvoke programInvoke = programInvokeFactory.createProgramInvoke(tx, txindex, executionBlock, cacheTrack, blockStore, signatureCache);
 
             this.vm = new VM(vmConfig, precompiledContracts);
-            this.program = new Program(vmConfig, precompiledContracts, blockFactory, activations, tx.getData(), programInvoke, tx, deletedAccounts, signatureCache);
+            this.program = new Program(vmConfig, precompiledContracts, blockFactory, activations, tx.getData(), programInvoke, tx, deletedAccounts, signatureCache, jumpdestCache, null);
 
             // reset storage if the contract with the same address already exists
             // TCK test case only - normally this is near-impossible situation in the real network
@@ -21,6 +21,7 @@ package org.ethereum.core;
 
 import co.rsk.config.InternalService;
 import co.rsk.core.bc.PendingState;
+import co.rsk.crypto.Keccak256;
 
 import java.util.List;
 
@@ -72,6 +73,11 @@ public interface TransactionPool extends InternalService {
     // Returns a list of queued txs (out of nonce sequence)
     List<Transaction> getQueuedTransactions();
 
+    /**
+     * @return the pending or queued transaction with the given hash, or null if it isn't in the pool
+     */
+    Transaction getTransactionByHash(Keccak256 hash);
+
     /**
      * @return pending state
      */
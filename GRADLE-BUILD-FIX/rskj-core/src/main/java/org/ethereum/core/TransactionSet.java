@@ -24,8 +24,15 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public class TransactionSet {
+    // cheapest first, the hash breaks ties between transactions with the same gas price
+    private static final Comparator<Transaction> PRICE_ORDER = Comparator.comparing(Transaction::getGasPrice).thenComparing(Transaction::getHash);
+    private static final Comparator<Transaction> NONCE_ORDER = Comparator.comparing(Transaction::getNonceAsInteger);
+
     private final Map<Keccak256, Transaction> transactionsByHash;
+    // the transactions of each sender are kept ordered by nonce
     private final Map<RskAddress, List<Transaction>> transactionsByAddress;
+    // the last transaction of each sender, cheapest first, so one can be evicted without leaving a nonce gap
+    private final NavigableSet<Transaction> lastTransactionsByPrice = new TreeSet<>(PRICE_ORDER);
 
     private final SignatureCache signatureCache;
 
@@ -34,13 +41,18 @@ public class TransactionSet {
     }
 
     public TransactionSet(TransactionSet transactionSet, SignatureCache signatureCache) {
-        this(new HashMap<>(transactionSet.transactionsByHash), new HashMap<>(transactionSet.transactionsByAddress), signatureCache);
+        this(new HashMap<>(transactionSet.transactionsByHash), new HashMap<>(), signatureCache);
+
+        // the lists are copied too, so adding to one of the sets doesn't change the other
+        transactionSet.transactionsByAddress.forEach((address, txs) -> this.transactionsByAddress.put(address, new ArrayList<>(txs)));
+        this.lastTransactionsByPrice.addAll(transactionSet.lastTransactionsByPrice);
     }
 
     public TransactionSet(Map<Keccak256, Transaction> transactionsByHash, Map<RskAddress, List<Transaction>> transactionsByAddress, SignatureCache signatureCache) {
         this.transactionsByHash = transactionsByHash;
         this.transactionsByAddress = transactionsByAddress;
         this.signatureCache = signatureCache;
+        transactionsByAddress.values().forEach(txs -> this.lastTransactionsByPrice.add(txs.get(txs.size() - 1)));
     }
 
     public void addTransaction(Transaction transaction) {
@@ -55,11 +67,14 @@ public class TransactionSet {
         RskAddress senderAddress = transaction.getSender(signatureCache);
 
         List<Transaction> txs = this.transactionsByAddress.get(senderAddress);
+        Transaction previousLast = null;
 
         if (txs == null) {
             txs = new ArrayList<>();
             this.transactionsByAddress.put(senderAddress, txs);
         } else {
+            previousLast = txs.get(txs.size() - 1);
+
             Optional<Transaction> optTxToRemove = txs.stream()
                     .filter(tx -> tx.getNonceAsInteger().equals(transaction.getNonceAsInteger()))
                     .findFirst();
@@ -71,7 +86,10 @@ public class TransactionSet {
             }
         }
 
-        txs.add(transaction);
+        int position = Collections.binarySearch(txs, transaction, NONCE_ORDER);
+        txs.add(position < 0 ? -position - 1 : position, transaction);
+
+        updateLastTransaction(previousLast, txs.get(txs.size() - 1));
     }
 
     public boolean hasTransaction(Transaction transaction) {
@@ -91,14 +109,55 @@ public class TransactionSet {
         List<Transaction> txs = this.transactionsByAddress.get(senderAddress);
 
         if (txs != null) {
+            Transaction previousLast = txs.get(txs.size() - 1);
             txs.remove(transaction);
 
             if (txs.isEmpty()) {
                 this.transactionsByAddress.remove(senderAddress);
+                updateLastTransaction(previousLast, null);
+            } else {
+                updateLastTransaction(previousLast, txs.get(txs.size() - 1));
             }
         }
     }
 
+    private void updateLastTransaction(Transaction previousLast, Transaction newLast) {
+        if (previousLast == newLast) {
+            return;
+        }
+
+        if (previousLast != null) {
+            this.lastTransactionsByPrice.remove(previousLast);
+        }
+
+        if (newLast != null) {
+            this.lastTransactionsByPrice.add(newLast);
+        }
+    }
+
+    public Transaction getTransactionByHash(Keccak256 hash) {
+        return this.transactionsByHash.get(hash);
+    }
+
+    public int size() {
+        return this.transactionsByHash.size();
+    }
+
+    /**
+     * @return the transaction with the lowest gas price that is the last one of its sender, so removing it
+     * doesn't leave a nonce gap, ignoring the transactions of the given sender
+     */
+    public Optional<Transaction> getCheapestLastTransaction(RskAddress excludedSender) {
+        // the excluded sender has a single entry, so at most two are looked at
+        for (Transaction transaction : this.lastTransactionsByPrice) {
+            if (!transaction.getSender(signatureCache).equals(excludedSender)) {
+                return Optional.of(transaction);
+            }
+        }
+
+        return Optional.empty();
+    }
+
     public List<Transaction> getTransactions() {
         return transactionsByHash.values().stream()
                 .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
@@ -19,7 +19,7 @@
 package org.ethereum.datasource;
 
 import co.rsk.util.FormatUtils;
-import co.rsk.util.MaxSizeHashMap;
+import co.rsk.util.StripedLruMap;
 import org.ethereum.db.ByteArrayWrapper;
 import org.ethereum.util.ByteUtil;
 import org.slf4j.Logger;
@@ -28,24 +28,44 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Caches the values of a {@link KeyValueDataSource}, both the ones read from it (committed) and the ones written
+ * but not flushed yet (uncommitted).
+ *
+ * Reads that hit any of the caches don't take any lock. The lock serializes the writes, and reads that
+ * miss the caches take it in shared mode so that a stale value read from the base data source is never
+ * cached after a concurrent flush.
+ */
 public class DataSourceWithCache implements KeyValueDataSource {
 
     private static final Logger logger = LoggerFactory.getLogger("datasourcewithcache");
 
+    // marks a key deleted in the uncommitted cache, which doesn't allow null values
+    private static final byte[] DELETED_VALUE = new byte[0];
+    // returned by the committed cache for keys without a mapping, as null values are stored there
+    private static final byte[] MISSING_VALUE = new byte[0];
+
     private final int cacheSize;
     private final KeyValueDataSource base;
     private final Map<ByteArrayWrapper, byte[]> uncommittedCache;
-    private final Map<ByteArrayWrapper, byte[]> committedCache;
+    // keeps the order in which the uncommitted keys were first written, only accessed under the write lock
+    private final Set<ByteArrayWrapper> uncommittedKeysInOrder;
+    private final StripedLruMap<ByteArrayWrapper, byte[]> committedCache;
 
     private final AtomicInteger numOfPuts = new AtomicInteger();
     private final AtomicInteger numOfGets = new AtomicInteger();
     private final AtomicInteger numOfGetsFromStore = new AtomicInteger();
 
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     @Nullable
@@ -59,8 +79,9 @@ public class DataSourceWithCache implements KeyValueDataSource {
                                @Nullable CacheSnapshotHandler cacheSnapshotHandler) {
         this.cacheSize = cacheSize;
         this.base = Objects.requireNonNull(base);
-        this.uncommittedCache = new LinkedHashMap<>(cacheSize / 8, (float) 0.75, false);
-        this.committedCache = Collections.synchronizedMap(makeCommittedCache(cacheSize, cacheSnapshotHandler));
+        this.uncommittedCache = new ConcurrentHashMap<>(Math.max(16, cacheSize / 8));
+        this.uncommittedKeysInOrder = new LinkedHashSet<>(Math.max(16, cacheSize / 8));
+        this.committedCache = makeCommittedCache(cacheSize, cacheSnapshotHandler);
         this.cacheSnapshotHandler = cacheSnapshotHandler;
     }
 
@@ -70,19 +91,30 @@ public class DataSourceWithCache implements KeyValueDataSource {
 
         boolean traceEnabled = logger.isTraceEnabled();
         ByteArrayWrapper wrappedKey = ByteUtil.wrap(key);
-        byte[] value;
+
+        if (traceEnabled) {
+            numOfGets.incrementAndGet();
+        }
+
+        byte[] value = getCachedValue(wrappedKey);
+
+        if (value != MISSING_VALUE) {
+            cacheHits.increment();
+            return value;
+        }
 
         this.lock.readLock().lock();
 
         try {
-            if (committedCache.containsKey(wrappedKey)) {
-                return committedCache.get(wrappedKey);
-            }
+            // a flush could have happened before taking the lock
+            value = getCachedValue(wrappedKey);
 
-            if (uncommittedCache.containsKey(wrappedKey)) {
-                return uncommittedCache.get(wrappedKey);
+            if (value != MISSING_VALUE) {
+                cacheHits.increment();
+                return value;
             }
 
+            cacheMisses.increment();
             value = base.get(key);
 
             if (traceEnabled) {
@@ -92,16 +124,28 @@ public class DataSourceWithCache implements KeyValueDataSource {
             //null value, as expected, is allowed here to be stored in committedCache
             committedCache.put(wrappedKey, value);
         } finally {
-            if (traceEnabled) {
-                numOfGets.incrementAndGet();
-            }
-
             this.lock.readLock().unlock();
         }
 
         return value;
     }
 
+    /**
+     * The uncommitted cache is looked up first: a value written there is always more recent than the one
+     * in the committed cache, which could have been cached by a concurrent read.
+     *
+     * @return the cached value, which may be null for a key known to be missing, or MISSING_VALUE if not cached
+     */
+    private byte[] getCachedValue(ByteArrayWrapper wrappedKey) {
+        byte[] value = uncommittedCache.get(wrappedKey);
+
+        if (value != null) {
+            return value == DELETED_VALUE ? null : value;
+        }
+
+        return committedCache.getOrDefault(wrappedKey, MISSING_VALUE);
+    }
+
     @Override
     public byte[] put(byte[] key, byte[] value) {
         ByteArrayWrapper wrappedKey = ByteUtil.wrap(key);
@@ -118,7 +162,7 @@ public class DataSourceWithCache implements KeyValueDataSource {
             // here I could check for equal data or just move to the uncommittedCache.
             byte[] priorValue = committedCache.get(wrappedKey);
 
-            if (priorValue != null && Arrays.equals(priorValue, value)) {
+            if (priorValue != null && Arrays.equals(priorValue, value) && !uncommittedCache.containsKey(wrappedKey)) {
                 return value;
             }
 
@@ -136,7 +180,8 @@ public class DataSourceWithCache implements KeyValueDataSource {
     }
 
     private void putKeyValue(ByteArrayWrapper key, byte[] value) {
-        uncommittedCache.put(key, value);
+        uncommittedCache.put(key, value == null ? DELETED_VALUE : value);
+        uncommittedKeysInOrder.add(key);
 
         if (uncommittedCache.size() > cacheSize) {
             this.flush();
@@ -153,15 +198,16 @@ public class DataSourceWithCache implements KeyValueDataSource {
 
         try {
             // always mark for deletion if we don't know the state in the underlying store
-            if (!committedCache.containsKey(wrappedKey)) {
+            byte[] valueToRemove = committedCache.getOrDefault(wrappedKey, MISSING_VALUE);
+
+            if (valueToRemove == MISSING_VALUE) {
                 this.putKeyValue(wrappedKey, null);
                 return;
             }
 
-            byte[] valueToRemove = committedCache.get(wrappedKey);
-
             // a null value means we know for a fact that the key doesn't exist in the underlying store, so this is a noop
-            if (valueToRemove != null) {
+            // unless it was written afterwards
+            if (valueToRemove != null || uncommittedCache.containsKey(wrappedKey)) {
                 this.putKeyValue(wrappedKey, null);
                 committedCache.remove(wrappedKey);
             }
@@ -185,10 +231,10 @@ public class DataSourceWithCache implements KeyValueDataSource {
                     .filter(e -> e.getValue() != null)
                     .map(Map.Entry::getKey);
             uncommittedKeys = uncommittedCache.entrySet().stream()
-                    .filter(e -> e.getValue() != null)
+                    .filter(e -> e.getValue() != DELETED_VALUE)
                     .map(Map.Entry::getKey);
             uncommittedKeysToRemove = uncommittedCache.entrySet().stream()
-                    .filter(e -> e.getValue() == null)
+                    .filter(e -> e.getValue() == DELETED_VALUE)
                     .map(Map.Entry::getKey)
                     .collect(Collectors.toSet());
         } finally {
@@ -237,16 +283,25 @@ public class DataSourceWithCache implements KeyValueDataSource {
         try {
             long saveTime = System.nanoTime();
 
-            this.uncommittedCache.forEach((key, value) -> {
-                if (value != null) {
+            Set<ByteArrayWrapper> uncommittedKeysToRemove = new HashSet<>();
+
+            for (ByteArrayWrapper key : uncommittedKeysInOrder) {
+                byte[] value = uncommittedCache.get(key);
+
+                if (value != DELETED_VALUE) {
                     uncommittedBatch.put(key, value);
+                } else {
+                    uncommittedKeysToRemove.add(key);
                 }
-            });
+            }
 
-            Set<ByteArrayWrapper> uncommittedKeysToRemove = uncommittedCache.entrySet().stream().filter(e -> e.getValue() == null).map(Map.Entry::getKey).collect(Collectors.toSet());
             base.updateBatch(uncommittedBatch, uncommittedKeysToRemove);
-            committedCache.putAll(uncommittedCache);
+            // the entries are moved to the committed cache before removing them from the uncommitted one,
+            // so they are always visible to the reads that don't take the lock
+            committedCache.putAll(uncommittedBatch);
+            uncommittedKeysToRemove.forEach(key -> committedCache.put(key, null));
             uncommittedCache.clear();
+            uncommittedKeysInOrder.clear();
 
             long totalTime = System.nanoTime() - saveTime;
 
@@ -281,6 +336,7 @@ public class DataSourceWithCache implements KeyValueDataSource {
                 cacheSnapshotHandler.save(committedCache);
             }
             uncommittedCache.clear();
+            uncommittedKeysInOrder.clear();
             committedCache.clear();
         } finally {
             this.lock.writeLock().unlock();
@@ -295,19 +351,46 @@ public class DataSourceWithCache implements KeyValueDataSource {
         this.lock.writeLock().lock();
 
         try {
-            logger.trace("Activity: No. Gets: {}. No. Puts: {}. No. Gets from Store: {}",
+            logger.trace("Activity: No. Gets: {}. No. Puts: {}. No. Gets from Store: {}. Cache hit rate: {}. Cache evictions: {}",
                     numOfGets.getAndSet(0),
                     numOfPuts.getAndSet(0),
-                    numOfGetsFromStore.getAndSet(0));
+                    numOfGetsFromStore.getAndSet(0),
+                    getCacheHitRate(),
+                    getCacheEvictionCount());
         } finally {
             this.lock.writeLock().unlock();
         }
     }
 
+    /**
+     * @return the ratio of reads served by any of the caches, or 0 if there weren't any
+     */
+    public double getCacheHitRate() {
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMissCount() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * @return the number of entries evicted from the committed cache because of its size limit
+     */
+    public long getCacheEvictionCount() {
+        return committedCache.getEvictionCount();
+    }
+
     @Nonnull
-    private static Map<ByteArrayWrapper, byte[]> makeCommittedCache(int cacheSize,
-                                                                    @Nullable CacheSnapshotHandler cacheSnapshotHandler) {
-        Map<ByteArrayWrapper, byte[]> cache = new MaxSizeHashMap<>(cacheSize, true);
+    private static StripedLruMap<ByteArrayWrapper, byte[]> makeCommittedCache(int cacheSize,
+                                                                              @Nullable CacheSnapshotHandler cacheSnapshotHandler) {
+        StripedLruMap<ByteArrayWrapper, byte[]> cache = new StripedLruMap<>(cacheSize);
 
         if (cacheSnapshotHandler != null) {
             cacheSnapshotHandler.load(cache);
@@ -27,7 +27,7 @@ import co.rsk.metrics.profilers.Profiler;
 import co.rsk.metrics.profilers.ProfilerFactory;
 import co.rsk.net.BlockCache;
 import co.rsk.remasc.Sibling;
-import co.rsk.util.MaxSizeHashMap;
+import co.rsk.util.StripedLruMap;
 import com.google.common.annotations.VisibleForTesting;
 import org.ethereum.core.Block;
 import org.ethereum.core.BlockFactory;
@@ -42,6 +42,8 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 import static co.rsk.core.BlockDifficulty.ZERO;
@@ -52,7 +54,10 @@ public class IndexedBlockStore implements BlockStore {
     private static final Profiler profiler = ProfilerFactory.getInstance();
 
     private final BlockCache blockCache;
-    private final MaxSizeHashMap<Keccak256, Map<Long, List<Sibling>>> remascCache;
+    private final Map<Keccak256, Map<Long, List<Sibling>>> remascCache;
+
+    // readers share the store, while saving, removing and rebranching publish their changes to the index at once
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     private final BlocksIndex index;
     private final KeyValueDataSource blocks;
@@ -68,39 +73,51 @@ public class IndexedBlockStore implements BlockStore {
         //TODO(lsebrie): move these maps creation outside blockstore,
         // remascCache should be an external component and not be inside blockstore
         this.blockCache = new BlockCache(5000);
-        this.remascCache = new MaxSizeHashMap<>(50000, true);
+        this.remascCache = new StripedLruMap<>(50000);
     }
 
     @Override
-    public synchronized void removeBlock(Block block) {
-        this.blockCache.removeBlock(block);
-        this.remascCache.remove(block.getHash());
-        this.blocks.delete(block.getHash().getBytes());
-        this.index.removeBlock(block.getNumber(), block.getHash());
+    public void removeBlock(Block block) {
+        lock.writeLock().lock();
+
+        try {
+            this.blockCache.removeBlock(block);
+            this.remascCache.remove(block.getHash());
+            this.blocks.delete(block.getHash().getBytes());
+            this.index.removeBlock(block.getNumber(), block.getHash());
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     @Override
-    public synchronized Block getBestBlock() {
-        if (index.isEmpty()) {
-            return null;
-        }
+    public Block getBestBlock() {
+        lock.readLock().lock();
 
-        long maxLevel = index.getMaxNumber();
-        Block bestBlock = getChainBlockByNumber(maxLevel);
-        if (bestBlock != null) {
-            return  bestBlock;
-        }
+        try {
+            if (index.isEmpty()) {
+                return null;
+            }
 
-        // That scenario can happen
-        // if there is a fork branch that is
-        // higher than main branch but has
-        // less TD than the main branch TD
-        while (bestBlock == null && maxLevel >= 0) {
-            --maxLevel;
-            bestBlock = getChainBlockByNumber(maxLevel);
-        }
+            long maxLevel = index.getMaxNumber();
+            Block bestBlock = getChainBlockByNumber(maxLevel);
+            if (bestBlock != null) {
+                return  bestBlock;
+            }
+
+            // That scenario can happen
+            // if there is a fork branch that is
+            // higher than main branch but has
+            // less TD than the main branch TD
+            while (bestBlock == null && maxLevel >= 0) {
+                --maxLevel;
+                bestBlock = getChainBlockByNumber(maxLevel);
+            }
 
-        return bestBlock;
+            return bestBlock;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -154,33 +171,51 @@ public class IndexedBlockStore implements BlockStore {
     }
 
     public boolean isBlockInMainChain(long blockNumber, Keccak256 blockHash){
-        List<BlockInfo> blockInfos = index.getBlocksByNumber(blockNumber);
-        if (blockInfos == null) {
-            return false;
-        }
+        lock.readLock().lock();
 
-        for (BlockInfo blockInfo : blockInfos) {
-            if (blockInfo.isMainChain() && blockHash.equals(blockInfo.getHash())) {
-                return true;
+        try {
+            List<BlockInfo> blockInfos = index.getBlocksByNumber(blockNumber);
+            if (blockInfos == null) {
+                return false;
             }
-        }
 
-        return false;
+            for (BlockInfo blockInfo : blockInfos) {
+                if (blockInfo.isMainChain() && blockHash.equals(blockInfo.getHash())) {
+                    return true;
+                }
+            }
+
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @Override
-    public synchronized void flush() {
-        Metric metric = profiler.start(Profiler.PROFILING_TYPE.DB_WRITE);
-        index.flush();
-        blocks.flush();
-        profiler.stop(metric);
+    public void flush() {
+        lock.readLock().lock();
+
+        try {
+            Metric metric = profiler.start(Profiler.PROFILING_TYPE.DB_WRITE);
+            index.flush();
+            blocks.flush();
+            profiler.stop(metric);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    public synchronized void close() {
-        flush();
+    public void close() {
+        lock.writeLock().lock();
 
-        index.close();
-        blocks.close();
+        try {
+            flush();
+
+            index.close();
+            blocks.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     @Override
@@ -189,50 +224,62 @@ public class IndexedBlockStore implements BlockStore {
     }
 
     @Override
-    public synchronized void saveBlock(Block block, BlockDifficulty cummDifficulty, boolean mainChain) {
-        List<BlockInfo> blockInfos = index.getBlocksByNumber(block.getNumber());
-
-        BlockInfo blockInfo = null;
-        for (BlockInfo bi : blockInfos) {
-            if (bi.getHash().equals(block.getHash())) {
-                blockInfo = bi;
-            } else if (mainChain) {
-                bi.setMainChain(false);
+    public void saveBlock(Block block, BlockDifficulty cummDifficulty, boolean mainChain) {
+        lock.writeLock().lock();
+
+        try {
+            List<BlockInfo> blockInfos = index.getBlocksByNumber(block.getNumber());
+
+            BlockInfo blockInfo = null;
+            for (BlockInfo bi : blockInfos) {
+                if (bi.getHash().equals(block.getHash())) {
+                    blockInfo = bi;
+                } else if (mainChain) {
+                    bi.setMainChain(false);
+                }
+            }
+            if (blockInfo == null) {
+                blockInfo = new BlockInfo();
+                blockInfos.add(blockInfo);
             }
-        }
-        if (blockInfo == null) {
-            blockInfo = new BlockInfo();
-            blockInfos.add(blockInfo);
-        }
 
-        blockInfo.setCummDifficulty(cummDifficulty);
-        blockInfo.setHash(block.getHash().getBytes());
-        blockInfo.setMainChain(mainChain);
+            blockInfo.setCummDifficulty(cummDifficulty);
+            blockInfo.setHash(block.getHash().getBytes());
+            blockInfo.setMainChain(mainChain);
 
-        if (blocks.get(block.getHash().getBytes()) == null) {
-            blocks.put(block.getHash().getBytes(), block.getEncoded());
-        }
+            if (blocks.get(block.getHash().getBytes()) == null) {
+                blocks.put(block.getHash().getBytes(), block.getEncoded());
+            }
 
-        index.putBlocks(block.getNumber(), blockInfos);
-        blockCache.addBlock(block);
-        remascCache.put(block.getHash(), getSiblingsFromBlock(block));
+            index.putBlocks(block.getNumber(), blockInfos);
+            blockCache.addBlock(block);
+            remascCache.put(block.getHash(), getSiblingsFromBlock(block));
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     @Override
-    public synchronized List<BlockInformation> getBlocksInformationByNumber(long number) {
-        List<BlockInformation> result = new ArrayList<>();
+    public List<BlockInformation> getBlocksInformationByNumber(long number) {
+        lock.readLock().lock();
 
-        List<BlockInfo> blockInfos = index.getBlocksByNumber(number);
+        try {
+            List<BlockInformation> result = new ArrayList<>();
 
-        for (BlockInfo blockInfo : blockInfos) {
-            byte[] hash = blockInfo.getHash().copy().getBytes();
-            BlockDifficulty totalDifficulty = blockInfo.getCummDifficulty();
-            boolean isInBlockChain = blockInfo.isMainChain();
+            List<BlockInfo> blockInfos = index.getBlocksByNumber(number);
 
-            result.add(new BlockInformation(hash, totalDifficulty, isInBlockChain));
-        }
+            for (BlockInfo blockInfo : blockInfos) {
+                byte[] hash = blockInfo.getHash().copy().getBytes();
+                BlockDifficulty totalDifficulty = blockInfo.getCummDifficulty();
+                boolean isInBlockChain = blockInfo.isMainChain();
+
+                result.add(new BlockInformation(hash, totalDifficulty, isInBlockChain));
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @Override
@@ -241,34 +288,45 @@ public class IndexedBlockStore implements BlockStore {
     }
 
     @Override
-    public synchronized Block getChainBlockByNumber(long number){
-        List<BlockInfo> blockInfos = index.getBlocksByNumber(number);
+    public Block getChainBlockByNumber(long number){
+        lock.readLock().lock();
 
-        for (BlockInfo blockInfo : blockInfos) {
-            if (blockInfo.isMainChain()) {
+        try {
+            List<BlockInfo> blockInfos = index.getBlocksByNumber(number);
 
-                byte[] hash = blockInfo.getHash().getBytes();
-                return getBlockByHash(hash);
+            for (BlockInfo blockInfo : blockInfos) {
+                if (blockInfo.isMainChain()) {
+
+                    byte[] hash = blockInfo.getHash().getBytes();
+                    return getBlockByHash(hash);
+                }
             }
-        }
 
-        return null;
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @Override
-    public synchronized Block getBlockByHash(byte[] hash) {
+    public Block getBlockByHash(byte[] hash) {
+        lock.readLock().lock();
 
-        Block block = getBlock(hash);
-        if (block == null) {
-            return null;
-        }
+        try {
+            Block block = getBlock(hash);
+            if (block == null) {
+                return null;
+            }
 
-        blockCache.addBlock(block);
-        remascCache.put(block.getHash(), getSiblingsFromBlock(block));
-        return block;
+            blockCache.addBlock(block);
+            remascCache.put(block.getHash(), getSiblingsFromBlock(block));
+            return block;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    private synchronized Block getBlock(byte[] hash) {
+    private Block getBlock(byte[] hash) {
         Block block = this.blockCache.getBlockByHash(hash);
 
         if (block != null) {
@@ -284,32 +342,50 @@ public class IndexedBlockStore implements BlockStore {
     }
 
     @Override
-    public synchronized Map<Long, List<Sibling>> getSiblingsFromBlockByHash(Keccak256 hash) {
-        return this.remascCache.computeIfAbsent(hash, key -> getSiblingsFromBlock(getBlock(key.getBytes())));
+    public Map<Long, List<Sibling>> getSiblingsFromBlockByHash(Keccak256 hash) {
+        lock.readLock().lock();
+
+        try {
+            return this.remascCache.computeIfAbsent(hash, key -> getSiblingsFromBlock(getBlock(key.getBytes())));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @Override
-    public synchronized boolean isBlockExist(byte[] hash) {
-        return getBlockByHash(hash) != null;
+    public boolean isBlockExist(byte[] hash) {
+        lock.readLock().lock();
+
+        try {
+            return getBlockByHash(hash) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @Override
-    public synchronized BlockDifficulty getTotalDifficultyForHash(byte[] hash){
-        Block block = this.getBlockByHash(hash);
-        if (block == null) {
-            return ZERO;
-        }
+    public BlockDifficulty getTotalDifficultyForHash(byte[] hash){
+        lock.readLock().lock();
 
-        long level = block.getNumber();
-        List<BlockInfo> blockInfos =  index.getBlocksByNumber(level);
+        try {
+            Block block = this.getBlockByHash(hash);
+            if (block == null) {
+                return ZERO;
+            }
 
-        for (BlockInfo blockInfo : blockInfos) {
-            if (Arrays.equals(blockInfo.getHash().getBytes(), hash)) {
-                return blockInfo.getCummDifficulty();
+            long level = block.getNumber();
+            List<BlockInfo> blockInfos =  index.getBlocksByNumber(level);
+
+            for (BlockInfo blockInfo : blockInfos) {
+                if (Arrays.equals(blockInfo.getHash().getBytes(), hash)) {
+                    return blockInfo.getCummDifficulty();
+                }
             }
-        }
 
-        return ZERO;
+            return ZERO;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @Override
@@ -323,19 +399,24 @@ public class IndexedBlockStore implements BlockStore {
     }
 
     @Override
-    public synchronized List<byte[]> getListHashesEndWith(byte[] hash, long number){
+    public List<byte[]> getListHashesEndWith(byte[] hash, long number){
+        lock.readLock().lock();
 
-        List<Block> blocks = getListBlocksEndWith(hash, number);
-        List<byte[]> hashes = new ArrayList<>(blocks.size());
+        try {
+            List<Block> blocks = getListBlocksEndWith(hash, number);
+            List<byte[]> hashes = new ArrayList<>(blocks.size());
 
-        for (Block b : blocks) {
-            hashes.add(b.getHash().getBytes());
-        }
+            for (Block b : blocks) {
+                hashes.add(b.getHash().getBytes());
+            }
 
-        return hashes;
+            return hashes;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    private synchronized List<Block> getListBlocksEndWith(byte[] hash, long qty) {
+    private List<Block> getListBlocksEndWith(byte[] hash, long qty) {
         Block block = getBlockByHash(hash);
 
         if (block == null) {
@@ -357,98 +438,108 @@ public class IndexedBlockStore implements BlockStore {
     }
 
     @Override
-    public synchronized void reBranch(Block forkBlock){
-
-        Block bestBlock = getBestBlock();
-        long maxLevel = Math.max(bestBlock.getNumber(), forkBlock.getNumber());
-
-        // 1. First ensure that you are on the save level
-        long currentLevel = maxLevel;
-        Block forkLine = forkBlock;
-
-        if (forkBlock.getNumber() > bestBlock.getNumber()) {
-
-            while(currentLevel > bestBlock.getNumber()) {
-                List<BlockInfo> blocks = index.getBlocksByNumber(currentLevel);
-                BlockInfo blockInfo = getBlockInfoForHash(blocks, forkLine.getHash().getBytes());
-                if (blockInfo != null) {
-                    blockInfo.setMainChain(true);
-                    if (index.contains(currentLevel)) {
-                        index.putBlocks(currentLevel, blocks);
+    public void reBranch(Block forkBlock){
+        lock.writeLock().lock();
+
+        try {
+            Block bestBlock = getBestBlock();
+            long maxLevel = Math.max(bestBlock.getNumber(), forkBlock.getNumber());
+
+            // 1. First ensure that you are on the save level
+            long currentLevel = maxLevel;
+            Block forkLine = forkBlock;
+
+            if (forkBlock.getNumber() > bestBlock.getNumber()) {
+
+                while(currentLevel > bestBlock.getNumber()) {
+                    List<BlockInfo> blocks = index.getBlocksByNumber(currentLevel);
+                    BlockInfo blockInfo = getBlockInfoForHash(blocks, forkLine.getHash().getBytes());
+                    if (blockInfo != null) {
+                        blockInfo.setMainChain(true);
+                        if (index.contains(currentLevel)) {
+                            index.putBlocks(currentLevel, blocks);
+                        }
                     }
+                    forkLine = getBlockByHash(forkLine.getParentHash().getBytes());
+                    --currentLevel;
                 }
-                forkLine = getBlockByHash(forkLine.getParentHash().getBytes());
-                --currentLevel;
             }
-        }
-
-        Block bestLine = bestBlock;
-        if (bestBlock.getNumber() > forkBlock.getNumber()){
 
-            while(currentLevel > forkBlock.getNumber()) {
-                List<BlockInfo> blocks =  index.getBlocksByNumber(currentLevel);
-                BlockInfo blockInfo = getBlockInfoForHash(blocks, bestLine.getHash().getBytes());
-                if (blockInfo != null) {
-                    blockInfo.setMainChain(false);
-                    if (index.contains(currentLevel)) {
-                        index.putBlocks(currentLevel, blocks);
+            Block bestLine = bestBlock;
+            if (bestBlock.getNumber() > forkBlock.getNumber()){
+
+                while(currentLevel > forkBlock.getNumber()) {
+                    List<BlockInfo> blocks =  index.getBlocksByNumber(currentLevel);
+                    BlockInfo blockInfo = getBlockInfoForHash(blocks, bestLine.getHash().getBytes());
+                    if (blockInfo != null) {
+                        blockInfo.setMainChain(false);
+                        if (index.contains(currentLevel)) {
+                            index.putBlocks(currentLevel, blocks);
+                        }
                     }
+                    bestLine = getBlockByHash(bestLine.getParentHash().getBytes());
+                    --currentLevel;
                 }
-                bestLine = getBlockByHash(bestLine.getParentHash().getBytes());
-                --currentLevel;
             }
-        }
 
-        // 2. Loop back on each level until common block
-        while( !bestLine.isEqual(forkLine) ) {
+            // 2. Loop back on each level until common block
+            while( !bestLine.isEqual(forkLine) ) {
 
-            List<BlockInfo> levelBlocks = index.getBlocksByNumber(currentLevel);
-            BlockInfo bestInfo = getBlockInfoForHash(levelBlocks, bestLine.getHash().getBytes());
-            if (bestInfo != null) {
-                bestInfo.setMainChain(false);
-                if (index.contains(currentLevel)) {
-                    index.putBlocks(currentLevel, levelBlocks);
+                List<BlockInfo> levelBlocks = index.getBlocksByNumber(currentLevel);
+                BlockInfo bestInfo = getBlockInfoForHash(levelBlocks, bestLine.getHash().getBytes());
+                if (bestInfo != null) {
+                    bestInfo.setMainChain(false);
+                    if (index.contains(currentLevel)) {
+                        index.putBlocks(currentLevel, levelBlocks);
+                    }
                 }
-            }
 
-            BlockInfo forkInfo = getBlockInfoForHash(levelBlocks, forkLine.getHash().getBytes());
-            if (forkInfo != null) {
-                forkInfo.setMainChain(true);
-                if (index.contains(currentLevel)) {
-                    index.putBlocks(currentLevel, levelBlocks);
+                BlockInfo forkInfo = getBlockInfoForHash(levelBlocks, forkLine.getHash().getBytes());
+                if (forkInfo != null) {
+                    forkInfo.setMainChain(true);
+                    if (index.contains(currentLevel)) {
+                        index.putBlocks(currentLevel, levelBlocks);
+                    }
                 }
-            }
 
-            bestLine = getBlockByHash(bestLine.getParentHash().getBytes());
-            forkLine = getBlockByHash(forkLine.getParentHash().getBytes());
+                bestLine = getBlockByHash(bestLine.getParentHash().getBytes());
+                forkLine = getBlockByHash(forkLine.getParentHash().getBytes());
 
-            --currentLevel;
+                --currentLevel;
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
     @VisibleForTesting
-    public synchronized List<byte[]> getListHashesStartWith(long number, long maxBlocks) {
-
-        List<byte[]> result = new ArrayList<>();
+    public List<byte[]> getListHashesStartWith(long number, long maxBlocks) {
+        lock.readLock().lock();
 
-        int i;
-        for (i = 0; i < maxBlocks; ++i) {
-            List<BlockInfo> blockInfos =  index.getBlocksByNumber(number);
-            if (blockInfos == null) {
-                break;
-            }
+        try {
+            List<byte[]> result = new ArrayList<>();
 
-            for (BlockInfo blockInfo : blockInfos) {
-                if (blockInfo.isMainChain()) {
-                    result.add(blockInfo.getHash().getBytes());
+            int i;
+            for (i = 0; i < maxBlocks; ++i) {
+                List<BlockInfo> blockInfos =  index.getBlocksByNumber(number);
+                if (blockInfos == null) {
                     break;
                 }
+
+                for (BlockInfo blockInfo : blockInfos) {
+                    if (blockInfo.isMainChain()) {
+                        result.add(blockInfo.getHash().getBytes());
+                        break;
+                    }
+                }
+
+                ++number;
             }
 
-            ++number;
+            return result;
+        } finally {
+            lock.readLock().unlock();
         }
-
-        return result;
     }
 
 
@@ -468,27 +559,33 @@ public class IndexedBlockStore implements BlockStore {
     }
 
     @Override
-    public synchronized List<Block> getChainBlocksByNumber(long number){
-        List<Block> result = new ArrayList<>();
+    public List<Block> getChainBlocksByNumber(long number){
+        lock.readLock().lock();
 
-        List<BlockInfo> blockInfos = index.getBlocksByNumber(number);
+        try {
+            List<Block> result = new ArrayList<>();
 
-        if (blockInfos == null){
-            return result;
-        }
+            List<BlockInfo> blockInfos = index.getBlocksByNumber(number);
+
+            if (blockInfos == null){
+                return result;
+            }
 
-        for (BlockInfo blockInfo : blockInfos){
+            for (BlockInfo blockInfo : blockInfos){
 
-            byte[] hash = blockInfo.getHash().getBytes();
-            Block block = getBlockByHash(hash);
+                byte[] hash = blockInfo.getHash().getBytes();
+                Block block = getBlockByHash(hash);
 
-            // TODO(mc) investigate and fix this, probably a cache invalidation problem
-            if (block != null) {
-                result.add(block);
+                // TODO(mc) investigate and fix this, probably a cache invalidation problem
+                if (block != null) {
+                    result.add(block);
+                }
             }
-        }
 
-        return result;
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -497,20 +594,26 @@ public class IndexedBlockStore implements BlockStore {
      */
     @Override
     public void rewind(long blockNumber) {
-        if (index.isEmpty()) {
-            return;
-        }
+        lock.writeLock().lock();
+
+        try {
+            if (index.isEmpty()) {
+                return;
+            }
 
-        long maxNumber = getMaxNumber();
-        for (long i = maxNumber; i > blockNumber; i--) {
-            List<BlockInfo> blockInfos = index.removeLast();
+            long maxNumber = getMaxNumber();
+            for (long i = maxNumber; i > blockNumber; i--) {
+                List<BlockInfo> blockInfos = index.removeLast();
 
-            for (BlockInfo blockInfo : blockInfos) {
-                this.blocks.delete(blockInfo.getHash().getBytes());
+                for (BlockInfo blockInfo : blockInfos) {
+                    this.blocks.delete(blockInfo.getHash().getBytes());
+                }
             }
-        }
 
-        flush();
+            flush();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
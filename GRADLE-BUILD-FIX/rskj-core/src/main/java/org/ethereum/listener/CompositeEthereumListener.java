@@ -32,11 +32,21 @@ import org.ethereum.net.server.Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
+ * By default the listeners are invoked one after the other on the caller's thread. When created with a queue size,
+ * each listener gets its own thread, which takes the events in order from a bounded queue, so a slow listener
+ * doesn't hold back the block import. Listeners that the caller relies on are added with
+ * {@link #addSynchronousListener(EthereumListener)} and still run on the caller's thread.
+ *
  * @author Roman Mandeleil
  * @since 12.11.2014
  */
@@ -44,16 +54,62 @@ public class CompositeEthereumListener implements EthereumListener {
     private static final Logger logger = LoggerFactory.getLogger("events");
     private static final PanicProcessor panicProcessor = new PanicProcessor();
 
+    private static final long STATS_LOG_INTERVAL = 1000;
+
     // Using a concurrent list
     // (the add and remove methods copy an internal array,
     // but the iterator directly use the internal array)
-    private final List<EthereumListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<ListenerDispatcher> dispatchers = new CopyOnWriteArrayList<>();
+
+    // size of the queue of each listener, 0 when the events are delivered on the caller's thread
+    private final int queueSize;
+
+    public CompositeEthereumListener() {
+        this(0);
+    }
+
+    /**
+     * @param queueSize the number of events waiting for each listener, 0 to invoke every listener on the caller's
+     *                  thread. The events that don't fit in the queue of a listener are dropped.
+     */
+    public CompositeEthereumListener(int queueSize) {
+        this.queueSize = queueSize;
+    }
 
     public void addListener(EthereumListener listener) {
-        listeners.add(listener);
+        addDispatcher(new ListenerDispatcher(listener, queueSize));
     }
+
+    /**
+     * Adds a listener that is always invoked on the caller's thread, before the caller goes on
+     */
+    public void addSynchronousListener(EthereumListener listener) {
+        addDispatcher(new ListenerDispatcher(listener, 0));
+    }
+
     public void removeListener(EthereumListener listener) {
-        listeners.remove(listener);
+        for (ListenerDispatcher dispatcher : dispatchers) {
+            if (dispatcher.listener.equals(listener)) {
+                dispatchers.remove(dispatcher);
+                dispatcher.stop();
+                return;
+            }
+        }
+    }
+
+    public List<ListenerStats> getListenerStats() {
+        List<ListenerStats> stats = new ArrayList<>();
+
+        for (ListenerDispatcher dispatcher : dispatchers) {
+            stats.add(dispatcher.getStats());
+        }
+
+        return stats;
+    }
+
+    private void addDispatcher(ListenerDispatcher dispatcher) {
+        dispatchers.add(dispatcher);
+        dispatcher.start();
     }
 
     @Override
@@ -69,6 +125,13 @@ public class CompositeEthereumListener implements EthereumListener {
     @Override
     public void onBestBlock(Block block, List<TransactionReceipt> receipts) {
         scheduleListenerCallbacks(listener -> listener.onBestBlock(block, receipts));
+
+        if (queueSize > 0 && block.getNumber() % STATS_LOG_INTERVAL == 0 && logger.isDebugEnabled()) {
+            for (ListenerStats stats : getListenerStats()) {
+                logger.debug("Listener {}: queued {}, processed {}, dropped {}, average processing {} ms",
+                        stats.getName(), stats.getQueued(), stats.getProcessed(), stats.getDropped(), stats.getAverageProcessingMillis());
+            }
+        }
     }
 
     @Override
@@ -127,12 +190,102 @@ public class CompositeEthereumListener implements EthereumListener {
     }
 
     private void scheduleListenerCallbacks(Consumer<EthereumListener> callback) {
-        for (EthereumListener listener : listeners) {
+        for (ListenerDispatcher dispatcher : dispatchers) {
+            dispatcher.dispatch(callback);
+        }
+    }
+
+    /**
+     * Delivers the events to a listener, on the caller's thread or on its own thread when it has a queue
+     */
+    private static class ListenerDispatcher implements Runnable {
+        private final EthereumListener listener;
+        private final BlockingQueue<Consumer<EthereumListener>> queue;
+        private final Thread thread;
+
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong processingNanos = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+
+        private volatile boolean stopped;
+
+        ListenerDispatcher(EthereumListener listener, int queueSize) {
+            this.listener = listener;
+
+            if (queueSize > 0) {
+                this.queue = new ArrayBlockingQueue<>(queueSize);
+                this.thread = new Thread(this, "listener " + getName());
+                this.thread.setDaemon(true);
+            } else {
+                this.queue = null;
+                this.thread = null;
+            }
+        }
+
+        void start() {
+            if (thread != null) {
+                thread.start();
+            }
+        }
+
+        void stop() {
+            stopped = true;
+
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+
+        void dispatch(Consumer<EthereumListener> callback) {
+            if (queue == null) {
+                invoke(callback);
+                return;
+            }
+
+            if (!queue.offer(callback)) {
+                long count = dropped.incrementAndGet();
+
+                if (count == 1 || count % STATS_LOG_INTERVAL == 0) {
+                    logger.warn("Listener {} is behind, {} events dropped", getName(), count);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                try {
+                    invoke(queue.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        ListenerStats getStats() {
+            long processedCount = processed.get();
+            long averageProcessingMillis = processedCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(processingNanos.get() / processedCount);
+
+            return new ListenerStats(getName(), queue == null, queue == null ? 0 : queue.size(),
+                    processedCount, dropped.get(), averageProcessingMillis);
+        }
+
+        private String getName() {
+            return listener.getClass().getName();
+        }
+
+        private void invoke(Consumer<EthereumListener> callback) {
+            long start = System.nanoTime();
+
             try {
                 callback.accept(listener);
             } catch (Throwable e) {
                 logger.error("Listener callback failed with exception", e);
                 panicProcessor.panic("thread", String.format("Listener callback failed with exception %s", e.getMessage()));
+            } finally {
+                processingNanos.addAndGet(System.nanoTime() - start);
+                processed.incrementAndGet();
             }
         }
     }
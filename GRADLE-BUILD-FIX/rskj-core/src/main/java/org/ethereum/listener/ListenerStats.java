@@ -0,0 +1,63 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.listener;
+
+/**
+ * The backlog and the processing time of a listener of the {@link CompositeEthereumListener}
+ */
+public class ListenerStats {
+    private final String name;
+    private final boolean synchronous;
+    private final int queued;
+    private final long processed;
+    private final long dropped;
+    private final long averageProcessingMillis;
+
+    public ListenerStats(String name, boolean synchronous, int queued, long processed, long dropped, long averageProcessingMillis) {
+        this.name = name;
+        this.synchronous = synchronous;
+        this.queued = queued;
+        this.processed = processed;
+        this.dropped = dropped;
+        this.averageProcessingMillis = averageProcessingMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isSynchronous() {
+        return synchronous;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getAverageProcessingMillis() {
+        return averageProcessingMillis;
+    }
+}
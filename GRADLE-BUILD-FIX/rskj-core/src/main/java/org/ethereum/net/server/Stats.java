@@ -151,6 +151,18 @@ public class Stats {
                 return 0.5;
             case BLOCK_HEADERS_RESPONSE_MESSAGE:
                 return 5;
+            case SNAPSHOT_STATUS_REQUEST_MESSAGE:
+                return 0.5;
+            case SNAPSHOT_STATUS_RESPONSE_MESSAGE:
+                return 3;
+            case STATE_NODES_REQUEST_MESSAGE:
+                return 0.5;
+            case STATE_NODES_RESPONSE_MESSAGE:
+                return 3;
+            case TRANSACTION_HASHES_MESSAGE:
+                return 2;
+            case TRANSACTIONS_REQUEST_MESSAGE:
+                return 1;
         }
         return 0.0;
     }
@@ -20,11 +20,13 @@
 package org.ethereum.rpc;
 
 import co.rsk.core.RskAddress;
+import co.rsk.logfilter.LogIndexStore;
 import org.ethereum.core.Bloom;
 import org.ethereum.crypto.Keccak256Helper;
 import org.ethereum.vm.DataWord;
 import org.ethereum.vm.LogInfo;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -107,6 +109,43 @@ public class AddressesTopicsFilter {
         return true;
     }
 
+    /**
+     * Looks for the blocks that may have matching logs in a log index
+     *
+     * A block is a candidate when it has a log of one of the addresses, and it has logs with one
+     * of the topics of each position. The logs of the candidates still have to be matched exactly
+     *
+     * @return the sorted candidate block numbers, null if there are no addresses or topics to look for
+     */
+    @Nullable
+    long[] matchIndex(LogIndexStore logIndexStore, long fromBlock, long toBlock) {
+        long[] candidates = null;
+
+        if (addresses.length > 0) {
+            candidates = new long[0];
+
+            for (RskAddress address : addresses) {
+                candidates = LogIndexStore.union(candidates, logIndexStore.getAddressBlockNumbers(address, fromBlock, toBlock));
+            }
+        }
+
+        for (Topic[] orTopics : topics) {
+            if (orTopics == null || orTopics.length == 0) {
+                continue;
+            }
+
+            long[] topicCandidates = new long[0];
+
+            for (Topic topic : orTopics) {
+                topicCandidates = LogIndexStore.union(topicCandidates, logIndexStore.getTopicBlockNumbers(topic.getBytes(), fromBlock, toBlock));
+            }
+
+            candidates = candidates == null ? topicCandidates : LogIndexStore.intersection(candidates, topicCandidates);
+        }
+
+        return candidates;
+    }
+
     boolean matchesContractAddress(RskAddress toAddr) {
         for (RskAddress address : addresses) {
             if (address.equals(toAddr)) {
@@ -75,6 +75,16 @@ public class Filter {
         events.add(evt);
     }
 
+    protected void addAll(Filter other) {
+        List<FilterEvent> otherEvents;
+
+        synchronized (other) {
+            otherEvents = new ArrayList<>(other.events);
+        }
+
+        otherEvents.forEach(this::add);
+    }
+
     protected void reverseEvents() {
         Collections.reverse(this.events);
     }
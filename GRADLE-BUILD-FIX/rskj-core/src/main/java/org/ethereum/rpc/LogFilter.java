@@ -23,6 +23,8 @@ import co.rsk.crypto.Keccak256;
 import co.rsk.jsonrpc.JsonRpcError;
 import co.rsk.logfilter.BlocksBloom;
 import co.rsk.logfilter.BlocksBloomStore;
+import co.rsk.logfilter.LogIndexStore;
+import co.rsk.rpc.BlockRangeScanner;
 import co.rsk.rpc.netty.ExecTimeoutContext;
 import co.rsk.util.HexUtils;
 import org.ethereum.core.*;
@@ -31,14 +33,19 @@ import org.ethereum.rpc.exception.RskJsonRpcRequestException;
 import org.ethereum.vm.LogInfo;
 
 import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
  * Created by ajlopez on 17/01/2018.
  */
 public class LogFilter extends Filter {
 
+    // blocks processed by each task of a parallel scan, rounded up to whole bloom ranges
+    private static final int BLOCKS_PER_CHUNK = 256;
+
     private final AddressesTopicsFilter addressesTopicsFilter;
     private final boolean fromLatestBlock;
     private final boolean toLatestBlock;
@@ -117,6 +124,10 @@ public class LogFilter extends Filter {
     }
 
     public static LogFilter fromFilterRequest(FilterRequest fr, Blockchain blockchain, BlocksBloomStore blocksBloomStore, Long maxBlocksToQuery, Long maxBlocksToReturn) {
+        return fromFilterRequest(fr, blockchain, blocksBloomStore, null, null, maxBlocksToQuery, maxBlocksToReturn);
+    }
+
+    public static LogFilter fromFilterRequest(FilterRequest fr, Blockchain blockchain, BlocksBloomStore blocksBloomStore, @Nullable LogIndexStore logIndexStore, @Nullable BlockRangeScanner blockRangeScanner, Long maxBlocksToQuery, Long maxBlocksToReturn) {
         RskAddress[] addresses;
         // Now, there is an array of array of topics
         // first level are topic filters by position
@@ -202,7 +213,7 @@ public class LogFilter extends Filter {
                 .maxBlocksToReturn(maxBlocksToReturn)
                 .build();
 
-        retrieveHistoricalData(fr, blockchain, filter, blocksBloomStore);
+        retrieveHistoricalData(fr, blockchain, filter, blocksBloomStore, logIndexStore, blockRangeScanner);
 
         return filter;
     }
@@ -216,7 +227,7 @@ public class LogFilter extends Filter {
         }
     }
 
-    private static void retrieveHistoricalData(FilterRequest fr, Blockchain blockchain, LogFilter filter, BlocksBloomStore blocksBloomStore) {
+    private static void retrieveHistoricalData(FilterRequest fr, Blockchain blockchain, LogFilter filter, BlocksBloomStore blocksBloomStore, @Nullable LogIndexStore logIndexStore, @Nullable BlockRangeScanner blockRangeScanner) {
         if (fr.getBlockHash() != null) {
             processSingleBlockByHash(fr.getBlockHash(), blockchain, filter, blocksBloomStore);
             return;
@@ -233,7 +244,11 @@ public class LogFilter extends Filter {
             // need to add historical data
             blockTo = blockTo == null ? blockchain.getBestBlock() : blockTo;
 
-            processBlocks(blockFrom, blockTo, filter, blockchain, blocksBloomStore);
+            if (blockRangeScanner != null && blockRangeScanner.isParallel() && blockTo.getNumber() - blockFrom.getNumber() >= BLOCKS_PER_CHUNK) {
+                processBlocksInParallel(blockFrom, blockTo, filter, blockchain, blocksBloomStore, logIndexStore, blockRangeScanner);
+            } else {
+                processBlocks(blockFrom, blockTo, filter, blockchain, blocksBloomStore, logIndexStore);
+            }
         } else if ("latest".equalsIgnoreCase(fr.getFromBlock())) {
             filter.onBlock(blockchain.getBestBlock(), false);
         }
@@ -246,10 +261,11 @@ public class LogFilter extends Filter {
             return;
         }
 
-        processBlocks(blockByHash, blockByHash, filter, blockchain, blocksBloomStore);
+        // the block could be out of the main chain, so the log index doesn't apply
+        processBlocks(blockByHash, blockByHash, filter, blockchain, blocksBloomStore, null);
     }
 
-    private static void processBlocks(Block fromBlock, Block toBlock, LogFilter filter, Blockchain blockchain, BlocksBloomStore blocksBloomStore) {
+    private static void processBlocks(Block fromBlock, Block toBlock, LogFilter filter, Blockchain blockchain, BlocksBloomStore blocksBloomStore, @Nullable LogIndexStore logIndexStore) {
         filter.checkLimit(fromBlock.getNumber(), toBlock.getNumber());
 
         final long bestBlockNumber = blockchain.getBestBlock().getNumber();
@@ -265,6 +281,20 @@ public class LogFilter extends Filter {
         do {
             ExecTimeoutContext.checkIfExpired();
 
+            if (logIndexStore != null && logIndexStore.isIndexed(blockNumber)) {
+                long indexedFrom = Math.max(fromBlock.getNumber(), logIndexStore.getFirstIndexedNumber());
+                long[] candidates = filter.addressesTopicsFilter.matchIndex(logIndexStore, indexedFrom, blockNumber);
+
+                if (candidates != null) {
+                    processCandidates(candidates, filter, blockchain);
+                    blockNumber = indexedFrom - 1;
+                    skippingToNumber = true;
+                    // the blocks in between weren't collected, a new bloom starts at the next last in range block
+                    bloomAccumulator = null;
+                    continue;
+                }
+            }
+
             boolean isConfirmedBlock = blockNumber <= bestBlockNumber - blocksBloomStore.getNoConfirmations();
 
             BlocksBloom blocksBloom = isConfirmedBlock ? blocksBloomStore.getBlocksBloomByNumber(blockNumber) : null;
@@ -298,6 +328,104 @@ public class LogFilter extends Filter {
         filter.reverseEvents();
     }
 
+    /**
+     * Processes the range in chunks of whole bloom ranges, on the threads of the scanner. Each chunk collects
+     * its logs in order in its own filter, and they are added to the filter in the order of the chunks
+     */
+    private static void processBlocksInParallel(Block fromBlock, Block toBlock, LogFilter filter, Blockchain blockchain, BlocksBloomStore blocksBloomStore, @Nullable LogIndexStore logIndexStore, BlockRangeScanner blockRangeScanner) {
+        filter.checkLimit(fromBlock.getNumber(), toBlock.getNumber());
+
+        final long bestBlockNumber = blockchain.getBestBlock().getNumber();
+
+        long indexedFrom = -1;
+        long indexedTo = -1;
+        long[] candidates = null;
+
+        if (logIndexStore != null && !logIndexStore.isEmpty()) {
+            indexedFrom = Math.max(fromBlock.getNumber(), logIndexStore.getFirstIndexedNumber());
+            indexedTo = Math.min(toBlock.getNumber(), logIndexStore.getLastIndexedNumber());
+            candidates = indexedFrom <= indexedTo ? filter.addressesTopicsFilter.matchIndex(logIndexStore, indexedFrom, indexedTo) : null;
+        }
+
+        final LogIndexRange logIndexRange = new LogIndexRange(indexedFrom, indexedTo, candidates);
+        int noBlocks = blocksBloomStore.getNoBlocks();
+        long chunkSize = ((BLOCKS_PER_CHUNK + noBlocks - 1) / noBlocks) * (long) noBlocks;
+
+        blockRangeScanner.scan(fromBlock.getNumber(), toBlock.getNumber(), chunkSize,
+                (from, to) -> processChunk(from, to, toBlock, filter, blockchain, blocksBloomStore, logIndexRange, bestBlockNumber),
+                chunkFilter -> {
+                    filter.addAll(chunkFilter);
+                    return true;
+                });
+    }
+
+    private static LogFilter processChunk(long fromNumber, long toNumber, Block toBlock, LogFilter filter, Blockchain blockchain, BlocksBloomStore blocksBloomStore, LogIndexRange logIndexRange, long bestBlockNumber) {
+        LogFilter chunkFilter = new LogFilter(filter.addressesTopicsFilter, blockchain, false, false, 0, filter.maxLogsToReturn);
+
+        for (long rangeFrom = fromNumber; rangeFrom <= toNumber; ) {
+            long rangeTo = Math.min(toNumber, blocksBloomStore.lastNumberInRange(rangeFrom));
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Scan of blocks cancelled");
+            }
+
+            if (logIndexRange.covers(rangeFrom, rangeTo)) {
+                for (long blockNumber : logIndexRange.candidatesIn(rangeFrom, rangeTo)) {
+                    chunkFilter.onBlock(chunkBlock(blockNumber, toBlock, blockchain), false);
+                }
+            } else {
+                processBloomRange(rangeFrom, rangeTo, toBlock, chunkFilter, blockchain, blocksBloomStore, bestBlockNumber);
+            }
+
+            rangeFrom = rangeTo + 1;
+        }
+
+        return chunkFilter;
+    }
+
+    private static void processBloomRange(long rangeFrom, long rangeTo, Block toBlock, LogFilter chunkFilter, Blockchain blockchain, BlocksBloomStore blocksBloomStore, long bestBlockNumber) {
+        boolean isConfirmedRange = rangeTo <= bestBlockNumber - blocksBloomStore.getNoConfirmations();
+
+        BlocksBloom blocksBloom = isConfirmedRange ? blocksBloomStore.getBlocksBloomByNumber(rangeFrom) : null;
+        if (canSkipByBloom(blocksBloom, chunkFilter)) {
+            return;
+        }
+
+        // as in the sequential scan, only complete blooms are saved
+        boolean isCompleteRange = blocksBloomStore.firstNumberInRange(rangeFrom) == rangeFrom && blocksBloomStore.lastNumberInRange(rangeFrom) == rangeTo;
+        BlocksBloom bloomAccumulator = isConfirmedRange && blocksBloom == null && isCompleteRange ? BlocksBloom.createEmpty() : null;
+
+        for (long blockNumber = rangeFrom; blockNumber <= rangeTo; blockNumber++) {
+            Block block = chunkBlock(blockNumber, toBlock, blockchain);
+
+            chunkFilter.onBlock(block, false);
+
+            if (bloomAccumulator != null) {
+                bloomAccumulator.addBlockBloom(blockNumber, new Bloom(block.getLogBloom()));
+            }
+        }
+
+        if (bloomAccumulator != null) {
+            blocksBloomStore.addBlocksBloom(bloomAccumulator);
+        }
+    }
+
+    private static Block chunkBlock(long blockNumber, Block toBlock, Blockchain blockchain) {
+        return blockNumber == toBlock.getNumber() ? toBlock : blockchain.getBlockByNumber(blockNumber);
+    }
+
+    private static void processCandidates(long[] candidates, LogFilter filter, Blockchain blockchain) {
+        // in reverse order, as the rest of the blocks
+        for (int i = candidates.length - 1; i >= 0; i--) {
+            ExecTimeoutContext.checkIfExpired();
+
+            Block block = blockchain.getBlockByNumber(candidates[i]);
+            if (block != null) {
+                filter.onBlock(block, true);
+            }
+        }
+    }
+
     private static boolean canSkipByBloom(BlocksBloom blocksBloom, LogFilter filter) {
         return blocksBloom != null && !filter.addressesTopicsFilter.matchBloom(blocksBloom.getBloom());
     }
@@ -339,6 +467,39 @@ public class LogFilter extends Filter {
         }
     }
 
+    /**
+     * The part of a query range that is in the log index, with the candidate blocks of the filter
+     */
+    private static class LogIndexRange {
+        private final long fromBlock;
+        private final long toBlock;
+        @Nullable
+        private final long[] candidates;
+
+        LogIndexRange(long fromBlock, long toBlock, @Nullable long[] candidates) {
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+            this.candidates = candidates;
+        }
+
+        boolean covers(long from, long to) {
+            return candidates != null && fromBlock <= from && to <= toBlock;
+        }
+
+        long[] candidatesIn(long from, long to) {
+            int fromIndex = lowerBound(from);
+            int toIndex = lowerBound(to + 1);
+
+            return Arrays.copyOfRange(candidates, fromIndex, toIndex);
+        }
+
+        private int lowerBound(long blockNumber) {
+            int index = Arrays.binarySearch(candidates, blockNumber);
+
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
     public static class LogFilterBuilder {
 
         private AddressesTopicsFilter addressesTopicsFilter;
@@ -23,6 +23,8 @@ import co.rsk.core.RskAddress;
 import co.rsk.core.bc.AccountInformationProvider;
 import co.rsk.crypto.Keccak256;
 import co.rsk.logfilter.BlocksBloomStore;
+import co.rsk.logfilter.LogIndexStore;
+import co.rsk.rpc.BlockRangeScanner;
 import co.rsk.metrics.HashRateCalculator;
 import co.rsk.mine.MinerClient;
 import co.rsk.mine.MinerServer;
@@ -105,6 +107,10 @@ public class Web3Impl implements Web3 {
     private final BuildInfo buildInfo;
 
     private final BlocksBloomStore blocksBloomStore;
+    @Nullable
+    private final LogIndexStore logIndexStore;
+    @Nullable
+    private final BlockRangeScanner blockRangeScanner;
     private final Web3InformationRetriever web3InformationRetriever;
 
     private final PersonalModule personalModule;
@@ -148,6 +154,41 @@ public class Web3Impl implements Web3 {
             Web3InformationRetriever web3InformationRetriever,
             SyncProcessor syncProcessor,
             SignatureCache signatureCache) {
+        this(eth, blockchain, blockStore, receiptStore, config, minerClient, minerServer, personalModule, ethModule,
+                evmModule, txPoolModule, mnrModule, debugModule, traceModule, rskModule, channelManager,
+                peerScoringManager, peerServer, nodeBlockProcessor, hashRateCalculator, configCapabilities, buildInfo,
+                blocksBloomStore, null, null, web3InformationRetriever, syncProcessor, signatureCache);
+    }
+
+    protected Web3Impl(
+            Ethereum eth,
+            Blockchain blockchain,
+            BlockStore blockStore,
+            ReceiptStore receiptStore,
+            RskSystemProperties config,
+            MinerClient minerClient,
+            MinerServer minerServer,
+            PersonalModule personalModule,
+            EthModule ethModule,
+            EvmModule evmModule,
+            TxPoolModule txPoolModule,
+            MnrModule mnrModule,
+            DebugModule debugModule,
+            TraceModule traceModule,
+            RskModule rskModule,
+            ChannelManager channelManager,
+            PeerScoringManager peerScoringManager,
+            PeerServer peerServer,
+            BlockProcessor nodeBlockProcessor,
+            HashRateCalculator hashRateCalculator,
+            ConfigCapabilities configCapabilities,
+            BuildInfo buildInfo,
+            BlocksBloomStore blocksBloomStore,
+            @Nullable LogIndexStore logIndexStore,
+            @Nullable BlockRangeScanner blockRangeScanner,
+            Web3InformationRetriever web3InformationRetriever,
+            SyncProcessor syncProcessor,
+            SignatureCache signatureCache) {
         this.eth = eth;
         this.blockchain = blockchain;
         this.blockStore = blockStore;
@@ -171,6 +212,8 @@ public class Web3Impl implements Web3 {
         this.filterManager = new FilterManager(eth);
         this.buildInfo = buildInfo;
         this.blocksBloomStore = blocksBloomStore;
+        this.logIndexStore = logIndexStore;
+        this.blockRangeScanner = blockRangeScanner;
         this.web3InformationRetriever = web3InformationRetriever;
         this.syncProcessor = syncProcessor;
         this.signatureCache = signatureCache;
@@ -954,7 +997,7 @@ public class Web3Impl implements Web3 {
     private String newFilter(FilterRequest fr) {
         String str = null;
         try {
-            Filter filter = LogFilter.fromFilterRequest(fr, blockchain, blocksBloomStore, config.getRpcEthGetLogsMaxBlockToQuery(), config.getRpcEthGetLogsMaxLogsToReturn());
+            Filter filter = LogFilter.fromFilterRequest(fr, blockchain, blocksBloomStore, logIndexStore, blockRangeScanner, config.getRpcEthGetLogsMaxBlockToQuery(), config.getRpcEthGetLogsMaxLogsToReturn());
             int id = filterManager.registerFilter(filter);
 
             str = toQuantityJsonHex(id);
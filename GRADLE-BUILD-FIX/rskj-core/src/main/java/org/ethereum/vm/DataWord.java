@@ -257,55 +257,43 @@ public final class DataWord implements Comparable<DataWord> {
         return new DataWord(newdata);
     }
 
-    // TODO: mul can be done in more efficient way
-    // TODO:     with shift left shift right trick
-    // TODO      without BigInteger quick hack
+    // The following operations are done on 64 bits limbs by MutableDataWord, see it for the details.
+    // The VM reuses its own MutableDataWord instances instead of calling these methods.
+
     public DataWord mul(DataWord word) {
-        BigInteger result = value().multiply(word.value());
-        return valueOf(result.and(MAX_VALUE));
+        return new MutableDataWord(this).mul(new MutableDataWord(word)).toDataWord();
     }
 
-    // TODO: improve with no BigInteger
     public DataWord div(DataWord word) {
-
         if (word.isZero()) {
             return DataWord.ZERO;
         }
 
-        BigInteger result = value().divide(word.value());
-        return valueOf(result.and(MAX_VALUE));
+        return new MutableDataWord(this).div(new MutableDataWord(word)).toDataWord();
     }
 
-    // TODO: improve with no BigInteger
     public DataWord sDiv(DataWord word) {
         if (word.isZero()) {
             return DataWord.ZERO;
         }
 
-        BigInteger result = sValue().divide(word.sValue());
-        return valueOf(result.and(MAX_VALUE));
+        return new MutableDataWord(this).sDiv(new MutableDataWord(word)).toDataWord();
     }
 
-    // TODO: improve with no BigInteger
     public DataWord sub(DataWord word) {
-        BigInteger result = value().subtract(word.value());
-        return valueOf(result.and(MAX_VALUE));
+        return new MutableDataWord(this).sub(new MutableDataWord(word)).toDataWord();
     }
 
-    // TODO: improve with no BigInteger
     public DataWord exp(DataWord word) {
-        BigInteger result = value().modPow(word.value(), _2_256);
-        return valueOf(result);
+        return new MutableDataWord(this).exp(new MutableDataWord(word)).toDataWord();
     }
 
-    // TODO: improve with no BigInteger
     public DataWord mod(DataWord word) {
         if (word.isZero()) {
             return DataWord.ZERO;
         }
 
-        BigInteger result = value().mod(word.value());
-        return valueOf(result.and(MAX_VALUE));
+        return new MutableDataWord(this).mod(new MutableDataWord(word)).toDataWord();
     }
 
     public DataWord sMod(DataWord word) {
@@ -313,10 +301,7 @@ public final class DataWord implements Comparable<DataWord> {
             return DataWord.ZERO;
         }
 
-        BigInteger result = sValue().abs().mod(word.sValue().abs());
-        result = (sValue().signum() == -1) ? result.negate() : result;
-
-        return valueOf(result.and(MAX_VALUE));
+        return new MutableDataWord(this).sMod(new MutableDataWord(word)).toDataWord();
     }
 
     public DataWord addmod(DataWord word1, DataWord word2) {
@@ -324,8 +309,7 @@ public final class DataWord implements Comparable<DataWord> {
             return DataWord.ZERO;
         }
 
-        BigInteger result = value().add(word1.value()).mod(word2.value());
-        return valueOf(result.and(MAX_VALUE));
+        return new MutableDataWord(this).addmod(new MutableDataWord(word1), new MutableDataWord(word2)).toDataWord();
     }
 
     public DataWord mulmod(DataWord word1, DataWord word2) {
@@ -333,8 +317,7 @@ public final class DataWord implements Comparable<DataWord> {
             return DataWord.ZERO;
         }
 
-        BigInteger result = value().multiply(word1.value()).mod(word2.value());
-        return valueOf(result.and(MAX_VALUE));
+        return new MutableDataWord(this).mulmod(new MutableDataWord(word1), new MutableDataWord(word2)).toDataWord();
     }
 
     /**
@@ -590,4 +573,38 @@ public final class DataWord implements Comparable<DataWord> {
     private static DataWord valueOf(BigInteger data) {
         return new DataWord(ByteUtil.copyToArray(data));
     }
+
+    /**
+     * @param index the limb index, 0 being the least significant one
+     * @return the 64 bits limb at the index, as used by {@link MutableDataWord}
+     */
+    long getLimb(int index) {
+        int offset = BYTES - (index + 1) * Long.BYTES;
+        long limb = 0;
+
+        for (int i = 0; i < Long.BYTES; i++) {
+            limb = (limb << 8) | (data[offset + i] & 0xff);
+        }
+
+        return limb;
+    }
+
+    /**
+     * @param limbs four 64 bits limbs, the least significant one first
+     */
+    static DataWord valueOfLimbs(long[] limbs) {
+        byte[] newdata = new byte[BYTES];
+
+        for (int i = 0; i < limbs.length; i++) {
+            long limb = limbs[i];
+            int offset = BYTES - (i + 1) * Long.BYTES;
+
+            for (int j = Long.BYTES - 1; j >= 0; j--) {
+                newdata[offset + j] = (byte) limb;
+                limb >>>= 8;
+            }
+        }
+
+        return new DataWord(newdata);
+    }
 }
@@ -0,0 +1,571 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.vm;
+
+import java.util.Arrays;
+
+/**
+ * A mutable 256-bit word made of four 64 bits limbs, used to do the {@link DataWord} arithmetic without
+ * {@link java.math.BigInteger}.
+ *
+ * Operations modify this word and return it, so they can be chained, and the other operands are left unchanged.
+ * The results are the same as the {@link DataWord} ones: unsigned modulo 2^256, two's complement for the signed
+ * operations, and zero when dividing by zero.
+ *
+ * A word keeps the scratch space needed by divisions, so reusing the same instances (as the {@link VM} does)
+ * avoids allocations. Instances are not thread safe.
+ */
+public final class MutableDataWord {
+
+    private static final int LIMBS = 4;
+    private static final long DIGIT_MASK = 0xFFFFFFFFL;
+
+    // least significant limb first
+    private final long[] limbs = new long[LIMBS];
+
+    // scratch space: a double width product and 32 bits digits for divisions, least significant first
+    private long[] wide;
+    private long[] operand;
+    private long[] power;
+    private int[] numerator;
+    private int[] denominator;
+    private int[] normalizedNumerator;
+    private int[] normalizedDenominator;
+    private int[] quotient;
+
+    public MutableDataWord() {
+    }
+
+    public MutableDataWord(DataWord word) {
+        set(word);
+    }
+
+    public MutableDataWord set(DataWord word) {
+        for (int i = 0; i < LIMBS; i++) {
+            limbs[i] = word.getLimb(i);
+        }
+
+        return this;
+    }
+
+    public MutableDataWord set(MutableDataWord word) {
+        System.arraycopy(word.limbs, 0, limbs, 0, LIMBS);
+        return this;
+    }
+
+    /**
+     * Sets the value, taken as unsigned.
+     */
+    public MutableDataWord set(long value) {
+        limbs[0] = value;
+        limbs[1] = 0;
+        limbs[2] = 0;
+        limbs[3] = 0;
+        return this;
+    }
+
+    public DataWord toDataWord() {
+        return DataWord.valueOfLimbs(limbs);
+    }
+
+    public boolean isZero() {
+        return (limbs[0] | limbs[1] | limbs[2] | limbs[3]) == 0;
+    }
+
+    public boolean isNegative() {
+        return limbs[3] < 0;
+    }
+
+    public MutableDataWord add(MutableDataWord word) {
+        add(limbs, word.limbs);
+        return this;
+    }
+
+    public MutableDataWord sub(MutableDataWord word) {
+        long borrow = 0;
+
+        for (int i = 0; i < LIMBS; i++) {
+            long a = limbs[i];
+            long b = word.limbs[i];
+            long difference = a - b - borrow;
+            // there is a borrow if b + borrow exceeds a
+            borrow = Long.compareUnsigned(a, b) < 0 || (a == b && borrow != 0) ? 1 : 0;
+            limbs[i] = difference;
+        }
+
+        return this;
+    }
+
+    public MutableDataWord mul(MutableDataWord word) {
+        long[] product = wide();
+        multiply(limbs, word.limbs, product, LIMBS);
+        System.arraycopy(product, 0, limbs, 0, LIMBS);
+        return this;
+    }
+
+    public MutableDataWord div(MutableDataWord word) {
+        if (word.isZero()) {
+            return set(0);
+        }
+
+        if (fitsInLong() && word.fitsInLong()) {
+            return set(Long.divideUnsigned(limbs[0], word.limbs[0]));
+        }
+
+        if (compareUnsigned(limbs, word.limbs) < 0) {
+            return set(0);
+        }
+
+        divide(limbs, LIMBS, word.limbs, true);
+        return this;
+    }
+
+    public MutableDataWord sDiv(MutableDataWord word) {
+        if (word.isZero()) {
+            return set(0);
+        }
+
+        long[] divisor = operand();
+        System.arraycopy(word.limbs, 0, divisor, 0, LIMBS);
+
+        boolean negativeDividend = isNegative();
+        boolean negativeDivisor = word.isNegative();
+
+        if (negativeDividend) {
+            negate(limbs);
+        }
+
+        if (negativeDivisor) {
+            negate(divisor);
+        }
+
+        if (compareUnsigned(limbs, divisor) < 0) {
+            return set(0);
+        }
+
+        divide(limbs, LIMBS, divisor, true);
+
+        if (negativeDividend != negativeDivisor) {
+            negate(limbs);
+        }
+
+        return this;
+    }
+
+    public MutableDataWord mod(MutableDataWord word) {
+        if (word.isZero()) {
+            return set(0);
+        }
+
+        if (fitsInLong() && word.fitsInLong()) {
+            return set(Long.remainderUnsigned(limbs[0], word.limbs[0]));
+        }
+
+        if (compareUnsigned(limbs, word.limbs) < 0) {
+            return this;
+        }
+
+        divide(limbs, LIMBS, word.limbs, false);
+        return this;
+    }
+
+    /**
+     * The remainder has the sign of this word, the dividend, as in {@link DataWord#sMod(DataWord)}.
+     */
+    public MutableDataWord sMod(MutableDataWord word) {
+        if (word.isZero()) {
+            return set(0);
+        }
+
+        long[] divisor = operand();
+        System.arraycopy(word.limbs, 0, divisor, 0, LIMBS);
+
+        boolean negativeDividend = isNegative();
+        boolean negativeDivisor = word.isNegative();
+
+        if (negativeDividend) {
+            negate(limbs);
+        }
+
+        if (negativeDivisor) {
+            negate(divisor);
+        }
+
+        if (compareUnsigned(limbs, divisor) >= 0) {
+            divide(limbs, LIMBS, divisor, false);
+        }
+
+        if (negativeDividend) {
+            negate(limbs);
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets this word to (this + word) % modulus, where the sum is not truncated to 256 bits.
+     */
+    public MutableDataWord addmod(MutableDataWord word, MutableDataWord modulus) {
+        if (modulus.isZero()) {
+            return set(0);
+        }
+
+        long[] sum = wide();
+        System.arraycopy(limbs, 0, sum, 0, LIMBS);
+        sum[LIMBS] = add(sum, word.limbs);
+
+        divide(sum, LIMBS + 1, modulus.limbs, false);
+        return this;
+    }
+
+    /**
+     * Sets this word to (this * word) % modulus, where the product is not truncated to 256 bits.
+     */
+    public MutableDataWord mulmod(MutableDataWord word, MutableDataWord modulus) {
+        if (modulus.isZero()) {
+            return set(0);
+        }
+
+        long[] product = wide();
+        multiply(limbs, word.limbs, product, LIMBS * 2);
+
+        divide(product, LIMBS * 2, modulus.limbs, false);
+        return this;
+    }
+
+    /**
+     * Sets this word to this ^ exponent, modulo 2^256.
+     */
+    public MutableDataWord exp(MutableDataWord exponent) {
+        long[] base = operand();
+        System.arraycopy(limbs, 0, base, 0, LIMBS);
+
+        if (power == null) {
+            power = new long[LIMBS];
+        }
+
+        // copied, as the exponent may be this same word
+        System.arraycopy(exponent.limbs, 0, power, 0, LIMBS);
+        long[] product = wide();
+
+        set(1);
+
+        for (int bit = bitLength(power) - 1; bit >= 0; bit--) {
+            multiply(limbs, limbs, product, LIMBS);
+            System.arraycopy(product, 0, limbs, 0, LIMBS);
+
+            if ((power[bit >>> 6] >>> (bit & 63) & 1) != 0) {
+                multiply(limbs, base, product, LIMBS);
+                System.arraycopy(product, 0, limbs, 0, LIMBS);
+            }
+        }
+
+        return this;
+    }
+
+    private boolean fitsInLong() {
+        return (limbs[1] | limbs[2] | limbs[3]) == 0;
+    }
+
+    /**
+     * Divides the given number of limbs of {@code value} by {@code divisor}, which must not be zero, and sets this
+     * word to the quotient (that must fit in 256 bits) or the remainder. {@code value} may be this word's limbs.
+     */
+    private void divide(long[] value, int valueLimbs, long[] divisor, boolean keepQuotient) {
+        int[] u = numerator == null ? (numerator = new int[LIMBS * 4]) : numerator;
+        int[] v = denominator == null ? (denominator = new int[LIMBS * 2]) : denominator;
+
+        int m = toDigits(value, valueLimbs, u);
+        int n = toDigits(divisor, LIMBS, v);
+
+        if (m < n) {
+            // the value is smaller than the divisor
+            if (keepQuotient) {
+                set(0);
+            } else {
+                fromDigits(u, m, limbs);
+            }
+
+            return;
+        }
+
+        int[] q = quotient == null ? (quotient = new int[LIMBS * 4]) : quotient;
+        int[] un = normalizedNumerator == null ? (normalizedNumerator = new int[LIMBS * 4 + 1]) : normalizedNumerator;
+        int[] vn = normalizedDenominator == null ? (normalizedDenominator = new int[LIMBS * 2]) : normalizedDenominator;
+
+        divideDigits(u, m, v, n, q, un, vn);
+
+        if (keepQuotient) {
+            fromDigits(q, m - n + 1, limbs);
+        } else {
+            // divideDigits leaves the remainder in u
+            fromDigits(u, n, limbs);
+        }
+    }
+
+    private long[] wide() {
+        if (wide == null) {
+            wide = new long[LIMBS * 2];
+        }
+
+        return wide;
+    }
+
+    private long[] operand() {
+        if (operand == null) {
+            operand = new long[LIMBS];
+        }
+
+        return operand;
+    }
+
+    /**
+     * Adds b to the first four limbs of a.
+     *
+     * @return the carry out of the fourth limb
+     */
+    private static long add(long[] a, long[] b) {
+        long carry = 0;
+
+        for (int i = 0; i < LIMBS; i++) {
+            long x = a[i];
+            long sum = x + b[i] + carry;
+            // there is a carry if the sum wrapped around, taking into account the previous carry
+            carry = Long.compareUnsigned(sum, x) < 0 || (sum == x && carry != 0) ? 1 : 0;
+            a[i] = sum;
+        }
+
+        return carry;
+    }
+
+    private static void negate(long[] a) {
+        long carry = 1;
+
+        for (int i = 0; i < LIMBS; i++) {
+            long sum = ~a[i] + carry;
+            carry = sum == 0 && carry != 0 ? 1 : 0;
+            a[i] = sum;
+        }
+    }
+
+    /**
+     * Computes the lowest {@code resultLimbs} limbs (four or eight) of a * b. The result must not be a or b.
+     */
+    private static void multiply(long[] a, long[] b, long[] result, int resultLimbs) {
+        Arrays.fill(result, 0, resultLimbs, 0);
+
+        for (int i = 0; i < LIMBS; i++) {
+            long x = a[i];
+
+            if (x == 0) {
+                continue;
+            }
+
+            long carry = 0;
+            int j = 0;
+
+            for (; j < LIMBS && i + j < resultLimbs; j++) {
+                long y = b[j];
+                long low = x * y;
+                long high = multiplyHighUnsigned(x, y);
+
+                low += carry;
+                if (Long.compareUnsigned(low, carry) < 0) {
+                    high++;
+                }
+
+                long current = result[i + j];
+                low += current;
+                if (Long.compareUnsigned(low, current) < 0) {
+                    high++;
+                }
+
+                result[i + j] = low;
+                carry = high;
+            }
+
+            if (i + j < resultLimbs) {
+                result[i + j] = carry;
+            }
+        }
+    }
+
+    /**
+     * @return the high 64 bits of the unsigned 128 bits product x * y
+     */
+    private static long multiplyHighUnsigned(long x, long y) {
+        long x0 = x & DIGIT_MASK;
+        long x1 = x >>> 32;
+        long y0 = y & DIGIT_MASK;
+        long y1 = y >>> 32;
+
+        long p00 = x0 * y0;
+        long p01 = x0 * y1;
+        long p10 = x1 * y0;
+        long p11 = x1 * y1;
+
+        long middle = (p00 >>> 32) + (p01 & DIGIT_MASK) + (p10 & DIGIT_MASK);
+        return p11 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+    }
+
+    private static int compareUnsigned(long[] a, long[] b) {
+        for (int i = LIMBS - 1; i >= 0; i--) {
+            int result = Long.compareUnsigned(a[i], b[i]);
+
+            if (result != 0) {
+                return result;
+            }
+        }
+
+        return 0;
+    }
+
+    private static int bitLength(long[] a) {
+        for (int i = LIMBS - 1; i >= 0; i--) {
+            if (a[i] != 0) {
+                return i * 64 + 64 - Long.numberOfLeadingZeros(a[i]);
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Splits the limbs in 32 bits digits.
+     *
+     * @return the number of significant digits
+     */
+    private static int toDigits(long[] limbs, int limbCount, int[] digits) {
+        int length = 0;
+
+        for (int i = 0; i < limbCount; i++) {
+            digits[2 * i] = (int) limbs[i];
+            digits[2 * i + 1] = (int) (limbs[i] >>> 32);
+        }
+
+        for (int i = limbCount * 2 - 1; i >= 0; i--) {
+            if (digits[i] != 0) {
+                length = i + 1;
+                break;
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Sets the limbs from the given number of digits, which must fit in them.
+     */
+    private static void fromDigits(int[] digits, int length, long[] limbs) {
+        for (int i = 0; i < LIMBS; i++) {
+            long low = 2 * i < length ? digits[2 * i] & DIGIT_MASK : 0;
+            long high = 2 * i + 1 < length ? digits[2 * i + 1] & DIGIT_MASK : 0;
+            limbs[i] = high << 32 | low;
+        }
+    }
+
+    /**
+     * Long division of the m digits of u by the n digits of v (Knuth's algorithm D, as in Hacker's Delight),
+     * with m >= n and the highest digit of v not zero. The quotient is stored in the first m - n + 1 digits
+     * of q, and the remainder in the first n digits of u.
+     */
+    private static void divideDigits(int[] u, int m, int[] v, int n, int[] q, int[] un, int[] vn) {
+        if (n == 1) {
+            long divisor = v[0] & DIGIT_MASK;
+            long remainder = 0;
+
+            for (int j = m - 1; j >= 0; j--) {
+                long current = remainder << 32 | (u[j] & DIGIT_MASK);
+                q[j] = (int) Long.divideUnsigned(current, divisor);
+                remainder = Long.remainderUnsigned(current, divisor);
+            }
+
+            u[0] = (int) remainder;
+            return;
+        }
+
+        // normalize, so the highest digit of the divisor has its highest bit set
+        int shift = Integer.numberOfLeadingZeros(v[n - 1]);
+
+        for (int i = n - 1; i > 0; i--) {
+            vn[i] = shift == 0 ? v[i] : v[i] << shift | v[i - 1] >>> (32 - shift);
+        }
+        vn[0] = v[0] << shift;
+
+        un[m] = shift == 0 ? 0 : u[m - 1] >>> (32 - shift);
+        for (int i = m - 1; i > 0; i--) {
+            un[i] = shift == 0 ? u[i] : u[i] << shift | u[i - 1] >>> (32 - shift);
+        }
+        un[0] = u[0] << shift;
+
+        long divisorHigh = vn[n - 1] & DIGIT_MASK;
+        long divisorNext = vn[n - 2] & DIGIT_MASK;
+
+        for (int j = m - n; j >= 0; j--) {
+            // estimate the quotient digit from the two highest digits, it can be off by two at most
+            long current = (un[j + n] & DIGIT_MASK) << 32 | (un[j + n - 1] & DIGIT_MASK);
+            long qhat = Long.divideUnsigned(current, divisorHigh);
+            long rhat = Long.remainderUnsigned(current, divisorHigh);
+
+            while (qhat > DIGIT_MASK
+                    || Long.compareUnsigned(qhat * divisorNext, rhat << 32 | (un[j + n - 2] & DIGIT_MASK)) > 0) {
+                qhat--;
+                rhat += divisorHigh;
+
+                if (rhat > DIGIT_MASK) {
+                    break;
+                }
+            }
+
+            // multiply and subtract
+            long borrow = 0;
+            long t;
+
+            for (int i = 0; i < n; i++) {
+                long p = qhat * (vn[i] & DIGIT_MASK);
+                t = (un[i + j] & DIGIT_MASK) - borrow - (p & DIGIT_MASK);
+                un[i + j] = (int) t;
+                borrow = (p >>> 32) - (t >> 32);
+            }
+
+            t = (un[j + n] & DIGIT_MASK) - borrow;
+            un[j + n] = (int) t;
+            q[j] = (int) qhat;
+
+            if (t < 0) {
+                // the estimation was one too big, add the divisor back
+                q[j]--;
+                long carry = 0;
+
+                for (int i = 0; i < n; i++) {
+                    t = (un[i + j] & DIGIT_MASK) + (vn[i] & DIGIT_MASK) + carry;
+                    un[i + j] = (int) t;
+                    carry = t >>> 32;
+                }
+
+                un[j + n] += (int) carry;
+            }
+        }
+
+        // unnormalize the remainder
+        for (int i = 0; i < n; i++) {
+            u[i] = shift == 0 ? un[i] : un[i] >>> shift | un[i + 1] << (32 - shift);
+        }
+    }
+}
@@ -152,6 +152,17 @@ public class PrecompiledContracts {
         this.remascConfig = new RemascConfigFactory(RemascContract.REMASC_CONFIG).createRemascConfig(config.netName());
     }
 
+    /**
+     * Creates precompiled contracts sharing the configuration of the given ones, for subclasses overriding
+     * {@link #getContractForAddress(ActivationConfig.ForBlock, DataWord)}
+     */
+    protected PrecompiledContracts(PrecompiledContracts precompiledContracts) {
+        this.config = precompiledContracts.config;
+        this.bridgeSupportFactory = precompiledContracts.bridgeSupportFactory;
+        this.signatureCache = precompiledContracts.signatureCache;
+        this.remascConfig = precompiledContracts.remascConfig;
+    }
+
 
     public PrecompiledContract getContractForAddress(ActivationConfig.ForBlock activations, DataWord address) {
 
@@ -111,6 +111,11 @@ public class VM {
     private long gasBefore; // only for tracing
     private boolean isLogEnabled;
 
+    // reused by the arithmetic opcodes, so they don't allocate intermediate values
+    private final MutableDataWord scratchWord1 = new MutableDataWord();
+    private final MutableDataWord scratchWord2 = new MutableDataWord();
+    private final MutableDataWord scratchWord3 = new MutableDataWord();
+
 
     public VM(VmConfig vmConfig, PrecompiledContracts precompiledContracts) {
         this.vmConfig = vmConfig;
@@ -241,7 +246,7 @@ public class VM {
             hint = word1.value() + " * " + word2.value();
         }
 
-        program.stackPush(word1.mul(word2));
+        program.stackPush(scratchWord1.set(word1).mul(scratchWord2.set(word2)).toDataWord());
         program.step();
     }
 
@@ -255,7 +260,7 @@ public class VM {
             hint = word1.value() + " - " + word2.value();
         }
 
-        program.stackPush(word1.sub(word2));
+        program.stackPush(scratchWord1.set(word1).sub(scratchWord2.set(word2)).toDataWord());
         program.step();
     }
 
@@ -269,7 +274,7 @@ public class VM {
             hint = word1.value() + " / " + word2.value();
         }
 
-        program.stackPush(word1.div(word2));
+        program.stackPush(scratchWord1.set(word1).div(scratchWord2.set(word2)).toDataWord());
         program.step();
     }
 
@@ -283,7 +288,7 @@ public class VM {
             hint = word1.sValue() + " / " + word2.sValue();
         }
 
-        program.stackPush(word1.sDiv(word2));
+        program.stackPush(scratchWord1.set(word1).sDiv(scratchWord2.set(word2)).toDataWord());
         program.step();
     }
 
@@ -297,7 +302,7 @@ public class VM {
             hint = word1.value() + " % " + word2.value();
         }
 
-        program.stackPush(word1.mod(word2));
+        program.stackPush(scratchWord1.set(word1).mod(scratchWord2.set(word2)).toDataWord());
         program.step();
     }
 
@@ -311,7 +316,7 @@ public class VM {
             hint = word1.sValue() + " #% " + word2.sValue();
         }
 
-        program.stackPush(word1.sMod(word2));
+        program.stackPush(scratchWord1.set(word1).sMod(scratchWord2.set(word2)).toDataWord());
         program.step();
     }
 
@@ -330,7 +335,7 @@ public class VM {
             hint = word1.value() + " ** " + word2.value();
         }
 
-        program.stackPush(word1.exp(word2));
+        program.stackPush(scratchWord1.set(word1).exp(scratchWord2.set(word2)).toDataWord());
         program.step();
     }
 
@@ -594,7 +599,7 @@ public class VM {
         DataWord word1 = program.stackPop();
         DataWord word2 = program.stackPop();
         DataWord word3 = program.stackPop();
-        program.stackPush(word1.addmod(word2, word3));
+        program.stackPush(scratchWord1.set(word1).addmod(scratchWord2.set(word2), scratchWord3.set(word3)).toDataWord());
         program.step();
     }
 
@@ -604,7 +609,7 @@ public class VM {
         DataWord word1 = program.stackPop();
         DataWord word2 = program.stackPop();
         DataWord word3 = program.stackPop();
-        program.stackPush(word1.mulmod(word2, word3));
+        program.stackPush(scratchWord1.set(word1).mulmod(scratchWord2.set(word2), scratchWord3.set(word3)).toDataWord());
         program.step();
     }
 
@@ -748,13 +753,12 @@ public class VM {
         DataWord dataOffsetData = program.stackPop();
         DataWord lengthData = program.stackPop();
 
-        byte[] msgData = program.getDataCopy(dataOffsetData, lengthData);
-
         if (isLogEnabled) {
-            hint = "data: " + ByteUtil.toHexString(msgData);
+            hint = "data: " + ByteUtil.toHexString(program.getDataCopy(dataOffsetData, lengthData));
         }
 
-        program.memorySave(memOffsetData.intValue(), msgData);
+        // the part past the end of the call data is filled with zeros
+        program.memoryCopyData(memOffsetData.intValue(), dataOffsetData, lengthData.intValueSafe());
         program.step();
     }
 
@@ -879,39 +883,16 @@ public class VM {
         int codeOffset = codeOffsetDW.intValueSafe(); // where to start reading
         int lengthData = lengthDataDW.intValueSafe(); // amount of bytes to copy
 
-        int sizeToBeCopied;
-        int fullCodeLength = fullCode.length;
-        if ((long) codeOffset + lengthData > fullCodeLength) {
-            // if user wants to read more info from code what actual code has then..
-            // if all code that users wants lies after code has ended..
-            if (codeOffset >= fullCodeLength) {
-                sizeToBeCopied=0; // do not copy anything
-            } else {
-                sizeToBeCopied = fullCodeLength - codeOffset; // copy only the remaining
-            }
-
-        } else
-           // Code is longer, so limit by user length value
-        {
-            sizeToBeCopied =lengthData;
-        }
-
-        // The part not copied must be filled with zeros, so here we allocate
-        // enough space to contain filling also.
-        byte[] codeCopy = new byte[lengthData];
-
-        if (codeOffset < fullCodeLength) {
-            System.arraycopy(fullCode, codeOffset, codeCopy, 0, sizeToBeCopied);
-        }
-
         if (isLogEnabled) {
+            byte[] codeCopy = new byte[lengthData];
+            if (codeOffset < fullCode.length) {
+                System.arraycopy(fullCode, codeOffset, codeCopy, 0, Math.min(lengthData, fullCode.length - codeOffset));
+            }
             hint = "code: " + ByteUtil.toHexString(codeCopy);
         }
 
-        // TODO: an optimization to avoid double-copying would be to override programSave
-        // to receive a byte[] buffer and a length, and to create another method memoryZero(offset,length)
-        // to fill the gap.
-        program.memorySave(memOffset, codeCopy);
+        // the part past the end of the code is filled with zeros
+        program.memoryCopy(memOffset, fullCode, codeOffset, lengthData);
 
         program.step();
     }
@@ -23,21 +23,33 @@ import org.ethereum.vm.DataWord;
 import org.ethereum.vm.program.listener.ProgramListener;
 import org.ethereum.vm.program.listener.ProgramListenerAware;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static java.lang.Math.ceil;
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.String.format;
 import static org.ethereum.util.ByteUtil.EMPTY_BYTE_ARRAY;
 import static org.ethereum.util.ByteUtil.oneByteToHexString;
 
+/**
+ * The memory of a program, kept in a single array.
+ *
+ * The memory is still allocated in chunks of {@value #CHUNK_SIZE} bytes, as seen by {@link #internalSize()} and
+ * {@link #getChunks()}, but the array grows doubling its capacity, so reads and writes take a single copy
+ * whatever their address.
+ */
 public class Memory implements ProgramListenerAware {
 
     private static final int CHUNK_SIZE = 1024;
     private static final int WORD_SIZE = 32;
+    // some VMs reserve header words in an array, so its maximum length is a bit below Integer.MAX_VALUE
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
 
-    private List<byte[]> chunks = new LinkedList<>();
+    private byte[] buffer = EMPTY_BYTE_ARRAY;
+    private int allocatedSize;
     private int softSize;
     private ProgramListener traceListener;
 
@@ -52,27 +64,8 @@ public class Memory implements ProgramListenerAware {
         }
 
         extend(address, size);
-        byte[] data = new byte[size];
-
-        int chunkIndex = address / CHUNK_SIZE;
-        int chunkOffset = address % CHUNK_SIZE;
-
-        int toGrab = data.length;
-        int start = 0;
-
-        while (toGrab > 0) {
-            int copied = grabMax(chunkIndex, chunkOffset, toGrab, data, start);
 
-            // read next chunk from the start
-            ++chunkIndex;
-            chunkOffset = 0;
-
-            // mark remind
-            toGrab -= copied;
-            start += copied;
-        }
-
-        return data;
+        return Arrays.copyOfRange(buffer, address, address + size);
     }
 
     public void write(int address, byte[] data, int dataSize, boolean limited) {
@@ -84,9 +77,6 @@ public class Memory implements ProgramListenerAware {
             extend(address, dataSize);
         }
 
-        int chunkIndex = address / CHUNK_SIZE;
-        int chunkOffset = address % CHUNK_SIZE;
-
         int toCapture = 0;
         if (limited) {
             toCapture = (address + dataSize > softSize) ? softSize - address : dataSize;
@@ -94,17 +84,8 @@ public class Memory implements ProgramListenerAware {
             toCapture = dataSize;
         }
 
-        int start = 0;
-        while (toCapture > 0) {
-            int captured = captureMax(chunkIndex, chunkOffset, toCapture, data, start);
-
-            // capture next chunk
-            ++chunkIndex;
-            chunkOffset = 0;
-
-            // mark remind
-            toCapture -= captured;
-            start += captured;
+        if (toCapture > 0) {
+            System.arraycopy(data, 0, buffer, address, toCapture);
         }
 
         if (traceListener != null) {
@@ -112,6 +93,28 @@ public class Memory implements ProgramListenerAware {
         }
     }
 
+    /**
+     * Writes {@code size} bytes of {@code data} starting at {@code dataOffset}, filling with zeros the bytes
+     * past the end of {@code data}. It is the same as writing a padded copy of that range, without making the copy.
+     */
+    public void copy(int address, byte[] data, int dataOffset, int size) {
+        extend(address, size);
+
+        int toCopy = dataOffset < data.length ? min(size, data.length - dataOffset) : 0;
+
+        if (toCopy > 0) {
+            System.arraycopy(data, dataOffset, buffer, address, toCopy);
+        }
+
+        if (size > toCopy) {
+            Arrays.fill(buffer, address + toCopy, address + size, (byte) 0);
+        }
+
+        if (traceListener != null) {
+            byte[] written = size > 0 ? Arrays.copyOfRange(buffer, address, address + size) : EMPTY_BYTE_ARRAY;
+            traceListener.onMemoryWrite(address, written, written.length);
+        }
+    }
 
     public void extendAndWrite(int address, int allocSize, byte[] data) {
         extend(address, allocSize);
@@ -127,7 +130,7 @@ public class Memory implements ProgramListenerAware {
 
         int toAllocate = newSize - internalSize();
         if (toAllocate > 0) {
-            addChunks((int) ceil((double) toAllocate / CHUNK_SIZE));
+            allocate((int) ceil((double) toAllocate / CHUNK_SIZE) * CHUNK_SIZE);
         }
 
         toAllocate = newSize - softSize;
@@ -142,18 +145,18 @@ public class Memory implements ProgramListenerAware {
     }
 
     public DataWord readWord(int address) {
-        return DataWord.valueOf(read(address, 32));
+        extend(address, WORD_SIZE);
+
+        return DataWord.valueOf(buffer, address, WORD_SIZE);
     }
 
     // just access expecting all data valid
     public byte readByte(int address) {
+        if (address >= allocatedSize) {
+            throw new IndexOutOfBoundsException("Memory address " + address + " is not allocated");
+        }
 
-        int chunkIndex = address / CHUNK_SIZE;
-        int chunkOffset = address % CHUNK_SIZE;
-
-        byte[] chunk = chunks.get(chunkIndex);
-
-        return chunk[chunkOffset];
+        return buffer[address];
     }
 
     @Override
@@ -193,35 +196,27 @@ public class Memory implements ProgramListenerAware {
     }
 
     public int internalSize() {
-        return chunks.size() * CHUNK_SIZE;
+        return allocatedSize;
     }
 
     public List<byte[]> getChunks() {
-        return new LinkedList<>(chunks);
-    }
-
-    private int captureMax(int chunkIndex, int chunkOffset, int size, byte[] src, int srcPos) {
+        List<byte[]> chunks = new ArrayList<>(allocatedSize / CHUNK_SIZE);
 
-        byte[] chunk = chunks.get(chunkIndex);
-        int toCapture = min(size, chunk.length - chunkOffset);
+        for (int offset = 0; offset < allocatedSize; offset += CHUNK_SIZE) {
+            chunks.add(Arrays.copyOfRange(buffer, offset, offset + CHUNK_SIZE));
+        }
 
-        System.arraycopy(src, srcPos, chunk, chunkOffset, toCapture);
-        return toCapture;
+        return chunks;
     }
 
-    private int grabMax(int chunkIndex, int chunkOffset, int size, byte[] dest, int destPos) {
-
-        byte[] chunk = chunks.get(chunkIndex);
-        int toGrab = min(size, chunk.length - chunkOffset);
+    private void allocate(int size) {
+        int newSize = allocatedSize + size;
 
-        System.arraycopy(chunk, chunkOffset, dest, destPos, toGrab);
-
-        return toGrab;
-    }
-
-    private void addChunks(int num) {
-        for (int i = 0; i < num; ++i) {
-            chunks.add(new byte[CHUNK_SIZE]);
+        if (newSize > buffer.length) {
+            int capacity = (int) min(max((long) newSize, 2L * buffer.length), MAX_CAPACITY);
+            buffer = Arrays.copyOf(buffer, max(capacity, newSize));
         }
+
+        allocatedSize = newSize;
     }
 }
@@ -30,6 +30,7 @@ import co.rsk.rpc.modules.trace.CallType;
 import co.rsk.rpc.modules.trace.CreationData;
 import co.rsk.rpc.modules.trace.ProgramSubtrace;
 import co.rsk.vm.BitSet;
+import co.rsk.vm.JumpdestCache;
 import com.google.common.annotations.VisibleForTesting;
 import org.ethereum.config.Constants;
 import org.ethereum.config.blockchain.upgrades.ActivationConfig;
@@ -50,6 +51,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.math.BigInteger;
 import java.util.*;
 
@@ -71,7 +73,7 @@ public class Program {
     public static final long MAX_MEMORY = (1<<30);
 
     //Max size for stack checks
-    private static final int MAX_STACKSIZE = 1024;
+    private static final int MAX_STACKSIZE = Stack.MAX_SIZE;
     private static final String CALL_PRECOMPILED_CAUSE = "call pre-compiled";
 
     private final ActivationConfig.ForBlock activations;
@@ -114,6 +116,11 @@ public class Program {
 
     private final SignatureCache signatureCache;
 
+    @Nullable
+    private final JumpdestCache jumpdestCache;
+    @Nullable
+    private final Keccak256 codeHash;
+
     public Program(
             VmConfig config,
             PrecompiledContracts precompiledContracts,
@@ -124,6 +131,26 @@ public class Program {
             Transaction transaction,
             Set<DataWord> deletedAccounts,
             SignatureCache signatureCache) {
+        this(config, precompiledContracts, blockFactory, activations, ops, programInvoke, transaction, deletedAccounts,
+                signatureCache, null, null);
+    }
+
+    /**
+     * @param jumpdestCache where the jump destinations of the code and of the contracts it calls are looked up
+     * @param codeHash the hash of {@code ops} as stored in the trie, or null if the code isn't stored
+     */
+    public Program(
+            VmConfig config,
+            PrecompiledContracts precompiledContracts,
+            BlockFactory blockFactory,
+            ActivationConfig.ForBlock activations,
+            byte[] ops,
+            ProgramInvoke programInvoke,
+            Transaction transaction,
+            Set<DataWord> deletedAccounts,
+            SignatureCache signatureCache,
+            @Nullable JumpdestCache jumpdestCache,
+            @Nullable Keccak256 codeHash) {
         this.config = config;
         this.precompiledContracts = precompiledContracts;
         this.blockFactory = blockFactory;
@@ -147,10 +174,11 @@ public class Program {
         this.trace = createProgramTrace(config, programInvoke);
         this.memory = setupProgramListener(new Memory());
         this.stack = setupProgramListener(new Stack());
-        this.stack.ensureCapacity(1024); // faster?
         this.storage = setupProgramListener(new Storage(programInvoke));
         this.deletedAccountsInBlock = new HashSet<>(deletedAccounts);
         this.signatureCache = signatureCache;
+        this.jumpdestCache = jumpdestCache;
+        this.codeHash = codeHash;
 
         precompile();
         traceListener = new ProgramTraceListener(config);
@@ -340,6 +368,23 @@ public class Program {
         memory.write(addr, value, value.length, false);
     }
 
+    /**
+     * Stores {@code size} bytes of {@code data} from {@code dataOffset} at the given address, padding them with
+     * zeros past the end of {@code data}.
+     */
+    public void memoryCopy(int addr, byte[] data, int dataOffset, int size) {
+        memory.copy(addr, data, dataOffset, size);
+    }
+
+    /**
+     * Stores {@code size} bytes of the call data from {@code dataOffset} at the given address, padding them with
+     * zeros past the end of the call data.
+     */
+    public void memoryCopyData(int addr, DataWord dataOffset, int size) {
+        byte[] data = invoke.getData();
+        memory.copy(addr, data == null ? EMPTY_BYTE_ARRAY : data, dataOffset.intValueSafe(), size);
+    }
+
     public void memoryExpand(DataWord outDataOffs, DataWord outDataSize) {
         if (!outDataSize.isZero()) {
             memory.extend(outDataOffs.intValue(), outDataSize.intValue());
@@ -602,7 +647,7 @@ public class Program {
 
         if (!isEmpty(programCode)) {
             VM vm = new VM(config, precompiledContracts);
-            Program program = new Program(config, precompiledContracts, blockFactory, activations, programCode, programInvoke, internalTx, deletedAccountsInBlock, signatureCache);
+            Program program = new Program(config, precompiledContracts, blockFactory, activations, programCode, programInvoke, internalTx, deletedAccountsInBlock, signatureCache, jumpdestCache, null);
             vm.play(program);
             programResult = program.getResult();
 
@@ -826,8 +871,10 @@ public class Program {
                 limitToMaxLong(msg.getGas()), contextBalance, data, track, this.invoke.getBlockStore(),
                 msg.getType() == MsgType.STATICCALL || isStaticCall(), byTestingSuite());
 
+        Keccak256 programCodeHash = jumpdestCache == null ? null : getStorage().getCodeHashStandard(new RskAddress(msg.getCodeAddress()));
+
         VM vm = new VM(config, precompiledContracts);
-        Program program = new Program(config, precompiledContracts, blockFactory, activations, programCode, programInvoke, internalTx, deletedAccountsInBlock, signatureCache);
+        Program program = new Program(config, precompiledContracts, blockFactory, activations, programCode, programInvoke, internalTx, deletedAccountsInBlock, signatureCache, jumpdestCache, programCodeHash);
 
         vm.play(program);
         childResult = program.getResult();
@@ -1277,13 +1324,17 @@ public class Program {
         startAddr = 0;
         pc = 0;
         i = processAndSkipCodeHeader(i);
-        computeJumpDests(i);
-    }
 
-    private void computeJumpDests(int start) {
-        if (jumpdestSet == null) {
-            jumpdestSet = new BitSet(ops.length);
+        int start = i;
+        if (jumpdestCache != null && codeHash != null) {
+            jumpdestSet = jumpdestCache.get(codeHash, () -> computeJumpDests(start));
+        } else {
+            jumpdestSet = computeJumpDests(start);
         }
+    }
+
+    private BitSet computeJumpDests(int start) {
+        BitSet jumpdests = new BitSet(ops.length);
 
         for (int i = start; i < ops.length; ++i) {
             OpCode op = OpCode.code(ops[i]);
@@ -1293,13 +1344,15 @@ public class Program {
             }
 
             if (op == OpCode.JUMPDEST) {
-                jumpdestSet.set(i);
+                jumpdests.set(i);
             }
 
             if (op.asInt() >= OpCode.PUSH1.asInt() && op.asInt() <= OpCode.PUSH32.asInt()) {
                 i += op.asInt() - OpCode.PUSH1.asInt() + 1;
             }
         }
+
+        return jumpdests;
     }
 
     public DataWord getReturnDataBufferSize() {
@@ -23,9 +23,24 @@ import org.ethereum.vm.DataWord;
 import org.ethereum.vm.program.listener.ProgramListener;
 import org.ethereum.vm.program.listener.ProgramListenerAware;
 
-public class Stack extends java.util.Stack<DataWord> implements ProgramListenerAware {
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The VM stack, backed by an array of fixed capacity.
+ *
+ * A program runs in a single thread, so this isn't synchronized. Indexes go from the bottom (0) to the top
+ * of the stack, as they did when this was a {@link java.util.Stack}.
+ */
+public class Stack implements ProgramListenerAware, Iterable<DataWord> {
+
+    public static final int MAX_SIZE = 1024;
+
+    private final DataWord[] items = new DataWord[MAX_SIZE];
+    private int size;
 
-    private static final long serialVersionUID = -227393866144006913L;
     private ProgramListener traceListener;
 
     @Override
@@ -33,20 +48,44 @@ public class Stack extends java.util.Stack<DataWord> implements ProgramListenerA
         this.traceListener = listener;
     }
 
-    @Override
-    public synchronized DataWord pop() {
+    public DataWord pop() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+
         if (traceListener != null) {
             traceListener.onStackPop();
         }
-        return super.pop();
+
+        DataWord item = items[--size];
+        items[size] = null;
+        return item;
     }
 
-    @Override
     public DataWord push(DataWord item) {
+        if (size == MAX_SIZE) {
+            throw new IllegalStateException("Stack can't hold more than " + MAX_SIZE + " elements");
+        }
+
         if (traceListener != null) {
             traceListener.onStackPush(item);
         }
-        return super.push(item);
+
+        items[size++] = item;
+        return item;
+    }
+
+    public DataWord peek() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+
+        return items[size - 1];
+    }
+
+    public DataWord get(int index) {
+        checkIndex(index);
+        return items[index];
     }
 
     public void swap(int from, int to) {
@@ -54,13 +93,62 @@ public class Stack extends java.util.Stack<DataWord> implements ProgramListenerA
             if (traceListener != null) {
                 traceListener.onStackSwap(from, to);
             }
-            DataWord tmp = get(from);
-            set(from, set(to, tmp));
+            DataWord tmp = items[from];
+            items[from] = items[to];
+            items[to] = tmp;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean empty() {
+        return isEmpty();
+    }
+
+    public void clear() {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+    }
+
+    public DataWord[] toArray() {
+        return Arrays.copyOf(items, size);
+    }
+
+    @Override
+    public Iterator<DataWord> iterator() {
+        return new Iterator<DataWord>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public DataWord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return items[next++];
+            }
+        };
+    }
+
+    private void checkIndex(int index) {
+        if (!isAccessible(index)) {
+            throw new ArrayIndexOutOfBoundsException(index);
         }
     }
 
     private boolean isAccessible(int from) {
-        return from >= 0 && from < size();
+        return from >= 0 && from < size;
     }
 
 }
@@ -62,4 +62,9 @@ public interface ProgramInvoke extends InvokeData {
     BlockStore getBlockStore();
 
     boolean isStaticCall();
+
+    /**
+     * @return the call data itself, not a copy, or null if there is none. It must not be modified
+     */
+    byte[] getData();
 }
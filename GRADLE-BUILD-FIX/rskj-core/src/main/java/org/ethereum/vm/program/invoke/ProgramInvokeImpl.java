@@ -233,6 +233,11 @@ public class ProgramInvokeImpl implements ProgramInvoke {
         return DataWord.valueOf(size);
     }
 
+    @Override
+    public byte[] getData() {
+        return msgData;
+    }
+
     /*  CALLDATACOPY */
     @Override
     public byte[] getDataCopy(DataWord offsetData, DataWord lengthData) {
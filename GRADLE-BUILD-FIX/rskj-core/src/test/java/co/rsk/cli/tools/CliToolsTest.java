@@ -29,6 +29,7 @@ import co.rsk.db.RepositoryLocator;
 import co.rsk.db.RepositorySnapshot;
 import co.rsk.logfilter.BlocksBloom;
 import co.rsk.logfilter.BlocksBloomStore;
+import co.rsk.logfilter.LogIndexProcessor;
 import co.rsk.test.World;
 import co.rsk.test.dsl.DslParser;
 import co.rsk.test.dsl.DslProcessorException;
@@ -699,6 +700,27 @@ class CliToolsTest {
         verify(blockStore, times(192 + 45)).getChainBlockByNumber(anyLong());
     }
 
+    @Test
+    void indexLogs() {
+        LogIndexProcessor logIndexProcessor = mock(LogIndexProcessor.class);
+        doAnswer(i -> i.<Long>getArgument(1) - i.<Long>getArgument(0) + 1).when(logIndexProcessor).indexBlocks(anyLong(), anyLong());
+
+        IndexLogs.execute(new IndexBlooms.Range(10, 2500), logIndexProcessor);
+
+        verify(logIndexProcessor, times(1)).rewindIfReorganized();
+        verify(logIndexProcessor, times(1)).indexBlocks(10, 1009);
+        verify(logIndexProcessor, times(1)).indexBlocks(1010, 2009);
+        verify(logIndexProcessor, times(1)).indexBlocks(2010, 2500);
+
+        clearInvocations(logIndexProcessor);
+        doReturn(5L).when(logIndexProcessor).indexBlocks(anyLong(), anyLong());
+
+        // blocks without logs available stop the indexing
+        IndexLogs.execute(new IndexBlooms.Range(10, 2500), logIndexProcessor);
+
+        verify(logIndexProcessor, times(1)).indexBlocks(anyLong(), anyLong());
+    }
+
     @Test
     void generateOpenRpcDoc() throws IOException {
         String version = "1.1.1";
@@ -0,0 +1,122 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.core;
+
+import org.ethereum.core.BlockTxSignatureCache;
+import org.ethereum.core.ReceivedTxSignatureCache;
+import org.ethereum.core.SignatureCache;
+import org.ethereum.core.Transaction;
+import org.ethereum.crypto.ECKey;
+import org.ethereum.crypto.HashUtil;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TxSenderRecovererTest {
+
+    @Test
+    void recoversTheSendersInTheCache() {
+        List<ECKey> keys = new ArrayList<>();
+        List<Transaction> txs = new ArrayList<>();
+
+        for (int i = 0; i < 30; i++) {
+            byte[] privateKey = HashUtil.keccak256(("sender" + i).getBytes());
+            keys.add(ECKey.fromPrivate(privateKey));
+            txs.add(signedTransaction(i, privateKey));
+        }
+
+        SignatureCache signatureCache = spy(new BlockTxSignatureCache(new ReceivedTxSignatureCache()));
+
+        new TxSenderRecoverer(4).recoverSenders(txs, signatureCache);
+
+        for (int i = 0; i < txs.size(); i++) {
+            verify(signatureCache).getSender(txs.get(i));
+            assertEquals(new RskAddress(keys.get(i).getAddress()), txs.get(i).getSender(signatureCache));
+        }
+    }
+
+    @Test
+    void doesNothingWithASingleThread() {
+        List<Transaction> txs = new ArrayList<>();
+
+        for (int i = 0; i < 30; i++) {
+            txs.add(signedTransaction(i, HashUtil.keccak256(("sender" + i).getBytes())));
+        }
+
+        SignatureCache signatureCache = mock(SignatureCache.class);
+
+        new TxSenderRecoverer(1).recoverSenders(txs, signatureCache);
+
+        verify(signatureCache, never()).getSender(any());
+    }
+
+    @Test
+    void doesNothingOnceDisposed() {
+        List<Transaction> txs = new ArrayList<>();
+
+        for (int i = 0; i < 30; i++) {
+            txs.add(signedTransaction(i, HashUtil.keccak256(("sender" + i).getBytes())));
+        }
+
+        SignatureCache signatureCache = mock(SignatureCache.class);
+        TxSenderRecoverer txSenderRecoverer = new TxSenderRecoverer(4);
+
+        txSenderRecoverer.dispose();
+        txSenderRecoverer.recoverSenders(txs, signatureCache);
+
+        verify(signatureCache, never()).getSender(any());
+    }
+
+    @Test
+    void skipsUnsignedTransactions() {
+        List<Transaction> txs = new ArrayList<>();
+
+        for (int i = 0; i < 30; i++) {
+            txs.add(transaction(i));
+        }
+
+        SignatureCache signatureCache = mock(SignatureCache.class);
+
+        new TxSenderRecoverer(4).recoverSenders(txs, signatureCache);
+
+        verify(signatureCache, never()).getSender(any());
+    }
+
+    private static Transaction signedTransaction(int nonce, byte[] privateKey) {
+        Transaction tx = transaction(nonce);
+        tx.sign(privateKey);
+        return tx;
+    }
+
+    private static Transaction transaction(int nonce) {
+        return Transaction.builder()
+                .nonce(BigInteger.valueOf(nonce))
+                .gasPrice(BigInteger.ONE)
+                .gasLimit(BigInteger.valueOf(21000))
+                .destination(new RskAddress("0000000000000000000000000000000000000001"))
+                .value(BigInteger.TEN)
+                .build();
+    }
+}
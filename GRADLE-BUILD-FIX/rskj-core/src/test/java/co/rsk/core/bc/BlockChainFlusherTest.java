@@ -53,7 +53,7 @@ class BlockChainFlusherTest {
         this.flusher.start();
 
         ArgumentCaptor<EthereumListener> argument = ArgumentCaptor.forClass(EthereumListener.class);
-        verify(emitter, times(1)).addListener(argument.capture());
+        verify(emitter, times(1)).addSynchronousListener(argument.capture());
         this.listener = argument.getValue();
     }
 
@@ -31,6 +31,7 @@ import co.rsk.trie.Trie;
 import co.rsk.trie.TrieStore;
 import co.rsk.trie.TrieStoreImpl;
 import org.bouncycastle.util.BigIntegers;
+import org.bouncycastle.util.encoders.Hex;
 import org.ethereum.config.blockchain.upgrades.ActivationConfig;
 import org.ethereum.config.blockchain.upgrades.ConsensusRule;
 import org.ethereum.core.*;
@@ -60,6 +61,7 @@ import java.util.*;
 
 import static org.ethereum.config.blockchain.upgrades.ConsensusRule.RSKIP126;
 import static org.ethereum.util.ByteUtil.EMPTY_BYTE_ARRAY;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -537,6 +539,136 @@ public class BlockExecutorTest {
         Assertions.assertFalse(executor.executeAndValidate(block, parent.getHeader()));
     }
 
+    @Test
+    void executeBlockInParallelWithIndependentTransactions() {
+        executeBlockInParallelAndSequentially(new int[][] { {0, 1}, {2, 3}, {4, 5}, {6, 7} });
+    }
+
+    @Test
+    void executeBlockInParallelWithConflictingTransactions() {
+        // account 1 receives funds and then spends them, account 3 receives from two senders
+        executeBlockInParallelAndSequentially(new int[][] { {0, 1}, {1, 2}, {4, 3}, {5, 3}, {1, 6}, {7, 0} });
+    }
+
+    private void executeBlockInParallelAndSequentially(int[][] transfers) {
+        TrieStore trieStore = new TrieStoreImpl(new HashMapDB());
+        Repository repository = new MutableRepository(trieStore, new Trie(trieStore));
+        Repository track = repository.startTracking();
+
+        List<Account> accounts = new ArrayList<>();
+        for (int k = 0; k < 8; k++) {
+            accounts.add(createAccount("parallel" + k, track, Coin.valueOf(100000)));
+        }
+
+        track.commit();
+
+        Map<RskAddress, BigInteger> nonces = new HashMap<>();
+        List<Transaction> txs = new ArrayList<>();
+        for (int[] transfer : transfers) {
+            Account sender = accounts.get(transfer[0]);
+            BigInteger nonce = nonces.getOrDefault(sender.getAddress(), repository.getNonce(sender.getAddress()));
+            nonces.put(sender.getAddress(), nonce.add(BigInteger.ONE));
+
+            Transaction tx = Transaction
+                    .builder()
+                    .nonce(nonce)
+                    .gasPrice(BigInteger.ONE)
+                    .gasLimit(BigInteger.valueOf(21000))
+                    .destination(accounts.get(transfer[1]).getAddress())
+                    .chainId(CONFIG.getNetworkConstants().getChainId())
+                    .value(BigInteger.valueOf(50000))
+                    .build();
+            tx.sign(sender.getEcKey().getPrivKeyBytes());
+            txs.add(tx);
+        }
+
+        Block genesis = BlockChainImplTest.getGenesisBlock(trieStore);
+        genesis.setStateRoot(repository.getRoot());
+        repository.save();
+
+        Block block = new BlockGenerator().createChildBlock(genesis, txs, new ArrayList<>(), 1, null);
+
+        BlockResult sequentialResult = buildBlockExecutor(trieStore).execute(block, genesis.getHeader(), false);
+        BlockResult parallelResult = buildBlockExecutor(trieStore, CONFIG, 4).execute(block, genesis.getHeader(), false);
+
+        Assertions.assertEquals(txs.size(), parallelResult.getExecutedTransactions().size());
+        Assertions.assertEquals(sequentialResult.getFinalState().getHash(), parallelResult.getFinalState().getHash());
+        Assertions.assertArrayEquals(
+                BlockHashesHelper.calculateReceiptsTrieRoot(sequentialResult.getTransactionReceipts(), true),
+                BlockHashesHelper.calculateReceiptsTrieRoot(parallelResult.getTransactionReceipts(), true));
+        Assertions.assertArrayEquals(
+                BlockExecutor.calculateLogsBloom(sequentialResult.getTransactionReceipts()),
+                BlockExecutor.calculateLogsBloom(parallelResult.getTransactionReceipts()));
+        Assertions.assertEquals(sequentialResult.getGasUsed(), parallelResult.getGasUsed());
+        Assertions.assertEquals(sequentialResult.getPaidFees(), parallelResult.getPaidFees());
+    }
+
+    @Test
+    void executeBlockInParallelWithContractsCallingTheBridge() {
+        TrieStore trieStore = new TrieStoreImpl(new HashMapDB());
+        Repository repository = new MutableRepository(trieStore, new Trie(trieStore));
+        Repository track = repository.startTracking();
+
+        List<Account> accounts = new ArrayList<>();
+        for (int k = 0; k < 6; k++) {
+            accounts.add(createAccount("bridgeCaller" + k, track, Coin.valueOf(10_000_000)));
+        }
+
+        // calls the bridge with no data and stops
+        RskAddress contractAddress = new RskAddress("1000000000000000000000000000000000000001");
+        track.saveCode(contractAddress, Hex.decode("6000600060006000600073" + PrecompiledContracts.BRIDGE_ADDR_STR + "620186a0f100"));
+
+        track.commit();
+
+        List<Transaction> txs = new ArrayList<>();
+        txs.add(transfer(accounts.get(0), accounts.get(1).getAddress(), 21000, 50000));
+        txs.add(transfer(accounts.get(2), contractAddress, 200000, 0));
+        txs.add(transfer(accounts.get(3), accounts.get(4).getAddress(), 21000, 50000));
+        txs.add(transfer(accounts.get(5), contractAddress, 200000, 0));
+
+        Block genesis = BlockChainImplTest.getGenesisBlock(trieStore);
+        genesis.setStateRoot(repository.getRoot());
+        repository.save();
+
+        Block block = new BlockGenerator().createChildBlock(genesis, txs, new ArrayList<>(), 1, null);
+
+        List<String> bridgeThreads = Collections.synchronizedList(new ArrayList<>());
+        BridgeSupportFactory bridgeSupportFactory = spy(buildBridgeSupportFactory(CONFIG));
+        doAnswer(invocation -> {
+            bridgeThreads.add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(bridgeSupportFactory).newInstance(any(), any(), any(), any());
+
+        BlockResult sequentialResult = buildBlockExecutor(trieStore).execute(block, genesis.getHeader(), false);
+        BlockResult parallelResult = buildBlockExecutor(trieStore, CONFIG, 4, bridgeSupportFactory).execute(block, genesis.getHeader(), false);
+
+        Assertions.assertEquals(txs.size(), parallelResult.getExecutedTransactions().size());
+        Assertions.assertEquals(sequentialResult.getFinalState().getHash(), parallelResult.getFinalState().getHash());
+        Assertions.assertArrayEquals(
+                BlockHashesHelper.calculateReceiptsTrieRoot(sequentialResult.getTransactionReceipts(), true),
+                BlockHashesHelper.calculateReceiptsTrieRoot(parallelResult.getTransactionReceipts(), true));
+        Assertions.assertEquals(sequentialResult.getGasUsed(), parallelResult.getGasUsed());
+        Assertions.assertEquals(sequentialResult.getPaidFees(), parallelResult.getPaidFees());
+
+        // the bridge only ran on the thread executing the block, never on a speculative execution worker
+        Assertions.assertFalse(bridgeThreads.isEmpty());
+        Assertions.assertTrue(bridgeThreads.stream().noneMatch("BlockExecutorWorker"::equals));
+    }
+
+    private static Transaction transfer(Account sender, RskAddress receiver, long gasLimit, long value) {
+        Transaction tx = Transaction
+                .builder()
+                .nonce(BigInteger.ZERO)
+                .gasPrice(BigInteger.ONE)
+                .gasLimit(BigInteger.valueOf(gasLimit))
+                .destination(receiver)
+                .chainId(CONFIG.getNetworkConstants().getChainId())
+                .value(BigInteger.valueOf(value))
+                .build();
+        tx.sign(sender.getEcKey().getPrivKeyBytes());
+        return tx;
+    }
+
     private static TestObjects generateBlockWithOneTransaction() {
         TrieStore trieStore = new TrieStoreImpl(new HashMapDB());
         Repository repository = new MutableRepository(trieStore, new Trie(trieStore));
@@ -847,13 +979,23 @@ public class BlockExecutorTest {
     }
 
     private static BlockExecutor buildBlockExecutor(TrieStore store, RskSystemProperties config) {
-        StateRootHandler stateRootHandler = new StateRootHandler(config.getActivationConfig(), new StateRootsStoreImpl(new HashMapDB()));
+        return buildBlockExecutor(store, config, 1);
+    }
+
+    private static BlockExecutor buildBlockExecutor(TrieStore store, RskSystemProperties config, int executionThreads) {
+        return buildBlockExecutor(store, config, executionThreads, buildBridgeSupportFactory(config));
+    }
 
+    private static BridgeSupportFactory buildBridgeSupportFactory(RskSystemProperties config) {
         Factory btcBlockStoreFactory = new RepositoryBtcBlockStoreWithCache.Factory(
                 config.getNetworkConstants().getBridgeConstants().getBtcParams());
 
-        BridgeSupportFactory bridgeSupportFactory = new BridgeSupportFactory(
+        return new BridgeSupportFactory(
                 btcBlockStoreFactory, config.getNetworkConstants().getBridgeConstants(), config.getActivationConfig(), new BlockTxSignatureCache(new ReceivedTxSignatureCache()));
+    }
+
+    private static BlockExecutor buildBlockExecutor(TrieStore store, RskSystemProperties config, int executionThreads, BridgeSupportFactory bridgeSupportFactory) {
+        StateRootHandler stateRootHandler = new StateRootHandler(config.getActivationConfig(), new StateRootsStoreImpl(new HashMapDB()));
 
         BlockTxSignatureCache signatureCache = new BlockTxSignatureCache(new ReceivedTxSignatureCache());
 
@@ -868,7 +1010,8 @@ public class BlockExecutorTest {
                         new ProgramInvokeFactoryImpl(),
                         new PrecompiledContracts(config, bridgeSupportFactory, signatureCache),
                         signatureCache
-                )
+                ),
+                executionThreads
         );
     }
 
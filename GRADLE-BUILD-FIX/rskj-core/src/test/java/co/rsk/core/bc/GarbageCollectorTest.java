@@ -51,7 +51,7 @@ class GarbageCollectorTest {
         this.collector.start();
 
         ArgumentCaptor<EthereumListener> argument = ArgumentCaptor.forClass(EthereumListener.class);
-        verify(emitter, times(1)).addListener(argument.capture());
+        verify(emitter, times(1)).addSynchronousListener(argument.capture());
         this.listener = argument.getValue();
     }
 
@@ -22,6 +22,7 @@ import co.rsk.blockchain.utils.BlockGenerator;
 import co.rsk.config.RskSystemProperties;
 import co.rsk.core.Coin;
 import co.rsk.core.genesis.TestGenesisLoader;
+import co.rsk.crypto.Keccak256;
 import co.rsk.db.RepositoryLocator;
 import co.rsk.net.handler.quota.TxQuotaChecker;
 import co.rsk.remasc.RemascTransaction;
@@ -43,7 +44,9 @@ import java.math.BigInteger;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.ethereum.util.TransactionFactoryHelper.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -517,6 +520,155 @@ class TransactionPoolImplTest {
         Assertions.assertEquals(BigInteger.valueOf(1004000), pendingState.getBalance(receiver.getAddress()).asBigInteger());
     }
 
+    @Test
+    void pendingStateIsUpdatedWithTheAddedTransactions() {
+        Coin balance = Coin.valueOf(1000000);
+        createTestAccounts(2, balance);
+        Transaction tx1 = createSampleTransaction(1, 2, 1000, 0);
+        Transaction tx2 = createSampleTransaction(1, 2, 3000, 1);
+        Account receiver = createAccount(2);
+
+        transactionPool.addTransaction(tx1);
+
+        PendingState pendingState = transactionPool.getPendingState();
+        Assertions.assertEquals(BigInteger.valueOf(1001000), pendingState.getBalance(receiver.getAddress()).asBigInteger());
+
+        transactionPool.addTransaction(tx2);
+
+        Assertions.assertSame(pendingState, transactionPool.getPendingState());
+        Assertions.assertEquals(BigInteger.valueOf(1004000), pendingState.getBalance(receiver.getAddress()).asBigInteger());
+        Assertions.assertEquals(BigInteger.valueOf(2), pendingState.getNonce(tx1.getSender(signatureCache)));
+    }
+
+    @Test
+    void pendingStateIsKeptWhenNoPendingTransactionIsRemoved() {
+        Coin balance = Coin.valueOf(1000000);
+        createTestAccounts(2, balance);
+        Transaction tx1 = createSampleTransaction(1, 2, 1000, 0);
+        Transaction tx2 = createSampleTransaction(1, 2, 3000, 2);
+        Transaction unknown = createSampleTransaction(1, 2, 2000, 1);
+
+        transactionPool.addTransaction(tx1);
+        transactionPool.addTransaction(tx2);
+
+        PendingState pendingState = transactionPool.getPendingState();
+
+        transactionPool.removeTransactions(Arrays.asList(tx2, unknown));
+
+        Assertions.assertSame(pendingState, transactionPool.getPendingState());
+        Assertions.assertTrue(transactionPool.getQueuedTransactions().isEmpty());
+
+        transactionPool.removeTransactions(Collections.singletonList(tx1));
+
+        Assertions.assertNotSame(pendingState, transactionPool.getPendingState());
+        Assertions.assertTrue(transactionPool.getPendingTransactions().isEmpty());
+    }
+
+    @Test
+    void pendingStateIsBuiltAgainForANewBestBlock() {
+        Coin balance = Coin.valueOf(1000000);
+        createTestAccounts(2, balance);
+        Transaction tx1 = createSampleTransaction(1, 2, 1000, 0);
+        Transaction tx2 = createSampleTransaction(1, 2, 3000, 1);
+        Account receiver = createAccount(2);
+
+        transactionPool.addTransaction(tx1);
+        transactionPool.addTransaction(tx2);
+
+        PendingState pendingState = transactionPool.getPendingState();
+        Assertions.assertEquals(BigInteger.valueOf(1004000), pendingState.getBalance(receiver.getAddress()).asBigInteger());
+
+        Block genesis = blockChain.getBestBlock();
+        Block block = new BlockBuilder(null, null, null).parent(genesis).transactions(Collections.singletonList(tx2)).build();
+        transactionPool.processBest(block);
+
+        PendingState newPendingState = transactionPool.getPendingState();
+        Assertions.assertNotSame(pendingState, newPendingState);
+        Assertions.assertEquals(BigInteger.valueOf(1001000), newPendingState.getBalance(receiver.getAddress()).asBigInteger());
+    }
+
+    @Test
+    void evictCheapestTransactionWhenPoolIsFull() {
+        Coin balance = Coin.valueOf(1000000);
+        createTestAccounts(4, balance);
+        TestUtils.setInternalState(transactionPool, "maxPoolSize", 2);
+
+        Transaction tx1 = createSampleTransactionWithGasPrice(1, 4, 1000, 0, 2);
+        Transaction tx2 = createSampleTransactionWithGasPrice(2, 4, 1000, 0, 3);
+        Transaction tx3 = createSampleTransactionWithGasPrice(3, 4, 1000, 0, 1);
+        Transaction tx4 = createSampleTransactionWithGasPrice(3, 4, 1000, 0, 4);
+
+        Assertions.assertTrue(transactionPool.addTransaction(tx1).transactionsWereAdded());
+        Assertions.assertTrue(transactionPool.addTransaction(tx2).transactionsWereAdded());
+
+        TransactionPoolAddResult result = transactionPool.addTransaction(tx3);
+        Assertions.assertFalse(result.transactionsWereAdded());
+        Assertions.assertEquals("transaction pool is full", result.getErrorMessage());
+
+        // the rejected transaction isn't tracked, so it can't expire later
+        Map<Keccak256, Long> transactionBlocks = TestUtils.getInternalState(transactionPool, "transactionBlocks");
+        Map<Keccak256, Long> transactionTimes = TestUtils.getInternalState(transactionPool, "transactionTimes");
+        Assertions.assertFalse(transactionBlocks.containsKey(tx3.getHash()));
+        Assertions.assertFalse(transactionTimes.containsKey(tx3.getHash()));
+
+        Assertions.assertTrue(transactionPool.addTransaction(tx4).transactionsWereAdded());
+
+        List<Transaction> pending = transactionPool.getPendingTransactions();
+        Assertions.assertEquals(2, pending.size());
+        Assertions.assertFalse(pending.contains(tx1));
+        Assertions.assertTrue(pending.contains(tx2));
+        Assertions.assertTrue(pending.contains(tx4));
+    }
+
+    @Test
+    void evictionLeavesNoNonceGap() {
+        Coin balance = Coin.valueOf(1000000);
+        createTestAccounts(4, balance);
+        TestUtils.setInternalState(transactionPool, "maxPoolSize", 2);
+
+        Transaction tx1 = createSampleTransactionWithGasPrice(1, 4, 1000, 0, 1);
+        Transaction tx2 = createSampleTransactionWithGasPrice(2, 4, 1000, 0, 3);
+        Transaction tx3 = createSampleTransactionWithGasPrice(1, 4, 1000, 1, 5);
+        Transaction tx4 = createSampleTransactionWithGasPrice(3, 4, 1000, 0, 2);
+
+        Assertions.assertTrue(transactionPool.addTransaction(tx1).transactionsWereAdded());
+        Assertions.assertTrue(transactionPool.addTransaction(tx2).transactionsWereAdded());
+
+        // tx1 is the cheapest, but it's the predecessor of tx3
+        Assertions.assertTrue(transactionPool.addTransaction(tx3).transactionsWereAdded());
+
+        List<Transaction> pending = transactionPool.getPendingTransactions();
+        Assertions.assertEquals(2, pending.size());
+        Assertions.assertTrue(pending.contains(tx1));
+        Assertions.assertTrue(pending.contains(tx3));
+
+        // tx1 has a pending successor and tx3 pays more
+        TransactionPoolAddResult result = transactionPool.addTransaction(tx4);
+        Assertions.assertFalse(result.transactionsWereAdded());
+        Assertions.assertEquals("transaction pool is full", result.getErrorMessage());
+    }
+
+    @Test
+    void getSamePendingTransactionsUntilThePoolChanges() {
+        Coin balance = Coin.valueOf(1000000);
+        createTestAccounts(2, balance);
+        Transaction tx1 = createSampleTransaction(1, 2, 1000, 0);
+        Transaction tx2 = createSampleTransaction(1, 2, 3000, 1);
+
+        transactionPool.addTransaction(tx1);
+
+        List<Transaction> pending = transactionPool.getPendingTransactions();
+        Assertions.assertEquals(1, pending.size());
+        Assertions.assertSame(pending, transactionPool.getPendingTransactions());
+
+        transactionPool.addTransaction(tx2);
+
+        List<Transaction> newPending = transactionPool.getPendingTransactions();
+        Assertions.assertNotSame(pending, newPending);
+        Assertions.assertEquals(1, pending.size());
+        Assertions.assertEquals(2, newPending.size());
+    }
+
     @Test
     void addTwiceAndGetPendingTransaction() {
         Coin balance = Coin.valueOf(1000000);
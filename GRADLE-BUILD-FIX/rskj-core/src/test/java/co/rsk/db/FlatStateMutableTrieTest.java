@@ -0,0 +1,64 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.db;
+
+import co.rsk.crypto.Keccak256;
+import co.rsk.trie.MutableTrie;
+import co.rsk.trie.Trie;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FlatStateMutableTrieTest {
+
+    private static final byte[] KEY = new byte[] {0x00, 0x01};
+
+    @Test
+    void readsFromTheFlatStateUntilModified() {
+        Trie trie = new Trie().put(KEY, new byte[] {1});
+        Keccak256 root = trie.getHash();
+        FlatStateStore flatStateStore = mock(FlatStateStore.class);
+        when(flatStateStore.get(eq(root), eq(KEY), any())).thenReturn(new byte[] {2});
+
+        MutableTrie mutableTrie = new FlatStateMutableTrie(flatStateStore, root, new MutableTrieImpl(null, trie));
+
+        assertArrayEquals(new byte[] {2}, mutableTrie.get(KEY));
+
+        mutableTrie.put(KEY, new byte[] {3});
+
+        assertArrayEquals(new byte[] {3}, mutableTrie.get(KEY));
+        verify(flatStateStore, times(1)).get(any(), any(), any());
+    }
+
+    @Test
+    void fallsBackToTheTrie() {
+        Trie trie = new Trie().put(KEY, new byte[] {1});
+        FlatStateStore flatStateStore = mock(FlatStateStore.class);
+        when(flatStateStore.get(any(), any(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+
+        MutableTrie mutableTrie = new FlatStateMutableTrie(flatStateStore, trie.getHash(), new MutableTrieImpl(null, trie));
+
+        assertArrayEquals(new byte[] {1}, mutableTrie.get(KEY));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.db;
+
+import co.rsk.trie.Trie;
+import co.rsk.trie.TrieStore;
+import co.rsk.trie.TrieStoreImpl;
+import org.ethereum.datasource.HashMapDB;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlatStateStoreTest {
+
+    private static final byte[] KEY_1 = new byte[] {0x00, 0x01};
+    private static final byte[] KEY_2 = new byte[] {0x00, 0x02};
+    private static final byte[] KEY_3 = new byte[] {0x00, 0x03};
+
+    private HashMapDB dataSource;
+    private TrieStore trieStore;
+    private FlatStateStore flatStateStore;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new HashMapDB();
+        trieStore = new TrieStoreImpl(new HashMapDB());
+        flatStateStore = new FlatStateStore(dataSource, trieStore);
+    }
+
+    @Test
+    void generatesTheStateTheFirstTime() {
+        Trie trie = save(new Trie(trieStore).put(KEY_1, new byte[] {1}).put(KEY_2, new byte[] {2}));
+
+        assertNull(flatStateStore.getRoot());
+        assertTrue(flatStateStore.update(trie.getHash()));
+
+        assertEquals(trie.getHash(), flatStateStore.getRoot());
+        assertArrayEquals(new byte[] {1}, flatStateStore.get(trie.getHash(), KEY_1, () -> null));
+        assertArrayEquals(new byte[] {2}, flatStateStore.get(trie.getHash(), KEY_2, () -> null));
+        assertNull(flatStateStore.get(trie.getHash(), KEY_3, () -> new byte[] {3}));
+    }
+
+    @Test
+    void movesForwardAndBackToThePreviousState() {
+        Trie parent = save(new Trie(trieStore).put(KEY_1, new byte[] {1}).put(KEY_2, new byte[] {2}));
+        Trie child = save(parent.put(KEY_1, new byte[] {10}).delete(KEY_2).put(KEY_3, new byte[] {3}));
+        flatStateStore.update(parent.getHash());
+
+        assertTrue(flatStateStore.update(child.getHash()));
+
+        assertArrayEquals(new byte[] {10}, flatStateStore.get(child.getHash(), KEY_1, () -> null));
+        assertNull(flatStateStore.get(child.getHash(), KEY_2, () -> new byte[] {2}));
+        assertArrayEquals(new byte[] {3}, flatStateStore.get(child.getHash(), KEY_3, () -> null));
+
+        // a reorganization goes back to the parent state
+        assertTrue(flatStateStore.update(parent.getHash()));
+
+        assertArrayEquals(new byte[] {1}, flatStateStore.get(parent.getHash(), KEY_1, () -> null));
+        assertArrayEquals(new byte[] {2}, flatStateStore.get(parent.getHash(), KEY_2, () -> null));
+        assertNull(flatStateStore.get(parent.getHash(), KEY_3, () -> new byte[] {3}));
+    }
+
+    @Test
+    void readsFromTheFallbackAtOtherRoots() {
+        Trie trie = save(new Trie(trieStore).put(KEY_1, new byte[] {1}));
+        Trie other = save(trie.put(KEY_1, new byte[] {2}));
+        flatStateStore.update(trie.getHash());
+
+        assertArrayEquals(new byte[] {2}, flatStateStore.get(other.getHash(), KEY_1, () -> other.get(KEY_1)));
+    }
+
+    @Test
+    void doesNotMoveToUnknownStates() {
+        Trie trie = save(new Trie(trieStore).put(KEY_1, new byte[] {1}));
+        Trie unsaved = trie.put(KEY_1, new byte[] {2});
+        flatStateStore.update(trie.getHash());
+
+        assertFalse(flatStateStore.update(unsaved.getHash()));
+        assertEquals(trie.getHash(), flatStateStore.getRoot());
+    }
+
+    @Test
+    void regeneratesWhenTheCurrentStateIsMissing() {
+        Trie trie = save(new Trie(trieStore).put(KEY_1, new byte[] {1}).put(KEY_2, new byte[] {2}));
+        flatStateStore.update(trie.getHash());
+
+        // the trie store loses the current state (e.g. it was garbage collected)
+        trieStore = new TrieStoreImpl(new HashMapDB());
+        flatStateStore = new FlatStateStore(dataSource, trieStore);
+        Trie other = save(new Trie(trieStore).put(KEY_3, new byte[] {3}));
+
+        assertEquals(trie.getHash(), flatStateStore.getRoot());
+        assertTrue(flatStateStore.update(other.getHash()));
+
+        assertNull(flatStateStore.get(other.getHash(), KEY_1, () -> new byte[] {1}));
+        assertNull(flatStateStore.get(other.getHash(), KEY_2, () -> new byte[] {2}));
+        assertArrayEquals(new byte[] {3}, flatStateStore.get(other.getHash(), KEY_3, () -> null));
+    }
+
+    @Test
+    void movesToTheEmptyState() {
+        Trie trie = save(new Trie(trieStore).put(KEY_1, new byte[] {1}));
+        Trie empty = new Trie(trieStore);
+        flatStateStore.update(trie.getHash());
+
+        assertTrue(flatStateStore.update(empty.getHash()));
+
+        assertNull(flatStateStore.get(empty.getHash(), KEY_1, () -> new byte[] {1}));
+    }
+
+    private Trie save(Trie trie) {
+        trieStore.save(trie);
+        return trie;
+    }
+}
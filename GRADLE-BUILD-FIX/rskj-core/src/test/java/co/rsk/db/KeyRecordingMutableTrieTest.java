@@ -0,0 +1,115 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.db;
+
+import co.rsk.core.Coin;
+import co.rsk.core.RskAddress;
+import co.rsk.trie.Trie;
+import org.ethereum.core.Repository;
+import org.ethereum.db.ByteArrayWrapper;
+import org.ethereum.db.MutableRepository;
+import org.ethereum.db.TrieKeyMapper;
+import org.ethereum.vm.DataWord;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyRecordingMutableTrieTest {
+
+    private static final RskAddress ADDRESS = new RskAddress("0000000000000000000000000000000001000008");
+    private static final RskAddress OTHER_ADDRESS = new RskAddress("0000000000000000000000000000000001000009");
+
+    private final TrieKeyMapper trieKeyMapper = new TrieKeyMapper();
+
+    @Test
+    void recordsOnlyReadsThatMissTheCache() {
+        MutableTrieImpl base = new MutableTrieImpl(null, new Trie());
+        new MutableRepository(base).addBalance(ADDRESS, Coin.valueOf(10));
+
+        KeyRecordingMutableTrie recorder = new KeyRecordingMutableTrie(base);
+        Repository repository = new MutableRepository(new MutableTrieCache(recorder));
+
+        repository.addBalance(ADDRESS, Coin.valueOf(5));
+        repository.getBalance(ADDRESS);
+
+        ByteArrayWrapper accountKey = new ByteArrayWrapper(trieKeyMapper.getAccountKey(ADDRESS));
+        assertEquals(1, recorder.getReadKeys().size());
+        assertTrue(recorder.getReadKeys().contains(accountKey));
+        assertTrue(recorder.getWrittenKeys().isEmpty());
+
+        repository.commit();
+
+        assertEquals(1, recorder.getWrittenKeys().size());
+        assertTrue(recorder.getWrittenKeys().contains(accountKey));
+        assertFalse(recorder.isFullTrieRead());
+    }
+
+    @Test
+    void deleteSupersedesPreviousWritesOnTheAccount() {
+        KeyRecordingMutableTrie recorder = new KeyRecordingMutableTrie(new MutableTrieImpl(null, new Trie()));
+        Repository repository = new MutableRepository(recorder);
+
+        repository.addStorageRow(ADDRESS, DataWord.ONE, DataWord.ONE);
+        repository.addBalance(OTHER_ADDRESS, Coin.valueOf(1));
+        repository.delete(ADDRESS);
+
+        ByteArrayWrapper accountKey = new ByteArrayWrapper(trieKeyMapper.getAccountKey(ADDRESS));
+        assertTrue(recorder.getDeletedAccounts().contains(accountKey));
+        assertEquals(1, recorder.getWrittenKeys().size());
+        assertTrue(recorder.getWrittenKeys().contains(new ByteArrayWrapper(trieKeyMapper.getAccountKey(OTHER_ADDRESS))));
+    }
+
+    @Test
+    void applyWritesReproducesTheSameState() {
+        MutableTrieImpl base = new MutableTrieImpl(null, new Trie());
+        new MutableRepository(base).addStorageRow(ADDRESS, DataWord.ONE, DataWord.ONE);
+        Trie initialTrie = base.getTrie();
+
+        KeyRecordingMutableTrie recorder = new KeyRecordingMutableTrie(new MutableTrieImpl(null, initialTrie));
+        Repository repository = new MutableRepository(new MutableTrieCache(recorder));
+        repository.delete(ADDRESS);
+        repository.addStorageRow(ADDRESS, DataWord.valueOf(2), DataWord.ONE);
+        repository.addBalance(OTHER_ADDRESS, Coin.valueOf(3));
+        repository.commit();
+
+        MutableTrieImpl target = new MutableTrieImpl(null, initialTrie);
+        recorder.applyWritesTo(target);
+
+        assertEquals(recorder.getTrie().getHash(), target.getHash());
+    }
+
+    @Test
+    void storageKeysIterationIsRecordedByAccount() {
+        KeyRecordingMutableTrie recorder = new KeyRecordingMutableTrie(new MutableTrieImpl(null, new Trie()));
+
+        recorder.getStorageKeys(ADDRESS);
+
+        assertTrue(recorder.getIteratedAccounts().contains(new ByteArrayWrapper(trieKeyMapper.getAccountKey(ADDRESS))));
+        assertTrue(recorder.getReadKeys().isEmpty());
+    }
+
+    @Test
+    void accountWrapperOfStorageKey() {
+        ByteArrayWrapper storageKey = new ByteArrayWrapper(trieKeyMapper.getAccountStorageKey(ADDRESS, DataWord.ONE));
+
+        assertEquals(
+                new ByteArrayWrapper(trieKeyMapper.getAccountKey(ADDRESS)),
+                KeyRecordingMutableTrie.getAccountWrapper(storageKey));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LogIndexEncoderTest {
+    @Test
+    void encodeAndDecodeEmptyList() {
+        byte[] data = LogIndexEncoder.encode(new long[0], 2048);
+
+        Assertions.assertEquals(0, data.length);
+        Assertions.assertArrayEquals(new long[0], LogIndexEncoder.decode(data, 2048));
+    }
+
+    @Test
+    void encodeAndDecodeBlockNumbers() {
+        long[] blockNumbers = new long[] { 4096, 4097, 4100, 4300, 6143 };
+
+        byte[] data = LogIndexEncoder.encode(blockNumbers, 4096);
+
+        Assertions.assertArrayEquals(blockNumbers, LogIndexEncoder.decode(data, 4096));
+    }
+
+    @Test
+    void encodeConsecutiveBlocksInOneByteEach() {
+        long[] blockNumbers = new long[] { 100, 101, 102, 103 };
+
+        Assertions.assertEquals(4, LogIndexEncoder.encode(blockNumbers, 100).length);
+    }
+
+    @Test
+    void encodeAndDecodeLargeDifferences() {
+        long[] blockNumbers = new long[] { 0, 127, 128, 16512, Long.MAX_VALUE };
+
+        byte[] data = LogIndexEncoder.encode(blockNumbers, 0);
+
+        Assertions.assertArrayEquals(blockNumbers, LogIndexEncoder.decode(data, 0));
+    }
+
+    @Test
+    void failToEncodeUnsortedBlockNumbers() {
+        long[] blockNumbers = new long[] { 10, 9 };
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LogIndexEncoder.encode(blockNumbers, 0));
+    }
+}
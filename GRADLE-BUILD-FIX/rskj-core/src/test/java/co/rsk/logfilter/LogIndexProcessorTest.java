@@ -0,0 +1,180 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import co.rsk.core.RskAddress;
+import co.rsk.crypto.Keccak256;
+import org.ethereum.TestUtils;
+import org.ethereum.core.Block;
+import org.ethereum.core.Transaction;
+import org.ethereum.core.TransactionReceipt;
+import org.ethereum.datasource.HashMapDB;
+import org.ethereum.db.BlockStore;
+import org.ethereum.db.ReceiptStore;
+import org.ethereum.db.TransactionInfo;
+import org.ethereum.vm.LogInfo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class LogIndexProcessorTest {
+    private static final RskAddress ADDRESS = new RskAddress("0000000000000000000000000000000001000008");
+
+    private BlockStore blockStore;
+    private ReceiptStore receiptStore;
+    private LogIndexStore logIndexStore;
+    private LogIndexProcessor logIndexProcessor;
+
+    @BeforeEach
+    void setUp() {
+        blockStore = mock(BlockStore.class);
+        receiptStore = mock(ReceiptStore.class);
+        logIndexStore = new LogIndexStore(4, 2, new HashMapDB());
+        logIndexProcessor = new LogIndexProcessor(logIndexStore, blockStore, receiptStore);
+    }
+
+    @Test
+    void avoidProcessWithNoEnoughConfirmations() {
+        logIndexProcessor.processNewBlockNumber(1);
+
+        Assertions.assertTrue(logIndexStore.isEmpty());
+        verify(blockStore, never()).getChainBlockByNumber(anyLong());
+    }
+
+    @Test
+    void processNewBlocks() {
+        Block[] chain = createChain("main", 10);
+
+        logIndexProcessor.processNewBlockNumber(2);
+
+        Assertions.assertEquals(0, logIndexStore.getFirstIndexedNumber());
+        Assertions.assertEquals(0, logIndexStore.getLastIndexedNumber());
+
+        logIndexProcessor.processNewBlockNumber(9);
+
+        Assertions.assertEquals(0, logIndexStore.getFirstIndexedNumber());
+        Assertions.assertEquals(7, logIndexStore.getLastIndexedNumber());
+        Assertions.assertEquals(chain[7].getHash(), logIndexStore.getLastIndexedHash());
+        Assertions.assertArrayEquals(new long[] { 1, 2, 3, 4, 5, 6, 7 }, logIndexStore.getAddressBlockNumbers(ADDRESS, 0, 10));
+    }
+
+    @Test
+    void processAtMostTheGivenNumberOfBlocks() {
+        createChain("main", 10);
+
+        Assertions.assertTrue(logIndexProcessor.processNewBlockNumber(2, 3));
+        Assertions.assertFalse(logIndexProcessor.processNewBlockNumber(9, 3));
+
+        Assertions.assertEquals(3, logIndexStore.getLastIndexedNumber());
+
+        Assertions.assertFalse(logIndexProcessor.processNewBlockNumber(9, 3));
+        Assertions.assertTrue(logIndexProcessor.processNewBlockNumber(9, 3));
+
+        Assertions.assertEquals(7, logIndexStore.getLastIndexedNumber());
+    }
+
+    @Test
+    void startAtTheFirstConfirmedBlock() {
+        createChain("main", 10);
+
+        logIndexProcessor.processNewBlockNumber(8);
+
+        Assertions.assertEquals(6, logIndexStore.getFirstIndexedNumber());
+        Assertions.assertEquals(6, logIndexStore.getLastIndexedNumber());
+    }
+
+    @Test
+    void stopWhenReceiptsAreMissing() {
+        Block[] chain = createChain("main", 10);
+        Transaction tx = chain[4].getTransactionsList().get(0);
+        doReturn(Optional.empty()).when(receiptStore).get(tx.getHash().getBytes(), chain[4].getHash().getBytes());
+
+        Assertions.assertEquals(4, logIndexProcessor.indexBlocks(0, 7));
+
+        Assertions.assertEquals(3, logIndexStore.getLastIndexedNumber());
+    }
+
+    @Test
+    void rewindAfterReorganization() {
+        Block[] oldChain = createChain("old", 10);
+
+        logIndexProcessor.indexBlocks(0, 7);
+
+        // blocks from 5 are replaced
+        Block[] newChain = createChain("new", 10);
+        for (int i = 0; i < 5; i++) {
+            doReturn(oldChain[i]).when(blockStore).getChainBlockByNumber(i);
+        }
+        doReturn(oldChain[4].getHash()).when(newChain[5]).getParentHash();
+
+        logIndexProcessor.processNewBlockNumber(9);
+
+        Assertions.assertEquals(0, logIndexStore.getFirstIndexedNumber());
+        Assertions.assertEquals(7, logIndexStore.getLastIndexedNumber());
+        Assertions.assertEquals(newChain[7].getHash(), logIndexStore.getLastIndexedHash());
+    }
+
+    @Test
+    void clearWhenNoIndexedBlockIsInMainChain() {
+        createChain("old", 10);
+
+        logIndexProcessor.indexBlocks(5, 7);
+
+        createChain("new", 10);
+
+        logIndexProcessor.rewindIfReorganized();
+
+        Assertions.assertTrue(logIndexStore.isEmpty());
+    }
+
+    private Block[] createChain(String name, int size) {
+        Block[] chain = new Block[size];
+
+        for (int i = 0; i < size; i++) {
+            Block block = mock(Block.class);
+            Keccak256 hash = new Keccak256(TestUtils.generateBytes(LogIndexProcessorTest.class, name + i, 32));
+            Transaction tx = mock(Transaction.class);
+            Keccak256 txHash = new Keccak256(TestUtils.generateBytes(LogIndexProcessorTest.class, name + "tx" + i, 32));
+            TransactionReceipt receipt = mock(TransactionReceipt.class);
+
+            doReturn((long) i).when(block).getNumber();
+            doReturn(hash).when(block).getHash();
+            doReturn(i == 0 ? Keccak256.ZERO_HASH : chain[i - 1].getHash()).when(block).getParentHash();
+            doReturn(Collections.singletonList(tx)).when(block).getTransactionsList();
+            doReturn(txHash).when(tx).getHash();
+            doReturn(i == 0 ? Collections.emptyList() : Collections.singletonList(new LogInfo(ADDRESS.getBytes(), Collections.emptyList(), new byte[0])))
+                    .when(receipt).getLogInfoList();
+            doReturn(Optional.of(new TransactionInfo(receipt, hash.getBytes(), 0)))
+                    .when(receiptStore).get(txHash.getBytes(), hash.getBytes());
+
+            doReturn(block).when(blockStore).getChainBlockByNumber(i);
+            doReturn(block).when(blockStore).getBlockByHash(hash.getBytes());
+
+            chain[i] = block;
+        }
+
+        return chain;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import co.rsk.test.World;
+import co.rsk.test.builders.BlockChainBuilder;
+import org.awaitility.Awaitility;
+import org.ethereum.core.Blockchain;
+import org.ethereum.datasource.HashMapDB;
+import org.ethereum.db.ReceiptStore;
+import org.ethereum.listener.CompositeEthereumListener;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+class LogIndexServiceTest {
+    @Test
+    void catchUpInTheBackground() {
+        World world = new World();
+        Blockchain blockchain = world.getBlockChain();
+        // blocks without transactions, no receipts are needed
+        BlockChainBuilder.extend(blockchain, 40, false, false);
+
+        CompositeEthereumListener emitter = new CompositeEthereumListener();
+        LogIndexStore logIndexStore = new LogIndexStore(4, 2, new HashMapDB());
+        LogIndexService logIndexService = new LogIndexService(emitter, logIndexStore, world.getBlockStore(), mock(ReceiptStore.class));
+
+        logIndexService.start();
+
+        try {
+            emitter.onBlock(blockchain.getBlockByNumber(2), null);
+
+            Assertions.assertEquals(0, logIndexStore.getLastIndexedNumber());
+
+            // more blocks than the import thread indexes
+            emitter.onBlock(blockchain.getBlockByNumber(30), null);
+            emitter.onBlock(blockchain.getBlockByNumber(40), null);
+
+            Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> logIndexStore.getLastIndexedNumber() == 38);
+        } finally {
+            logIndexService.stop();
+        }
+
+        Assertions.assertEquals(0, logIndexStore.getFirstIndexedNumber());
+        Assertions.assertEquals(blockchain.getBlockByNumber(38).getHash(), logIndexStore.getLastIndexedHash());
+    }
+}
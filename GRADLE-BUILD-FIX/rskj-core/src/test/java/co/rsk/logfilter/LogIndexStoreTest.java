@@ -0,0 +1,181 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.logfilter;
+
+import co.rsk.core.RskAddress;
+import co.rsk.crypto.Keccak256;
+import org.ethereum.TestUtils;
+import org.ethereum.datasource.HashMapDB;
+import org.ethereum.datasource.KeyValueDataSource;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+class LogIndexStoreTest {
+    private static final RskAddress ADDRESS = new RskAddress("0000000000000000000000000000000001000008");
+    private static final RskAddress OTHER_ADDRESS = new RskAddress("0000000000000000000000000000000001000006");
+    private static final DataWord TOPIC = DataWord.valueOf(42);
+
+    @Test
+    void emptyStore() {
+        LogIndexStore logIndexStore = new LogIndexStore(4, 0, new HashMapDB());
+
+        Assertions.assertTrue(logIndexStore.isEmpty());
+        Assertions.assertFalse(logIndexStore.isIndexed(0));
+        Assertions.assertEquals(-1, logIndexStore.getFirstIndexedNumber());
+        Assertions.assertEquals(-1, logIndexStore.getLastIndexedNumber());
+        Assertions.assertNull(logIndexStore.getLastIndexedHash());
+        Assertions.assertArrayEquals(new long[0], logIndexStore.getAddressBlockNumbers(ADDRESS, 0, 100));
+    }
+
+    @Test
+    void addBatchAndGetBlockNumbersInManyRecords() {
+        KeyValueDataSource dataSource = new HashMapDB();
+        LogIndexStore logIndexStore = new LogIndexStore(4, 0, dataSource);
+
+        addBlocks(logIndexStore, 0, 10, 1, 2, 5, 6, 9);
+
+        Assertions.assertFalse(logIndexStore.isEmpty());
+        Assertions.assertEquals(0, logIndexStore.getFirstIndexedNumber());
+        Assertions.assertEquals(10, logIndexStore.getLastIndexedNumber());
+        Assertions.assertEquals(hashOf(10), logIndexStore.getLastIndexedHash());
+
+        // one record of blocks for the address and one for the topic in each range of four blocks
+        Assertions.assertEquals(6 + 1, dataSource.keys().size());
+
+        Assertions.assertArrayEquals(new long[] { 1, 2, 5, 6, 9 }, logIndexStore.getAddressBlockNumbers(ADDRESS, 0, 10));
+        Assertions.assertArrayEquals(new long[] { 2, 5, 6 }, logIndexStore.getAddressBlockNumbers(ADDRESS, 2, 8));
+        Assertions.assertArrayEquals(new long[] { 1, 2, 5, 6, 9 }, logIndexStore.getTopicBlockNumbers(TOPIC.getData(), 0, 10));
+        Assertions.assertArrayEquals(new long[0], logIndexStore.getAddressBlockNumbers(OTHER_ADDRESS, 0, 10));
+    }
+
+    @Test
+    void reopenStore() {
+        KeyValueDataSource dataSource = new HashMapDB();
+
+        addBlocks(new LogIndexStore(4, 0, dataSource), 3, 6, 3, 6);
+
+        LogIndexStore logIndexStore = new LogIndexStore(4, 0, dataSource);
+
+        Assertions.assertEquals(3, logIndexStore.getFirstIndexedNumber());
+        Assertions.assertEquals(6, logIndexStore.getLastIndexedNumber());
+        Assertions.assertEquals(hashOf(6), logIndexStore.getLastIndexedHash());
+        Assertions.assertArrayEquals(new long[] { 3, 6 }, logIndexStore.getAddressBlockNumbers(ADDRESS, 0, 10));
+    }
+
+    @Test
+    void extendIndexedRangeBothWays() {
+        LogIndexStore logIndexStore = new LogIndexStore(4, 0, new HashMapDB());
+
+        addBlocks(logIndexStore, 5, 8, 5);
+        addBlocks(logIndexStore, 9, 12, 12);
+        addBlocks(logIndexStore, 0, 6, 1, 5);
+
+        Assertions.assertEquals(0, logIndexStore.getFirstIndexedNumber());
+        Assertions.assertEquals(12, logIndexStore.getLastIndexedNumber());
+        Assertions.assertEquals(hashOf(12), logIndexStore.getLastIndexedHash());
+        Assertions.assertArrayEquals(new long[] { 1, 5, 12 }, logIndexStore.getAddressBlockNumbers(ADDRESS, 0, 12));
+    }
+
+    @Test
+    void failToAddBatchWithGap() {
+        LogIndexStore logIndexStore = new LogIndexStore(4, 0, new HashMapDB());
+
+        addBlocks(logIndexStore, 5, 8, 5);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> addBlocks(logIndexStore, 10, 12, 12));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> addBlocks(logIndexStore, 0, 3, 1));
+        Assertions.assertEquals(5, logIndexStore.getFirstIndexedNumber());
+        Assertions.assertEquals(8, logIndexStore.getLastIndexedNumber());
+    }
+
+    @Test
+    void failToAddBlocksOutOfOrder() {
+        LogIndexStore logIndexStore = new LogIndexStore(4, 0, new HashMapDB());
+        LogIndexStore.Batch batch = logIndexStore.newBatch();
+
+        batch.addBlock(1, hashOf(1), Collections.emptyList());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.addBlock(3, hashOf(3), Collections.emptyList()));
+    }
+
+    @Test
+    void rewindAndIndexAgain() {
+        LogIndexStore logIndexStore = new LogIndexStore(4, 0, new HashMapDB());
+
+        addBlocks(logIndexStore, 0, 10, 9, 10);
+
+        logIndexStore.rewind(8, hashOf(8));
+
+        Assertions.assertEquals(8, logIndexStore.getLastIndexedNumber());
+        Assertions.assertEquals(hashOf(8), logIndexStore.getLastIndexedHash());
+        Assertions.assertFalse(logIndexStore.isIndexed(9));
+
+        addBlocks(logIndexStore, 9, 11, 11);
+
+        Assertions.assertEquals(11, logIndexStore.getLastIndexedNumber());
+        // the blocks of the old chain are false positives
+        Assertions.assertArrayEquals(new long[] { 9, 10, 11 }, logIndexStore.getAddressBlockNumbers(ADDRESS, 0, 11));
+    }
+
+    @Test
+    void rewindBeforeFirstIndexedBlockClears() {
+        LogIndexStore logIndexStore = new LogIndexStore(4, 0, new HashMapDB());
+
+        addBlocks(logIndexStore, 5, 10, 9);
+
+        logIndexStore.rewind(4, hashOf(4));
+
+        Assertions.assertTrue(logIndexStore.isEmpty());
+    }
+
+    @Test
+    void unionAndIntersection() {
+        long[] left = new long[] { 1, 3, 5, 7 };
+        long[] right = new long[] { 2, 3, 7, 8 };
+
+        Assertions.assertArrayEquals(new long[] { 1, 2, 3, 5, 7, 8 }, LogIndexStore.union(left, right));
+        Assertions.assertArrayEquals(new long[] { 3, 7 }, LogIndexStore.intersection(left, right));
+        Assertions.assertArrayEquals(left, LogIndexStore.union(left, new long[0]));
+        Assertions.assertArrayEquals(new long[0], LogIndexStore.intersection(new long[0], right));
+    }
+
+    private static void addBlocks(LogIndexStore logIndexStore, long fromBlock, long toBlock, long... blocksWithLogs) {
+        LogIndexStore.Batch batch = logIndexStore.newBatch();
+
+        for (long blockNumber = fromBlock; blockNumber <= toBlock; blockNumber++) {
+            long number = blockNumber;
+            boolean hasLogs = Arrays.stream(blocksWithLogs).anyMatch(n -> n == number);
+            LogInfo logInfo = new LogInfo(ADDRESS.getBytes(), Collections.singletonList(TOPIC), new byte[0]);
+
+            // repeated logs are indexed once
+            batch.addBlock(blockNumber, hashOf(blockNumber), hasLogs ? Arrays.asList(logInfo, logInfo) : Collections.emptyList());
+        }
+
+        logIndexStore.addBatch(batch);
+    }
+
+    private static Keccak256 hashOf(long blockNumber) {
+        return new Keccak256(TestUtils.generateBytes(LogIndexStoreTest.class, "block" + blockNumber, 32));
+    }
+}
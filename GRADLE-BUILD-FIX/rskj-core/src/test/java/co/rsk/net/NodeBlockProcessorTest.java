@@ -928,6 +928,75 @@ class NodeBlockProcessorTest {
             Assertions.assertEquals(blockchain.getBlockByNumber(60 - k).getHash(), response.getBlockHeaders().get(k).getHash());
     }
 
+    @Test
+    void processBlockRequestMessageUsingEncodedBlockCache() {
+        final Blockchain blockchain = new BlockChainBuilder().ofSize(10);
+        final Block block = blockchain.getBlockByNumber(3);
+        final EncodedBlockCache encodedBlockCache = new EncodedBlockCache(100);
+        final SimplePeer sender = new SimplePeer();
+        final SimplePeer otherSender = new SimplePeer();
+
+        newProcessor(blockchain, encodedBlockCache).processBlockRequest(sender, 100, block.getHash().getBytes());
+        newProcessor(blockchain, null).processBlockRequest(otherSender, 100, block.getHash().getBytes());
+
+        Assertions.assertEquals(1, sender.getMessages().size());
+        Assertions.assertEquals(MessageType.BLOCK_RESPONSE_MESSAGE, sender.getMessages().get(0).getMessageType());
+        Assertions.assertArrayEquals(otherSender.getMessages().get(0).getEncoded(), sender.getMessages().get(0).getEncoded());
+        Assertions.assertNotNull(encodedBlockCache.get(block.getHash()));
+    }
+
+    @Test
+    void processBodyRequestMessageUsingEncodedBlockCache() {
+        final Blockchain blockchain = new BlockChainBuilder().ofSize(10);
+        final Block block = blockchain.getBlockByNumber(3);
+        final EncodedBlockCache encodedBlockCache = new EncodedBlockCache(100);
+        final NodeBlockProcessor processor = newProcessor(blockchain, encodedBlockCache);
+        final SimplePeer sender = new SimplePeer();
+        final SimplePeer otherSender = new SimplePeer();
+
+        processor.processBodyRequest(sender, 100, block.getHash().getBytes());
+        processor.processBodyRequest(sender, 101, block.getHash().getBytes());
+        newProcessor(blockchain, null).processBodyRequest(otherSender, 101, block.getHash().getBytes());
+
+        Assertions.assertEquals(2, sender.getMessages().size());
+        Assertions.assertEquals(1, encodedBlockCache.size());
+
+        final Message message = sender.getMessages().get(1);
+
+        Assertions.assertEquals(MessageType.BODY_RESPONSE_MESSAGE, message.getMessageType());
+        Assertions.assertEquals(101, ((BodyResponseMessage) message).getId());
+        Assertions.assertArrayEquals(otherSender.getMessages().get(0).getEncoded(), message.getEncoded());
+    }
+
+    @Test
+    void processBlockHeadersRequestMessageUsingEncodedBlockCache() {
+        final Blockchain blockchain = new BlockChainBuilder().ofSize(100);
+        final Block block = blockchain.getBlockByNumber(60);
+        final EncodedBlockCache encodedBlockCache = new EncodedBlockCache(100);
+        final SimplePeer sender = new SimplePeer();
+        final SimplePeer otherSender = new SimplePeer();
+
+        newProcessor(blockchain, encodedBlockCache).processBlockHeadersRequest(sender, 100, block.getHash().getBytes(), 20);
+        newProcessor(blockchain, null).processBlockHeadersRequest(otherSender, 100, block.getHash().getBytes(), 20);
+
+        Assertions.assertEquals(1, sender.getMessages().size());
+        Assertions.assertEquals(MessageType.BLOCK_HEADERS_RESPONSE_MESSAGE, sender.getMessages().get(0).getMessageType());
+        Assertions.assertArrayEquals(otherSender.getMessages().get(0).getEncoded(), sender.getMessages().get(0).getEncoded());
+        Assertions.assertEquals(20, encodedBlockCache.size());
+    }
+
+    @Test
+    void processBlockHeadersRequestMessageUsingEncodedBlockCacheAndUnknownHash() {
+        final Blockchain blockchain = new BlockChainBuilder().ofSize(100);
+        final EncodedBlockCache encodedBlockCache = new EncodedBlockCache(100);
+        final SimplePeer sender = new SimplePeer();
+
+        newProcessor(blockchain, encodedBlockCache).processBlockHeadersRequest(sender, 100, TestUtils.generateBytes("unknown", 32), 20);
+
+        Assertions.assertTrue(sender.getMessages().isEmpty());
+        Assertions.assertEquals(0, encodedBlockCache.size());
+    }
+
     @Test
     void processBlockHeadersRequestMessageUsingUnknownHash() throws UnknownHostException {
         final Blockchain blockchain = new BlockChainBuilder().ofSize(100);
@@ -1133,4 +1202,13 @@ class NodeBlockProcessorTest {
         Assertions.assertEquals(nonAdvancedBlockIdentifier.getHash(), blockHashCaptor.getValue().getBytes());
         Assertions.assertNotEquals(advancedBlockIdentifier.getHash(), blockHashCaptor.getValue().getBytes());
     }
+
+    private static NodeBlockProcessor newProcessor(Blockchain blockchain, EncodedBlockCache encodedBlockCache) {
+        NetBlockStore store = new NetBlockStore();
+        BlockNodeInformation nodeInformation = new BlockNodeInformation();
+        SyncConfiguration syncConfiguration = SyncConfiguration.IMMEDIATE_FOR_TESTING;
+        TestSystemProperties config = new TestSystemProperties();
+        BlockSyncService blockSyncService = new BlockSyncService(config, store, blockchain, nodeInformation, syncConfiguration, DummyBlockValidator.VALID_RESULT_INSTANCE);
+        return new NodeBlockProcessor(store, blockchain, nodeInformation, blockSyncService, syncConfiguration, encodedBlockCache);
+    }
 }
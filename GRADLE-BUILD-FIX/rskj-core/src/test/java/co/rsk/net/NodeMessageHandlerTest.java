@@ -35,6 +35,7 @@ import co.rsk.scoring.*;
 import co.rsk.test.World;
 import co.rsk.test.builders.BlockChainBuilder;
 import co.rsk.validators.*;
+import com.typesafe.config.ConfigValueFactory;
 import org.awaitility.Awaitility;
 import org.ethereum.TestUtils;
 import org.ethereum.core.*;
@@ -972,6 +973,107 @@ class NodeMessageHandlerTest {
 
     }
 
+    @Test
+    void servingRequestsAreProcessedOnTheirLane() {
+        TestSystemProperties lanesConfig = new TestSystemProperties(rawConfig -> rawConfig
+                .withValue("peer.messageQueue.lanes.enabled", ConfigValueFactory.fromAnyRef(true))
+                .withValue("peer.messageQueue.lanes.servingThreads", ConfigValueFactory.fromAnyRef(2)));
+        BlockProcessor blockProcessor = mock(BlockProcessor.class);
+        List<String> threadNames = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> threadNames.add(Thread.currentThread().getName()))
+                .when(blockProcessor).processBodyRequest(any(), anyLong(), any());
+
+        NodeMessageHandler handler = new NodeMessageHandler(lanesConfig, blockProcessor, null, null, null,
+                RskMockFactory.getPeerScoringManager(), mock(StatusResolver.class));
+        SimplePeer sender = new SimplePeer(new NodeID(new byte[] {1}));
+
+        handler.start();
+        try {
+            handler.postMessage(sender, new BodyRequestMessage(1, new byte[32]), null);
+            Awaitility.await().atMost(2, TimeUnit.SECONDS).until(() -> !threadNames.isEmpty());
+        } finally {
+            handler.stop();
+        }
+
+        Assertions.assertTrue(threadNames.get(0).startsWith("message handler serving"));
+
+        List<MessageLaneStats> stats = handler.getLaneStats();
+        Assertions.assertEquals(4, stats.size());
+        Assertions.assertEquals("main", stats.get(0).getName());
+        Assertions.assertEquals(0, stats.get(0).getProcessed());
+        Assertions.assertEquals(1, stats.stream().mapToLong(MessageLaneStats::getProcessed).sum());
+        Assertions.assertEquals(0, handler.getMessageQueueSize());
+    }
+
+    @Test
+    void skeletonRequestsAreServedConcurrentlyOnTwoLanes() {
+        TestSystemProperties lanesConfig = new TestSystemProperties(rawConfig -> rawConfig
+                .withValue("peer.messageQueue.lanes.enabled", ConfigValueFactory.fromAnyRef(true))
+                .withValue("peer.messageQueue.lanes.servingThreads", ConfigValueFactory.fromAnyRef(2)));
+        Blockchain blockchain = new BlockChainBuilder().ofSize(400);
+        NetBlockStore store = new NetBlockStore();
+        BlockNodeInformation nodeInformation = new BlockNodeInformation();
+        SyncConfiguration syncConfiguration = SyncConfiguration.IMMEDIATE_FOR_TESTING;
+        BlockSyncService blockSyncService = new BlockSyncService(lanesConfig, store, blockchain, nodeInformation,
+                syncConfiguration, DummyBlockValidator.VALID_RESULT_INSTANCE);
+        NodeBlockProcessor blockProcessor = new NodeBlockProcessor(store, blockchain, nodeInformation, blockSyncService,
+                syncConfiguration);
+
+        NodeMessageHandler handler = new NodeMessageHandler(lanesConfig, blockProcessor, null, null, null,
+                RskMockFactory.getPeerScoringManager(), mock(StatusResolver.class));
+        // these node ids are hashed to different serving lanes
+        SimplePeer sender1 = new SimplePeer(new NodeID(new byte[] {1}));
+        SimplePeer sender2 = new SimplePeer(new NodeID(new byte[] {2}));
+        int requests = 50;
+
+        handler.start();
+        try {
+            for (int i = 0; i < requests; i++) {
+                handler.postMessage(sender1, new SkeletonRequestMessage(i, i), null);
+                handler.postMessage(sender2, new SkeletonRequestMessage(i, requests + i), null);
+            }
+            // the main lane comes first, then the two serving lanes
+            Awaitility.await().atMost(10, TimeUnit.SECONDS).until(() ->
+                    handler.getLaneStats().get(1).getProcessed() == requests
+                            && handler.getLaneStats().get(2).getProcessed() == requests);
+        } finally {
+            handler.stop();
+        }
+
+        Assertions.assertEquals(requests, sender1.getMessages().size());
+        Assertions.assertEquals(requests, sender2.getMessages().size());
+
+        for (int i = 0; i < requests; i++) {
+            assertSkeletonResponse(blockchain, i, i, sender1.getMessages().get(i));
+            assertSkeletonResponse(blockchain, i, requests + i, sender2.getMessages().get(i));
+        }
+    }
+
+    private static void assertSkeletonResponse(Blockchain blockchain, long id, long startNumber, Message message) {
+        Assertions.assertEquals(MessageType.SKELETON_RESPONSE_MESSAGE, message.getMessageType());
+        SkeletonResponseMessage response = (SkeletonResponseMessage) message;
+        Assertions.assertEquals(id, response.getId());
+
+        for (BlockIdentifier identifier : response.getBlockIdentifiers()) {
+            Assertions.assertArrayEquals(blockchain.getBlockByNumber(identifier.getNumber()).getHash().getBytes(),
+                    identifier.getHash());
+        }
+    }
+
+    @Test
+    void withoutLanesEverythingIsQueuedOnTheMainLane() {
+        NodeMessageHandler handler = new NodeMessageHandler(config, mock(BlockProcessor.class), null, null, null,
+                RskMockFactory.getPeerScoringManager(), mock(StatusResolver.class));
+        SimplePeer sender = new SimplePeer(new NodeID(new byte[] {1}));
+
+        handler.postMessage(sender, new BodyRequestMessage(1, new byte[32]), null);
+
+        List<MessageLaneStats> stats = handler.getLaneStats();
+        Assertions.assertEquals(1, stats.size());
+        Assertions.assertEquals(1, stats.get(0).getQueued());
+        Assertions.assertEquals(1, handler.getMessageQueueSize());
+    }
+
     @Test
     void whenPostMsgFromDiffSenders_shouldNotCountRepeatedMsgs() {
         final SimplePeer sender1 = new SimplePeer(new NodeID(new byte[] {1}));
@@ -0,0 +1,144 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net;
+
+import co.rsk.core.BlockDifficulty;
+import co.rsk.crypto.Keccak256;
+import co.rsk.net.messages.MessageType;
+import co.rsk.net.messages.TransactionHashesMessage;
+import co.rsk.net.messages.TransactionsMessage;
+import co.rsk.net.messages.TransactionsRequestMessage;
+import co.rsk.net.simples.SimplePeer;
+import org.ethereum.TestUtils;
+import org.ethereum.core.Transaction;
+import org.ethereum.core.TransactionPool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransactionAnnouncementsTest {
+    private TransactionPool transactionPool;
+    private TransactionAnnouncements transactionAnnouncements;
+
+    private SimplePeer announcingPeer;
+    private SimplePeer legacyPeer;
+
+    @BeforeEach
+    void setUp() {
+        transactionPool = mock(TransactionPool.class);
+        transactionAnnouncements = new TransactionAnnouncements(transactionPool, 100);
+
+        announcingPeer = new SimplePeer(new NodeID(TestUtils.generateBytes("announcingPeer", 32)));
+        legacyPeer = new SimplePeer(new NodeID(TestUtils.generateBytes("legacyPeer", 32)));
+
+        transactionAnnouncements.processStatus(announcingPeer, createStatus(true));
+        transactionAnnouncements.processStatus(legacyPeer, createStatus(false));
+    }
+
+    @Test
+    void announceHashesOrSendTransactions() {
+        Transaction tx = createTransaction("tx");
+
+        transactionAnnouncements.relay(Collections.singletonList(tx), Collections.emptySet(), Arrays.asList(announcingPeer, legacyPeer));
+
+        Assertions.assertEquals(1, announcingPeer.getMessages().size());
+        Assertions.assertEquals(MessageType.TRANSACTION_HASHES_MESSAGE, announcingPeer.getMessages().get(0).getMessageType());
+        Assertions.assertEquals(Collections.singletonList(tx.getHash()), ((TransactionHashesMessage) announcingPeer.getMessages().get(0)).getHashes());
+
+        Assertions.assertEquals(1, legacyPeer.getMessages().size());
+        Assertions.assertEquals(MessageType.TRANSACTIONS, legacyPeer.getMessages().get(0).getMessageType());
+        Assertions.assertEquals(Collections.singletonList(tx), ((TransactionsMessage) legacyPeer.getMessages().get(0)).getTransactions());
+    }
+
+    @Test
+    void doNotRelayKnownTransactions() {
+        Transaction tx1 = createTransaction("tx1");
+        Transaction tx2 = createTransaction("tx2");
+
+        transactionAnnouncements.transactionsReceived(Collections.singletonList(tx1), Collections.singleton(legacyPeer.getPeerNodeID()));
+        transactionAnnouncements.relay(Arrays.asList(tx1, tx2), Collections.singleton(legacyPeer.getPeerNodeID()), Arrays.asList(announcingPeer, legacyPeer));
+        transactionAnnouncements.relay(Arrays.asList(tx1, tx2), Collections.emptySet(), Arrays.asList(announcingPeer, legacyPeer));
+
+        Assertions.assertEquals(1, announcingPeer.getMessages().size());
+        Assertions.assertEquals(Arrays.asList(tx1.getHash(), tx2.getHash()), ((TransactionHashesMessage) announcingPeer.getMessages().get(0)).getHashes());
+
+        Assertions.assertEquals(1, legacyPeer.getMessages().size());
+        Assertions.assertEquals(Collections.singletonList(tx2), ((TransactionsMessage) legacyPeer.getMessages().get(0)).getTransactions());
+    }
+
+    @Test
+    void requestMissingAnnouncedTransactions() {
+        Transaction tx1 = createTransaction("tx1");
+        Keccak256 missingHash = TestUtils.generateHash("missing");
+        when(transactionPool.getTransactionByHash(tx1.getHash())).thenReturn(tx1);
+
+        transactionAnnouncements.processTransactionHashes(announcingPeer, Arrays.asList(tx1.getHash(), missingHash));
+
+        Assertions.assertEquals(1, announcingPeer.getMessages().size());
+        Assertions.assertEquals(Collections.singletonList(missingHash), ((TransactionsRequestMessage) announcingPeer.getMessages().get(0)).getHashes());
+
+        // it was just requested to the other peer
+        transactionAnnouncements.processTransactionHashes(legacyPeer, Collections.singletonList(missingHash));
+
+        Assertions.assertTrue(legacyPeer.getMessages().isEmpty());
+    }
+
+    @Test
+    void doNotAnnounceTransactionsToThePeerThatAnnouncedThem() {
+        Transaction tx = createTransaction("tx");
+
+        transactionAnnouncements.processTransactionHashes(announcingPeer, Collections.singletonList(tx.getHash()));
+        announcingPeer.getMessages().clear();
+
+        transactionAnnouncements.relay(Collections.singletonList(tx), Collections.emptySet(), Collections.singletonList(announcingPeer));
+
+        Assertions.assertTrue(announcingPeer.getMessages().isEmpty());
+    }
+
+    @Test
+    void sendRequestedTransactionsInThePool() {
+        Transaction tx = createTransaction("tx");
+        when(transactionPool.getTransactionByHash(tx.getHash())).thenReturn(tx);
+
+        transactionAnnouncements.processTransactionsRequest(announcingPeer, Arrays.asList(tx.getHash(), TestUtils.generateHash("missing")));
+
+        Assertions.assertEquals(1, announcingPeer.getMessages().size());
+        Assertions.assertEquals(Collections.singletonList(tx), ((TransactionsMessage) announcingPeer.getMessages().get(0)).getTransactions());
+    }
+
+    private static Status createStatus(boolean acceptsTransactionAnnouncements) {
+        byte[] hash = TestUtils.generateBytes("hash", 32);
+        byte[] parentHash = TestUtils.generateBytes("parentHash", 32);
+        return new Status(1, hash, parentHash, new BlockDifficulty(BigInteger.ONE), acceptsTransactionAnnouncements);
+    }
+
+    private static Transaction createTransaction(String discriminator) {
+        Transaction tx = mock(Transaction.class);
+        when(tx.getHash()).thenReturn(TestUtils.generateHash(discriminator));
+        return tx;
+    }
+}
@@ -17,6 +17,7 @@
  */
 package co.rsk.net;
 
+import co.rsk.net.handler.TxPreValidator;
 import org.ethereum.TestUtils;
 import org.ethereum.core.Transaction;
 import org.ethereum.core.TransactionPool;
@@ -25,6 +26,8 @@ import org.ethereum.net.server.ChannelManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -89,6 +92,40 @@ class TransactionGatewayTest {
         receiveTransactionAndVerifyCalls(transactionPoolAddResult, 0);
     }
 
+    @Test
+    void receiveTransactionsFrom_withAnnouncements_shouldRelayToTheActivePeers() {
+        TransactionAnnouncements transactionAnnouncements = mock(TransactionAnnouncements.class);
+        TransactionGateway announcingGateway = new TransactionGateway(channelManager, transactionPool, null, null, transactionAnnouncements);
+        List<Transaction> transactions = Collections.singletonList(tx);
+        Set<NodeID> nodeIDS = Collections.singleton(new NodeID(TestUtils.generateBytes("nodeID", 32)));
+        Collection<Peer> activePeers = Collections.emptyList();
+        when(transactionPool.addTransactions(transactions)).thenReturn(transactions);
+        when(channelManager.getActivePeers()).thenReturn(activePeers);
+
+        announcingGateway.receiveTransactionsFrom(transactions, nodeIDS);
+
+        verify(transactionAnnouncements, times(1)).transactionsReceived(transactions, nodeIDS);
+        verify(transactionAnnouncements, times(1)).relay(transactions, nodeIDS, activePeers);
+        verify(channelManager, never()).broadcastTransactions(any(), any());
+    }
+
+    @Test
+    void receiveTransactionsFrom_withPreValidator_shouldOnlyAddTheValidOnes() {
+        TxPreValidator txPreValidator = mock(TxPreValidator.class);
+        TransactionGateway preValidatingGateway = new TransactionGateway(channelManager, transactionPool, null, null, null, txPreValidator);
+        Transaction invalidTx = mock(Transaction.class);
+        List<Transaction> transactions = Arrays.asList(invalidTx, tx);
+        List<Transaction> validTransactions = Collections.singletonList(tx);
+        Set<NodeID> nodeIDS = Collections.singleton(new NodeID(TestUtils.generateBytes("nodeID", 32)));
+        when(txPreValidator.filterValid(transactions)).thenReturn(validTransactions);
+        when(transactionPool.addTransactions(validTransactions)).thenReturn(validTransactions);
+
+        preValidatingGateway.receiveTransactionsFrom(transactions, nodeIDS);
+
+        verify(transactionPool, times(1)).addTransactions(validTransactions);
+        verify(channelManager, times(1)).broadcastTransactions(validTransactions, nodeIDS);
+    }
+
     private void receiveTransactionAndVerifyCalls(TransactionPoolAddResult transactionPoolAddResult,
                                                   int broadcastTransactionsCount) {
         when(transactionPool.addTransaction(tx)).thenReturn(transactionPoolAddResult);
@@ -0,0 +1,154 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.handler;
+
+import co.rsk.core.Coin;
+import co.rsk.core.RskAddress;
+import org.ethereum.config.Constants;
+import org.ethereum.config.blockchain.upgrades.ActivationConfigsForTest;
+import org.ethereum.core.*;
+import org.ethereum.crypto.ECKey;
+import org.ethereum.crypto.HashUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TxPreValidatorTest {
+
+    private static final byte[] PRIVATE_KEY = HashUtil.keccak256("sender".getBytes());
+
+    private Blockchain blockchain;
+    private SignatureCache signatureCache;
+
+    @BeforeEach
+    void setUp() {
+        Block bestBlock = mock(Block.class);
+        when(bestBlock.getGasLimit()).thenReturn(BigInteger.valueOf(6_800_000).toByteArray());
+        when(bestBlock.getMinimumGasPrice()).thenReturn(Coin.valueOf(10));
+        when(bestBlock.getNumber()).thenReturn(100L);
+
+        blockchain = mock(Blockchain.class);
+        when(blockchain.getBestBlock()).thenReturn(bestBlock);
+
+        signatureCache = new BlockTxSignatureCache(new ReceivedTxSignatureCache());
+    }
+
+    @Test
+    void dropsTheTransactionsFailingTheStatelessChecks() {
+        Transaction validTx = signedTransaction(0, 10, 21000, (byte) 0);
+        Transaction unsignedTx = transaction(1, 10, 21000, (byte) 0);
+        Transaction otherChainTx = signedTransaction(2, 10, 21000, (byte) 99);
+        Transaction cheapTx = signedTransaction(3, 9, 21000, (byte) 0);
+        Transaction lowGasLimitTx = signedTransaction(4, 10, 20999, (byte) 0);
+        Transaction otherValidTx = signedTransaction(5, 10, 21000, (byte) 0);
+
+        TxPreValidator txPreValidator = newTxPreValidator(1);
+        List<Transaction> result = txPreValidator.filterValid(Arrays.asList(validTx, unsignedTx, otherChainTx, cheapTx, lowGasLimitTx, otherValidTx));
+
+        assertEquals(Arrays.asList(validTx, otherValidTx), result);
+        assertEquals(2, txPreValidator.getStepStats().get("TxValidatorSignatureValidator").getRejections());
+        assertEquals(1, txPreValidator.getStepStats().get("TxValidatorMinimuGasPriceValidator").getRejections());
+        assertEquals(1, txPreValidator.getStepStats().get("TxValidatorIntrinsicGasLimitValidator").getRejections());
+        assertEquals(6, txPreValidator.getStepStats().get("TxNotNullValidator").getTransactions());
+        assertEquals(2, txPreValidator.getStepStats().get("TxValidatorMaximumGasPriceValidator").getTransactions());
+    }
+
+    @Test
+    void validatesInParallelKeepingTheOrder() {
+        List<Transaction> txs = new ArrayList<>();
+        List<Transaction> validTxs = new ArrayList<>();
+
+        for (int i = 0; i < 30; i++) {
+            Transaction tx = i % 3 == 0 ? transaction(i, 10, 21000, (byte) 0) : signedTransaction(i, 10, 21000, (byte) 0);
+            txs.add(tx);
+
+            if (i % 3 != 0) {
+                validTxs.add(tx);
+            }
+        }
+
+        TxPreValidator txPreValidator = newTxPreValidator(4);
+
+        assertEquals(validTxs, txPreValidator.filterValid(txs));
+        assertEquals(10, txPreValidator.getStepStats().get("TxValidatorSignatureValidator").getRejections());
+
+        for (Transaction tx : validTxs) {
+            assertEquals(new RskAddress(ECKey.fromPrivate(PRIVATE_KEY).getAddress()), tx.getSender(signatureCache));
+        }
+    }
+
+    @Test
+    void validatesOnTheCallerThreadOnceDisposed() {
+        List<Transaction> txs = new ArrayList<>();
+        List<Transaction> validTxs = new ArrayList<>();
+
+        for (int i = 0; i < 30; i++) {
+            Transaction tx = i % 3 == 0 ? transaction(i, 10, 21000, (byte) 0) : signedTransaction(i, 10, 21000, (byte) 0);
+            txs.add(tx);
+
+            if (i % 3 != 0) {
+                validTxs.add(tx);
+            }
+        }
+
+        TxPreValidator txPreValidator = newTxPreValidator(4);
+        txPreValidator.dispose();
+
+        assertEquals(validTxs, txPreValidator.filterValid(txs));
+        assertEquals(10, txPreValidator.getStepStats().get("TxValidatorSignatureValidator").getRejections());
+    }
+
+    @Test
+    void returnsTheSameTransactionsWithoutABestBlock() {
+        when(blockchain.getBestBlock()).thenReturn(null);
+        List<Transaction> txs = Arrays.asList(transaction(0, 10, 21000, (byte) 0));
+
+        assertSame(txs, newTxPreValidator(1).filterValid(txs));
+    }
+
+    private TxPreValidator newTxPreValidator(int threads) {
+        return new TxPreValidator(Constants.regtest(), ActivationConfigsForTest.all(), signatureCache, blockchain, threads);
+    }
+
+    private static Transaction signedTransaction(int nonce, long gasPrice, long gasLimit, byte chainId) {
+        Transaction tx = transaction(nonce, gasPrice, gasLimit, chainId);
+        tx.sign(PRIVATE_KEY);
+        return tx;
+    }
+
+    private static Transaction transaction(int nonce, long gasPrice, long gasLimit, byte chainId) {
+        return Transaction.builder()
+                .nonce(BigInteger.valueOf(nonce))
+                .gasPrice(BigInteger.valueOf(gasPrice))
+                .gasLimit(BigInteger.valueOf(gasLimit))
+                .destination(new RskAddress("0000000000000000000000000000000000000001"))
+                .value(BigInteger.TEN)
+                .chainId(chainId)
+                .build();
+    }
+}
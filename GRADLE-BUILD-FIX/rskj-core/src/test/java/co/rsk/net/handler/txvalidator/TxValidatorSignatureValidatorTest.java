@@ -0,0 +1,63 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.handler.txvalidator;
+
+import org.ethereum.core.SignatureCache;
+import org.ethereum.core.Transaction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+class TxValidatorSignatureValidatorTest {
+
+    private static final byte CHAIN_ID = 33;
+
+    private final SignatureCache signatureCache = Mockito.mock(SignatureCache.class);
+    private final TxValidatorSignatureValidator validator = new TxValidatorSignatureValidator(CHAIN_ID, signatureCache);
+
+    @Test
+    void validSignature() {
+        Transaction tx = Mockito.mock(Transaction.class);
+        when(tx.acceptTransactionSignature(CHAIN_ID)).thenReturn(true);
+
+        Assertions.assertTrue(validator.validate(tx, null, null, null, 0, false).transactionIsValid());
+        Mockito.verify(tx).verify(signatureCache);
+    }
+
+    @Test
+    void signatureNotAccepted() {
+        Transaction tx = Mockito.mock(Transaction.class);
+        when(tx.acceptTransactionSignature(CHAIN_ID)).thenReturn(false);
+
+        Assertions.assertFalse(validator.validate(tx, null, null, null, 0, false).transactionIsValid());
+        Mockito.verify(tx, Mockito.never()).verify(signatureCache);
+    }
+
+    @Test
+    void invalidFields() {
+        Transaction tx = Mockito.mock(Transaction.class);
+        when(tx.acceptTransactionSignature(CHAIN_ID)).thenReturn(true);
+        doThrow(new RuntimeException("Nonce is not valid")).when(tx).verify(signatureCache);
+
+        Assertions.assertFalse(validator.validate(tx, null, null, null, 0, false).transactionIsValid());
+    }
+}
@@ -20,6 +20,7 @@ package co.rsk.net.messages;
 
 import co.rsk.blockchain.utils.BlockGenerator;
 import co.rsk.core.BlockDifficulty;
+import co.rsk.crypto.Keccak256;
 import co.rsk.net.Status;
 import co.rsk.net.utils.TransactionUtils;
 import co.rsk.test.builders.AccountBuilder;
@@ -131,6 +132,27 @@ class MessageTest {
 
         Assertions.assertArrayEquals(block.getHash().getBytes(), newmessage.getStatus().getBestBlockHash());
         Assertions.assertEquals(block.getNumber(), newmessage.getStatus().getBestBlockNumber());
+        Assertions.assertFalse(newmessage.getStatus().acceptsTransactionAnnouncements());
+    }
+
+    @Test
+    void encodeDecodeStatusMessageAcceptingTransactionAnnouncements() {
+        Block block = blockGenerator.getBlock(1);
+        Status status = new Status(block.getNumber(), block.getHash().getBytes(), block.getParentHash().getBytes(), new BlockDifficulty(BigInteger.TEN), true);
+        StatusMessage message = new StatusMessage(status);
+
+        byte[] encoded = message.getEncoded();
+
+        Message result = Message.create(blockFactory, encoded);
+
+        Assertions.assertNotNull(result);
+        Assertions.assertArrayEquals(encoded, result.getEncoded());
+
+        StatusMessage newmessage = (StatusMessage) result;
+
+        Assertions.assertArrayEquals(block.getHash().getBytes(), newmessage.getStatus().getBestBlockHash());
+        Assertions.assertEquals(new BlockDifficulty(BigInteger.TEN), newmessage.getStatus().getTotalDifficulty());
+        Assertions.assertTrue(newmessage.getStatus().acceptsTransactionAnnouncements());
     }
 
     @Test
@@ -505,6 +527,138 @@ class MessageTest {
             Assertions.assertArrayEquals(uncles.get(k).getFullEncoded(), newmessage.getUncles().get(k).getFullEncoded());
     }
 
+    @Test
+    void encodeDecodeSnapshotStatusRequestMessage() {
+        SnapshotStatusRequestMessage message = new SnapshotStatusRequestMessage(42, 1000);
+
+        byte[] encoded = message.getEncoded();
+
+        Message result = Message.create(blockFactory, encoded);
+
+        Assertions.assertNotNull(result);
+        Assertions.assertArrayEquals(encoded, result.getEncoded());
+        Assertions.assertEquals(MessageType.SNAPSHOT_STATUS_REQUEST_MESSAGE, result.getMessageType());
+        Assertions.assertEquals(42, ((SnapshotStatusRequestMessage) result).getId());
+        Assertions.assertEquals(1000, ((SnapshotStatusRequestMessage) result).getBlockNumber());
+    }
+
+    @Test
+    void encodeDecodeSnapshotStatusResponseMessage() {
+        Block block = blockGenerator.getBlock(1);
+        BlockDifficulty totalDifficulty = new BlockDifficulty(BigInteger.valueOf(1000));
+        SnapshotStatusResponseMessage message = new SnapshotStatusResponseMessage(42, block, totalDifficulty);
+
+        byte[] encoded = message.getEncoded();
+
+        Message result = Message.create(blockFactory, encoded);
+
+        Assertions.assertNotNull(result);
+        Assertions.assertArrayEquals(encoded, result.getEncoded());
+        Assertions.assertEquals(MessageType.SNAPSHOT_STATUS_RESPONSE_MESSAGE, result.getMessageType());
+
+        SnapshotStatusResponseMessage newMessage = (SnapshotStatusResponseMessage) result;
+
+        Assertions.assertEquals(42, newMessage.getId());
+        Assertions.assertEquals(block.getHash(), newMessage.getBlock().getHash());
+        Assertions.assertEquals(totalDifficulty, newMessage.getTotalDifficulty());
+    }
+
+    @Test
+    void encodeDecodeEmptySnapshotStatusResponseMessage() {
+        SnapshotStatusResponseMessage message = new SnapshotStatusResponseMessage(42, null, null);
+
+        byte[] encoded = message.getEncoded();
+
+        Message result = Message.create(blockFactory, encoded);
+
+        Assertions.assertNotNull(result);
+        Assertions.assertArrayEquals(encoded, result.getEncoded());
+
+        SnapshotStatusResponseMessage newMessage = (SnapshotStatusResponseMessage) result;
+
+        Assertions.assertEquals(42, newMessage.getId());
+        Assertions.assertNull(newMessage.getBlock());
+        Assertions.assertNull(newMessage.getTotalDifficulty());
+    }
+
+    @Test
+    void encodeDecodeStateNodesRequestMessage() {
+        List<Keccak256> hashes = new ArrayList<>();
+        hashes.add(TestUtils.generateHash("hash1"));
+        hashes.add(TestUtils.generateHash("hash2"));
+        StateNodesRequestMessage message = new StateNodesRequestMessage(42, hashes);
+
+        byte[] encoded = message.getEncoded();
+
+        Message result = Message.create(blockFactory, encoded);
+
+        Assertions.assertNotNull(result);
+        Assertions.assertArrayEquals(encoded, result.getEncoded());
+        Assertions.assertEquals(MessageType.STATE_NODES_REQUEST_MESSAGE, result.getMessageType());
+
+        StateNodesRequestMessage newMessage = (StateNodesRequestMessage) result;
+
+        Assertions.assertEquals(42, newMessage.getId());
+        Assertions.assertEquals(hashes, newMessage.getHashes());
+    }
+
+    @Test
+    void encodeDecodeStateNodesResponseMessage() {
+        List<byte[]> nodes = new ArrayList<>();
+        nodes.add(TestUtils.generateBytes("node1", 40));
+        nodes.add(TestUtils.generateBytes("node2", 100));
+        StateNodesResponseMessage message = new StateNodesResponseMessage(42, nodes);
+
+        byte[] encoded = message.getEncoded();
+
+        Message result = Message.create(blockFactory, encoded);
+
+        Assertions.assertNotNull(result);
+        Assertions.assertArrayEquals(encoded, result.getEncoded());
+        Assertions.assertEquals(MessageType.STATE_NODES_RESPONSE_MESSAGE, result.getMessageType());
+
+        StateNodesResponseMessage newMessage = (StateNodesResponseMessage) result;
+
+        Assertions.assertEquals(42, newMessage.getId());
+        Assertions.assertEquals(2, newMessage.getNodes().size());
+        Assertions.assertArrayEquals(nodes.get(0), newMessage.getNodes().get(0));
+        Assertions.assertArrayEquals(nodes.get(1), newMessage.getNodes().get(1));
+    }
+
+    @Test
+    void encodeDecodeTransactionHashesMessage() {
+        List<Keccak256> hashes = new ArrayList<>();
+        hashes.add(createTransaction(1).getHash());
+        hashes.add(createTransaction(2).getHash());
+        TransactionHashesMessage message = new TransactionHashesMessage(hashes);
+
+        byte[] encoded = message.getEncoded();
+
+        Message result = Message.create(blockFactory, encoded);
+
+        Assertions.assertNotNull(result);
+        Assertions.assertArrayEquals(encoded, result.getEncoded());
+        Assertions.assertEquals(MessageType.TRANSACTION_HASHES_MESSAGE, result.getMessageType());
+        Assertions.assertEquals(hashes, ((TransactionHashesMessage) result).getHashes());
+    }
+
+    @Test
+    void encodeDecodeTransactionsRequestMessage() {
+        List<Keccak256> hashes = new ArrayList<>();
+        hashes.add(createTransaction(1).getHash());
+        hashes.add(createTransaction(2).getHash());
+        TransactionsRequestMessage message = new TransactionsRequestMessage(hashes);
+
+        byte[] encoded = message.getEncoded();
+
+        Message result = Message.create(blockFactory, encoded);
+
+        Assertions.assertNotNull(result);
+        Assertions.assertArrayEquals(encoded, result.getEncoded());
+        Assertions.assertEquals(MessageType.TRANSACTIONS_REQUEST_MESSAGE, result.getMessageType());
+        Assertions.assertEquals(hashes, ((TransactionsRequestMessage) result).getHashes());
+    }
+
     private static Transaction createTransaction(int number) {
         AccountBuilder acbuilder = new AccountBuilder();
         acbuilder.name("sender" + number);
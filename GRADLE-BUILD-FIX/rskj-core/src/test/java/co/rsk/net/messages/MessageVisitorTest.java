@@ -32,6 +32,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.net.InetAddress;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -233,6 +234,7 @@ class MessageVisitorTest {
         target.apply(message);
 
         verify(syncProcessor, times(1)).processStatus(sender, status);
+        verify(transactionGateway, times(1)).receiveStatusFrom(sender, status);
     }
 
     @Test
@@ -407,6 +409,37 @@ class MessageVisitorTest {
         verify(transactionGateway, never()).receiveTransactionsFrom(any(), any());
     }
 
+    @Test
+    void transactionHashesMessage() {
+        List<Keccak256> hashes = Collections.singletonList(TestUtils.generateHash("tx"));
+        TransactionHashesMessage message = new TransactionHashesMessage(hashes);
+
+        target.apply(message);
+
+        verify(transactionGateway, times(1)).receiveTransactionHashesFrom(sender, hashes);
+    }
+
+    @Test
+    void transactionHashesMessage_betterBlockToSync() {
+        TransactionHashesMessage message = new TransactionHashesMessage(Collections.singletonList(TestUtils.generateHash("tx")));
+
+        when(blockProcessor.hasBetterBlockToSync()).thenReturn(true);
+
+        target.apply(message);
+
+        verify(transactionGateway, never()).receiveTransactionHashesFrom(any(), any());
+    }
+
+    @Test
+    void transactionsRequestMessage() {
+        List<Keccak256> hashes = Collections.singletonList(TestUtils.generateHash("tx"));
+        TransactionsRequestMessage message = new TransactionsRequestMessage(hashes);
+
+        target.apply(message);
+
+        verify(transactionGateway, times(1)).receiveTransactionsRequestFrom(sender, hashes);
+    }
+
     @Test
     void transactionsMessage_oneInvalidTransaction() {
         TransactionsMessage message = mock(TransactionsMessage.class);
@@ -0,0 +1,163 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.sync;
+
+import co.rsk.net.BlockProcessResult;
+import co.rsk.net.BlockSyncService;
+import co.rsk.net.Peer;
+import co.rsk.validators.SyncBlockValidatorRule;
+import org.ethereum.core.*;
+import org.ethereum.crypto.signature.ECDSASignature;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BlockImportPipelineTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private BlockFactory blockFactory;
+    private SyncBlockValidatorRule blockValidationRule;
+    private BlockSyncService blockSyncService;
+    private BlockProcessResult validResult;
+    private Peer peer;
+    private BlockImportPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        blockFactory = mock(BlockFactory.class);
+        blockValidationRule = mock(SyncBlockValidatorRule.class);
+        blockSyncService = mock(BlockSyncService.class);
+        validResult = mock(BlockProcessResult.class);
+        peer = mock(Peer.class);
+
+        when(blockValidationRule.isValid(any())).thenReturn(true);
+        when(blockSyncService.processBlock(any(), any(), anyBoolean())).thenReturn(validResult);
+
+        pipeline = new BlockImportPipeline(blockFactory, blockValidationRule, blockSyncService,
+                mock(SignatureCache.class), 2, 4);
+    }
+
+    @Test
+    void importsTheSubmittedBlocks() throws InterruptedException {
+        Transaction transaction = mock(Transaction.class);
+        when(transaction.getSignature()).thenReturn(mock(ECDSASignature.class));
+
+        for (int k = 0; k < 20; k++) {
+            Block block = mockBlock(Collections.singletonList(transaction));
+            BlockHeader header = block.getHeader();
+            pipeline.submit(header, block.getTransactionsList(), Collections.emptyList(), peer);
+        }
+
+        waitUntilIdle();
+
+        Assertions.assertNull(pipeline.pollFailure());
+        verify(blockSyncService, times(20)).processBlock(any(), eq(peer), eq(true));
+        verify(transaction, times(20)).getSender(any(SignatureCache.class));
+        Assertions.assertEquals(20, pipeline.getValidation().getProcessed());
+        Assertions.assertEquals(20, pipeline.getSenderRecovery().getProcessed());
+        Assertions.assertEquals(20, pipeline.getExecution().getProcessed());
+        Assertions.assertEquals(0, pipeline.getExecution().getQueued());
+    }
+
+    @Test
+    void invalidBodyIsAFailure() throws InterruptedException {
+        Block block = mockBlock(Collections.emptyList());
+        when(blockValidationRule.isValid(block)).thenReturn(false);
+
+        pipeline.submit(block.getHeader(), block.getTransactionsList(), Collections.emptyList(), peer);
+
+        BlockImportPipeline.Failure failure = waitForFailure();
+
+        Assertions.assertSame(block.getHeader(), failure.getHeader());
+        Assertions.assertSame(peer, failure.getPeer());
+        Assertions.assertEquals(BlockImportPipeline.Failure.Kind.INVALID_BODY, failure.getKind());
+        verify(blockSyncService, never()).processBlock(any(), any(), anyBoolean());
+        waitUntilIdle();
+    }
+
+    @Test
+    void invalidBlockIsAFailure() throws InterruptedException {
+        Block block = mockBlock(Collections.emptyList());
+        BlockProcessResult invalidResult = mock(BlockProcessResult.class);
+        when(invalidResult.isInvalidBlock()).thenReturn(true);
+        when(blockSyncService.processBlock(eq(block), any(), anyBoolean())).thenReturn(invalidResult);
+
+        pipeline.submit(block.getHeader(), block.getTransactionsList(), Collections.emptyList(), peer);
+
+        BlockImportPipeline.Failure failure = waitForFailure();
+
+        Assertions.assertSame(block.getHeader(), failure.getHeader());
+        Assertions.assertEquals(BlockImportPipeline.Failure.Kind.INVALID_BLOCK, failure.getKind());
+        waitUntilIdle();
+    }
+
+    @Test
+    void unexpectedErrorIsALocalFailure() throws InterruptedException {
+        Block block = mockBlock(Collections.emptyList());
+        when(blockSyncService.processBlock(eq(block), any(), anyBoolean())).thenThrow(new IllegalStateException("unexpected"));
+
+        pipeline.submit(block.getHeader(), block.getTransactionsList(), Collections.emptyList(), peer);
+
+        BlockImportPipeline.Failure failure = waitForFailure();
+
+        Assertions.assertSame(block.getHeader(), failure.getHeader());
+        Assertions.assertSame(peer, failure.getPeer());
+        Assertions.assertEquals(BlockImportPipeline.Failure.Kind.LOCAL_ERROR, failure.getKind());
+        waitUntilIdle();
+    }
+
+    private Block mockBlock(List<Transaction> transactions) {
+        BlockHeader header = mock(BlockHeader.class);
+        Block block = mock(Block.class);
+        when(block.getHeader()).thenReturn(header);
+        when(block.getTransactionsList()).thenReturn(transactions);
+        when(blockFactory.newBlock(same(header), any(), any())).thenReturn(block);
+        return block;
+    }
+
+    private BlockImportPipeline.Failure waitForFailure() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        BlockImportPipeline.Failure failure = pipeline.pollFailure();
+
+        while (failure == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            failure = pipeline.pollFailure();
+        }
+
+        Assertions.assertNotNull(failure);
+        return failure;
+    }
+
+    private void waitUntilIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+        while (!pipeline.isIdle() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        Assertions.assertTrue(pipeline.isIdle());
+    }
+}
@@ -18,6 +18,7 @@
 
 package co.rsk.net.sync;
 
+import co.rsk.crypto.Keccak256;
 import co.rsk.net.Peer;
 import co.rsk.scoring.EventType;
 import org.ethereum.core.Block;
@@ -78,6 +79,12 @@ public class SimpleSyncEventsHandler implements SyncEventsHandler {
     @Override
     public void startDownloadingSkeleton(long connectionPoint, Peer peer) { }
 
+    @Override
+    public void sendSnapshotStatusRequest(Peer peer, long blockNumber) { }
+
+    @Override
+    public void sendStateNodesRequest(Peer peer, List<Keccak256> hashes) { }
+
     @Override
     public void stopSyncing() { this.stopSyncingWasCalled_ = true; }
 
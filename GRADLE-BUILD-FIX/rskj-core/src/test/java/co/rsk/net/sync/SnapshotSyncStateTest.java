@@ -0,0 +1,128 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.sync;
+
+import co.rsk.core.BlockDifficulty;
+import co.rsk.crypto.Keccak256;
+import co.rsk.net.Peer;
+import co.rsk.scoring.EventType;
+import co.rsk.trie.TrieStore;
+import co.rsk.validators.BlockHeaderValidationRule;
+import co.rsk.validators.SyncBlockValidatorRule;
+import org.ethereum.core.Block;
+import org.ethereum.core.BlockHeader;
+import org.ethereum.core.Blockchain;
+import org.ethereum.db.BlockStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SnapshotSyncStateTest {
+
+    private static final long PIVOT_NUMBER = 1000;
+
+    private SyncEventsHandler syncEventsHandler;
+    private Peer selectedPeer;
+    private Peer otherPeer;
+    private SnapshotSyncState syncState;
+
+    @BeforeEach
+    void setUp() {
+        syncEventsHandler = mock(SyncEventsHandler.class);
+        selectedPeer = mock(Peer.class);
+        otherPeer = mock(Peer.class);
+
+        BlockHeaderValidationRule blockHeaderValidationRule = mock(BlockHeaderValidationRule.class);
+        SyncBlockValidatorRule blockValidationRule = mock(SyncBlockValidatorRule.class);
+        when(blockHeaderValidationRule.isValid(any())).thenReturn(true);
+        when(blockValidationRule.isValid(any())).thenReturn(true);
+
+        syncState = new SnapshotSyncState(SyncConfiguration.DEFAULT, syncEventsHandler, mock(Blockchain.class),
+                mock(BlockStore.class), mock(TrieStore.class), blockHeaderValidationRule, blockValidationRule,
+                selectedPeer, Arrays.asList(selectedPeer, otherPeer), PIVOT_NUMBER);
+    }
+
+    @Test
+    void asksEveryPeerForTheSameBlock() {
+        syncState.onEnter();
+
+        verify(syncEventsHandler).sendSnapshotStatusRequest(selectedPeer, PIVOT_NUMBER);
+        verify(syncEventsHandler).sendSnapshotStatusRequest(otherPeer, PIVOT_NUMBER);
+    }
+
+    @Test
+    void downloadsTheStateWhenAllThePeersAgree() {
+        Block block = mockBlock(PIVOT_NUMBER, (byte) 1);
+        BlockDifficulty totalDifficulty = new BlockDifficulty(BigInteger.TEN);
+
+        syncState.newSnapshotStatus(selectedPeer, block, totalDifficulty);
+
+        verify(syncEventsHandler, never()).sendStateNodesRequest(any(), any());
+
+        syncState.newSnapshotStatus(otherPeer, mockBlock(PIVOT_NUMBER, (byte) 1), totalDifficulty);
+
+        verify(syncEventsHandler).sendStateNodesRequest(same(selectedPeer), any());
+        verify(syncEventsHandler, never()).onSyncIssue(any(), any(), any());
+    }
+
+    @Test
+    void stopsWhenThePeersOfferDifferentBlocks() {
+        BlockDifficulty totalDifficulty = new BlockDifficulty(BigInteger.TEN);
+
+        syncState.newSnapshotStatus(selectedPeer, mockBlock(PIVOT_NUMBER, (byte) 1), totalDifficulty);
+        syncState.newSnapshotStatus(otherPeer, mockBlock(PIVOT_NUMBER, (byte) 2), totalDifficulty);
+
+        verify(syncEventsHandler).onSyncIssue(same(otherPeer), any(), any());
+        verify(syncEventsHandler, never()).sendStateNodesRequest(any(), any());
+    }
+
+    @Test
+    void stopsWhenThePeersOfferDifferentTotalDifficulties() {
+        syncState.newSnapshotStatus(selectedPeer, mockBlock(PIVOT_NUMBER, (byte) 1), new BlockDifficulty(BigInteger.TEN));
+        syncState.newSnapshotStatus(otherPeer, mockBlock(PIVOT_NUMBER, (byte) 1), new BlockDifficulty(BigInteger.ONE));
+
+        verify(syncEventsHandler).onSyncIssue(same(otherPeer), any(), any());
+        verify(syncEventsHandler, never()).sendStateNodesRequest(any(), any());
+    }
+
+    @Test
+    void blockAtAnotherHeightIsAnError() {
+        syncState.newSnapshotStatus(selectedPeer, mockBlock(PIVOT_NUMBER + 1, (byte) 1), new BlockDifficulty(BigInteger.TEN));
+
+        verify(syncEventsHandler).onErrorSyncing(same(selectedPeer), eq(EventType.INVALID_MESSAGE), any(), any());
+        verify(syncEventsHandler, never()).sendStateNodesRequest(any(), any());
+    }
+
+    private static Block mockBlock(long number, byte hash) {
+        byte[] hashBytes = new byte[32];
+        hashBytes[0] = hash;
+
+        Block block = mock(Block.class);
+        when(block.getNumber()).thenReturn(number);
+        when(block.getHash()).thenReturn(new Keccak256(hashBytes));
+        when(block.getHeader()).thenReturn(mock(BlockHeader.class));
+        when(block.getStateRoot()).thenReturn(new byte[32]);
+        return block;
+    }
+}
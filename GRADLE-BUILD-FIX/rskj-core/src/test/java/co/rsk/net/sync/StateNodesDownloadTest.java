@@ -0,0 +1,177 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.net.sync;
+
+import co.rsk.crypto.Keccak256;
+import co.rsk.trie.Trie;
+import co.rsk.trie.TrieStore;
+import co.rsk.trie.TrieStoreImpl;
+import org.ethereum.crypto.Keccak256Helper;
+import org.ethereum.datasource.HashMapDB;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class StateNodesDownloadTest {
+
+    private static final int KEYS = 200;
+
+    private TrieStore serverStore;
+    private Trie serverTrie;
+
+    @BeforeEach
+    void setUp() {
+        serverStore = new TrieStoreImpl(new HashMapDB());
+
+        Trie trie = new Trie(serverStore);
+        for (int k = 0; k < KEYS; k++) {
+            trie = trie.put(key(k), value(k));
+        }
+
+        serverStore.save(trie);
+        serverTrie = trie;
+    }
+
+    @Test
+    void downloadsTheWholeTrie() {
+        TrieStore store = new TrieStoreImpl(new HashMapDB());
+        StateNodesDownload download = new StateNodesDownload(store, serverTrie.getHash());
+
+        downloadAll(download, 16, false);
+
+        Assertions.assertTrue(download.isComplete());
+        Assertions.assertTrue(download.nextRequest(16).isEmpty());
+        assertHasAllValues(store);
+    }
+
+    @Test
+    void requestsAgainTheNodesNotReceived() {
+        TrieStore store = new TrieStoreImpl(new HashMapDB());
+        StateNodesDownload download = new StateNodesDownload(store, serverTrie.getHash());
+
+        downloadAll(download, 16, true);
+
+        Assertions.assertTrue(download.isComplete());
+        assertHasAllValues(store);
+    }
+
+    @Test
+    void resumesFromTheNodesAlreadySaved() {
+        TrieStore store = new TrieStoreImpl(new HashMapDB());
+        StateNodesDownload download = new StateNodesDownload(store, serverTrie.getHash());
+
+        for (int k = 0; k < 5; k++) {
+            Assertions.assertTrue(download.addNodes(respond(download.nextRequest(8), false)));
+        }
+
+        long savedNodes = download.getSavedNodes();
+        Assertions.assertTrue(savedNodes > 0);
+        Assertions.assertFalse(download.isComplete());
+
+        StateNodesDownload resumed = new StateNodesDownload(store, serverTrie.getHash());
+        downloadAll(resumed, 16, false);
+
+        Assertions.assertTrue(resumed.isComplete());
+        Assertions.assertTrue(resumed.getSavedNodes() < countNodes());
+        assertHasAllValues(store);
+    }
+
+    @Test
+    void rejectsNodesNotRequested() {
+        TrieStore store = new TrieStoreImpl(new HashMapDB());
+        StateNodesDownload download = new StateNodesDownload(store, serverTrie.getHash());
+
+        download.nextRequest(16);
+        List<byte[]> nodes = new ArrayList<>();
+        nodes.add(new byte[] { 1, 2, 3 });
+
+        Assertions.assertFalse(download.addNodes(nodes));
+        Assertions.assertEquals(0, download.getSavedNodes());
+    }
+
+    @Test
+    void rejectsInvalidNode() {
+        byte[] invalid = new byte[] { 1, 2, 3 };
+        TrieStore store = new TrieStoreImpl(new HashMapDB());
+        StateNodesDownload download = new StateNodesDownload(store, new Keccak256(Keccak256Helper.keccak256(invalid)));
+
+        Assertions.assertEquals(1, download.nextRequest(16).size());
+        List<byte[]> nodes = new ArrayList<>();
+        nodes.add(invalid);
+
+        Assertions.assertFalse(download.addNodes(nodes));
+        Assertions.assertEquals(0, download.getSavedNodes());
+    }
+
+    private void downloadAll(StateNodesDownload download, int maxNodes, boolean dropSome) {
+        int rounds = 0;
+
+        while (!download.isComplete()) {
+            List<Keccak256> request = download.nextRequest(maxNodes);
+            Assertions.assertFalse(request.isEmpty());
+            Assertions.assertTrue(download.addNodes(respond(request, dropSome)));
+            Assertions.assertTrue(++rounds < 10_000);
+        }
+    }
+
+    private List<byte[]> respond(List<Keccak256> request, boolean dropSome) {
+        List<byte[]> nodes = new ArrayList<>();
+
+        for (int k = 0; k < request.size(); k++) {
+            // the first hash is always sent, so that the download advances
+            if (dropSome && k % 2 == 1) {
+                continue;
+            }
+
+            nodes.add(serverStore.retrieveValue(request.get(k).getBytes()));
+        }
+
+        return nodes;
+    }
+
+    private long countNodes() {
+        TrieStore store = new TrieStoreImpl(new HashMapDB());
+        StateNodesDownload download = new StateNodesDownload(store, serverTrie.getHash());
+        downloadAll(download, 16, false);
+        return download.getSavedNodes();
+    }
+
+    private void assertHasAllValues(TrieStore store) {
+        Trie trie = store.retrieve(serverTrie.getHash().getBytes()).get();
+
+        for (int k = 0; k < KEYS; k++) {
+            Assertions.assertArrayEquals(value(k), trie.get(key(k)));
+        }
+    }
+
+    private static byte[] key(int k) {
+        return new byte[] { (byte) (k >> 8), (byte) k };
+    }
+
+    // every third value is long, so it's stored apart from its node
+    private static byte[] value(int k) {
+        byte[] value = new byte[k % 3 == 0 ? 40 : 4];
+        value[0] = (byte) k;
+        value[value.length - 1] = (byte) (k + 1);
+        return value;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.rpc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class BlockRangeScannerTest {
+    @Test
+    void scanChunksInOrderOnTheCallingThread() {
+        BlockRangeScanner scanner = new BlockRangeScanner(1);
+
+        Assertions.assertFalse(scanner.isParallel());
+
+        List<String> chunks = new ArrayList<>();
+        scanner.scan(3, 21, 8, (from, to) -> from + "-" + to, chunks::add);
+
+        Assertions.assertEquals(Arrays.asList("3-7", "8-15", "16-21"), chunks);
+    }
+
+    @Test
+    void scanChunksInParallelReturnsThemInOrder() {
+        BlockRangeScanner scanner = new BlockRangeScanner(4);
+
+        Assertions.assertTrue(scanner.isParallel());
+
+        List<String> chunks = new ArrayList<>();
+        scanner.scan(0, 99, 10, (from, to) -> {
+            // the first chunks take longer, so they are done after the next ones
+            sleep(100 - from);
+            return from + "-" + to;
+        }, chunks::add);
+
+        Assertions.assertEquals(10, chunks.size());
+
+        for (int k = 0; k < 10; k++) {
+            Assertions.assertEquals((k * 10) + "-" + (k * 10 + 9), chunks.get(k));
+        }
+    }
+
+    @Test
+    void scanStopsWhenTheConsumerReturnsFalse() {
+        BlockRangeScanner scanner = new BlockRangeScanner(2);
+
+        List<Long> chunks = new ArrayList<>();
+        scanner.scan(0, 1000, 10, (from, to) -> from, from -> {
+            chunks.add(from);
+            return chunks.size() < 3;
+        });
+
+        Assertions.assertEquals(Arrays.asList(0L, 10L, 20L), chunks);
+    }
+
+    @Test
+    void scanRethrowsTheExceptionOfAChunk() {
+        BlockRangeScanner scanner = new BlockRangeScanner(2);
+
+        IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class, () ->
+                scanner.scan(0, 100, 10, (from, to) -> {
+                    if (from == 20) {
+                        throw new IllegalArgumentException("chunk failed");
+                    }
+
+                    return from;
+                }, from -> true));
+
+        Assertions.assertEquals("chunk failed", exception.getMessage());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
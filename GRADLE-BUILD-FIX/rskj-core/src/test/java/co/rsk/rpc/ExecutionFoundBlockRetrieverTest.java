@@ -145,7 +145,7 @@ class ExecutionFoundBlockRetrieverTest {
         verify(builder, times(1)).buildPending(any());
 
         retriever.start();
-        verify(emitter, times(1)).addListener(captor.capture());
+        verify(emitter, times(1)).addSynchronousListener(captor.capture());
         listener = captor.getValue();
         listener.onPendingTransactionsReceived(Collections.emptyList());
         assertNull(retriever.getCachedPendingBlockResult());
@@ -193,7 +193,7 @@ class ExecutionFoundBlockRetrieverTest {
         verify(builder, times(1)).buildPending(any());
 
         retriever.start();
-        verify(emitter, times(1)).addListener(captor.capture());
+        verify(emitter, times(1)).addSynchronousListener(captor.capture());
         listener = captor.getValue();
         when(blockchain.getBestBlock()).thenReturn(newBestBlock);
         listener.onBestBlock(newBestBlock, Collections.emptyList());
@@ -0,0 +1,97 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.rpc.modules.trace;
+
+import co.rsk.crypto.Keccak256;
+import co.rsk.util.HexUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ethereum.TestUtils;
+import org.ethereum.vm.trace.Serializers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class TraceEncoderTest {
+    private static final ObjectMapper OBJECT_MAPPER = Serializers.createMapper(true);
+
+    @Test
+    void encodeAndDecodeTraces() {
+        byte[] blockHash = TestUtils.generateBytes("blockHash", 32);
+        Keccak256 transactionHash = TestUtils.generateHash("transactionHash");
+
+        List<TransactionTrace> traces = Arrays.asList(
+                createTrace(blockHash, transactionHash, new TraceAddress(), "call", CallType.CALL,
+                        new TraceResult("0x5208", "0x", null, null), null, 1),
+                createTrace(blockHash, transactionHash, new TraceAddress(new TraceAddress(), 0), "create", CallType.NONE,
+                        new TraceResult("0x0", null, "0x6060", "0x00000000000000000000000000000000000000ab"), null, 0),
+                createTrace(blockHash, transactionHash, new TraceAddress(new TraceAddress(new TraceAddress(), 0), 300), "call", CallType.DELEGATECALL,
+                        null, "Reverted", 0)
+        );
+
+        byte[] data = TraceEncoder.encode(blockHash, 1234567, 3, traces);
+
+        Assertions.assertArrayEquals(blockHash, TraceEncoder.decodeBlockHash(data));
+
+        List<TransactionTrace> result = TraceEncoder.decode(data, transactionHash);
+
+        Assertions.assertEquals(OBJECT_MAPPER.valueToTree(traces), OBJECT_MAPPER.valueToTree(result));
+    }
+
+    @Test
+    void encodeAndDecodeNoTraces() {
+        byte[] blockHash = TestUtils.generateBytes("blockHash", 32);
+
+        byte[] data = TraceEncoder.encode(blockHash, 1, 0, Collections.emptyList());
+
+        Assertions.assertArrayEquals(blockHash, TraceEncoder.decodeBlockHash(data));
+        Assertions.assertTrue(TraceEncoder.decode(data, TestUtils.generateHash("transactionHash")).isEmpty());
+    }
+
+    static TransactionTrace createTrace(byte[] blockHash, Keccak256 transactionHash, TraceAddress traceAddress, String type, CallType callType, TraceResult result, String error, int subtraces) {
+        TraceAction action = new TraceAction(
+                callType,
+                "0xa0663f719962ec10bb57865532bef522059dfd96",
+                callType == CallType.NONE ? null : "0x0000000000000000000000000000000001000008",
+                "0xf4240",
+                callType == CallType.NONE ? null : "0xd0e30db0",
+                callType == CallType.NONE ? "0x6060604052" : null,
+                null,
+                "0x0",
+                null,
+                null,
+                null
+        );
+
+        return new TransactionTrace(
+                action,
+                HexUtils.toUnformattedJsonHex(blockHash),
+                1234567,
+                transactionHash.toJsonString(),
+                3,
+                type,
+                subtraces,
+                traceAddress,
+                result,
+                error
+        );
+    }
+}
@@ -22,10 +22,13 @@ import co.rsk.config.MiningConfig;
 import co.rsk.config.RskSystemProperties;
 import co.rsk.core.Coin;
 import co.rsk.core.DifficultyCalculator;
+import co.rsk.core.bc.BlockExecutor;
 import co.rsk.mine.*;
+import co.rsk.rpc.BlockRangeScanner;
 import co.rsk.rpc.ExecutionBlockRetriever;
 import co.rsk.test.World;
 import co.rsk.test.builders.AccountBuilder;
+import co.rsk.test.builders.BlockChainBuilder;
 import co.rsk.test.builders.TransactionBuilder;
 import co.rsk.test.dsl.DslParser;
 import co.rsk.test.dsl.DslProcessorException;
@@ -45,10 +48,16 @@ import org.junit.jupiter.api.Test;
 import java.io.FileNotFoundException;
 import java.math.BigInteger;
 import java.time.Clock;
+import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 class TraceModuleImplTest {
     @Test
@@ -191,6 +200,65 @@ class TraceModuleImplTest {
         retrieveTraceFilterByAddress(world, receiptStore);
     }
 
+    @Test
+    void retrieveTracesInParallel() throws Exception {
+        ReceiptStore receiptStore = new ReceiptStoreImpl(new HashMapDB());
+        World world = executeMultiContract(receiptStore);
+        BlockChainBuilder.extend(world.getBlockChain(), 20, false, false);
+
+        TraceModuleImpl sequentialModule = new TraceModuleImpl(world.getBlockChain(), world.getBlockStore(), receiptStore, world.getBlockExecutor(), null, world.getBlockTxSignatureCache());
+        TraceModuleImpl parallelModule = new TraceModuleImpl(world.getBlockChain(), world.getBlockStore(), receiptStore, world.getBlockExecutor(), null, world.getBlockTxSignatureCache(), new BlockRangeScanner(4));
+
+        TraceFilterRequest traceFilterRequest = new TraceFilterRequest();
+
+        JsonNode expected = sequentialModule.traceFilter(traceFilterRequest);
+        JsonNode result = parallelModule.traceFilter(traceFilterRequest);
+
+        Assertions.assertTrue(expected.size() > 0);
+        Assertions.assertEquals(expected, result);
+
+        traceFilterRequest.setAfter(1);
+        traceFilterRequest.setCount(2);
+
+        expected = sequentialModule.traceFilter(traceFilterRequest);
+        result = parallelModule.traceFilter(traceFilterRequest);
+
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals(expected, result);
+    }
+
+    @Test
+    void retrieveTracesFromTraceStore() throws Exception {
+        ReceiptStore receiptStore = new ReceiptStoreImpl(new HashMapDB());
+        World world = executeMultiContract(receiptStore);
+
+        TraceStore traceStore = new TraceStore(0, new HashMapDB());
+        TraceService traceService = new TraceService(mock(CompositeEthereumListener.class), traceStore, world.getBlockExecutor(), world.getBlockStore());
+
+        for (long number = 1; number <= world.getBlockChain().getBestBlock().getNumber(); number++) {
+            Block block = world.getBlockChain().getBlockByNumber(number);
+            List<TransactionReceipt> receipts = block.getTransactionsList().stream()
+                    .map(tx -> receiptStore.getInMainChain(tx.getHash().getBytes(), world.getBlockStore()).get().getReceipt())
+                    .collect(Collectors.toList());
+
+            traceService.processBlock(block, receipts);
+        }
+
+        BlockExecutor blockExecutor = mock(BlockExecutor.class);
+
+        TraceModuleImpl traceModule = new TraceModuleImpl(world.getBlockChain(), world.getBlockStore(), receiptStore, world.getBlockExecutor(), null, world.getBlockTxSignatureCache());
+        TraceModuleImpl storedTraceModule = new TraceModuleImpl(world.getBlockChain(), world.getBlockStore(), receiptStore, blockExecutor, null, world.getBlockTxSignatureCache(), null, traceStore);
+
+        String transactionHash = "0x64cbd00a73bad9df13ee188931c84555a5662057e6381b3476bdc20ab3c09ef3";
+        String blockHash = world.getBlockByName("b02").getHash().toJsonString();
+
+        Assertions.assertEquals(traceModule.traceTransaction(transactionHash), storedTraceModule.traceTransaction(transactionHash));
+        Assertions.assertEquals(traceModule.traceBlock(blockHash), storedTraceModule.traceBlock(blockHash));
+        Assertions.assertEquals(traceModule.traceFilter(new TraceFilterRequest()), storedTraceModule.traceFilter(new TraceFilterRequest()));
+
+        verify(blockExecutor, never()).traceBlock(any(), anyInt(), any(), any(), anyBoolean(), anyBoolean());
+    }
+
     @Test
     void getASingleTrace() throws Exception {
         ReceiptStore receiptStore = new ReceiptStoreImpl(new HashMapDB());
@@ -0,0 +1,114 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.rpc.modules.trace;
+
+import co.rsk.crypto.Keccak256;
+import org.ethereum.TestUtils;
+import org.ethereum.datasource.HashMapDB;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class TraceStoreTest {
+    @Test
+    void noTracesInEmptyStore() {
+        TraceStore traceStore = new TraceStore(10, new HashMapDB());
+
+        Assertions.assertNull(traceStore.getTransactionTraces(TestUtils.generateHash("tx"), TestUtils.generateBytes("block", 32)));
+    }
+
+    @Test
+    void saveAndGetTransactionTraces() {
+        TraceStore traceStore = new TraceStore(10, new HashMapDB());
+        Keccak256 blockHash = TestUtils.generateHash("block");
+        Keccak256 txHash1 = TestUtils.generateHash("tx1");
+        Keccak256 txHash2 = TestUtils.generateHash("tx2");
+
+        traceStore.saveBlockTraces(1, blockHash, blockTraces(blockHash, txHash1, txHash2));
+
+        List<TransactionTrace> traces = traceStore.getTransactionTraces(txHash2, blockHash.getBytes());
+
+        Assertions.assertNotNull(traces);
+        Assertions.assertEquals(1, traces.size());
+        Assertions.assertEquals(txHash2.toJsonString(), traces.get(0).getTransactionHash());
+        Assertions.assertEquals(blockHash.toJsonString(), traces.get(0).getBlockHash());
+        Assertions.assertEquals(1, traces.get(0).getTransactionPosition());
+
+        // the traces of another block are not returned
+        Assertions.assertNull(traceStore.getTransactionTraces(txHash2, TestUtils.generateBytes("otherBlock", 32)));
+    }
+
+    @Test
+    void replaceTracesOfReorganizedBlock() {
+        TraceStore traceStore = new TraceStore(10, new HashMapDB());
+        Keccak256 blockHash = TestUtils.generateHash("block");
+        Keccak256 newBlockHash = TestUtils.generateHash("newBlock");
+        Keccak256 txHash1 = TestUtils.generateHash("tx1");
+        Keccak256 txHash2 = TestUtils.generateHash("tx2");
+
+        traceStore.saveBlockTraces(1, blockHash, blockTraces(blockHash, txHash1, txHash2));
+        traceStore.saveBlockTraces(1, newBlockHash, blockTraces(newBlockHash, txHash2));
+
+        Assertions.assertNull(traceStore.getTransactionTraces(txHash1, blockHash.getBytes()));
+        Assertions.assertNull(traceStore.getTransactionTraces(txHash2, blockHash.getBytes()));
+        Assertions.assertNotNull(traceStore.getTransactionTraces(txHash2, newBlockHash.getBytes()));
+    }
+
+    @Test
+    void removeTracesOfDeepBlocks() {
+        HashMapDB dataSource = new HashMapDB();
+        TraceStore traceStore = new TraceStore(3, dataSource);
+
+        for (int number = 1; number <= 5; number++) {
+            Keccak256 blockHash = TestUtils.generateHash("block" + number);
+            traceStore.saveBlockTraces(number, blockHash, blockTraces(blockHash, TestUtils.generateHash("tx" + number)));
+        }
+
+        Assertions.assertNull(traceStore.getTransactionTraces(TestUtils.generateHash("tx1"), TestUtils.generateHash("block1").getBytes()));
+        Assertions.assertNull(traceStore.getTransactionTraces(TestUtils.generateHash("tx2"), TestUtils.generateHash("block2").getBytes()));
+
+        for (int number = 3; number <= 5; number++) {
+            Assertions.assertNotNull(traceStore.getTransactionTraces(TestUtils.generateHash("tx" + number), TestUtils.generateHash("block" + number).getBytes()));
+        }
+
+        // the kept range is restored from the data source
+        TraceStore reopenedStore = new TraceStore(3, dataSource);
+        Keccak256 blockHash = TestUtils.generateHash("block6");
+        reopenedStore.saveBlockTraces(6, blockHash, blockTraces(blockHash, TestUtils.generateHash("tx6")));
+
+        Assertions.assertNull(reopenedStore.getTransactionTraces(TestUtils.generateHash("tx3"), TestUtils.generateHash("block3").getBytes()));
+        Assertions.assertNotNull(reopenedStore.getTransactionTraces(TestUtils.generateHash("tx4"), TestUtils.generateHash("block4").getBytes()));
+    }
+
+    private static Map<Keccak256, List<TransactionTrace>> blockTraces(Keccak256 blockHash, Keccak256... txHashes) {
+        Map<Keccak256, List<TransactionTrace>> traces = new LinkedHashMap<>();
+
+        for (int k = 0; k < txHashes.length; k++) {
+            TransactionTrace trace = TraceEncoderTest.createTrace(blockHash.getBytes(), txHashes[k], new TraceAddress(), "call", CallType.CALL,
+                    new TraceResult("0x5208", "0x", null, null), null, 0);
+            traces.put(txHashes[k], Collections.singletonList(trace));
+        }
+
+        return traces;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.rpc.netty;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonNodeChunkedInputTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void serializesTheTreeInChunks() throws Exception {
+        JsonNode response = buildResponse(1000);
+        JsonNodeChunkedInput input = new JsonNodeChunkedInput(mapper, response, 256);
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        int chunks = 0;
+
+        while (!input.isEndOfInput()) {
+            ByteBuf chunk = input.readChunk(UnpooledByteBufAllocator.DEFAULT);
+            assertTrue(chunk.readableBytes() > 0);
+            chunk.readBytes(serialized, chunk.readableBytes());
+            chunk.release();
+            chunks++;
+        }
+
+        input.close();
+
+        assertTrue(chunks > 1);
+        assertNull(input.readChunk(UnpooledByteBufAllocator.DEFAULT));
+        assertEquals(serialized.size(), input.progress());
+        assertEquals(response, mapper.readTree(serialized.toByteArray()));
+    }
+
+    @Test
+    void smallTreeInASingleChunk() throws Exception {
+        JsonNode response = mapper.readTree("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x01\"}");
+        JsonNodeChunkedInput input = new JsonNodeChunkedInput(mapper, response, 256);
+
+        ByteBuf chunk = input.readChunk(UnpooledByteBufAllocator.DEFAULT);
+
+        assertTrue(input.isEndOfInput());
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x01\"}", chunk.toString(StandardCharsets.UTF_8));
+        chunk.release();
+        input.close();
+    }
+
+    @Test
+    void closeBeforeTheEnd() throws Exception {
+        JsonNodeChunkedInput input = new JsonNodeChunkedInput(mapper, buildResponse(1000), 256);
+
+        ByteBuf chunk = input.readChunk(UnpooledByteBufAllocator.DEFAULT);
+        chunk.release();
+
+        assertFalse(input.isEndOfInput());
+        assertDoesNotThrow(input::close);
+    }
+
+    private JsonNode buildResponse(int size) {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.put("id", 1);
+        ArrayNode result = response.putArray("result");
+
+        for (int i = 0; i < size; i++) {
+            ObjectNode log = result.addObject();
+            log.put("logIndex", "0x" + Integer.toHexString(i));
+            log.put("removed", false);
+            log.put("value", 1.5d * i);
+        }
+
+        return response;
+    }
+}
@@ -530,6 +530,39 @@ class Web3HttpServerTest {
         verify(web3Mock, times(1)).web3_sha3(anyString());
     }
 
+    @Test
+    void testLargeResponseIsChunked() throws Exception {
+        Web3 web3Mock = Mockito.mock(Web3.class);
+        char[] chars = new char[Web3ResultHttpResponseHandler.CHUNKED_RESPONSE_THRESHOLD + 1];
+        Arrays.fill(chars, 'a');
+        String mockResult = new String(chars);
+        Mockito.when(web3Mock.web3_sha3(anyString())).thenReturn(mockResult);
+        CorsConfiguration mockCorsConfiguration = Mockito.mock(CorsConfiguration.class);
+        Mockito.when(mockCorsConfiguration.hasHeader()).thenReturn(true);
+        Mockito.when(mockCorsConfiguration.getHeader()).thenReturn("*");
+
+        int randomPort = 9112;
+
+        List<ModuleDescription> filteredModules = Collections.singletonList(new ModuleDescription("web3", "1.0", true, Collections.emptyList(), Collections.emptyList(), 0, new HashMap<>()));
+        JsonRpcWeb3FilterHandler filterHandler = new JsonRpcWeb3FilterHandler("*", InetAddress.getLoopbackAddress(), new ArrayList<>());
+        JsonRpcWeb3ServerProperties properties = JsonRpcWeb3ServerProperties.builder().rpcModules(filteredModules).build();
+        JsonRpcWeb3ServerHandler serverHandler = new JsonRpcWeb3ServerHandler(web3Mock, properties);
+        Web3HttpServer server = new Web3HttpServer(InetAddress.getLoopbackAddress(), randomPort, 0, Boolean.TRUE, mockCorsConfiguration, filterHandler, serverHandler, 52428800);
+        server.start();
+        try {
+            Response response = sendJsonRpcMessage(randomPort, APPLICATION_JSON, "127.0.0.1", "web3_sha3");
+            String responseBody = response.body().string();
+            JsonNode jsonRpcResponse = JacksonParserUtil.readTree(OBJECT_MAPPER, responseBody);
+
+            assertThat(response.code(), is(HttpResponseStatus.OK.code()));
+            assertThat(response.header("Transfer-Encoding"), is("chunked"));
+            Assertions.assertNull(response.header("Content-Length"));
+            Assertions.assertEquals(mockResult, jsonRpcResponse.at("/result").asText());
+        } finally {
+            server.stop();
+        }
+    }
+
     private void smokeTest(String contentType, String host) throws Exception {
         smokeTest(contentType, host, InetAddress.getLoopbackAddress(), new ArrayList<>());
     }
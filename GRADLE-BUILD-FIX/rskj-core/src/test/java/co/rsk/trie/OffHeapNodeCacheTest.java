@@ -0,0 +1,137 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.trie;
+
+import org.ethereum.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapNodeCacheTest {
+
+    private static final int CACHE_SIZE = 1 << 20;
+
+    @Test
+    void putAndGet() {
+        OffHeapNodeCache cache = new OffHeapNodeCache(CACHE_SIZE);
+        byte[] hash = TestUtils.generateBytes(OffHeapNodeCacheTest.class, "hash", 32);
+        byte[] value = TestUtils.generateBytes(OffHeapNodeCacheTest.class, "value", 100);
+
+        assertNull(cache.get(hash));
+
+        cache.put(hash, value);
+
+        assertArrayEquals(value, cache.get(hash));
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(36 + 100, cache.getSizeInBytes());
+    }
+
+    @Test
+    void putEmptyValue() {
+        OffHeapNodeCache cache = new OffHeapNodeCache(CACHE_SIZE);
+        byte[] hash = TestUtils.generateBytes(OffHeapNodeCacheTest.class, "hash", 32);
+
+        cache.put(hash, new byte[0]);
+
+        assertArrayEquals(new byte[0], cache.get(hash));
+    }
+
+    @Test
+    void ignoresKeysThatAreNotHashes() {
+        OffHeapNodeCache cache = new OffHeapNodeCache(CACHE_SIZE);
+        byte[] key = TestUtils.generateBytes(OffHeapNodeCacheTest.class, "key", 20);
+
+        cache.put(key, new byte[10]);
+
+        assertNull(cache.get(key));
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    void doesNotCacheValuesBiggerThanTheCache() {
+        OffHeapNodeCache cache = new OffHeapNodeCache(CACHE_SIZE);
+        byte[] hash = TestUtils.generateBytes(OffHeapNodeCacheTest.class, "hash", 32);
+
+        cache.put(hash, new byte[CACHE_SIZE]);
+
+        assertNull(cache.get(hash));
+        assertEquals(0, cache.getSizeInBytes());
+    }
+
+    @Test
+    void evictsOldestEntriesWhenFull() {
+        OffHeapNodeCache cache = new OffHeapNodeCache(CACHE_SIZE);
+        Random random = new Random(OffHeapNodeCacheTest.class.hashCode());
+        List<byte[]> hashes = new ArrayList<>();
+        List<byte[]> values = new ArrayList<>();
+
+        int entries = 20_000;
+        for (int i = 0; i < entries; i++) {
+            byte[] hash = TestUtils.generateBytesFromRandom(random, 32);
+            byte[] value = TestUtils.generateBytesFromRandom(random, 1 + random.nextInt(200));
+            cache.put(hash, value);
+            hashes.add(hash);
+            values.add(value);
+        }
+
+        assertTrue(cache.getEvictionCount() > 0);
+        assertEquals(entries, cache.getEvictionCount() + cache.getEntryCount());
+        assertTrue(cache.getSizeInBytes() <= CACHE_SIZE);
+
+        // the oldest entries were evicted, the newest ones are still there, and all of them are consistent
+        assertNull(cache.get(hashes.get(0)));
+        assertArrayEquals(values.get(entries - 1), cache.get(hashes.get(entries - 1)));
+
+        int found = 0;
+        for (int i = 0; i < entries; i++) {
+            byte[] value = cache.get(hashes.get(i));
+
+            if (value != null) {
+                assertArrayEquals(values.get(i), value);
+                found++;
+            }
+        }
+
+        assertEquals(cache.getEntryCount(), found);
+    }
+
+    @Test
+    void clear() {
+        OffHeapNodeCache cache = new OffHeapNodeCache(CACHE_SIZE);
+        byte[] hash = TestUtils.generateBytes(OffHeapNodeCacheTest.class, "hash", 32);
+        cache.put(hash, new byte[10]);
+
+        cache.clear();
+
+        assertNull(cache.get(hash));
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSizeInBytes());
+    }
+
+    @Test
+    void rejectsTooSmallSize() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapNodeCache(10));
+    }
+}
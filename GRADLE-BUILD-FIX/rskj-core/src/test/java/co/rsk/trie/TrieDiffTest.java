@@ -0,0 +1,128 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.trie;
+
+import org.ethereum.TestUtils;
+import org.ethereum.datasource.HashMapDB;
+import org.ethereum.db.ByteArrayWrapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrieDiffTest {
+
+    @Test
+    void sameTrieHasNoDifferences() {
+        Trie trie = new Trie().put("foo", "bar".getBytes()).put("fob", "baz".getBytes());
+
+        assertTrue(diff(trie, trie).isEmpty());
+    }
+
+    @Test
+    void reportsAddedUpdatedAndRemovedKeys() {
+        Trie from = new Trie()
+                .put("foo", "bar".getBytes())
+                .put("fob", "baz".getBytes())
+                .put("qux", "quux".getBytes());
+        Trie to = from
+                .put("foo", "new".getBytes())
+                .delete("qux")
+                .put("fo", "short".getBytes());
+
+        Map<ByteArrayWrapper, byte[]> differences = diff(from, to);
+
+        assertEquals(3, differences.size());
+        assertArrayEquals("new".getBytes(), differences.get(key("foo")));
+        assertArrayEquals("short".getBytes(), differences.get(key("fo")));
+        assertTrue(differences.containsKey(key("qux")));
+        assertNull(differences.get(key("qux")));
+    }
+
+    @Test
+    void reportsLongValues() {
+        byte[] longValue = TestUtils.generateBytes(TrieDiffTest.class, "long", 100);
+        Trie from = new Trie().put("foo", "bar".getBytes());
+        Trie to = from.put("foo", longValue);
+
+        Map<ByteArrayWrapper, byte[]> differences = diff(from, to);
+
+        assertEquals(1, differences.size());
+        assertArrayEquals(longValue, differences.get(key("foo")));
+    }
+
+    @Test
+    void collectsAllTheKeys() {
+        Trie trie = new Trie().put("foo", "bar".getBytes()).put("fob", "baz".getBytes());
+        Map<ByteArrayWrapper, byte[]> collected = new HashMap<>();
+
+        TrieDiff.collect(trie, (k, v) -> collected.put(new ByteArrayWrapper(k), v));
+
+        assertEquals(2, collected.size());
+        assertArrayEquals("bar".getBytes(), collected.get(key("foo")));
+        assertArrayEquals("baz".getBytes(), collected.get(key("fob")));
+    }
+
+    @Test
+    void appliedDifferencesReproduceTheTargetTrie() {
+        TrieStore store = new TrieStoreImpl(new HashMapDB());
+        Random random = new Random(TrieDiffTest.class.hashCode());
+        Trie from = new Trie(store);
+
+        for (int i = 0; i < 500; i++) {
+            from = from.put(TestUtils.generateBytesFromRandom(random, 1 + random.nextInt(40)),
+                    TestUtils.generateBytesFromRandom(random, 1 + random.nextInt(60)));
+        }
+
+        Trie to = from;
+
+        for (int i = 0; i < 100; i++) {
+            to = to.put(TestUtils.generateBytesFromRandom(random, 1 + random.nextInt(40)),
+                    TestUtils.generateBytesFromRandom(random, 1 + random.nextInt(60)));
+        }
+
+        store.save(from);
+        store.save(to);
+
+        // walk the tries as retrieved from the store, with their nodes not loaded yet
+        Trie storedFrom = store.retrieve(from.getHash().getBytes()).get();
+        Trie storedTo = store.retrieve(to.getHash().getBytes()).get();
+
+        Trie[] result = {from};
+        TrieDiff.diff(storedFrom, storedTo, (k, v) -> result[0] = v == null ? result[0].delete(k) : result[0].put(k, v));
+        assertEquals(to.getHash(), result[0].getHash());
+
+        result[0] = to;
+        TrieDiff.diff(storedTo, storedFrom, (k, v) -> result[0] = v == null ? result[0].delete(k) : result[0].put(k, v));
+        assertEquals(from.getHash(), result[0].getHash());
+    }
+
+    private static Map<ByteArrayWrapper, byte[]> diff(Trie from, Trie to) {
+        Map<ByteArrayWrapper, byte[]> differences = new HashMap<>();
+        TrieDiff.diff(from, to, (k, v) -> differences.put(new ByteArrayWrapper(k), v));
+        return differences;
+    }
+
+    private static ByteArrayWrapper key(String key) {
+        return new ByteArrayWrapper(key.getBytes());
+    }
+}
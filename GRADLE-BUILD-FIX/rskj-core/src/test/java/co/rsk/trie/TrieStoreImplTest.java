@@ -19,6 +19,7 @@
 package co.rsk.trie;
 
 import co.rsk.crypto.Keccak256;
+import org.ethereum.TestUtils;
 import org.ethereum.crypto.Keccak256Helper;
 import org.ethereum.datasource.HashMapDB;
 import org.junit.jupiter.api.Assertions;
@@ -50,6 +51,7 @@ class TrieStoreImplTest {
 
         verify(map, times(1)).put(trie.getHash().getBytes(), trie.toMessage());
         verify(map, times(0)).get(trie.getHash().getBytes());
+        verify(map, times(1)).updateBatch(any(), any());
         verifyNoMoreInteractions(map);
     }
 
@@ -61,6 +63,7 @@ class TrieStoreImplTest {
 
         verify(map, times(1)).put(trie.getHash().getBytes(), trie.toMessage());
         verify(map, times(0)).get(trie.getHash().getBytes());
+        verify(map, times(1)).updateBatch(any(), any());
         verifyNoMoreInteractions(map);
 
         Trie newTrie = store.retrieve(trie.getHash().getBytes()).get();
@@ -82,6 +85,7 @@ class TrieStoreImplTest {
         verify(map, times(1)).put(trie.getHash().getBytes(), trie.toMessage());
         verify(map, times(1)).put(trie.getValueHash().getBytes(), trie.getValue());
         verify(map, times(0)).get(trie.getHash().getBytes());
+        verify(map, times(1)).updateBatch(any(), any());
         verifyNoMoreInteractions(map);
 
         Trie newTrie = store.retrieve(trie.getHash().getBytes()).get();
@@ -100,6 +104,7 @@ class TrieStoreImplTest {
 
         verify(map, times(1)).put(trie.getHash().getBytes(), trie.toMessage());
         verify(map, times(0)).get(trie.getHash().getBytes());
+        verify(map, times(1)).updateBatch(any(), any());
         verifyNoMoreInteractions(map);
     }
 
@@ -112,6 +117,7 @@ class TrieStoreImplTest {
         verify(map, times(1)).put(trie.getHash().getBytes(), trie.toMessage());
         verify(map, times(1)).put(trie.getValueHash().getBytes(), trie.getValue());
         verify(map, times(0)).get(trie.getHash().getBytes());
+        verify(map, times(1)).updateBatch(any(), any());
         verifyNoMoreInteractions(map);
     }
 
@@ -126,6 +132,7 @@ class TrieStoreImplTest {
         verify(map, times(trie.trieSize())).put(any(), any());
         verify(map, times(1)).put(trie.getHash().getBytes(), trie.toMessage());
         verify(map, times(0)).get(trie.getHash().getBytes());
+        verify(map, times(1)).updateBatch(any(), any());
         verifyNoMoreInteractions(map);
     }
 
@@ -137,12 +144,14 @@ class TrieStoreImplTest {
 
         verify(map, times(1)).put(trie.getHash().getBytes(), trie.toMessage());
         verify(map, times(0)).get(trie.getHash().getBytes());
+        verify(map, times(1)).updateBatch(any(), any());
         verifyNoMoreInteractions(map);
 
         store.save(trie);
 
         verify(map, times(1)).put(trie.getHash().getBytes(), trie.toMessage());
         verify(map, times(0)).get(trie.getHash().getBytes());
+        verify(map, times(1)).updateBatch(any(), any());
         verifyNoMoreInteractions(map);
     }
 
@@ -165,6 +174,7 @@ class TrieStoreImplTest {
         verify(map, times(trie.trieSize() + 1)).put(any(), any());
         verify(map, times(0)).get(hash1.getBytes());
         verify(map, times(0)).get(hash2.getBytes());
+        verify(map, times(2)).updateBatch(any(), any());
         verifyNoMoreInteractions(map);
     }
 
@@ -183,9 +193,30 @@ class TrieStoreImplTest {
         verify(map, times(trie.trieSize() + 1)).put(any(), any());
         verify(map, times(0)).get(any());
 
+        verify(map, times(2)).updateBatch(any(), any());
         verifyNoMoreInteractions(map);
     }
 
+    @Test
+    void saveBigTrieInOneBatch() {
+        Trie trie = new Trie(store);
+        for (int k = 0; k < 1000; k++) {
+            trie = trie.put(Keccak256Helper.keccak256(("key" + k).getBytes()), TrieValueTest.makeValue(k % 100 + 1));
+        }
+
+        store.save(trie);
+
+        verify(map, times(1)).updateBatch(any(), any());
+        Assertions.assertTrue(trie.wasSaved());
+
+        Trie retrieved = new TrieStoreImpl(map).retrieve(trie.getHash().getBytes()).get();
+        for (int k = 0; k < 1000; k++) {
+            Assertions.assertArrayEquals(
+                    TrieValueTest.makeValue(k % 100 + 1),
+                    retrieved.get(Keccak256Helper.keccak256(("key" + k).getBytes())));
+        }
+    }
+
     @Test
     void retrieveTrieNotFound() {
         Assertions.assertFalse(store.retrieve(new byte[] { 0x01, 0x02, 0x03, 0x04 }).isPresent());
@@ -239,4 +270,116 @@ class TrieStoreImplTest {
 
         verify(map, times(1)).get(any());
     }
+
+    @Test
+    void retrieveFromOffHeapCacheAfterSave() {
+        TrieStoreImpl cachedStore = new TrieStoreImpl(map, new OffHeapNodeCache(1 << 20), 0);
+        Trie trie = new Trie(cachedStore)
+                .put("baaaaaaaaaaaaaaaaaaaaar", "foooooooooooooooooooooo".getBytes())
+                .put("foooooooooooooooooooooo", TrieValueTest.makeValue(100));
+
+        cachedStore.save(trie);
+
+        Trie trie2 = cachedStore.retrieve(trie.getHash().getBytes()).get();
+
+        Assertions.assertEquals(trie.trieSize(), trie2.trieSize());
+        Assertions.assertArrayEquals(TrieValueTest.makeValue(100), trie2.get("foooooooooooooooooooooo"));
+        verify(map, never()).get(any());
+    }
+
+    @Test
+    void offHeapCacheIsFilledOnRetrieve() {
+        Trie trie = new Trie(store)
+                .put("baaaaaaaaaaaaaaaaaaaaar", "foooooooooooooooooooooo".getBytes())
+                .put("foooooooooooooooooooooo", "baaaaaaaaaaaaaaaaaaaaar".getBytes());
+
+        store.save(trie);
+
+        TrieStoreImpl cachedStore = new TrieStoreImpl(map, new OffHeapNodeCache(1 << 20), 0);
+        cachedStore.retrieve(trie.getHash().getBytes());
+        cachedStore.retrieve(trie.getHash().getBytes());
+
+        verify(map, times(1)).get(trie.getHash().getBytes());
+    }
+
+    @Test
+    void disposeClearsTheOffHeapCache() {
+        OffHeapNodeCache nodeCache = new OffHeapNodeCache(1 << 20);
+        TrieStoreImpl cachedStore = new TrieStoreImpl(map, nodeCache, 0);
+        Trie trie = new Trie(cachedStore)
+                .put("baaaaaaaaaaaaaaaaaaaaar", "foooooooooooooooooooooo".getBytes())
+                .put("foooooooooooooooooooooo", TrieValueTest.makeValue(100));
+
+        cachedStore.save(trie);
+        Assertions.assertNotNull(nodeCache.get(trie.getHash().getBytes()));
+
+        cachedStore.dispose();
+
+        Assertions.assertNull(nodeCache.get(trie.getHash().getBytes()));
+        Assertions.assertEquals(0, nodeCache.getEntryCount());
+    }
+
+    @Test
+    void retrieveDecodedNodeFromCache() {
+        Trie trie = new Trie(store)
+                .put("baaaaaaaaaaaaaaaaaaaaar", "foooooooooooooooooooooo".getBytes())
+                .put("foooooooooooooooooooooo", "baaaaaaaaaaaaaaaaaaaaar".getBytes());
+
+        store.save(trie);
+
+        TrieStoreImpl cachedStore = new TrieStoreImpl(map, null, 100);
+        Trie retrieved1 = cachedStore.retrieve(trie.getHash().getBytes()).get();
+        Trie retrieved2 = cachedStore.retrieve(trie.getHash().getBytes()).get();
+
+        verify(map, times(1)).get(trie.getHash().getBytes());
+        Assertions.assertNotSame(retrieved1, retrieved2);
+        Assertions.assertEquals(trie.getHash(), retrieved2.getHash());
+        Assertions.assertTrue(retrieved2.wasSaved());
+
+        // loading the children of a retrieved node doesn't load them in the others
+        Assertions.assertEquals(trie.trieSize(), retrieved1.trieSize());
+        Assertions.assertTrue(retrieved1.getLeft().wasLoaded());
+        Assertions.assertFalse(retrieved2.getLeft().wasLoaded());
+        Assertions.assertFalse(cachedStore.retrieve(trie.getHash().getBytes()).get().getLeft().wasLoaded());
+    }
+
+    @Test
+    void decodedNodesKeepTheHashTheyWereRetrievedBy() {
+        Trie trie = new Trie(store)
+                .put("baaaaaaaaaaaaaaaaaaaaar", "foooooooooooooooooooooo".getBytes())
+                .put("foooooooooooooooooooooo", "baaaaaaaaaaaaaaaaaaaaar".getBytes());
+
+        store.save(trie);
+
+        TrieStoreImpl cachedStore = new TrieStoreImpl(map, null, 100);
+        Trie retrieved1 = cachedStore.retrieve(trie.getHash().getBytes()).get();
+        Trie retrieved2 = cachedStore.retrieve(trie.getHash().getBytes()).get();
+
+        // neither the decoded node nor its cached copies compute the hash from their content
+        Assertions.assertEquals(trie.getHash(), TestUtils.getInternalState(retrieved1, "hash"));
+        Assertions.assertEquals(trie.getHash(), TestUtils.getInternalState(retrieved2, "hash"));
+    }
+
+    @Test
+    void copiesOfDecodedNodesDontShareEmbeddedChildren() {
+        Trie trie = new Trie(store)
+                .put("a", "1".getBytes())
+                .put("b", "2".getBytes());
+
+        store.save(trie);
+
+        TrieStoreImpl cachedStore = new TrieStoreImpl(map, null, 100);
+        Trie retrieved1 = cachedStore.retrieve(trie.getHash().getBytes()).get();
+        Assertions.assertTrue(retrieved1.getLeft().isEmbeddable());
+        // computes the hash of the embedded child in the reference
+        retrieved1.getLeft().getHash();
+
+        Trie retrieved2 = cachedStore.retrieve(trie.getHash().getBytes()).get();
+
+        // embedded children aren't in the store, they are copied instead of being retrieved by hash
+        Assertions.assertTrue(retrieved2.getLeft().wasLoaded());
+        Assertions.assertNotSame(retrieved1.getLeft().getNode().get(), retrieved2.getLeft().getNode().get());
+        Assertions.assertArrayEquals("1".getBytes(), retrieved2.get("a"));
+        Assertions.assertArrayEquals("2".getBytes(), retrieved2.get("b"));
+    }
 }
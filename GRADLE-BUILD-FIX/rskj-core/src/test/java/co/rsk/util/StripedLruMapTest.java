@@ -0,0 +1,139 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLruMapTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        StripedLruMap<Integer, String> map = new StripedLruMap<>(3);
+
+        map.put(1, "one");
+        map.put(2, "two");
+        map.put(3, "three");
+        map.get(1);
+        map.put(4, "four");
+
+        assertEquals(3, map.size());
+        assertTrue(map.containsKey(1));
+        assertFalse(map.containsKey(2));
+        assertEquals(1, map.getEvictionCount());
+    }
+
+    @Test
+    void storesNullValues() {
+        StripedLruMap<Integer, String> map = new StripedLruMap<>(10);
+
+        map.put(1, null);
+
+        assertTrue(map.containsKey(1));
+        assertNull(map.getOrDefault(1, "default"));
+        assertEquals("default", map.getOrDefault(2, "default"));
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        StripedLruMap<Integer, String> map = new StripedLruMap<>(10);
+        assertEquals(0, map.getHitRate());
+
+        map.put(1, "one");
+        map.put(2, null);
+        map.get(1);
+        map.getOrDefault(2, "default");
+        map.get(3);
+        map.getOrDefault(4, "default");
+
+        assertEquals(2, map.getHitCount());
+        assertEquals(2, map.getMissCount());
+        assertEquals(0.5, map.getHitRate());
+    }
+
+    @Test
+    void keepsMaxSizeAcrossSegments() {
+        int maxSize = 64 * 256;
+        StripedLruMap<Integer, Integer> map = new StripedLruMap<>(maxSize, 64);
+
+        for (int i = 0; i < maxSize * 4; i++) {
+            map.put(i, i);
+        }
+
+        assertTrue(map.size() <= maxSize);
+        assertEquals(maxSize * 4L - map.size(), map.getEvictionCount());
+    }
+
+    @Test
+    void entrySetIsACopy() {
+        StripedLruMap<Integer, String> map = new StripedLruMap<>(10);
+        map.put(1, "one");
+        map.put(2, null);
+
+        Map<Integer, String> copy = new HashMap<>();
+        map.forEach(copy::put);
+        map.clear();
+
+        assertEquals(2, copy.size());
+        assertEquals("one", copy.get(1));
+        assertTrue(copy.containsKey(2));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void concurrentReadsAndWrites() throws Exception {
+        int maxSize = 4096;
+        StripedLruMap<Integer, Integer> map = new StripedLruMap<>(maxSize);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int t = 0; t < 8; t++) {
+                int offset = t * 1000;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        int key = offset + i % 2000;
+                        map.put(key, key);
+                        Integer value = map.get(key);
+                        assertTrue(value == null || value == key);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(map.size() <= maxSize);
+    }
+}
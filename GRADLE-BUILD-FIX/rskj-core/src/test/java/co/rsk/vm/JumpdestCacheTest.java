@@ -0,0 +1,74 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package co.rsk.vm;
+
+import co.rsk.crypto.Keccak256;
+import org.ethereum.crypto.HashUtil;
+import org.ethereum.db.MutableRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JumpdestCacheTest {
+
+    private final AtomicInteger analyses = new AtomicInteger();
+
+    @Test
+    void analyzesTheCodeOnce() {
+        JumpdestCache cache = new JumpdestCache();
+        Keccak256 codeHash = new Keccak256(HashUtil.keccak256(new byte[] { 0x5b }));
+
+        BitSet first = cache.get(codeHash, this::analysis);
+        BitSet second = cache.get(codeHash, this::analysis);
+
+        assertSame(first, second);
+        assertEquals(1, analyses.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void doesNotCacheTheHashesOfAccountsWithoutCode() {
+        JumpdestCache cache = new JumpdestCache();
+
+        cache.get(Keccak256.ZERO_HASH, this::analysis);
+        cache.get(Keccak256.ZERO_HASH, this::analysis);
+        cache.get(MutableRepository.KECCAK_256_OF_EMPTY_ARRAY, this::analysis);
+
+        assertEquals(3, analyses.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void keepsAtMostTheMaximumSize() {
+        JumpdestCache cache = new JumpdestCache(10);
+
+        for (int i = 0; i < 100; i++) {
+            cache.get(new Keccak256(HashUtil.keccak256(new byte[] { (byte) i })), this::analysis);
+        }
+
+        assertTrue(cache.size() <= 10);
+    }
+
+    private BitSet analysis() {
+        analyses.incrementAndGet();
+        return new BitSet(1);
+    }
+}
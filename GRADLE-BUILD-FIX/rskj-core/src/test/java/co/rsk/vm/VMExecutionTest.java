@@ -21,6 +21,7 @@ import co.rsk.config.TestSystemProperties;
 import co.rsk.config.VmConfig;
 import co.rsk.core.Coin;
 import co.rsk.core.RskAddress;
+import co.rsk.crypto.Keccak256;
 import org.ethereum.config.Constants;
 import org.ethereum.config.blockchain.upgrades.ActivationConfig;
 import org.ethereum.core.BlockFactory;
@@ -635,6 +636,24 @@ class VMExecutionTest {
         Assertions.assertTrue(jumpdestSet.get(3));
     }
 
+    @Test
+    void programsWithTheSameCodeHashShareTheJumpdests() {
+        byte[] code = compiler.compile("JUMPDEST PUSH1 0x5b JUMPDEST");
+        Keccak256 codeHash = new Keccak256(HashUtil.keccak256(code));
+        JumpdestCache jumpdestCache = new JumpdestCache();
+
+        Program program1 = new Program(vmConfig, precompiledContracts, blockFactory, mock(ActivationConfig.ForBlock.class), code, invoke, null, new HashSet<>(), new BlockTxSignatureCache(new ReceivedTxSignatureCache()), jumpdestCache, codeHash);
+        Program program2 = new Program(vmConfig, precompiledContracts, blockFactory, mock(ActivationConfig.ForBlock.class), code, invoke, null, new HashSet<>(), new BlockTxSignatureCache(new ReceivedTxSignatureCache()), jumpdestCache, codeHash);
+
+        BitSet jumpdestSet = program1.getJumpdestSet();
+
+        Assertions.assertSame(jumpdestSet, program2.getJumpdestSet());
+        Assertions.assertEquals(1, jumpdestCache.size());
+        Assertions.assertTrue(jumpdestSet.get(0));
+        Assertions.assertFalse(jumpdestSet.get(2));
+        Assertions.assertTrue(jumpdestSet.get(3));
+    }
+
     @Test
     void thePathOfFifteenThousandJumps() {
         byte[] bytecode = new byte[15000 * 6 + 3];
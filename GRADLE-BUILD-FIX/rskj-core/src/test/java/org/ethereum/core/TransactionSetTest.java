@@ -171,4 +171,97 @@ class TransactionSetTest {
         Assertions.assertEquals(1, result.size());
         Assertions.assertEquals(transaction.getHash(), result.get(0).getHash());
     }
+
+    @Test
+    void getTransactionsWithSenderOrderedByNonce() {
+        TransactionSet txset = new TransactionSet(signatureCache);
+        Transaction transaction0 = createSampleTransaction(1, 2, 100, 0);
+        Transaction transaction1 = createSampleTransaction(1, 2, 100, 1);
+        Transaction transaction2 = createSampleTransaction(1, 2, 100, 2);
+
+        txset.addTransaction(transaction2);
+        txset.addTransaction(transaction0);
+        txset.addTransaction(transaction1);
+
+        List<Transaction> result = txset.getTransactionsWithSender(transaction0.getSender());
+
+        Assertions.assertEquals(3, result.size());
+        Assertions.assertEquals(transaction0.getHash(), result.get(0).getHash());
+        Assertions.assertEquals(transaction1.getHash(), result.get(1).getHash());
+        Assertions.assertEquals(transaction2.getHash(), result.get(2).getHash());
+    }
+
+    @Test
+    void getCheapestLastTransactionOfSingleTransactionSenders() {
+        TransactionSet txset = new TransactionSet(signatureCache);
+
+        Assertions.assertFalse(txset.getCheapestLastTransaction(RskAddress.nullAddress()).isPresent());
+
+        Transaction transaction1 = createSampleTransactionWithGasPrice(1, 2, 100, 0, 20);
+        Transaction transaction2 = createSampleTransactionWithGasPrice(2, 3, 100, 0, 10);
+        Transaction transaction3 = createSampleTransactionWithGasPrice(3, 4, 100, 0, 30);
+
+        txset.addTransaction(transaction1);
+        txset.addTransaction(transaction2);
+        txset.addTransaction(transaction3);
+
+        Assertions.assertEquals(3, txset.size());
+        Assertions.assertSame(transaction2, txset.getCheapestLastTransaction(RskAddress.nullAddress()).get());
+
+        txset.removeTransactionByHash(transaction2.getHash());
+
+        Assertions.assertEquals(2, txset.size());
+        Assertions.assertSame(transaction1, txset.getCheapestLastTransaction(RskAddress.nullAddress()).get());
+    }
+
+    @Test
+    void replacedTransactionIsNoLongerTheCheapest() {
+        TransactionSet txset = new TransactionSet(signatureCache);
+        Transaction transaction = createSampleTransactionWithGasPrice(1, 2, 100, 0, 10);
+        Transaction replacement = createSampleTransactionWithGasPrice(1, 2, 100, 0, 20);
+
+        txset.addTransaction(transaction);
+        txset.addTransaction(replacement);
+
+        Assertions.assertEquals(1, txset.size());
+        Assertions.assertSame(replacement, txset.getCheapestLastTransaction(RskAddress.nullAddress()).get());
+    }
+
+    @Test
+    void getCheapestLastTransaction() {
+        TransactionSet txset = new TransactionSet(signatureCache);
+        Transaction transaction1 = createSampleTransactionWithGasPrice(1, 3, 100, 0, 10);
+        Transaction transaction2 = createSampleTransactionWithGasPrice(1, 3, 100, 1, 20);
+        Transaction transaction3 = createSampleTransactionWithGasPrice(2, 3, 100, 0, 15);
+
+        txset.addTransaction(transaction1);
+        txset.addTransaction(transaction2);
+        txset.addTransaction(transaction3);
+
+        Assertions.assertSame(transaction3, txset.getCheapestLastTransaction(RskAddress.nullAddress()).get());
+        Assertions.assertSame(transaction3, txset.getCheapestLastTransaction(transaction2.getSender()).get());
+        Assertions.assertSame(transaction2, txset.getCheapestLastTransaction(transaction3.getSender()).get());
+
+        txset.removeTransactionByHash(transaction2.getHash());
+
+        Assertions.assertSame(transaction1, txset.getCheapestLastTransaction(transaction3.getSender()).get());
+    }
+
+    @Test
+    void copyKeepsTheLastTransactionOfEachSender() {
+        TransactionSet txset = new TransactionSet(signatureCache);
+        Transaction transaction1 = createSampleTransactionWithGasPrice(1, 3, 100, 0, 10);
+        Transaction transaction2 = createSampleTransactionWithGasPrice(1, 3, 100, 1, 20);
+        Transaction transaction3 = createSampleTransactionWithGasPrice(2, 3, 100, 0, 15);
+
+        txset.addTransaction(transaction1);
+        txset.addTransaction(transaction2);
+        txset.addTransaction(transaction3);
+
+        TransactionSet copy = new TransactionSet(txset, signatureCache);
+        copy.removeTransactionByHash(transaction3.getHash());
+
+        Assertions.assertSame(transaction3, txset.getCheapestLastTransaction(RskAddress.nullAddress()).get());
+        Assertions.assertSame(transaction2, copy.getCheapestLastTransaction(RskAddress.nullAddress()).get());
+    }
 }
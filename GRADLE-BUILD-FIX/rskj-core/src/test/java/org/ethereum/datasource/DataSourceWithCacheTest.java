@@ -1,5 +1,6 @@
 package org.ethereum.datasource;
 
+import co.rsk.util.StripedLruMap;
 import org.awaitility.Awaitility;
 import org.ethereum.TestUtils;
 import org.ethereum.db.ByteArrayWrapper;
@@ -141,7 +142,7 @@ class DataSourceWithCacheTest {
         ByteArrayWrapper wrappedKey = ByteUtil.wrap(key);
         byte[] value = TestUtils.generateBytes(this.getClass(), "value", 20);
 
-        Map<ByteArrayWrapper, byte[]> committedCache = spy(new HashMap<>());
+        StripedLruMap<ByteArrayWrapper, byte[]> committedCache = spy(new StripedLruMap<>(CACHE_SIZE));
         committedCache.put(wrappedKey, value);
         TestUtils.setInternalState(dataSourceWithCache, "committedCache", committedCache);
 
@@ -175,7 +176,7 @@ class DataSourceWithCacheTest {
         boolean unlocked = false;
 
         try {
-            Map<ByteArrayWrapper, byte[]> committedCache = spy(new HashMap<>());
+            StripedLruMap<ByteArrayWrapper, byte[]> committedCache = spy(new StripedLruMap<>(CACHE_SIZE));
             TestUtils.setInternalState(dataSourceWithCache, "committedCache", committedCache);
 
             byte[] key1 = TestUtils.generateBytes(this.getClass(), "key1", 20);
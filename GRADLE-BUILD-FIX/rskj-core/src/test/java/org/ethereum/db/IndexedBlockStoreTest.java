@@ -38,6 +38,8 @@ import org.mapdb.DB;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static co.rsk.core.BlockDifficulty.ZERO;
@@ -996,4 +998,56 @@ public abstract class IndexedBlockStoreTest {
         bestBlock = indexedBlockStore.getBestBlock();
         MatcherAssert.assertThat(bestBlock.getNumber(), is(blockToRewind));
     }
+
+    @Test
+    void readBlocksWhileSavingBlocks() throws InterruptedException {
+        IndexedBlockStore indexedBlockStore = new IndexedBlockStore(
+                mock(BlockFactory.class),
+                mock(KeyValueDataSource.class),
+                new HashMapBlocksIndex());
+
+        Random random = new Random(123);
+        List<Block> chain = new ArrayList<>();
+        for (long i = 0; i < 500; i++) {
+            Block block = mock(Block.class);
+            Keccak256 blockHash = new Keccak256(generateBytesFromRandom(random,32));
+            when(block.getHash()).thenReturn(blockHash);
+            when(block.getNumber()).thenReturn(i);
+            chain.add(block);
+        }
+
+        indexedBlockStore.saveBlock(chain.get(0), ZERO, true);
+
+        AtomicBoolean saving = new AtomicBoolean(true);
+        AtomicInteger failures = new AtomicInteger();
+        List<Thread> readers = new ArrayList<>();
+
+        for (int k = 0; k < 4; k++) {
+            Thread reader = new Thread(() -> {
+                while (saving.get()) {
+                    Block bestBlock = indexedBlockStore.getBestBlock();
+                    Block block = indexedBlockStore.getChainBlockByNumber(bestBlock.getNumber());
+
+                    if (block != bestBlock || !indexedBlockStore.isBlockExist(bestBlock.getHash().getBytes())) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        for (Block block : chain.subList(1, chain.size())) {
+            indexedBlockStore.saveBlock(block, ZERO, true);
+        }
+
+        saving.set(false);
+
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(0, failures.get());
+        assertEquals(499, indexedBlockStore.getBestBlock().getNumber());
+    }
 }
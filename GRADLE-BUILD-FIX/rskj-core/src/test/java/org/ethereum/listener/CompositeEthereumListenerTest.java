@@ -0,0 +1,123 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.listener;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class CompositeEthereumListenerTest {
+
+    @Test
+    void invokesListenersOnTheCallerThreadByDefault() {
+        CompositeEthereumListener composite = new CompositeEthereumListener();
+        RecordingListener listener = new RecordingListener(0);
+        composite.addListener(listener);
+
+        composite.trace("one");
+
+        Assertions.assertEquals(Collections.singletonList("one"), listener.outputs);
+        Assertions.assertEquals(Thread.currentThread(), listener.thread);
+        Assertions.assertTrue(composite.getListenerStats().get(0).isSynchronous());
+    }
+
+    @Test
+    void invokesEachListenerOnItsOwnThreadInOrder() throws InterruptedException {
+        CompositeEthereumListener composite = new CompositeEthereumListener(10);
+        RecordingListener listener = new RecordingListener(3);
+        composite.addListener(listener);
+
+        composite.trace("one");
+        composite.trace("two");
+        composite.trace("three");
+
+        Assertions.assertTrue(listener.received.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(3, listener.outputs.size());
+        Assertions.assertEquals("one", listener.outputs.get(0));
+        Assertions.assertEquals("two", listener.outputs.get(1));
+        Assertions.assertEquals("three", listener.outputs.get(2));
+        Assertions.assertNotEquals(Thread.currentThread(), listener.thread);
+
+        composite.removeListener(listener);
+    }
+
+    @Test
+    void slowListenerDoesNotHoldBackTheCallerNorTheSynchronousListeners() throws InterruptedException {
+        CompositeEthereumListener composite = new CompositeEthereumListener(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        EthereumListener slowListener = new EthereumListenerAdapter() {
+            @Override
+            public void trace(String output) {
+                blocked.countDown();
+
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        RecordingListener synchronousListener = new RecordingListener(0);
+        composite.addListener(slowListener);
+        composite.addSynchronousListener(synchronousListener);
+
+        composite.trace("one");
+        Assertions.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        for (int k = 0; k < 5; k++) {
+            composite.trace("more");
+        }
+
+        Assertions.assertEquals(6, synchronousListener.outputs.size());
+        Assertions.assertEquals(Thread.currentThread(), synchronousListener.thread);
+
+        ListenerStats slowStats = composite.getListenerStats().get(0);
+        Assertions.assertFalse(slowStats.isSynchronous());
+        Assertions.assertEquals(2, slowStats.getQueued());
+        Assertions.assertEquals(3, slowStats.getDropped());
+
+        release.countDown();
+        composite.removeListener(slowListener);
+        composite.removeListener(synchronousListener);
+
+        Assertions.assertTrue(composite.getListenerStats().isEmpty());
+    }
+
+    private static class RecordingListener extends EthereumListenerAdapter {
+        private final List<String> outputs = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch received;
+        private volatile Thread thread;
+
+        RecordingListener(int expected) {
+            this.received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void trace(String output) {
+            thread = Thread.currentThread();
+            outputs.add(output);
+            received.countDown();
+        }
+    }
+}
@@ -19,13 +19,20 @@
 package org.ethereum.rpc;
 
 import co.rsk.core.RskAddress;
+import co.rsk.crypto.Keccak256;
+import co.rsk.logfilter.LogIndexStore;
 import co.rsk.test.builders.AccountBuilder;
 import org.ethereum.TestUtils;
 import org.ethereum.core.Account;
 import org.ethereum.core.Bloom;
+import org.ethereum.datasource.HashMapDB;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
+
 /**
  * Created by ajlopez on 18/01/2018.
  */
@@ -86,6 +93,39 @@ class AddressesTopicsFilterTest {
         Assertions.assertTrue(filter.matchBloom(getAllBloom()));
     }
 
+    @Test
+    void matchIndexWithAddressesAndTopics() {
+        RskAddress address1 = new AccountBuilder().name("account1").build().getAddress();
+        RskAddress address2 = new AccountBuilder().name("account2").build().getAddress();
+        Topic topic = createTopic();
+
+        LogIndexStore logIndexStore = new LogIndexStore(4, 0, new HashMapDB());
+        LogIndexStore.Batch batch = logIndexStore.newBatch();
+        batch.addBlock(0, Keccak256.ZERO_HASH, Collections.emptyList());
+        batch.addBlock(1, Keccak256.ZERO_HASH, Collections.singletonList(createLog(address1, topic)));
+        batch.addBlock(2, Keccak256.ZERO_HASH, Collections.singletonList(createLog(address1, null)));
+        batch.addBlock(3, Keccak256.ZERO_HASH, Collections.singletonList(createLog(address2, topic)));
+        logIndexStore.addBatch(batch);
+
+        Assertions.assertNull(new AddressesTopicsFilter(new RskAddress[0], null).matchIndex(logIndexStore, 0, 3));
+        Assertions.assertArrayEquals(new long[] { 1, 2 },
+                new AddressesTopicsFilter(new RskAddress[] { address1 }, null).matchIndex(logIndexStore, 0, 3));
+        Assertions.assertArrayEquals(new long[] { 1, 2, 3 },
+                new AddressesTopicsFilter(new RskAddress[] { address1, address2 }, null).matchIndex(logIndexStore, 0, 3));
+        Assertions.assertArrayEquals(new long[] { 1, 3 },
+                new AddressesTopicsFilter(new RskAddress[0], new Topic[][] {{}, { topic }}).matchIndex(logIndexStore, 0, 3));
+        Assertions.assertArrayEquals(new long[] { 1 },
+                new AddressesTopicsFilter(new RskAddress[] { address1 }, new Topic[][] {{ topic }}).matchIndex(logIndexStore, 0, 3));
+        Assertions.assertArrayEquals(new long[] { 3 },
+                new AddressesTopicsFilter(new RskAddress[] { address2 }, new Topic[][] {{ topic }}).matchIndex(logIndexStore, 2, 3));
+    }
+
+    private static LogInfo createLog(RskAddress address, Topic topic) {
+        return new LogInfo(address.getBytes(),
+                topic == null ? Collections.emptyList() : Collections.singletonList(DataWord.valueOf(topic.getBytes())),
+                new byte[0]);
+    }
+
     private static Topic createTopic() {
         byte[] bytes = TestUtils.generateBytes(AddressesTopicsFilterTest.class,"topic",32);
         return new Topic(bytes);
@@ -23,6 +23,7 @@ import co.rsk.core.Coin;
 import co.rsk.core.RskAddress;
 import co.rsk.db.RepositoryLocator;
 import co.rsk.logfilter.BlocksBloomStore;
+import co.rsk.rpc.BlockRangeScanner;
 import co.rsk.test.builders.AccountBuilder;
 import co.rsk.test.builders.BlockBuilder;
 import co.rsk.test.builders.TransactionBuilder;
@@ -38,6 +39,7 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.math.BigInteger;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -240,6 +242,45 @@ LogFilterTest {
         assertEquals(-32012,ex.getCode());
     }
 
+    @Test
+    void fromFilterRequestInParallelReturnsTheSameLogsInOrder() {
+        RskTestFactory factory = new RskTestFactory(tempDir);
+        Blockchain blockchain = factory.getBlockchain();
+        BlockStore blockStore = factory.getBlockStore();
+        BlocksBloomStore blocksBloomStore = factory.getBlocksBloomStore();
+        TestUtils.setInternalState(blocksBloomStore, "noBlocks", 2);
+        TestUtils.setInternalState(blocksBloomStore, "noConfirmations", 1);
+        RepositoryLocator repositoryLocator = factory.getRepositoryLocator();
+
+        BlockBuilder blockBuilder = new BlockBuilder(blockchain, null, blockStore)
+                .trieStore(factory.getTrieStore());
+
+        Account acc1 = new AccountBuilder(blockchain,blockStore,repositoryLocator)
+                .name("acc1").balance(Coin.valueOf(1000000000)).build();
+
+        createBlocksTo(300, blockBuilder, blockchain, acc1);
+
+        FilterRequest fr = new FilterRequest();
+        fr.setFromBlock("earliest");
+
+        Object[] expected = LogFilter.fromFilterRequest(fr, blockchain, blocksBloomStore).getEvents();
+
+        fr = new FilterRequest();
+        fr.setFromBlock("earliest");
+
+        Object[] result = LogFilter.fromFilterRequest(fr, blockchain, blocksBloomStore, null, new BlockRangeScanner(4), 0L, 0L).getEvents();
+
+        assertEquals(300, expected.length);
+        assertEquals(Arrays.toString(expected), Arrays.toString(result));
+
+        FilterRequest limitedRequest = new FilterRequest();
+        limitedRequest.setFromBlock("earliest");
+
+        RskJsonRpcRequestException ex = assertThrows(RskJsonRpcRequestException.class, () ->
+                LogFilter.fromFilterRequest(limitedRequest, blockchain, blocksBloomStore, null, new BlockRangeScanner(4), 0L, 100L));
+        assertEquals(-32012, ex.getCode());
+    }
+
     @Test
     void addFilter_mustFail_whenLimitIsReached(){
         int limit = 2;
@@ -530,6 +530,39 @@ class MemoryTest {
         assertEquals(10, zero);
     }
 
+    @Test
+    void copyPadsWithZerosPastTheEndOfTheData() {
+        Memory memoryBuffer = new Memory();
+        memoryBuffer.write(0, new byte[] { 9, 9, 9, 9, 9, 9 }, 6, false);
+
+        byte[] code = { 1, 2, 3, 4 };
+        memoryBuffer.copy(1, code, 2, 4);
+
+        assertArrayEquals(new byte[] { 9, 3, 4, 0, 0, 9 }, memoryBuffer.read(0, 6));
+        assertEquals(32, memoryBuffer.size());
+
+        memoryBuffer.copy(40, code, 10, 2);
 
+        assertArrayEquals(new byte[] { 0, 0 }, memoryBuffer.read(40, 2));
+        assertEquals(64, memoryBuffer.size());
+    }
+
+    @Test
+    void growingKeepsTheWrittenData() {
+        Memory memoryBuffer = new Memory();
+        DataWord first = DataWord.valueOf(1);
+        DataWord last = DataWord.valueOf(2);
+
+        memoryBuffer.write(0, first.getData(), WORD_SIZE, false);
+        memoryBuffer.write(10 * CHUNK_SIZE - WORD_SIZE, last.getData(), WORD_SIZE, false);
+        memoryBuffer.extend(50 * CHUNK_SIZE, 1);
+
+        assertEquals(first, memoryBuffer.readWord(0));
+        assertEquals(last, memoryBuffer.readWord(10 * CHUNK_SIZE - WORD_SIZE));
+        assertEquals(51 * CHUNK_SIZE, memoryBuffer.internalSize());
+        assertEquals(51, memoryBuffer.getChunks().size());
+        assertEquals(1, memoryBuffer.getChunks().get(0)[WORD_SIZE - 1]);
+        assertEquals(2, memoryBuffer.getChunks().get(9)[CHUNK_SIZE - 1]);
+    }
 
 }
@@ -0,0 +1,162 @@
+/*
+ * This file is part of RskJ
+ * Copyright (C) 2024 RSK Labs Ltd.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.ethereum.vm;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutableDataWordTest {
+
+    private static final BigInteger TWO_256 = BigInteger.ONE.shiftLeft(256);
+    private static final BigInteger MAX_VALUE = TWO_256.subtract(BigInteger.ONE);
+    private static final int ITERATIONS = 20_000;
+
+    private final MutableDataWord x = new MutableDataWord();
+    private final MutableDataWord y = new MutableDataWord();
+    private final MutableDataWord z = new MutableDataWord();
+
+    @Test
+    void limbsRoundTrip() {
+        Random random = new Random(1);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            DataWord word = word(randomValue(random));
+            assertEquals(word, x.set(word).toDataWord());
+        }
+    }
+
+    @Test
+    void unsignedOperationsMatchBigInteger() {
+        Random random = new Random(2);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            BigInteger a = randomValue(random);
+            BigInteger b = randomValue(random);
+            BigInteger c = randomValue(random);
+
+            assertResult(a.add(b), x.set(word(a)).add(y.set(word(b))));
+            assertResult(a.subtract(b), x.set(word(a)).sub(y.set(word(b))));
+            assertResult(a.multiply(b), x.set(word(a)).mul(y.set(word(b))));
+            assertResult(b.signum() == 0 ? BigInteger.ZERO : a.divide(b), x.set(word(a)).div(y.set(word(b))));
+            assertResult(b.signum() == 0 ? BigInteger.ZERO : a.mod(b), x.set(word(a)).mod(y.set(word(b))));
+            assertResult(c.signum() == 0 ? BigInteger.ZERO : a.add(b).mod(c),
+                    x.set(word(a)).addmod(y.set(word(b)), z.set(word(c))));
+            assertResult(c.signum() == 0 ? BigInteger.ZERO : a.multiply(b).mod(c),
+                    x.set(word(a)).mulmod(y.set(word(b)), z.set(word(c))));
+        }
+    }
+
+    @Test
+    void signedOperationsMatchBigInteger() {
+        Random random = new Random(3);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            DataWord a = word(randomValue(random));
+            DataWord b = word(randomValue(random));
+
+            BigInteger expectedDiv = b.isZero() ? BigInteger.ZERO : a.sValue().divide(b.sValue());
+            assertResult(expectedDiv, x.set(a).sDiv(y.set(b)));
+
+            BigInteger expectedMod = BigInteger.ZERO;
+            if (!b.isZero()) {
+                expectedMod = a.sValue().abs().mod(b.sValue().abs());
+                expectedMod = a.sValue().signum() == -1 ? expectedMod.negate() : expectedMod;
+            }
+            assertResult(expectedMod, x.set(a).sMod(y.set(b)));
+        }
+    }
+
+    @Test
+    void expMatchesBigInteger() {
+        Random random = new Random(4);
+
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            BigInteger base = randomValue(random);
+            BigInteger exponent = random.nextBoolean() ? randomValue(random) : BigInteger.valueOf(random.nextInt(300));
+
+            assertResult(base.modPow(exponent, TWO_256), x.set(word(base)).exp(y.set(word(exponent))));
+        }
+    }
+
+    @Test
+    void signedDivisionOverflow() {
+        DataWord minValue = word(BigInteger.ONE.shiftLeft(255));
+        DataWord minusOne = word(MAX_VALUE);
+
+        assertEquals(minValue, x.set(minValue).sDiv(y.set(minusOne)).toDataWord());
+        assertEquals(DataWord.ZERO, x.set(minValue).sMod(y.set(minusOne)).toDataWord());
+    }
+
+    @Test
+    void operandsMayBeTheSameWord() {
+        BigInteger a = MAX_VALUE.subtract(BigInteger.valueOf(12345));
+
+        assertResult(a.multiply(a), x.set(word(a)).mul(x));
+        assertResult(a.modPow(a, TWO_256), x.set(word(a)).exp(x));
+        assertResult(BigInteger.ZERO, x.set(word(a)).sMod(x));
+        assertResult(BigInteger.ZERO, x.set(word(a)).mulmod(x, x));
+    }
+
+    @Test
+    void dataWordOperationsUseTheSameArithmetic() {
+        DataWord a = word(MAX_VALUE.subtract(BigInteger.TEN));
+        DataWord b = DataWord.valueOf(7);
+
+        assertEquals(x.set(a).mul(y.set(b)).toDataWord(), a.mul(b));
+        assertEquals(x.set(a).div(y.set(b)).toDataWord(), a.div(b));
+        assertEquals(x.set(a).mulmod(y.set(a), z.set(b)).toDataWord(), a.mulmod(a, b));
+        assertEquals(DataWord.ZERO, a.div(DataWord.ZERO));
+    }
+
+    private static void assertResult(BigInteger expected, MutableDataWord actual) {
+        assertEquals(word(expected), actual.toDataWord());
+    }
+
+    private static DataWord word(BigInteger value) {
+        byte[] bytes = value.and(MAX_VALUE).toByteArray();
+        byte[] data = new byte[DataWord.BYTES];
+        int length = Math.min(bytes.length, DataWord.BYTES);
+        System.arraycopy(bytes, bytes.length - length, data, DataWord.BYTES - length, length);
+        return DataWord.valueOf(data);
+    }
+
+    /**
+     * Random values biased towards the edge cases: zero, small values, powers of two and values close to the maximum.
+     */
+    private static BigInteger randomValue(Random random) {
+        switch (random.nextInt(7)) {
+            case 0:
+                return BigInteger.valueOf(random.nextInt(3));
+            case 1:
+                return new BigInteger(64, random);
+            case 2:
+                return MAX_VALUE.subtract(BigInteger.valueOf(random.nextInt(3)));
+            case 3:
+                return BigInteger.ONE.shiftLeft(random.nextInt(256));
+            case 4:
+                return new BigInteger(1 + random.nextInt(256), random);
+            default:
+                return new BigInteger(256, random);
+        }
+    }
+}
@@ -255,6 +255,22 @@ class VMCustomTest {
     }
 
 
+    @Test // CALLDATACOPY OP past the end of the data
+    void testCALLDATACOPY_8() {
+
+        VM vm = getSubject();
+        program = getProgram("60406030600037");
+        String m_expected = "000000000000000000000000000000B100000000000000000000000000000000" +
+                "0000000000000000000000000000000000000000000000000000000000000000";
+
+        vm.step(program);
+        vm.step(program);
+        vm.step(program);
+        vm.step(program);
+
+        assertEquals(m_expected, ByteUtil.toHexString(program.getMemory()).toUpperCase());
+    }
+
     @Test // CALLDATACOPY OP mal
     void testCALLDATACOPY_6() {
 
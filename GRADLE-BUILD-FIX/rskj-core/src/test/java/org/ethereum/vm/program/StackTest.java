@@ -8,6 +8,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
+import java.util.EmptyStackException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 
@@ -50,4 +55,64 @@ class StackTest {
         verify(programListener).onStackSwap(eq(1),eq(0));
     }
 
-}
\ No newline at end of file
+    @Test
+    void indexesGoFromTheBottomToTheTop() {
+        stack.push(DataWord.valueOf(1));
+        stack.push(DataWord.valueOf(2));
+        stack.push(DataWord.valueOf(3));
+
+        assertEquals(3, stack.size());
+        assertEquals(DataWord.valueOf(1), stack.get(0));
+        assertEquals(DataWord.valueOf(3), stack.get(2));
+        assertEquals(DataWord.valueOf(3), stack.peek());
+        assertArrayEquals(new DataWord[] { DataWord.valueOf(1), DataWord.valueOf(2), DataWord.valueOf(3) }, stack.toArray());
+
+        List<DataWord> items = new ArrayList<>();
+        stack.forEach(items::add);
+        assertEquals(3, items.size());
+        assertEquals(DataWord.valueOf(1), items.get(0));
+
+        assertEquals(DataWord.valueOf(3), stack.pop());
+        assertEquals(DataWord.valueOf(2), stack.peek());
+        assertEquals(2, stack.size());
+    }
+
+    @Test
+    void swapExchangesTheItems() {
+        stack.push(DataWord.valueOf(1));
+        stack.push(DataWord.valueOf(2));
+        stack.push(DataWord.valueOf(3));
+
+        stack.swap(0, 2);
+
+        assertEquals(DataWord.valueOf(1), stack.peek());
+        assertEquals(DataWord.valueOf(3), stack.get(0));
+        assertEquals(DataWord.valueOf(2), stack.get(1));
+    }
+
+    @Test
+    void emptyStack() {
+        assertTrue(stack.isEmpty());
+        assertThrows(EmptyStackException.class, stack::pop);
+        assertThrows(EmptyStackException.class, stack::peek);
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> stack.get(0));
+
+        stack.push(DataWord.ONE);
+        stack.clear();
+
+        assertTrue(stack.empty());
+        assertEquals(0, stack.toArray().length);
+    }
+
+    @Test
+    void pushOnAFullStackFails() {
+        for (int i = 0; i < Stack.MAX_SIZE; i++) {
+            stack.push(DataWord.valueOf(i));
+        }
+
+        assertThrows(IllegalStateException.class, () -> stack.push(DataWord.ZERO));
+        assertEquals(Stack.MAX_SIZE, stack.size());
+        assertEquals(DataWord.valueOf(Stack.MAX_SIZE - 1), stack.peek());
+    }
+
+}
@@ -186,6 +186,11 @@ public class ProgramInvokeMockImpl implements ProgramInvoke {
         return DataWord.valueOf(size);
     }
 
+    @Override
+    public byte[] getData() {
+        return msgData;
+    }
+
     /*  CALLDATACOPY */
     @Override
     public byte[] getDataCopy(DataWord offsetData, DataWord lengthData) {